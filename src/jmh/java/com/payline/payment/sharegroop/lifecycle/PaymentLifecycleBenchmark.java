@@ -0,0 +1,378 @@
+package com.payline.payment.sharegroop.lifecycle;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.payline.payment.sharegroop.MockUtils;
+import com.payline.payment.sharegroop.service.impl.NotificationServiceImpl;
+import com.payline.payment.sharegroop.service.impl.PaymentServiceImpl;
+import com.payline.payment.sharegroop.service.impl.RefundServiceImpl;
+import com.payline.payment.sharegroop.service.impl.ResetServiceImpl;
+import com.payline.payment.sharegroop.simulator.LatencyDistribution;
+import com.payline.payment.sharegroop.simulator.SharegroopSimulator;
+import com.payline.payment.sharegroop.utils.Constants;
+import com.payline.pmapi.bean.configuration.PartnerConfiguration;
+import com.payline.pmapi.bean.notification.request.NotificationRequest;
+import com.payline.pmapi.bean.notification.response.NotificationResponse;
+import com.payline.pmapi.bean.notification.response.impl.PaymentResponseByNotificationResponse;
+import com.payline.pmapi.bean.payment.ContractConfiguration;
+import com.payline.pmapi.bean.payment.ContractProperty;
+import com.payline.pmapi.bean.payment.PaymentFormContext;
+import com.payline.pmapi.bean.payment.RequestContext;
+import com.payline.pmapi.bean.payment.request.PaymentRequest;
+import com.payline.pmapi.bean.payment.response.PaymentResponse;
+import com.payline.pmapi.bean.payment.response.impl.PaymentResponseFormUpdated;
+import com.payline.pmapi.bean.payment.response.impl.PaymentResponseOnHold;
+import com.payline.pmapi.bean.refund.response.RefundResponse;
+import com.payline.pmapi.bean.refund.response.impl.RefundResponseSuccess;
+import com.payline.pmapi.bean.reset.response.ResetResponse;
+import com.payline.pmapi.bean.reset.response.impl.ResetResponseSuccess;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Macro benchmark of the whole payment lifecycle, through the pmapi services, against the API simulator.
+ *
+ * <p>Each virtual buyer loops over: step 1 (widget script), the order placed in the widget, step 2 (order
+ * verification), the parsing of the completion webhook, then a refund or a reset. The report gives the throughput,
+ * the latency percentiles of each stage and of the whole transaction, the bytes allocated per transaction by the
+ * plugin in the buyer threads and the number of partner API calls per transaction.</p>
+ *
+ * <p>Options are given as key=value arguments:</p>
+ * <ul>
+ *     <li>buyers: number of concurrent virtual buyers (default 16)</li>
+ *     <li>warmup: warm-up duration, in seconds (default 10)</li>
+ *     <li>duration: measurement duration, in seconds (default 30)</li>
+ *     <li>latency: median latency of the simulated API, in milliseconds (default 50)</li>
+ *     <li>sigma: spread of the log-normal latency (default 0.5)</li>
+ *     <li>errorRate, throttleRate, resetRate: fault rates of the simulated API (default 0)</li>
+ *     <li>resetRatio: share of the transactions ending with a reset rather than a refund (default 0.5)</li>
+ *     <li>seed: seed of the simulator and of the buyers (default 42)</li>
+ *     <li>output: JSON file the results are written to (default: standard output only)</li>
+ * </ul>
+ */
+public class PaymentLifecycleBenchmark {
+
+    private enum Stage {
+        STEP1, STEP2, NOTIFICATION, REFUND, RESET, TRANSACTION
+    }
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, String> options;
+    private final Map<Stage, Recorder> recorders = new HashMap<>();
+    private final LongAdder transactions = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    private final PaymentServiceImpl paymentService = new PaymentServiceImpl();
+    private final NotificationServiceImpl notificationService = new NotificationServiceImpl();
+    private final RefundServiceImpl refundService = new RefundServiceImpl();
+    private final ResetServiceImpl resetService = new ResetServiceImpl();
+
+    private SharegroopSimulator simulator;
+    private ContractConfiguration contractConfiguration;
+    private PartnerConfiguration partnerConfiguration;
+    private volatile boolean measuring;
+    private volatile boolean running = true;
+
+    private PaymentLifecycleBenchmark(Map<String, String> options) {
+        this.options = options;
+        for (Stage stage : Stage.values()) {
+            recorders.put(stage, new Recorder(HIGHEST_TRACKABLE_NANOS, 3));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Options must be given as key=value: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        new PaymentLifecycleBenchmark(options).run();
+    }
+
+    private void run() throws Exception {
+        int buyers = intOption("buyers", 16);
+        long warmup = intOption("warmup", 10);
+        long duration = intOption("duration", 30);
+        long seed = intOption("seed", 42);
+        double resetRatio = doubleOption("resetRatio", 0.5);
+
+        try (SharegroopSimulator sim = SharegroopSimulator.builder()
+                .withSeed(seed)
+                .withLatency(LatencyDistribution.logNormal(doubleOption("latency", 50), doubleOption("sigma", 0.5)))
+                .withErrorRate(doubleOption("errorRate", 0))
+                .withThrottleRate(doubleOption("throttleRate", 0))
+                .withResetRate(doubleOption("resetRate", 0))
+                .withThreads(Math.max(8, buyers / 4))
+                .start()) {
+            this.simulator = sim;
+            this.contractConfiguration = aContractConfiguration(sim.getPrivateKey());
+            this.partnerConfiguration = aPartnerConfiguration(sim.getBaseUrl(), sim.getWebhookSecretKey());
+
+            CountDownLatch done = new CountDownLatch(buyers);
+            for (int i = 0; i < buyers; i++) {
+                Random random = new Random(seed + i);
+                Thread thread = new Thread(() -> {
+                    try {
+                        buyerLoop(random, resetRatio);
+                    } finally {
+                        done.countDown();
+                    }
+                }, "virtual-buyer-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
+
+            TimeUnit.SECONDS.sleep(warmup);
+            // start measuring: reset everything recorded during the warm-up
+            for (Recorder recorder : recorders.values()) {
+                recorder.reset();
+            }
+            transactions.reset();
+            failures.reset();
+            allocatedBytes.reset();
+            long callsBefore = sim.getCallCount();
+            long start = System.nanoTime();
+            measuring = true;
+
+            TimeUnit.SECONDS.sleep(duration);
+            measuring = false;
+            long elapsed = System.nanoTime() - start;
+            long calls = sim.getCallCount() - callsBefore;
+            running = false;
+            done.await(1, TimeUnit.MINUTES);
+
+            report(buyers, elapsed, calls);
+        }
+    }
+
+    private void buyerLoop(Random random, double resetRatio) {
+        Probe probe = new Probe();
+        while (running) {
+            probe.measured = measuring;
+            probe.allocated = 0;
+            long start = System.nanoTime();
+            boolean success = transaction(random.nextDouble() < resetRatio, probe);
+            if (probe.measured && measuring) {
+                recorders.get(Stage.TRANSACTION).recordValue(Math.min(System.nanoTime() - start, HIGHEST_TRACKABLE_NANOS));
+                allocatedBytes.add(probe.allocated);
+                transactions.increment();
+                if (!success) {
+                    failures.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Run one payment lifecycle.
+     *
+     * @return true if every stage ended as expected
+     */
+    private boolean transaction(boolean reset, Probe probe) {
+        // step 1: the widget script
+        probe.start();
+        PaymentResponse step1 = paymentService.paymentRequest(aPaymentRequest(Collections.emptyMap(), null));
+        probe.stop(Stage.STEP1);
+        if (!(step1 instanceof PaymentResponseFormUpdated)) {
+            return false;
+        }
+
+        // the buyers pay in the widget, which gives the order id to step 2
+        String orderId = simulator.placeOrder(1000, "foo@bar.baz");
+        probe.start();
+        PaymentResponse step2 = paymentService.paymentRequest(aPaymentRequest(
+                Collections.singletonMap("STEP", "STEP2"), "{\"order\":\"" + orderId + "\",\"email\":\"foo@bar.baz\"}"));
+        probe.stop(Stage.STEP2);
+        if (!(step2 instanceof PaymentResponseOnHold)) {
+            return false;
+        }
+
+        // the last participant pays: Sharegroop sends the completion webhook
+        simulator.completeOrder(orderId);
+        SharegroopSimulator.SignedEvent event = simulator.sign(SharegroopSimulator.EVENT_COMPLETED, orderId);
+        probe.start();
+        NotificationResponse notification = notificationService.parse(aNotificationRequest(event));
+        probe.stop(Stage.NOTIFICATION);
+        if (!(notification instanceof PaymentResponseByNotificationResponse)) {
+            return false;
+        }
+
+        // the merchant refunds or resets the transaction
+        if (reset) {
+            probe.start();
+            ResetResponse response = resetService.resetRequest(MockUtils.aPaylineResetRequestBuilder()
+                    .withTransactionId(orderId)
+                    .withContractConfiguration(contractConfiguration)
+                    .withPartnerConfiguration(partnerConfiguration)
+                    .build());
+            probe.stop(Stage.RESET);
+            return response instanceof ResetResponseSuccess;
+        } else {
+            probe.start();
+            RefundResponse response = refundService.refundRequest(MockUtils.aPaylineRefundRequestBuilder()
+                    .withTransactionId(orderId)
+                    .withContractConfiguration(contractConfiguration)
+                    .withPartnerConfiguration(partnerConfiguration)
+                    .build());
+            probe.stop(Stage.REFUND);
+            return response instanceof RefundResponseSuccess;
+        }
+    }
+
+    private PaymentRequest aPaymentRequest(Map<String, String> requestData, String widgetData) {
+        Map<String, String> formParameters = new HashMap<>();
+        if (widgetData != null) {
+            formParameters.put("data", widgetData);
+        }
+        return MockUtils.aPaylinePaymentRequestBuilder()
+                .withContractConfiguration(contractConfiguration)
+                .withPartnerConfiguration(partnerConfiguration)
+                .withRequestContext(RequestContext.RequestContextBuilder.aRequestContext()
+                        .withRequestData(new HashMap<>(requestData))
+                        .build())
+                .withPaymentFormContext(PaymentFormContext.PaymentFormContextBuilder.aPaymentFormContext()
+                        .withPaymentFormParameter(formParameters)
+                        .build())
+                .build();
+    }
+
+    private NotificationRequest aNotificationRequest(SharegroopSimulator.SignedEvent event) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+        headers.put("SG-Signature", event.getSignature());
+        return NotificationRequest.NotificationRequestBuilder.aNotificationRequest()
+                .withHeaderInfos(headers)
+                .withContent(new ByteArrayInputStream(event.getContent().getBytes(StandardCharsets.UTF_8)))
+                .withHttpMethod("POST")
+                .withPathInfo("notification")
+                .withEnvironment(MockUtils.anEnvironment())
+                .withPartnerConfiguration(partnerConfiguration)
+                .build();
+    }
+
+    private void report(int buyers, long elapsedNanos, long partnerCalls) throws IOException {
+        long count = transactions.sum();
+        JsonObject results = new JsonObject();
+        results.addProperty("buyers", buyers);
+        results.addProperty("durationSeconds", elapsedNanos / 1e9);
+        results.addProperty("transactions", count);
+        results.addProperty("failures", failures.sum());
+        results.addProperty("throughputPerSecond", count / (elapsedNanos / 1e9));
+        results.addProperty("allocatedBytesPerTransaction", count == 0 ? 0 : allocatedBytes.sum() / count);
+        results.addProperty("partnerCallsPerTransaction", count == 0 ? 0 : (double) partnerCalls / count);
+
+        JsonObject simulatorOptions = new JsonObject();
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            if (!"output".equals(option.getKey())) {
+                simulatorOptions.addProperty(option.getKey(), option.getValue());
+            }
+        }
+        results.add("options", simulatorOptions);
+
+        JsonObject latencies = new JsonObject();
+        for (Stage stage : Stage.values()) {
+            Histogram histogram = recorders.get(stage).getIntervalHistogram();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            JsonObject stageLatencies = new JsonObject();
+            stageLatencies.addProperty("count", histogram.getTotalCount());
+            stageLatencies.addProperty("meanMillis", histogram.getMean() / 1e6);
+            for (double percentile : PERCENTILES) {
+                stageLatencies.addProperty("p" + percentile, histogram.getValueAtPercentile(percentile) / 1e6);
+            }
+            stageLatencies.addProperty("maxMillis", histogram.getMaxValue() / 1e6);
+            latencies.add(stage.name().toLowerCase(), stageLatencies);
+        }
+        results.add("latencyMillis", latencies);
+
+        String json = new GsonBuilder().setPrettyPrinting().create().toJson(results);
+        System.out.println(json);
+        String output = options.get("output");
+        if (output != null) {
+            File file = new File(output);
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+                writer.write(json);
+            }
+        }
+    }
+
+    /**
+     * Measures the plugin calls of a virtual buyer: their latency, and the bytes they allocate in the buyer thread.
+     * The work of the simulator (placing, completing and signing orders) is left out of the allocations.
+     */
+    private class Probe {
+        private final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        private final long threadId = Thread.currentThread().getId();
+        private boolean measured;
+        private long allocated;
+        private long startNanos;
+        private long startAllocated;
+
+        private void start() {
+            startAllocated = threadBean.getThreadAllocatedBytes(threadId);
+            startNanos = System.nanoTime();
+        }
+
+        private void stop(Stage stage) {
+            long elapsed = System.nanoTime() - startNanos;
+            allocated += threadBean.getThreadAllocatedBytes(threadId) - startAllocated;
+            if (measured) {
+                recorders.get(stage).recordValue(Math.min(elapsed, HIGHEST_TRACKABLE_NANOS));
+            }
+        }
+    }
+
+    private int intOption(String name, int defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private double doubleOption(String name, double defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    private static ContractConfiguration aContractConfiguration(String privateKey) {
+        Map<String, ContractProperty> contractProperties = new HashMap<>();
+        contractProperties.put(Constants.ContractConfigurationKeys.PRIVATE_KEY, new ContractProperty(privateKey));
+        contractProperties.put(Constants.ContractConfigurationKeys.PUBLIC_KEY, new ContractProperty("PublicKey"));
+        contractProperties.put(Constants.ContractConfigurationKeys.SECURE_3D, new ContractProperty("true"));
+        contractProperties.put(Constants.ContractConfigurationKeys.UX, new ContractProperty("collect"));
+        return new ContractConfiguration("Sharegroop", contractProperties);
+    }
+
+    private static PartnerConfiguration aPartnerConfiguration(String baseUrl, String webhookSecretKey) {
+        Map<String, String> partnerConfiguration = new HashMap<>();
+        partnerConfiguration.put(Constants.PartnerConfigurationKeys.SHAREGROOP_URL, baseUrl);
+        partnerConfiguration.put(Constants.PartnerConfigurationKeys.SHAREGROOP_WIDGET_URL, "https://widget.sandbox.sharegroop.com/widget.js");
+        Map<String, String> sensitiveConfiguration = new HashMap<>();
+        sensitiveConfiguration.put(Constants.PartnerConfigurationKeys.SHAREGROOP_WEBHOOK_SECRET_KEY, webhookSecretKey);
+        return new PartnerConfiguration(partnerConfiguration, sensitiveConfiguration);
+    }
+}
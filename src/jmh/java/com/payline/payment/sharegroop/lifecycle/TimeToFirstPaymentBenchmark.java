@@ -0,0 +1,116 @@
+package com.payline.payment.sharegroop.lifecycle;
+
+import com.payline.payment.sharegroop.MockUtils;
+import com.payline.payment.sharegroop.service.impl.PaymentServiceImpl;
+import com.payline.payment.sharegroop.simulator.SharegroopSimulator;
+import com.payline.payment.sharegroop.utils.Constants;
+import com.payline.payment.sharegroop.utils.warmup.PluginWarmUp;
+import com.payline.pmapi.bean.configuration.PartnerConfiguration;
+import com.payline.pmapi.bean.payment.ContractConfiguration;
+import com.payline.pmapi.bean.payment.ContractProperty;
+import com.payline.pmapi.bean.payment.PaymentFormContext;
+import com.payline.pmapi.bean.payment.RequestContext;
+import com.payline.pmapi.bean.payment.request.PaymentRequest;
+import com.payline.pmapi.bean.payment.response.PaymentResponse;
+import com.payline.pmapi.bean.payment.response.impl.PaymentResponseOnHold;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to the first payment after a deploy: the creation of the payment service, then the two steps of a payment
+ * against the API simulator, in a fresh JVM each time. With warmUp=true, {@link PluginWarmUp} runs before, as it would
+ * at startup; with warmUp=false, the first payment initializes the plugin itself.
+ *
+ * <p>The simulator runs in the same JVM: the JDK and Gson classes it loads are already loaded in both cases, so the
+ * gap measured is a lower bound.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class TimeToFirstPaymentBenchmark {
+
+    @Param({"false", "true"})
+    private boolean warmUp;
+
+    private SharegroopSimulator simulator;
+    private ContractConfiguration contractConfiguration;
+    private PartnerConfiguration partnerConfiguration;
+    private String orderId;
+
+    @Setup
+    public void setup() throws IOException {
+        simulator = SharegroopSimulator.builder().start();
+
+        Map<String, ContractProperty> contractProperties = new HashMap<>();
+        contractProperties.put(Constants.ContractConfigurationKeys.PRIVATE_KEY, new ContractProperty(simulator.getPrivateKey()));
+        contractProperties.put(Constants.ContractConfigurationKeys.PUBLIC_KEY, new ContractProperty("PublicKey"));
+        contractProperties.put(Constants.ContractConfigurationKeys.SECURE_3D, new ContractProperty("true"));
+        contractProperties.put(Constants.ContractConfigurationKeys.UX, new ContractProperty("collect"));
+        contractConfiguration = new ContractConfiguration("Sharegroop", contractProperties);
+
+        Map<String, String> partnerProperties = new HashMap<>();
+        partnerProperties.put(Constants.PartnerConfigurationKeys.SHAREGROOP_URL, simulator.getBaseUrl());
+        partnerProperties.put(Constants.PartnerConfigurationKeys.SHAREGROOP_WIDGET_URL, "https://widget.sandbox.sharegroop.com/widget.js");
+        partnerConfiguration = new PartnerConfiguration(partnerProperties, new HashMap<>());
+
+        // the order the buyer will place in the widget
+        orderId = simulator.placeOrder(1000, "foo@bar.baz");
+
+        if (warmUp) {
+            PluginWarmUp.run(Collections.singletonList(simulator.getBaseUrl()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        simulator.close();
+    }
+
+    @Benchmark
+    public PaymentResponse firstPayment() {
+        PaymentServiceImpl paymentService = new PaymentServiceImpl();
+        paymentService.paymentRequest(aPaymentRequest(Collections.emptyMap(), null));
+        PaymentResponse response = paymentService.paymentRequest(aPaymentRequest(Collections.singletonMap("STEP", "STEP2"),
+                "{\"order\":\"" + orderId + "\",\"email\":\"foo@bar.baz\"}"));
+        if (!(response instanceof PaymentResponseOnHold)) {
+            throw new IllegalStateException("Unexpected payment response: " + response);
+        }
+        return response;
+    }
+
+    private PaymentRequest aPaymentRequest(Map<String, String> requestData, String widgetData) {
+        Map<String, String> formParameters = new HashMap<>();
+        if (widgetData != null) {
+            formParameters.put("data", widgetData);
+        }
+        return MockUtils.aPaylinePaymentRequestBuilder()
+                .withContractConfiguration(contractConfiguration)
+                .withPartnerConfiguration(partnerConfiguration)
+                .withRequestContext(RequestContext.RequestContextBuilder.aRequestContext()
+                        .withRequestData(new HashMap<>(requestData))
+                        .build())
+                .withPaymentFormContext(PaymentFormContext.PaymentFormContextBuilder.aPaymentFormContext()
+                        .withPaymentFormParameter(formParameters)
+                        .build())
+                .build();
+    }
+}
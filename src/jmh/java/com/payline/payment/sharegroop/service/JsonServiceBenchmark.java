@@ -0,0 +1,62 @@
+package com.payline.payment.sharegroop.service;
+
+import com.payline.payment.sharegroop.MockUtils;
+import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the partner API responses, for orders of several sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonServiceBenchmark {
+
+    private static final String ITEMS = "\"items\":[";
+    private static final String ITEM = "{\"name\":\"Product A\",\"description\":\"Description A\",\"amount\":12000,"
+            + "\"id\":\"itm_9de81228-7034-4f17-a07a-c85b8da98cea\",\"quantity\":1,\"trackId\":\"TRACK-A\"}";
+
+    @Param({"1", "20"})
+    private int itemCount;
+
+    private JsonService jsonService;
+    private String response;
+
+    @Setup
+    public void setup() {
+        jsonService = JsonService.getInstance();
+
+        // duplicate the item of the typical order response, as many times as needed
+        String single = MockUtils.aShareGroopResponse("confirmed");
+        int start = single.indexOf(ITEMS) + ITEMS.length();
+        int end = single.indexOf(']', start);
+        StringBuilder items = new StringBuilder();
+        for (int i = 0; i < itemCount; i++) {
+            if (i > 0) {
+                items.append(',');
+            }
+            items.append(ITEM);
+        }
+        response = single.substring(0, start) + items + single.substring(end);
+    }
+
+    @Benchmark
+    public SharegroopAPICallResponse fromJson() {
+        return jsonService.fromJson(response, SharegroopAPICallResponse.class);
+    }
+}
@@ -0,0 +1,46 @@
+package com.payline.payment.sharegroop.service;
+
+import com.payline.payment.sharegroop.service.impl.PaymentFormConfigurationServiceImpl;
+import com.payline.pmapi.bean.paymentform.bean.PaymentFormLogo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serving of the payment method logo, as is and in a given size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogoPaymentFormConfigurationServiceBenchmark {
+
+    private LogoPaymentFormConfigurationService service;
+
+    @Setup
+    public void setup() {
+        service = new PaymentFormConfigurationServiceImpl();
+    }
+
+    @Benchmark
+    public PaymentFormLogo getLogo() {
+        return service.getLogo("Sharegroop", Locale.FRANCE);
+    }
+
+    @Benchmark
+    public PaymentFormLogo getLogo_size() {
+        return service.getLogo("Sharegroop", Locale.FRANCE, 48, 50);
+    }
+}
@@ -0,0 +1,61 @@
+package com.payline.payment.sharegroop.service.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Webhook signature computation and verification, for notifications of several sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationServiceImplBenchmark {
+
+    private static final String SECRET_KEY = "whsec_4f6c1e0d2b7a4c9e8f3a5b6d7c8e9f0a";
+    private static final String EVENT = "{\"event\":\"order.completed\",\"id\":\"ord_326cdac6-05d9-4dc1-bd35-7ea70d997721\",\"date\":1595321904259}";
+
+    /**
+     * Number of copies of a typical webhook event in the notification content.
+     */
+    @Param({"1", "32"})
+    private int contentSize;
+
+    private NotificationServiceImpl service;
+    private String content;
+    private String signature;
+
+    @Setup
+    public void setup() {
+        service = new NotificationServiceImpl();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < contentSize; i++) {
+            sb.append(EVENT);
+        }
+        content = sb.toString();
+        signature = service.hashMac(content, SECRET_KEY);
+    }
+
+    @Benchmark
+    public String hashMac() {
+        return service.hashMac(content, SECRET_KEY);
+    }
+
+    @Benchmark
+    public boolean verifySignature() {
+        return service.verifySignature(SECRET_KEY, content, signature);
+    }
+}
@@ -0,0 +1,74 @@
+package com.payline.payment.sharegroop.service.impl;
+
+import com.payline.payment.sharegroop.MockUtils;
+import com.payline.pmapi.bean.common.Amount;
+import com.payline.pmapi.bean.payment.Order;
+import com.payline.pmapi.bean.payment.request.PaymentRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of the widget script returned by the first step of a payment, for several cart sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentServiceImplBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int cartSize;
+
+    private PaymentServiceImpl service;
+    private PaymentRequest request;
+
+    @Setup
+    public void setup() {
+        service = new PaymentServiceImpl();
+
+        Amount itemAmount = new Amount(BigInteger.valueOf(1250), Currency.getInstance("EUR"));
+        List<Order.OrderItem> items = new ArrayList<>(cartSize);
+        for (int i = 0; i < cartSize; i++) {
+            items.add(Order.OrderItem.OrderItemBuilder.anOrderItem()
+                    .withReference("ITEM-" + i)
+                    .withAmount(itemAmount)
+                    .withQuantity(1L)
+                    .build());
+        }
+        Amount total = new Amount(BigInteger.valueOf(1250L * cartSize), Currency.getInstance("EUR"));
+        Order order = Order.OrderBuilder.anOrder()
+                .withDate(new Date())
+                .withAmount(total)
+                .withItems(items)
+                .withReference("ORDER-REF-123456")
+                .build();
+
+        request = MockUtils.aPaylinePaymentRequestBuilder()
+                .withAmount(total)
+                .withOrder(order)
+                .build();
+    }
+
+    @Benchmark
+    public String getScript() {
+        return service.getScript(request);
+    }
+}
@@ -0,0 +1,57 @@
+package com.payline.payment.sharegroop.utils.http;
+
+import com.payline.payment.sharegroop.simulator.SharegroopSimulator;
+import org.apache.http.client.methods.HttpGet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of a request through the HTTP client, against the in-process API simulator answering immediately.
+ * Measures the client overhead (connection reuse, response reading, logging), not the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SharegroopHttpClientBenchmark {
+
+    private SharegroopSimulator simulator;
+    private SharegroopHttpClient client;
+    private URI uri;
+
+    @Setup
+    public void setup() throws IOException {
+        simulator = SharegroopSimulator.builder().start();
+        String orderId = simulator.placeOrder(12000, "martin@email.com");
+
+        client = new SharegroopHttpClient();
+        uri = URI.create(simulator.getBaseUrl() + "/v1/orders/" + orderId + "/");
+    }
+
+    @TearDown
+    public void tearDown() {
+        simulator.close();
+    }
+
+    @Benchmark
+    public StringResponse execute() {
+        HttpGet httpGet = new HttpGet(uri);
+        httpGet.setHeader("Authorization", simulator.getPrivateKey());
+        return client.execute(httpGet);
+    }
+}
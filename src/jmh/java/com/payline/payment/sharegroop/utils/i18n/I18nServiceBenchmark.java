@@ -0,0 +1,45 @@
+package com.payline.payment.sharegroop.utils.i18n;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message lookups, for a preloaded locale and for a locale resolved on first use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class I18nServiceBenchmark {
+
+    @Param({"fr-FR", "de-DE"})
+    private String languageTag;
+
+    private I18nService i18n;
+    private Locale locale;
+
+    @Setup
+    public void setup() {
+        i18n = I18nService.getInstance();
+        locale = Locale.forLanguageTag(languageTag);
+    }
+
+    @Benchmark
+    public String getMessage() {
+        return i18n.getMessage("paymentMethod.name", locale);
+    }
+}
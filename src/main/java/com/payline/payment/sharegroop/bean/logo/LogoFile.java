@@ -0,0 +1,71 @@
+package com.payline.payment.sharegroop.bean.logo;
+
+import com.payline.payment.sharegroop.exception.PluginException;
+import com.payline.payment.sharegroop.utils.PluginUtils;
+import com.payline.pmapi.bean.paymentform.bean.PaymentFormLogo;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Immutable content of a logo file, with its precomputed entity tag.
+ * The content is never handed out directly: callers get a copy or a read-only view.
+ */
+public final class LogoFile {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private final byte[] content;
+    private final String contentType;
+    private final String eTag;
+
+    public LogoFile(byte[] content, String contentType) {
+        this.content = content.clone();
+        this.contentType = contentType;
+        try {
+            this.eTag = "\"" + PluginUtils.toHexString(MessageDigest.getInstance(HASH_ALGORITHM).digest(this.content)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new PluginException("Plugin error: no such algorithm " + HASH_ALGORITHM, e);
+        }
+    }
+
+    /**
+     * @return a copy of the file content
+     */
+    public byte[] getContent() {
+        return content.clone();
+    }
+
+    /**
+     * @return a read-only view of the file content
+     */
+    public ByteBuffer getContentView() {
+        return ByteBuffer.wrap(content).asReadOnlyBuffer();
+    }
+
+    public int getLength() {
+        return content.length;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return the strong entity tag of the content (quoted hash), to use for revalidation
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * @return a new {@link PaymentFormLogo}, containing a copy of the file content
+     */
+    public PaymentFormLogo toPaymentFormLogo() {
+        return PaymentFormLogo.PaymentFormLogoBuilder.aPaymentFormLogo()
+                .withFile(this.getContent())
+                .withContentType(contentType)
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package com.payline.payment.sharegroop.bean.logo;
+
+/**
+ * A logo rendered at a given size.
+ */
+public final class LogoVariant {
+
+    private final int height;
+    private final int width;
+    private final LogoFile file;
+
+    public LogoVariant(int height, int width, LogoFile file) {
+        this.height = height;
+        this.width = width;
+        this.file = file;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public LogoFile getFile() {
+        return file;
+    }
+}
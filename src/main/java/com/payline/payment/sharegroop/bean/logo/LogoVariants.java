@@ -0,0 +1,50 @@
+package com.payline.payment.sharegroop.bean.logo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable set of the rendered sizes of a logo, sorted from the smallest to the largest.
+ */
+public final class LogoVariants {
+
+    private final LogoVariant[] variants;
+
+    public LogoVariants(Collection<LogoVariant> variants) {
+        if (variants.isEmpty()) {
+            throw new IllegalArgumentException("At least one logo variant is required");
+        }
+        this.variants = variants.toArray(new LogoVariant[0]);
+        Arrays.sort(this.variants, Comparator.comparingLong(v -> (long) v.getHeight() * v.getWidth()));
+    }
+
+    /**
+     * Select the variant to display in the given size: the smallest variant at least as large as the requested size,
+     * or the largest variant if none is large enough.
+     *
+     * @param height the requested height
+     * @param width the requested width
+     * @return the closest variant
+     */
+    public LogoVariant closest(int height, int width) {
+        for (LogoVariant variant : variants) {
+            if (variant.getHeight() >= height && variant.getWidth() >= width) {
+                return variant;
+            }
+        }
+        return variants[variants.length - 1];
+    }
+
+    /**
+     * @return the variants, from the smallest to the largest
+     */
+    public List<LogoVariant> getVariants() {
+        List<LogoVariant> list = new ArrayList<>(variants.length);
+        Collections.addAll(list, variants);
+        return Collections.unmodifiableList(list);
+    }
+}
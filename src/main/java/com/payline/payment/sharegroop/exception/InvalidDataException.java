@@ -12,4 +12,22 @@ public class InvalidDataException extends PluginException {
         super( message, FailureCause.INVALID_DATA, cause );
     }
 
+    private InvalidDataException(String message, Exception cause, boolean writableStackTrace ){
+        super( message, FailureCause.INVALID_DATA, cause, writableStackTrace );
+    }
+
+    /**
+     * Instantiate a stackless exception for an expected invalid data, see {@link PluginException#expected(String, FailureCause)}.
+     */
+    public static InvalidDataException expected(String message ){
+        return new InvalidDataException( message, null, false );
+    }
+
+    /**
+     * Same as {@link #expected(String)}, with a cause.
+     */
+    public static InvalidDataException expected(String message, Exception cause ){
+        return new InvalidDataException( message, cause, false );
+    }
+
 }
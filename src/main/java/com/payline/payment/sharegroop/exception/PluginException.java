@@ -15,6 +15,18 @@ public class PluginException extends RuntimeException {
 
     public static final int ERROR_CODE_MAX_LENGTH = 50;
 
+    /**
+     * The error code of each type of {@link RuntimeException}, without its message: "plugin error: " followed by the
+     * simple class name, truncated.
+     */
+    private static final ClassValue<String> RUNTIME_ERROR_CODES = new ClassValue<String>() {
+        @Override
+        protected String computeValue( Class<?> type ){
+            String name = type.getName();
+            return PluginUtils.truncate( "plugin error: " + name.substring( name.lastIndexOf('.') + 1 ), ERROR_CODE_MAX_LENGTH );
+        }
+    };
+
     private final String errorCode;
     private final FailureCause failureCause;
 
@@ -44,6 +56,39 @@ public class PluginException extends RuntimeException {
         this.failureCause = failureCause;
     }
 
+    /**
+     * Constructor of the stackless exceptions, see {@link #expected(String, FailureCause)}.
+     */
+    protected PluginException( String message, FailureCause failureCause, Exception cause, boolean writableStackTrace ){
+        super(message, cause, writableStackTrace, writableStackTrace);
+        if( message == null || message.length() == 0 || failureCause == null ){
+            throw new IllegalStateException("PluginException must have a non-empty message and a failureCause");
+        }
+        this.errorCode = PluginUtils.truncate( message, ERROR_CODE_MAX_LENGTH );
+        this.failureCause = failureCause;
+    }
+
+    /**
+     * Instantiate an exception for an expected failure (missing data, partner unavailable...), which is part of the
+     * normal processing and doesn't need a stack trace. Filling in the stack trace is the main cost of an exception:
+     * this one skips it. As it has neither a stack trace nor suppressed exceptions, it can also be kept in a
+     * constant and thrown again, with its error code computed once.
+     *
+     * @param message the message, also used as error code
+     * @param failureCause the failure cause
+     * @return the stackless exception
+     */
+    public static PluginException expected( String message, FailureCause failureCause ){
+        return new PluginException( message, failureCause, null, false );
+    }
+
+    /**
+     * Same as {@link #expected(String, FailureCause)}, with a cause.
+     */
+    public static PluginException expected( String message, FailureCause failureCause, Exception cause ){
+        return new PluginException( message, failureCause, cause, false );
+    }
+
     public String getErrorCode() {
         return errorCode;
     }
@@ -106,8 +151,11 @@ public class PluginException extends RuntimeException {
      * @return A truncated errorCode to insert into any FailureResponse object.
      */
     public static String runtimeErrorCode( RuntimeException e ){
-        String errorCode = "plugin error: " + e.toString().substring(e.toString().lastIndexOf('.') + 1);
-        return PluginUtils.truncate( errorCode, ERROR_CODE_MAX_LENGTH );
+        String errorCode = RUNTIME_ERROR_CODES.get( e.getClass() );
+        if( e.getMessage() == null || errorCode.length() >= ERROR_CODE_MAX_LENGTH ){
+            return errorCode;
+        }
+        return PluginUtils.truncate( errorCode + ": " + e.getMessage(), ERROR_CODE_MAX_LENGTH );
     }
 
 }
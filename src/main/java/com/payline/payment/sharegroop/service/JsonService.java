@@ -2,6 +2,10 @@ package com.payline.payment.sharegroop.service;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
 
 public class JsonService {
     private final Gson gson;
@@ -28,4 +32,27 @@ public class JsonService {
     public String toJson(Object o) {
         return gson.toJson(o);
     }
+
+    /**
+     * Build the type adapters of the given classes ahead of their first use, so that the first payments don't pay
+     * for the reflection they involve.
+     *
+     * @param types the classes this service will read or write
+     */
+    public void prime(Class<?>... types) {
+        for (Class<?> type : types) {
+            gson.getAdapter(type);
+        }
+    }
+
+    /**
+     * Create a streaming writer configured like this service, to serialize directly into the given output.
+     *
+     * @param writer the output
+     * @return a JSON writer on top of the output
+     * @throws IOException if the writer cannot be created
+     */
+    public JsonWriter newJsonWriter(Writer writer) throws IOException {
+        return gson.newJsonWriter(writer);
+    }
 }
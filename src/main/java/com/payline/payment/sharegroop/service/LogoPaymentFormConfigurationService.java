@@ -1,8 +1,12 @@
 package com.payline.payment.sharegroop.service;
 
+import com.payline.payment.sharegroop.bean.logo.LogoFile;
+import com.payline.payment.sharegroop.bean.logo.LogoVariants;
 import com.payline.payment.sharegroop.exception.PluginException;
 import com.payline.payment.sharegroop.utils.i18n.I18nService;
+import com.payline.payment.sharegroop.utils.logo.LogoRenderer;
 import com.payline.payment.sharegroop.utils.properties.ConfigProperties;
+import com.payline.payment.sharegroop.utils.properties.PluginConfig;
 import com.payline.pmapi.bean.paymentform.bean.PaymentFormLogo;
 import com.payline.pmapi.bean.paymentform.request.PaymentFormLogoRequest;
 import com.payline.pmapi.bean.paymentform.response.logo.PaymentFormLogoResponse;
@@ -11,67 +15,223 @@ import com.payline.pmapi.logger.LogManager;
 import com.payline.pmapi.service.PaymentFormConfigurationService;
 import org.apache.logging.log4j.Logger;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 public abstract class LogoPaymentFormConfigurationService implements PaymentFormConfigurationService {
 
     private static final Logger LOGGER = LogManager.getLogger(LogoPaymentFormConfigurationService.class);
+
+    /**
+     * Logo files content, by file name. The files never change at runtime, so they are read once.
+     */
+    private static final ConcurrentMap<String, LogoFile> LOGO_FILES = new ConcurrentHashMap<>();
+
+    /**
+     * Rendered sizes of the logo, with the configuration they have been rendered from. Only the current ones are kept: a
+     * reloaded configuration with other logo settings renders them again.
+     */
+    private static final AtomicReference<RenderedLogo> RENDERED_LOGO = new AtomicReference<>();
+
+    /**
+     * Pixel densities for which the logo is always rendered, in addition to the sizes listed in the configuration.
+     */
+    private static final int[] DENSITIES = {1, 2, 3};
+
     protected I18nService i18n = I18nService.getInstance();
     private ConfigProperties config = ConfigProperties.getInstance();
 
-    @Override
-    public PaymentFormLogoResponse getPaymentFormLogo(PaymentFormLogoRequest paymentFormLogoRequest) {
-        Locale locale = paymentFormLogoRequest.getLocale();
-        int height;
-        int width;
+    protected LogoPaymentFormConfigurationService() {
+        // render the logo variants at startup, so that no image processing happens when serving them
         try {
-            height = Integer.valueOf(config.get("logo.height"));
-            width = Integer.valueOf(config.get("logo.width"));
+            this.logoVariants();
         }
-        catch( NumberFormatException e ){
-            throw new PluginException( "Plugin config error: logo height and width must be integers", e );
+        catch( RuntimeException e ){
+            LOGGER.warn("Unable to prepare the logo variants, they will be rendered on first use", e);
         }
+    }
+
+    @Override
+    public PaymentFormLogoResponse getPaymentFormLogo(PaymentFormLogoRequest paymentFormLogoRequest) {
+        Locale locale = paymentFormLogoRequest.getLocale();
+        PluginConfig pluginConfig = config.getConfig();
+        String name = i18n.getMessage("paymentMethod.name", locale);
 
         return PaymentFormLogoResponseFile.PaymentFormLogoResponseFileBuilder.aPaymentFormLogoResponseFile()
-                .withHeight( height )
-                .withWidth( width )
-                .withTitle(i18n.getMessage("paymentMethod.name", locale))
-                .withAlt(i18n.getMessage("paymentMethod.name", locale) + " logo")
+                .withHeight( pluginConfig.getLogoHeight() )
+                .withWidth( pluginConfig.getLogoWidth() )
+                .withTitle( name )
+                .withAlt( name + " logo" )
                 .build();
     }
 
     @Override
     public PaymentFormLogo getLogo(String paymentMethodIdentifier, Locale locale) {
-        final String filename = config.get("logo.filename");
-        final String format = config.get("logo.format");
-        final String contentType = config.get("logo.contentType");
-        return getLogoByFilename(filename, format, contentType);
+        return this.getLogoFile().toPaymentFormLogo();
     }
 
+    /**
+     * Get the logo rendered in the size closest to the requested one (see {@link LogoVariants#closest(int, int)}).
+     * The variants are rendered once: serving them doesn't involve any image processing.
+     *
+     * @param paymentMethodIdentifier the payment method identifier
+     * @param locale the locale
+     * @param height the height the logo will be displayed with, in physical pixels
+     * @param width the width the logo will be displayed with, in physical pixels
+     * @return the logo
+     */
+    public PaymentFormLogo getLogo(String paymentMethodIdentifier, Locale locale, int height, int width) {
+        return this.getLogoVariants().closest(height, width).getFile().toPaymentFormLogo();
+    }
+
+    /**
+     * Get the entity tag of the logo returned by {@link #getLogo(String, Locale)}, to check whether a copy held by the
+     * client is still up to date without transferring the logo again.
+     *
+     * @param paymentMethodIdentifier the payment method identifier
+     * @param locale the locale
+     * @return the entity tag of the logo
+     */
+    public String getLogoETag(String paymentMethodIdentifier, Locale locale) {
+        return this.getLogoFile().getETag();
+    }
+
+    /**
+     * Get a logo from its file. The file content is served as is, so its format is only informative.
+     *
+     * @param filename the name of the file
+     * @param format the format of the file
+     * @param contentType the content type of the file
+     * @return the logo
+     */
     protected PaymentFormLogo getLogoByFilename(final String filename, final String format, final String contentType) {
+        return getLogoFile(filename, contentType).toPaymentFormLogo();
+    }
+
+    private LogoFile getLogoFile() {
+        PluginConfig pluginConfig = config.getConfig();
+        return getLogoFile(pluginConfig.getLogoFilename(), pluginConfig.getLogoContentType());
+    }
+
+    /**
+     * Get the content of a logo file, read from the classpath on first use.
+     *
+     * @param filename the name of the file
+     * @param contentType the content type of the file
+     * @return the logo file
+     */
+    protected LogoFile getLogoFile(final String filename, final String contentType) {
+        if (filename == null) {
+            throw new PluginException("Plugin config error: logo.filename is not set");
+        }
+        LogoFile logoFile = LOGO_FILES.get(filename);
+        if (logoFile == null || !Objects.equals(logoFile.getContentType(), contentType)) {
+            logoFile = new LogoFile(readFile(filename), contentType);
+            LOGO_FILES.put(filename, logoFile);
+        }
+        return logoFile;
+    }
+
+    /**
+     * Get the rendered variants of the configured logo: 1x, 2x and 3x the configured size, plus the sizes listed in
+     * the "logo.variants" property, up to "logo.variants.max" variants.
+     *
+     * @return the logo variants
+     */
+    protected LogoVariants getLogoVariants() {
+        return this.logoVariants();
+    }
+
+    private LogoVariants logoVariants() {
+        final PluginConfig pluginConfig = config.getConfig();
+        RenderedLogo rendered = RENDERED_LOGO.get();
+        if (rendered != null && rendered.config == pluginConfig) {
+            return rendered.variants;
+        }
+        synchronized (RENDERED_LOGO) {
+            rendered = RENDERED_LOGO.get();
+            if (rendered == null || !isSameLogo(rendered.config, pluginConfig)) {
+                rendered = new RenderedLogo(pluginConfig, LogoRenderer.render(
+                        getLogoFile(pluginConfig.getLogoFilename(), pluginConfig.getLogoContentType()),
+                        pluginConfig.getLogoFormat(), getVariantSizes(pluginConfig)));
+            } else if (rendered.config != pluginConfig) {
+                // a reload which didn't change the logo: the next calls only compare the configurations
+                rendered = new RenderedLogo(pluginConfig, rendered.variants);
+            }
+            RENDERED_LOGO.set(rendered);
+            return rendered.variants;
+        }
+    }
+
+    /**
+     * @return true if both configurations render the same logo variants
+     */
+    private static boolean isSameLogo(PluginConfig a, PluginConfig b) {
+        if (!Objects.equals(a.getLogoFilename(), b.getLogoFilename())
+                || !Objects.equals(a.getLogoContentType(), b.getLogoContentType())
+                || !Objects.equals(a.getLogoFormat(), b.getLogoFormat())
+                || a.getLogoHeight() != b.getLogoHeight() || a.getLogoWidth() != b.getLogoWidth()
+                || a.getLogoVariantsMax() != b.getLogoVariantsMax()
+                || a.getLogoVariants().size() != b.getLogoVariants().size()) {
+            return false;
+        }
+        for (int i = 0; i < a.getLogoVariants().size(); i++) {
+            if (!Arrays.equals(a.getLogoVariants().get(i), b.getLogoVariants().get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<int[]> getVariantSizes(PluginConfig pluginConfig) {
+        List<int[]> sizes = new ArrayList<>();
+        for (int density : DENSITIES) {
+            sizes.add(new int[]{pluginConfig.getLogoHeight() * density, pluginConfig.getLogoWidth() * density});
+        }
+        sizes.addAll(pluginConfig.getLogoVariants());
+
+        int max = pluginConfig.getLogoVariantsMax();
+        if (sizes.size() > max) {
+            LOGGER.warn("Too many logo variants configured, only the first {} are rendered", max);
+            return sizes.subList(0, max);
+        }
+        return sizes;
+    }
+
+    private byte[] readFile(final String filename) {
         try (InputStream input = this.getClass().getClassLoader().getResourceAsStream(filename)) {
             if (input == null) {
                 LOGGER.error("Unable to load file {}", filename);
                 throw new PluginException("Plugin error: unable to load the logo file");
             }
-            // Read logo file
-            final BufferedImage logo = ImageIO.read(input);
-
-            // Recover byte array from image
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ImageIO.write(logo, format, baos);
-
-            return PaymentFormLogo.PaymentFormLogoBuilder.aPaymentFormLogo()
-                    .withFile(baos.toByteArray())
-                    .withContentType(contentType)
-                    .build();
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+            return content.toByteArray();
         } catch (final IOException e) {
             throw new PluginException("Plugin error: unable to read the logo", e);
         }
     }
-}
\ No newline at end of file
+
+    private static final class RenderedLogo {
+        private final PluginConfig config;
+        private final LogoVariants variants;
+
+        private RenderedLogo(PluginConfig config, LogoVariants variants) {
+            this.config = config;
+            this.variants = variants;
+        }
+    }
+}
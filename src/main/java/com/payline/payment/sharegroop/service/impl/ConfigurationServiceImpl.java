@@ -1,10 +1,11 @@
 package com.payline.payment.sharegroop.service.impl;
 
 import com.payline.payment.sharegroop.bean.configuration.RequestConfiguration;
-import com.payline.payment.sharegroop.exception.PluginException;
 import com.payline.payment.sharegroop.utils.Constants;
+import com.payline.payment.sharegroop.utils.cache.PrivateKeyValidationCache;
 import com.payline.payment.sharegroop.utils.http.SharegroopHttpClient;
 import com.payline.payment.sharegroop.utils.i18n.I18nService;
+import com.payline.payment.sharegroop.utils.properties.ConfigProperties;
 import com.payline.payment.sharegroop.utils.properties.ReleaseProperties;
 import com.payline.pmapi.bean.configuration.ReleaseInformation;
 import com.payline.pmapi.bean.configuration.parameter.AbstractParameter;
@@ -19,6 +20,12 @@ import com.payline.pmapi.service.ConfigurationService;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ConfigurationServiceImpl implements ConfigurationService {
 
@@ -27,53 +34,62 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         private static final String PICKING = "picking";
     }
 
+    /**
+     * Keys of the contract parameters, in display order. All of them are required.
+     */
+    private static final String[] REQUIRED_KEYS = {
+            Constants.ContractConfigurationKeys.PUBLIC_KEY,
+            Constants.ContractConfigurationKeys.PRIVATE_KEY,
+            Constants.ContractConfigurationKeys.UX,
+            Constants.ContractConfigurationKeys.SECURE_3D
+    };
+
+    private static final Map<String, String> UX_VALUES;
+    static {
+        Map<String, String> uXValues = new HashMap<>();
+        uXValues.put(UX.COLLECT, UX.COLLECT);
+        uXValues.put(UX.PICKING, UX.PICKING);
+        UX_VALUES = Collections.unmodifiableMap(uXValues);
+    }
+
     private I18nService i18n = I18nService.getInstance();
     private ReleaseProperties releaseProperties = ReleaseProperties.getInstance();
     private SharegroopHttpClient sharegroopHttpClient = SharegroopHttpClient.getInstance();
+    private PrivateKeyValidationCache privateKeyValidationCache = new PrivateKeyValidationCache();
+
+    /**
+     * Localized texts of the contract parameters, by locale.
+     */
+    private final Map<Locale, ParameterTexts> textsByLocale = new ConcurrentHashMap<>();
+
+    public ConfigurationServiceImpl() {
+        // warm the texts cache up for the locales declared in the configuration
+        for (String languageTag : ConfigProperties.getInstance().getConfig().getLocales()) {
+            this.getTexts(Locale.forLanguageTag(languageTag));
+        }
+    }
 
     /**------------------------------------------------------------------------------------------------------------------*/
     @Override
     public List<AbstractParameter> getParameters(Locale locale) {
-
-        List<AbstractParameter> parameters = new ArrayList<>();
+        // The pmapi parameters are mutable: new instances are built on each call, from the cached texts
+        ParameterTexts texts = this.getTexts(locale);
+        List<AbstractParameter> parameters = new ArrayList<>(REQUIRED_KEYS.length);
 
         // PUBLIC KEY
-        InputParameter publicKey = new InputParameter();
-        publicKey.setKey( Constants.ContractConfigurationKeys.PUBLIC_KEY );
-        publicKey.setLabel( i18n.getMessage("contract.PUBLIC_KEY.label", locale) );
-        publicKey.setDescription( i18n.getMessage("contract.PUBLIC_KEY.description", locale) );
-        publicKey.setRequired( true );
-        parameters.add( publicKey );
+        parameters.add( texts.applyTo( new InputParameter(), Constants.ContractConfigurationKeys.PUBLIC_KEY ) );
 
         // PRIVATE KEY
-        PasswordParameter privateKey = new PasswordParameter();
-        privateKey.setKey( Constants.ContractConfigurationKeys.PRIVATE_KEY );
-        privateKey.setLabel( i18n.getMessage("contract.PRIVATE_KEY.label", locale) );
-        privateKey.setDescription( i18n.getMessage("contract.PRIVATE_KEY.description", locale) );
-        privateKey.setRequired( true );
-        parameters.add( privateKey );
-
+        parameters.add( texts.applyTo( new PasswordParameter(), Constants.ContractConfigurationKeys.PRIVATE_KEY ) );
 
         // UX
-        ListBoxParameter uX = new ListBoxParameter();
-        uX.setKey( Constants.ContractConfigurationKeys.UX );
-        uX.setLabel( i18n.getMessage("contract.UX.label", locale) );
-        uX.setDescription( i18n.getMessage("contract.UX.description", locale) );
-        Map<String, String> uXValues = new HashMap<>();
-        uXValues.put(UX.COLLECT, UX.COLLECT);
-        uXValues.put(UX.PICKING, UX.PICKING);
-        uX.setList( uXValues );
-        uX.setRequired( true );
+        ListBoxParameter uX = texts.applyTo( new ListBoxParameter(), Constants.ContractConfigurationKeys.UX );
+        uX.setList( new HashMap<>( UX_VALUES ) );
         uX.setValue( UX.COLLECT );
         parameters.add( uX );
 
         // SECURE_3D
-        CheckboxParameter secure3D = new CheckboxParameter();
-        secure3D.setKey(Constants.ContractConfigurationKeys.SECURE_3D);
-        secure3D.setLabel(i18n.getMessage("contract.SECURE_3D.label",locale));
-        secure3D.setDescription(i18n.getMessage("contract.SECURE_3D.description",locale));
-        secure3D.setRequired(true);
-        parameters.add(secure3D);
+        parameters.add( texts.applyTo( new CheckboxParameter(), Constants.ContractConfigurationKeys.SECURE_3D ) );
 
         return parameters;
     }
@@ -88,10 +104,13 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         Locale locale = contractParametersCheckRequest.getLocale();
 
         // check required fields
-        for( AbstractParameter param : this.getParameters( locale ) ){
-            if( param.isRequired() && accountInfo.get( param.getKey() ) == null ){
-                String message = i18n.getMessage("contract." + param.getKey() + ".requiredError", locale);
-                errors.put( param.getKey(), message );
+        ParameterTexts texts = null;
+        for( String key : REQUIRED_KEYS ){
+            if( accountInfo.get( key ) == null ){
+                if( texts == null ){
+                    texts = this.getTexts( locale );
+                }
+                errors.put( key, texts.requiredErrors.get( key ) );
             }
         }
 
@@ -108,18 +127,44 @@ public class ConfigurationServiceImpl implements ConfigurationService {
         contractProperties.put( clientPrivateKey, new ContractProperty( accountInfo.get( clientPrivateKey ) ) );
 
 
-        try {
-            // Try to retrieve an access token
-            sharegroopHttpClient.verifyPrivateKey(requestConfiguration);
-        }
-        catch( PluginException e ){
-            // If an exception is thrown, it means that the client private key is wrong
-            errors.put( clientPrivateKey, e.getErrorCode() );
+        // If an exception is thrown, it means that the client private key is wrong.
+        // The result is reused for identical checks, until it expires.
+        String errorCode = privateKeyValidationCache.validate( requestConfiguration, sharegroopHttpClient::verifyPrivateKey );
+        if( errorCode != null ){
+            errors.put( clientPrivateKey, errorCode );
         }
 
         return errors;
     }
     /**------------------------------------------------------------------------------------------------------------------*/
+    /**
+     * Check several contract configurations at once. The checks run in parallel, with a bounded number of threads,
+     * and the validations of identical private keys are only sent once to the partner.
+     *
+     * @param contractParametersCheckRequests the requests to check
+     * @return the errors of each request, in the same order as the requests
+     */
+    public List<Map<String, String>> checkAll(List<ContractParametersCheckRequest> contractParametersCheckRequests) {
+        List<CompletableFuture<Map<String, String>>> checks = new ArrayList<>(contractParametersCheckRequests.size());
+        for( ContractParametersCheckRequest request : contractParametersCheckRequests ){
+            checks.add( CompletableFuture.supplyAsync( () -> this.check( request ), CheckExecutorHolder.EXECUTOR ) );
+        }
+
+        List<Map<String, String>> results = new ArrayList<>(checks.size());
+        for( CompletableFuture<Map<String, String>> check : checks ){
+            try {
+                results.add( check.join() );
+            }
+            catch( CompletionException e ){
+                if( e.getCause() instanceof RuntimeException ){
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return results;
+    }
+    /**------------------------------------------------------------------------------------------------------------------*/
     @Override
     public ReleaseInformation getReleaseInformation() {
         return ReleaseInformation.ReleaseBuilder.aRelease()
@@ -132,5 +177,59 @@ public class ConfigurationServiceImpl implements ConfigurationService {
     public String getName(Locale locale) {
         return i18n.getMessage("paymentMethod.name", locale);
     }
+    /**------------------------------------------------------------------------------------------------------------------*/
+    private ParameterTexts getTexts(Locale locale) {
+        return textsByLocale.computeIfAbsent(locale, l -> new ParameterTexts(i18n, l));
+    }
+    /**------------------------------------------------------------------------------------------------------------------*/
+    /**
+     * Threads running the bulk checks, created on first use.
+     */
+    private static class CheckExecutorHolder {
+        private static final ExecutorService EXECUTOR = createExecutor();
+
+        private static ExecutorService createExecutor() {
+            int parallelism = ConfigProperties.getInstance().getConfig().getPrivateKeyCheckParallelism();
+
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newFixedThreadPool( parallelism, r -> {
+                Thread thread = new Thread( r, "sharegroop-contract-check-" + count.incrementAndGet() );
+                thread.setDaemon( true );
+                return thread;
+            });
+        }
+    }
+    /**------------------------------------------------------------------------------------------------------------------*/
+    /**
+     * Label, description and required error message of each contract parameter, in a given locale.
+     * Built once, never modified afterwards.
+     */
+    private static final class ParameterTexts {
+        private final Map<String, String> labels;
+        private final Map<String, String> descriptions;
+        private final Map<String, String> requiredErrors;
+
+        private ParameterTexts(I18nService i18n, Locale locale) {
+            Map<String, String> l = new HashMap<>();
+            Map<String, String> d = new HashMap<>();
+            Map<String, String> e = new HashMap<>();
+            for( String key : REQUIRED_KEYS ){
+                l.put( key, i18n.getMessage("contract." + key + ".label", locale) );
+                d.put( key, i18n.getMessage("contract." + key + ".description", locale) );
+                e.put( key, i18n.getMessage("contract." + key + ".requiredError", locale) );
+            }
+            this.labels = Collections.unmodifiableMap(l);
+            this.descriptions = Collections.unmodifiableMap(d);
+            this.requiredErrors = Collections.unmodifiableMap(e);
+        }
+
+        private <T extends AbstractParameter> T applyTo(T parameter, String key) {
+            parameter.setKey( key );
+            parameter.setLabel( labels.get( key ) );
+            parameter.setDescription( descriptions.get( key ) );
+            parameter.setRequired( true );
+            return parameter;
+        }
+    }
 
 }
@@ -5,6 +5,8 @@ import com.payline.payment.sharegroop.exception.PluginException;
 import com.payline.payment.sharegroop.service.JsonService;
 import com.payline.payment.sharegroop.utils.Constants;
 import com.payline.payment.sharegroop.utils.PluginUtils;
+import com.payline.payment.sharegroop.utils.jfr.WebhookVerificationEvent;
+import com.payline.pmapi.bean.common.FailureCause;
 import com.payline.pmapi.bean.common.Message;
 import com.payline.pmapi.bean.common.TransactionCorrelationId;
 import com.payline.pmapi.bean.notification.request.NotificationRequest;
@@ -21,6 +23,7 @@ import org.apache.logging.log4j.Logger;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.Key;
 import java.security.NoSuchAlgorithmException;
@@ -35,6 +38,10 @@ public class NotificationServiceImpl implements NotificationService {
     private static final String SG_SIGNATURE = "SG-Signature";
     private static final int HTTP_OK = 200;
 
+    // Expected failures: stackless, and thrown again and again
+    private static final PluginException MISSING_SECRET_KEY_FAILURE = PluginException.expected("WEBHOOK_SECRET_KEY is needed", FailureCause.INTERNAL_ERROR);
+    private static final PluginException MISSING_SIGNATURE_FAILURE = PluginException.expected("signature is needed", FailureCause.INTERNAL_ERROR);
+
 
     @Override
     public NotificationResponse parse(NotificationRequest request) {
@@ -44,13 +51,13 @@ public class NotificationServiceImpl implements NotificationService {
             String webhookSecretKey = request.getPartnerConfiguration().getProperty(Constants.PartnerConfigurationKeys.SHAREGROOP_WEBHOOK_SECRET_KEY);
             if (webhookSecretKey == null){
                 LOGGER.error("Notification WEBHOOK_SECRET_KEY is needed");
-                throw new PluginException("WEBHOOK_SECRET_KEY is needed");
+                throw MISSING_SECRET_KEY_FAILURE;
             }
 
             String signature = request.getHeaderInfos().get(SG_SIGNATURE);
             if (signature == null){
                 LOGGER.error("Notification signature is needed");
-                throw new PluginException("signature is needed");
+                throw MISSING_SIGNATURE_FAILURE;
             }
 
             // init data
@@ -92,6 +99,8 @@ public class NotificationServiceImpl implements NotificationService {
      * @return
      */
     public boolean verifySignature(String webhookSecretKey, String content, String signature) {
+        WebhookVerificationEvent event = new WebhookVerificationEvent();
+        event.begin();
         Boolean status = false;
 
         if (webhookSecretKey != null && content != null && signature != null) {
@@ -103,6 +112,9 @@ public class NotificationServiceImpl implements NotificationService {
             LOGGER.error("Incorrect data - content : {} - signature : {}", content, signature);
         }
 
+        if (event.shouldCommit()) {
+            event.commit(content == null ? 0 : content.getBytes(StandardCharsets.UTF_8).length, status);
+        }
         return status;
     }
 
@@ -1,5 +1,6 @@
 package com.payline.payment.sharegroop.service.impl;
 
+import com.google.gson.stream.JsonWriter;
 import com.payline.payment.sharegroop.bean.JsResponse;
 import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
 import com.payline.payment.sharegroop.bean.configuration.RequestConfiguration;
@@ -10,8 +11,12 @@ import com.payline.payment.sharegroop.utils.Constants;
 import com.payline.payment.sharegroop.utils.PluginUtils;
 import com.payline.payment.sharegroop.utils.http.SharegroopHttpClient;
 import com.payline.payment.sharegroop.utils.i18n.I18nService;
+import com.payline.payment.sharegroop.utils.jfr.WidgetScriptEvent;
+import com.payline.payment.sharegroop.utils.log.LogCategory;
+import com.payline.payment.sharegroop.utils.log.PluginLogger;
 import com.payline.pmapi.bean.common.FailureCause;
 import com.payline.pmapi.bean.common.OnHoldCause;
+import com.payline.pmapi.bean.payment.ContractProperty;
 import com.payline.pmapi.bean.payment.Order;
 import com.payline.pmapi.bean.payment.RequestContext;
 import com.payline.pmapi.bean.payment.request.PaymentRequest;
@@ -24,12 +29,13 @@ import com.payline.pmapi.bean.paymentform.bean.form.PartnerWidgetForm;
 import com.payline.pmapi.bean.paymentform.bean.form.partnerwidget.*;
 import com.payline.pmapi.bean.paymentform.response.configuration.PaymentFormConfigurationResponse;
 import com.payline.pmapi.bean.paymentform.response.configuration.impl.PaymentFormConfigurationResponseSpecific;
-import com.payline.pmapi.logger.LogManager;
 import com.payline.pmapi.service.PaymentService;
-import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static com.payline.payment.sharegroop.utils.Constants.PartnerConfigurationKeys.SHAREGROOP_WIDGET_URL;
@@ -44,55 +50,27 @@ public class PaymentServiceImpl implements PaymentService {
     private static final String STEP1_DESCRIPTION = "step1.description";
     private static final String STEP2 = "STEP2";
 
-    private static final String SELECTOR = "[SELECTOR]";
-    private static final String PUBLIC_KEY = "[PUBLIC_KEY]";
-    private static final String LOCALE = "[LOCALE]";
-
-    private static final String CURRENCY = "[CURRENCY]";
-    private static final String AMOUNT = "[AMOUNT]";
-
-    private static final String EMAIL = "[EMAIL]";
-    private static final String UX = "[UX]";
-    private static final String FIRSTNAME = "[FIRSTNAME]";
-    private static final String LASTNAME = "[LASTNAME]";
-    private static final String TRACK_ID = "[TRACK_ID]";
-
-    private static final String ITEMS = "[ITEMS]";
-    private static final String ITEM_TRACK_ID = "[ITEM_TRACK_ID]";
-    private static final String ITEM_AMOUNT = "[ITEM_AMOUNT]";
-    private static final String ITEM_QUANTITY = "[ITEM_QUANTITY]";
-
-    private static final String CALLBACK = "[CALLBACK]";
-
-
-    private static final String TEMPLATE_SCRIPT = "ShareGroop.initCaptain({" +
-            "        \"selector\": \"#" + SELECTOR + "\"," +
-            "        \"publicKey\": \"" + PUBLIC_KEY + "\"," +
-            "        \"locale\": \"" + LOCALE + "\"," +
-            "        \"currency\": \"" + CURRENCY + "\"," +
-            "        \"order\": {" +
-            "           \"email\": \"" + EMAIL + "\"," +
-            "           \"ux\": \"" + UX + "\"," +
-            "           \"firstName\": \"" + FIRSTNAME + "\"," +
-            "           \"lastName\": \"" + LASTNAME + "\"," +
-            "           \"trackId\": \"" + TRACK_ID + "\"," +
-            "           \"amount\": " + AMOUNT + "," +
-            "           \"items\": [ " + ITEMS + " ]" +
-            "        }," +
-            "        \"events\": {" +
-            "          \"onValidated\": function(data) { " + CALLBACK + "(data); }," +
-            "          \"onInvalid\": function () {     " + CALLBACK + "(); }," +
-            "          \"onError\": function () {     " + CALLBACK + "(); }" +
-            "        }" +
-            "    }).mount();";
-
-    private static final String TEMPLATE_ITEM = "{" +
-            "               \"trackId\": \"" + ITEM_TRACK_ID + "\"," +
-            "               \"amount\": " + ITEM_AMOUNT + "," +
-            "               \"quantity\": " + ITEM_QUANTITY + "" +
-            "             }";
-
-    private static final Logger LOGGER = LogManager.getLogger(PaymentServiceImpl.class);
+    /**
+     * Static part of the widget initialisation script. It does not depend on the payment, so it is the exact same
+     * string for every order: it receives the per-payment configuration object as its only argument.
+     */
+    private static final String BOOTSTRAP_SCRIPT = "(function(c){" +
+            "c.events={" +
+            "onValidated:function(d){" + CALLBACK_NAME + "(d);}," +
+            "onInvalid:function(){" + CALLBACK_NAME + "();}," +
+            "onError:function(){" + CALLBACK_NAME + "();}" +
+            "};" +
+            "ShareGroop.initCaptain(c).mount();" +
+            "})";
+
+    /**
+     * Initial capacity of the script buffer, large enough for the bootstrap and the configuration of an average cart.
+     */
+    private static final int SCRIPT_INITIAL_CAPACITY = 1024;
+
+    private static final InvalidDataException MISSING_WIDGET_URL_FAILURE = InvalidDataException.expected("PartnerConfig SHAREGROOP_WIDGET_URL is needed");
+
+    private static final PluginLogger LOGGER = PluginLogger.getLogger(PaymentServiceImpl.class);
     private SharegroopHttpClient sharegroopHttpClient = SharegroopHttpClient.getInstance();
     private I18nService i18n = I18nService.getInstance();
     private final JsonService jsonService = JsonService.getInstance();
@@ -103,7 +81,7 @@ public class PaymentServiceImpl implements PaymentService {
         try {
             // get the step
             String step = paymentRequest.getRequestContext().getRequestData().get(CONTEXT_DATA_STEP);
-            LOGGER.info("Step: {}", step);
+            LOGGER.info(LogCategory.PAYMENT_FLOW, "Step: {}", () -> step);
             if (step == null || step.equals("")) {
                 // first step, we've got to return the "captain init" js
                 return step1(paymentRequest);
@@ -133,44 +111,72 @@ public class PaymentServiceImpl implements PaymentService {
         }
     }
 
-    private String getScript(PaymentRequest request) {
-        // create the list of items
-        List<String> itemList = new ArrayList<>();
-        for (Order.OrderItem i : request.getOrder().getItems()) {
-            String item = TEMPLATE_ITEM
-                    .replace(ITEM_TRACK_ID, i.getReference())
-                    .replace(ITEM_AMOUNT, i.getAmount().getAmountInSmallestUnit().toString())
-                    .replace(ITEM_QUANTITY, i.getQuantity().toString());
+    /**
+     * Build the script loaded after the widget import: the constant bootstrap function, called with the configuration
+     * object of the current payment. The whole script is produced in a single streaming write.
+     *
+     * @param request the payment request
+     * @return the script to load
+     */
+    String getScript(PaymentRequest request) {
+        WidgetScriptEvent event = new WidgetScriptEvent();
+        event.begin();
+        StringWriter script = new StringWriter(SCRIPT_INITIAL_CAPACITY);
+        script.write(BOOTSTRAP_SCRIPT);
+        script.write('(');
+        try {
+            JsonWriter writer = jsonService.newJsonWriter(script);
+            writer.beginObject();
+            writer.name("selector").value("#" + DIV_ID);
+            writer.name("publicKey").value(request.getContractConfiguration().getProperty(Constants.ContractConfigurationKeys.PUBLIC_KEY).getValue());
+            writer.name("locale").value(request.getLocale().getLanguage());
+            writer.name("currency").value(request.getAmount().getCurrency().getCurrencyCode());
+
+            writer.name("order").beginObject();
+            writer.name("email").value(request.getBuyer().getEmail());
+            writer.name("ux").value(request.getContractConfiguration().getProperty(Constants.ContractConfigurationKeys.UX).getValue());
+            writer.name("firstName").value(request.getBuyer().getFullName().getFirstName());
+            writer.name("lastName").value(request.getBuyer().getFullName().getLastName());
+            writer.name("trackId").value(request.getOrder().getReference());
+            writer.name("amount").value(request.getAmount().getAmountInSmallestUnit());
+
+            writer.name("items").beginArray();
+            for (Order.OrderItem i : request.getOrder().getItems()) {
+                writer.beginObject();
+                writer.name("trackId").value(i.getReference());
+                writer.name("amount").value(i.getAmount().getAmountInSmallestUnit());
+                writer.name("quantity").value(i.getQuantity());
+                writer.endObject();
+            }
+            writer.endArray();
 
-            itemList.add(item);
+            writer.endObject();
+            writer.endObject();
+            writer.flush();
+        } catch (IOException e) {
+            throw new PluginException("Plugin error: unable to write the widget configuration", e);
+        }
+        script.write(");");
+
+        String result = script.toString();
+        if (event.shouldCommit()) {
+            ContractProperty privateKey = request.getContractConfiguration().getProperty(Constants.ContractConfigurationKeys.PRIVATE_KEY);
+            event.commit(PluginUtils.merchantHash(privateKey == null ? null : privateKey.getValue()),
+                    request.getOrder().getItems().size(),
+                    result.getBytes(StandardCharsets.UTF_8).length);
         }
-        String items = String.join(",", itemList);
-
-        // create Script with good values
-        return TEMPLATE_SCRIPT
-                .replace(SELECTOR, DIV_ID)
-                .replace(PUBLIC_KEY, request.getContractConfiguration().getProperty(Constants.ContractConfigurationKeys.PUBLIC_KEY).getValue())
-                .replace(LOCALE, request.getLocale().getLanguage())
-                .replace(CURRENCY, request.getAmount().getCurrency().getCurrencyCode())
-                .replace(AMOUNT, request.getAmount().getAmountInSmallestUnit().toString())
-                .replace(EMAIL, request.getBuyer().getEmail())
-                .replace(FIRSTNAME, request.getBuyer().getFullName().getFirstName())
-                .replace(LASTNAME, request.getBuyer().getFullName().getLastName())
-                .replace(TRACK_ID, request.getOrder().getReference())
-                .replace(UX, request.getContractConfiguration().getProperty(Constants.ContractConfigurationKeys.UX).getValue())
-                .replace(ITEMS, items)
-                .replace(CALLBACK, CALLBACK_NAME);
+        return result;
     }
 
     private PaymentResponse step1(PaymentRequest paymentRequest) {
-        LOGGER.info("Processing step 1");
+        LOGGER.info(LogCategory.PAYMENT_FLOW, "Processing step 1");
 
 
         // create init form to return
         String url = paymentRequest.getPartnerConfiguration().getProperty(SHAREGROOP_WIDGET_URL);
         if (url == null || url.length() == 0) {
             LOGGER.error("PartnerConfig SHAREGROOP_WIDGET_URL is needed");
-            throw new InvalidDataException("PartnerConfig SHAREGROOP_WIDGET_URL is needed");
+            throw MISSING_WIDGET_URL_FAILURE;
         }
 
         String script = getScript(paymentRequest);
@@ -194,11 +200,11 @@ public class PaymentServiceImpl implements PaymentService {
     }
 
     private PaymentResponse step2(PaymentRequest request) {
-        LOGGER.info("Processing step 2");
+        LOGGER.info(LogCategory.PAYMENT_FLOW, "Processing step 2");
 
         // extract js response data
         String jsonPaymentData = request.getPaymentFormContext().getPaymentFormParameter().get(DATA);
-        LOGGER.info("Payment data: {}", jsonPaymentData);
+        LOGGER.debug(LogCategory.PAYMENT_DATA, "Payment data: {}", () -> jsonPaymentData);
 
         if (jsonPaymentData == null || jsonPaymentData.length() == 0) {
             String errorMessage = "An unknown error occurred during captain initialisation";
@@ -221,7 +227,7 @@ public class PaymentServiceImpl implements PaymentService {
         // check the response and the status response
         if (Boolean.FALSE.equals(responseStatus)) {
             // return a failure
-            LOGGER.info("Sharegroop response is not succes: {}", response.getErrors().get(0));
+            LOGGER.info(LogCategory.PARTNER_RESPONSE, "Sharegroop response is not succes: {}", () -> response.getErrors().get(0));
             return PaymentResponseFailure.PaymentResponseFailureBuilder
                     .aPaymentResponseFailure()
                     .withPartnerTransactionId(partnerTransactionId)
@@ -4,6 +4,8 @@ import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
 import com.payline.payment.sharegroop.bean.configuration.RequestConfiguration;
 import com.payline.payment.sharegroop.exception.PluginException;
 import com.payline.payment.sharegroop.utils.http.SharegroopHttpClient;
+import com.payline.payment.sharegroop.utils.metrics.Operation;
+import com.payline.payment.sharegroop.utils.metrics.SharegroopMetrics;
 import com.payline.pmapi.bean.common.FailureCause;
 import com.payline.pmapi.bean.reset.request.ResetRequest;
 import com.payline.pmapi.bean.reset.response.ResetResponse;
@@ -18,6 +20,7 @@ public class ResetServiceImpl implements ResetService {
     private static final Logger LOGGER = LogManager.getLogger(ResetServiceImpl.class);
 
     private SharegroopHttpClient httpClient = SharegroopHttpClient.getInstance();
+    private SharegroopMetrics metrics = SharegroopMetrics.getInstance();
 
     @Override
     public ResetResponse resetRequest(ResetRequest resetRequest) {
@@ -27,8 +30,12 @@ public class ResetServiceImpl implements ResetService {
 
             Boolean cancelResponseStatus = sharegroopAPICallResponse.getSuccess();
             if (Boolean.TRUE.equals(cancelResponseStatus)) {
-                // verify the final status of the transaction
-                sharegroopAPICallResponse = httpClient.verifyOrder(requestConfiguration, resetRequest.getTransactionId());
+                // the cancel response holds the order: verify its status only if the cancel isn't done yet
+                boolean finalStatus = SharegroopHttpClient.isDone(Operation.CANCEL, sharegroopAPICallResponse);
+                metrics.recordResetVerification(finalStatus);
+                if (!finalStatus) {
+                    sharegroopAPICallResponse = httpClient.verifyOrder(requestConfiguration, resetRequest.getTransactionId());
+                }
                 Boolean verifyResponseStatus = sharegroopAPICallResponse.getSuccess();
                 if (Boolean.TRUE.equals(verifyResponseStatus) && "refunded".equalsIgnoreCase(sharegroopAPICallResponse.getData().getStatus())) {
                     return ResetResponseSuccess.ResetResponseSuccessBuilder
@@ -0,0 +1,56 @@
+package com.payline.payment.sharegroop.service.instrumented;
+
+import com.payline.payment.sharegroop.service.impl.ConfigurationServiceImpl;
+import com.payline.payment.sharegroop.utils.metrics.ServiceCall;
+import com.payline.payment.sharegroop.utils.metrics.ServiceMetrics;
+import com.payline.payment.sharegroop.utils.metrics.ServiceResult;
+import com.payline.pmapi.bean.configuration.ReleaseInformation;
+import com.payline.pmapi.bean.configuration.parameter.AbstractParameter;
+import com.payline.pmapi.bean.configuration.request.ContractParametersCheckRequest;
+import com.payline.pmapi.service.ConfigurationService;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class InstrumentedConfigurationService extends InstrumentedService implements ConfigurationService {
+
+    private final ConfigurationService delegate;
+
+    public InstrumentedConfigurationService() {
+        this(new ConfigurationServiceImpl(), ServiceMetrics.getInstance());
+    }
+
+    InstrumentedConfigurationService(ConfigurationService delegate, ServiceMetrics metrics) {
+        super(metrics);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<AbstractParameter> getParameters(Locale locale) {
+        if (!metrics.isEnabled()) {
+            return delegate.getParameters(locale);
+        }
+        return measure(ServiceCall.CONFIGURATION_GET_PARAMETERS, () -> delegate.getParameters(locale));
+    }
+
+    @Override
+    public Map<String, String> check(ContractParametersCheckRequest contractParametersCheckRequest) {
+        if (!metrics.isEnabled()) {
+            return delegate.check(contractParametersCheckRequest);
+        }
+        // the check fails when it returns errors
+        return measure(ServiceCall.CONFIGURATION_CHECK, () -> delegate.check(contractParametersCheckRequest),
+                errors -> errors == null || errors.isEmpty() ? ServiceResult.SUCCESS : ServiceResult.FAILURE);
+    }
+
+    @Override
+    public ReleaseInformation getReleaseInformation() {
+        return delegate.getReleaseInformation();
+    }
+
+    @Override
+    public String getName(Locale locale) {
+        return delegate.getName(locale);
+    }
+}
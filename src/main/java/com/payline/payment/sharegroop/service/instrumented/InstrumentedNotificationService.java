@@ -0,0 +1,40 @@
+package com.payline.payment.sharegroop.service.instrumented;
+
+import com.payline.payment.sharegroop.service.impl.NotificationServiceImpl;
+import com.payline.payment.sharegroop.utils.metrics.ServiceCall;
+import com.payline.payment.sharegroop.utils.metrics.ServiceMetrics;
+import com.payline.pmapi.bean.notification.request.NotificationRequest;
+import com.payline.pmapi.bean.notification.response.NotificationResponse;
+import com.payline.pmapi.bean.payment.request.NotifyTransactionStatusRequest;
+import com.payline.pmapi.service.NotificationService;
+
+public class InstrumentedNotificationService extends InstrumentedService implements NotificationService {
+
+    private final NotificationService delegate;
+
+    public InstrumentedNotificationService() {
+        this(new NotificationServiceImpl(), ServiceMetrics.getInstance());
+    }
+
+    InstrumentedNotificationService(NotificationService delegate, ServiceMetrics metrics) {
+        super(metrics);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public NotificationResponse parse(NotificationRequest notificationRequest) {
+        if (!metrics.isEnabled()) {
+            return delegate.parse(notificationRequest);
+        }
+        return measure(ServiceCall.NOTIFICATION_PARSE, () -> delegate.parse(notificationRequest));
+    }
+
+    @Override
+    public void notifyTransactionStatus(NotifyTransactionStatusRequest notifyTransactionStatusRequest) {
+        if (!metrics.isEnabled()) {
+            delegate.notifyTransactionStatus(notifyTransactionStatusRequest);
+            return;
+        }
+        measure(ServiceCall.NOTIFY_TRANSACTION_STATUS, () -> delegate.notifyTransactionStatus(notifyTransactionStatusRequest));
+    }
+}
@@ -0,0 +1,51 @@
+package com.payline.payment.sharegroop.service.instrumented;
+
+import com.payline.payment.sharegroop.service.impl.PaymentFormConfigurationServiceImpl;
+import com.payline.payment.sharegroop.utils.metrics.ServiceCall;
+import com.payline.payment.sharegroop.utils.metrics.ServiceMetrics;
+import com.payline.pmapi.bean.paymentform.bean.PaymentFormLogo;
+import com.payline.pmapi.bean.paymentform.request.PaymentFormConfigurationRequest;
+import com.payline.pmapi.bean.paymentform.request.PaymentFormLogoRequest;
+import com.payline.pmapi.bean.paymentform.response.configuration.PaymentFormConfigurationResponse;
+import com.payline.pmapi.bean.paymentform.response.logo.PaymentFormLogoResponse;
+import com.payline.pmapi.service.PaymentFormConfigurationService;
+
+import java.util.Locale;
+
+public class InstrumentedPaymentFormConfigurationService extends InstrumentedService implements PaymentFormConfigurationService {
+
+    private final PaymentFormConfigurationService delegate;
+
+    public InstrumentedPaymentFormConfigurationService() {
+        this(new PaymentFormConfigurationServiceImpl(), ServiceMetrics.getInstance());
+    }
+
+    InstrumentedPaymentFormConfigurationService(PaymentFormConfigurationService delegate, ServiceMetrics metrics) {
+        super(metrics);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public PaymentFormConfigurationResponse getPaymentFormConfiguration(PaymentFormConfigurationRequest paymentFormConfigurationRequest) {
+        if (!metrics.isEnabled()) {
+            return delegate.getPaymentFormConfiguration(paymentFormConfigurationRequest);
+        }
+        return measure(ServiceCall.PAYMENT_FORM_CONFIGURATION, () -> delegate.getPaymentFormConfiguration(paymentFormConfigurationRequest));
+    }
+
+    @Override
+    public PaymentFormLogoResponse getPaymentFormLogo(PaymentFormLogoRequest paymentFormLogoRequest) {
+        if (!metrics.isEnabled()) {
+            return delegate.getPaymentFormLogo(paymentFormLogoRequest);
+        }
+        return measure(ServiceCall.PAYMENT_FORM_LOGO, () -> delegate.getPaymentFormLogo(paymentFormLogoRequest));
+    }
+
+    @Override
+    public PaymentFormLogo getLogo(String paymentMethodIdentifier, Locale locale) {
+        if (!metrics.isEnabled()) {
+            return delegate.getLogo(paymentMethodIdentifier, locale);
+        }
+        return measure(ServiceCall.PAYMENT_FORM_GET_LOGO, () -> delegate.getLogo(paymentMethodIdentifier, locale));
+    }
+}
@@ -0,0 +1,30 @@
+package com.payline.payment.sharegroop.service.instrumented;
+
+import com.payline.payment.sharegroop.service.impl.PaymentServiceImpl;
+import com.payline.payment.sharegroop.utils.metrics.ServiceCall;
+import com.payline.payment.sharegroop.utils.metrics.ServiceMetrics;
+import com.payline.pmapi.bean.payment.request.PaymentRequest;
+import com.payline.pmapi.bean.payment.response.PaymentResponse;
+import com.payline.pmapi.service.PaymentService;
+
+public class InstrumentedPaymentService extends InstrumentedService implements PaymentService {
+
+    private final PaymentService delegate;
+
+    public InstrumentedPaymentService() {
+        this(new PaymentServiceImpl(), ServiceMetrics.getInstance());
+    }
+
+    InstrumentedPaymentService(PaymentService delegate, ServiceMetrics metrics) {
+        super(metrics);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public PaymentResponse paymentRequest(PaymentRequest paymentRequest) {
+        if (!metrics.isEnabled()) {
+            return delegate.paymentRequest(paymentRequest);
+        }
+        return measure(ServiceCall.PAYMENT_REQUEST, () -> delegate.paymentRequest(paymentRequest));
+    }
+}
@@ -0,0 +1,40 @@
+package com.payline.payment.sharegroop.service.instrumented;
+
+import com.payline.payment.sharegroop.service.impl.RefundServiceImpl;
+import com.payline.payment.sharegroop.utils.metrics.ServiceCall;
+import com.payline.payment.sharegroop.utils.metrics.ServiceMetrics;
+import com.payline.pmapi.bean.refund.request.RefundRequest;
+import com.payline.pmapi.bean.refund.response.RefundResponse;
+import com.payline.pmapi.service.RefundService;
+
+public class InstrumentedRefundService extends InstrumentedService implements RefundService {
+
+    private final RefundService delegate;
+
+    public InstrumentedRefundService() {
+        this(new RefundServiceImpl(), ServiceMetrics.getInstance());
+    }
+
+    InstrumentedRefundService(RefundService delegate, ServiceMetrics metrics) {
+        super(metrics);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public RefundResponse refundRequest(RefundRequest refundRequest) {
+        if (!metrics.isEnabled()) {
+            return delegate.refundRequest(refundRequest);
+        }
+        return measure(ServiceCall.REFUND_REQUEST, () -> delegate.refundRequest(refundRequest));
+    }
+
+    @Override
+    public boolean canMultiple() {
+        return delegate.canMultiple();
+    }
+
+    @Override
+    public boolean canPartial() {
+        return delegate.canPartial();
+    }
+}
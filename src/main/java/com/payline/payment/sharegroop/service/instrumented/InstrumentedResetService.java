@@ -0,0 +1,40 @@
+package com.payline.payment.sharegroop.service.instrumented;
+
+import com.payline.payment.sharegroop.service.impl.ResetServiceImpl;
+import com.payline.payment.sharegroop.utils.metrics.ServiceCall;
+import com.payline.payment.sharegroop.utils.metrics.ServiceMetrics;
+import com.payline.pmapi.bean.reset.request.ResetRequest;
+import com.payline.pmapi.bean.reset.response.ResetResponse;
+import com.payline.pmapi.service.ResetService;
+
+public class InstrumentedResetService extends InstrumentedService implements ResetService {
+
+    private final ResetService delegate;
+
+    public InstrumentedResetService() {
+        this(new ResetServiceImpl(), ServiceMetrics.getInstance());
+    }
+
+    InstrumentedResetService(ResetService delegate, ServiceMetrics metrics) {
+        super(metrics);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ResetResponse resetRequest(ResetRequest resetRequest) {
+        if (!metrics.isEnabled()) {
+            return delegate.resetRequest(resetRequest);
+        }
+        return measure(ServiceCall.RESET_REQUEST, () -> delegate.resetRequest(resetRequest));
+    }
+
+    @Override
+    public boolean canMultiple() {
+        return delegate.canMultiple();
+    }
+
+    @Override
+    public boolean canPartial() {
+        return delegate.canPartial();
+    }
+}
@@ -0,0 +1,157 @@
+package com.payline.payment.sharegroop.service.instrumented;
+
+import com.payline.payment.sharegroop.utils.metrics.ServiceCall;
+import com.payline.payment.sharegroop.utils.metrics.ServiceMetrics;
+import com.payline.payment.sharegroop.utils.metrics.ServiceResult;
+import com.payline.pmapi.bean.common.FailureCause;
+import com.payline.pmapi.bean.notification.response.NotificationResponse;
+import com.payline.pmapi.bean.notification.response.impl.IgnoreNotificationResponse;
+import com.payline.pmapi.bean.notification.response.impl.PaymentResponseByNotificationResponse;
+import com.payline.pmapi.bean.payment.response.PaymentResponse;
+import com.payline.pmapi.bean.payment.response.impl.PaymentResponseFailure;
+import com.payline.pmapi.bean.payment.response.impl.PaymentResponseFormUpdated;
+import com.payline.pmapi.bean.payment.response.impl.PaymentResponseOnHold;
+import com.payline.pmapi.bean.payment.response.impl.PaymentResponseRedirect;
+import com.payline.pmapi.bean.payment.response.impl.PaymentResponseSuccess;
+import com.payline.pmapi.bean.paymentform.response.configuration.PaymentFormConfigurationResponse;
+import com.payline.pmapi.bean.paymentform.response.configuration.impl.PaymentFormConfigurationResponseFailure;
+import com.payline.pmapi.bean.paymentform.response.configuration.impl.PaymentFormConfigurationResponseSpecific;
+import com.payline.pmapi.bean.paymentform.response.logo.PaymentFormLogoResponse;
+import com.payline.pmapi.bean.paymentform.response.logo.impl.PaymentFormLogoResponseFile;
+import com.payline.pmapi.bean.refund.response.RefundResponse;
+import com.payline.pmapi.bean.refund.response.impl.RefundResponseFailure;
+import com.payline.pmapi.bean.refund.response.impl.RefundResponseSuccess;
+import com.payline.pmapi.bean.reset.response.ResetResponse;
+import com.payline.pmapi.bean.reset.response.impl.ResetResponseFailure;
+import com.payline.pmapi.bean.reset.response.impl.ResetResponseSuccess;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Base of the decorators registered as the pmapi services of the plugin. Each decorator delegates to the actual
+ * service and, when the {@link ServiceMetrics} are enabled, records the duration and the result type of the calls.
+ */
+abstract class InstrumentedService {
+
+    protected final ServiceMetrics metrics;
+
+    InstrumentedService(ServiceMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Call a service method, recording its duration and the type of its result.
+     *
+     * @param call the service method
+     * @param method the call to the actual service
+     * @return the result of the call
+     */
+    <T> T measure(ServiceCall call, Supplier<T> method) {
+        return this.measure(call, method, InstrumentedService::resultOf);
+    }
+
+    /**
+     * Call a service method, recording its duration and the type of its result.
+     *
+     * @param call the service method
+     * @param method the call to the actual service
+     * @param resultType gives the type of result of the call
+     * @return the result of the call
+     */
+    <T> T measure(ServiceCall call, Supplier<T> method, Function<T, ServiceResult> resultType) {
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = method.get();
+        } catch (RuntimeException e) {
+            metrics.record(call, ServiceResult.EXCEPTION, null, System.nanoTime() - start);
+            throw e;
+        }
+        metrics.record(call, resultType.apply(result), failureCauseOf(result), System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Call a service method which doesn't return anything, recording its duration.
+     *
+     * @param call the service method
+     * @param method the call to the actual service
+     */
+    void measure(ServiceCall call, Runnable method) {
+        long start = System.nanoTime();
+        try {
+            method.run();
+        } catch (RuntimeException e) {
+            metrics.record(call, ServiceResult.EXCEPTION, null, System.nanoTime() - start);
+            throw e;
+        }
+        metrics.record(call, ServiceResult.SUCCESS, null, System.nanoTime() - start);
+    }
+
+    /**
+     * @param response the value returned by a service method
+     * @return its type of result
+     */
+    static ServiceResult resultOf(Object response) {
+        if (response instanceof PaymentResponseByNotificationResponse) {
+            return resultOf(((PaymentResponseByNotificationResponse) response).getPaymentResponse());
+        }
+        if (response instanceof PaymentResponseSuccess
+                || response instanceof RefundResponseSuccess
+                || response instanceof ResetResponseSuccess
+                || response instanceof PaymentFormConfigurationResponseSpecific
+                || response instanceof PaymentFormLogoResponseFile) {
+            return ServiceResult.SUCCESS;
+        }
+        if (response instanceof PaymentResponseFailure
+                || response instanceof RefundResponseFailure
+                || response instanceof ResetResponseFailure
+                || response instanceof PaymentFormConfigurationResponseFailure) {
+            return ServiceResult.FAILURE;
+        }
+        if (response instanceof PaymentResponseOnHold) {
+            return ServiceResult.ON_HOLD;
+        }
+        if (response instanceof PaymentResponseFormUpdated) {
+            return ServiceResult.FORM_UPDATED;
+        }
+        if (response instanceof PaymentResponseRedirect) {
+            return ServiceResult.REDIRECT;
+        }
+        if (response instanceof IgnoreNotificationResponse) {
+            return ServiceResult.IGNORED;
+        }
+        if (response == null
+                || response instanceof PaymentResponse
+                || response instanceof NotificationResponse
+                || response instanceof RefundResponse
+                || response instanceof ResetResponse
+                || response instanceof PaymentFormConfigurationResponse
+                || response instanceof PaymentFormLogoResponse) {
+            return ServiceResult.OTHER;
+        }
+        // a plain value: parameters, logo, additional data...
+        return ServiceResult.SUCCESS;
+    }
+
+    /**
+     * @param response the value returned by a service method
+     * @return its failure cause, or null if it's not a failure
+     */
+    static FailureCause failureCauseOf(Object response) {
+        if (response instanceof PaymentResponseByNotificationResponse) {
+            return failureCauseOf(((PaymentResponseByNotificationResponse) response).getPaymentResponse());
+        }
+        if (response instanceof PaymentResponseFailure) {
+            return ((PaymentResponseFailure) response).getFailureCause();
+        }
+        if (response instanceof RefundResponseFailure) {
+            return ((RefundResponseFailure) response).getFailureCause();
+        }
+        if (response instanceof ResetResponseFailure) {
+            return ((ResetResponseFailure) response).getFailureCause();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,30 @@
+package com.payline.payment.sharegroop.service.instrumented;
+
+import com.payline.payment.sharegroop.service.impl.TransactionManagerServiceImpl;
+import com.payline.payment.sharegroop.utils.metrics.ServiceCall;
+import com.payline.payment.sharegroop.utils.metrics.ServiceMetrics;
+import com.payline.pmapi.service.TransactionManagerService;
+
+import java.util.Map;
+
+public class InstrumentedTransactionManagerService extends InstrumentedService implements TransactionManagerService {
+
+    private final TransactionManagerService delegate;
+
+    public InstrumentedTransactionManagerService() {
+        this(new TransactionManagerServiceImpl(), ServiceMetrics.getInstance());
+    }
+
+    InstrumentedTransactionManagerService(TransactionManagerService delegate, ServiceMetrics metrics) {
+        super(metrics);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Map<String, String> readAdditionalData(String transactionAdditionalData, String transactionId) {
+        if (!metrics.isEnabled()) {
+            return delegate.readAdditionalData(transactionAdditionalData, transactionId);
+        }
+        return measure(ServiceCall.READ_ADDITIONAL_DATA, () -> delegate.readAdditionalData(transactionAdditionalData, transactionId));
+    }
+}
@@ -26,6 +26,9 @@ public class Constants {
      */
     public static class PartnerConfigurationKeys {
 
+        /**
+         * The partner API base URL, or several base URLs of the same API separated by commas.
+         */
         public static final String SHAREGROOP_URL = "SHAREGROOP_URL";
         public static final String SHAREGROOP_WIDGET_URL = "SHAREGROOP_WIDGET_URL";
         public static final String SHAREGROOP_WEBHOOK_SECRET_KEY = "SHAREGROOP_WEBHOOK_SECRET_KEY";
@@ -1,22 +1,34 @@
 package com.payline.payment.sharegroop.utils;
 
 import com.payline.payment.sharegroop.exception.PluginException;
+import com.payline.payment.sharegroop.utils.http.StringResponse;
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpHeaders;
-import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ContentType;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class PluginUtils {
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final String MERCHANT_HASH_ALGORITHM = "SHA-256";
+    private static final int MERCHANT_HASH_LENGTH = 8;
+
     /* Static utility class : no need to instantiate it (Sonar bug fix) */
     private PluginUtils(){}
 
@@ -46,30 +58,108 @@ public class PluginUtils {
         String ln = System.lineSeparator();
         String str = httpRequest.getMethod() + " " + httpRequest.getURI() + ln;
 
+        str += String.join(ln, headersToStrings(httpRequest));
+
+        if( httpRequest instanceof HttpEntityEnclosingRequest && ((HttpEntityEnclosingRequest) httpRequest).getEntity() != null ){
+            str += ln + bodyToString( ((HttpEntityEnclosingRequest) httpRequest).getEntity() );
+        }
+
+        return str;
+    }
+
+    /**
+     * Summarize a {@link HttpRequestBase} without its body, which may contain buyer data: only its size is given.
+     *
+     * @param httpRequest the request to summarize
+     * @return request method, URI, headers and body size, on a single line
+     */
+    public static String requestSummary( HttpRequestBase httpRequest ){
+        String str = httpRequest.getMethod() + " " + httpRequest.getURI() + " " + headersToStrings(httpRequest);
+        if( httpRequest instanceof HttpEntityEnclosingRequest && ((HttpEntityEnclosingRequest) httpRequest).getEntity() != null ){
+            str += " (" + ((HttpEntityEnclosingRequest) httpRequest).getEntity().getContentLength() + " bytes)";
+        }
+        return str;
+    }
+
+    /**
+     * Summarize a {@link StringResponse} without its content, which may contain buyer data: only its size is given.
+     *
+     * @param response the response to summarize
+     * @return status code, status message and content size
+     */
+    public static String responseSummary( StringResponse response ){
+        int size = response.getContent() == null ? 0 : response.getContent().getBytes(StandardCharsets.UTF_8).length;
+        return response.getStatusCode() + " " + response.getStatusMessage() + " (" + size + " bytes)";
+    }
+
+    /**
+     * Read the body of a request from the bytes the entity has already buffered. Streamed entities can only be read
+     * once, by the HTTP client: they are never read here.
+     *
+     * @param entity the entity to read
+     * @return the body, or a placeholder if it can't be read without consuming it
+     */
+    static String bodyToString( HttpEntity entity ){
+        if( !entity.isRepeatable() || entity.getContentLength() > Integer.MAX_VALUE ){
+            return "<< Streamed request body >>";
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream( (int) Math.max(0, entity.getContentLength()) );
+        try {
+            entity.writeTo( out );
+        } catch (IOException e) {
+            return "<< Error retrieving request body >>";
+        }
+        ContentType contentType = ContentType.get( entity );
+        Charset charset = contentType == null || contentType.getCharset() == null ? StandardCharsets.UTF_8 : contentType.getCharset();
+        return new String( out.toByteArray(), charset );
+    }
+
+    private static List<String> headersToStrings( HttpRequestBase httpRequest ){
         List<String> strHeaders = new ArrayList<>();
         for( Header h : httpRequest.getAllHeaders() ){
             // For obvious security reason, the value of Authorization header is never printed in the logs
             if( HttpHeaders.AUTHORIZATION.equals( h.getName() ) ){
-                String[] value = h.getValue().split(" ");
-                strHeaders.add( h.getName() + ": " + ( value.length > 1 ? value[0] : "" ) + " *****" );
+                int schemeEnd = h.getValue().indexOf(' ');
+                strHeaders.add( h.getName() + ": " + ( schemeEnd > 0 ? h.getValue().substring(0, schemeEnd) : "" ) + " *****" );
             }
             else {
                 strHeaders.add( h.getName() + ": " + h.getValue() );
             }
         }
-        str += String.join(ln, strHeaders);
-
-        if( httpRequest instanceof HttpPost){
-            try {
-                str += ln + new BufferedReader(new InputStreamReader(((HttpPost)httpRequest).getEntity().getContent()))
-                        .lines()
-                        .collect(Collectors.joining(ln));
-            } catch (IOException e) {
-                str += ln + "<< Error retrieving request body >>";
-            }
+        return strHeaders;
+    }
+
+    /**
+     * Convert a byte array to its lowercase hexadecimal representation.
+     *
+     * @param bytes the bytes to convert
+     * @return the hexadecimal string
+     */
+    public static String toHexString(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            chars[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
         }
+        return new String(chars);
+    }
 
-        return str;
+    /**
+     * Identify a merchant without exposing its private key, for instance in monitoring data.
+     *
+     * @param privateKey the private key of the merchant
+     * @return the first 8 bytes of the SHA-256 hash of the key, in hexadecimal, or null if the key is null
+     */
+    public static String merchantHash(String privateKey) {
+        if (privateKey == null) {
+            return null;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance(MERCHANT_HASH_ALGORITHM).digest(privateKey.getBytes(StandardCharsets.UTF_8));
+            return toHexString(Arrays.copyOf(hash, MERCHANT_HASH_LENGTH));
+        } catch (NoSuchAlgorithmException e) {
+            throw new PluginException("Plugin error: unable to hash the merchant key", e);
+        }
     }
 
     /**
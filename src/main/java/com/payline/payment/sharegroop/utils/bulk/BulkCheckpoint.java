@@ -0,0 +1,141 @@
+package com.payline.payment.sharegroop.utils.bulk;
+
+import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
+import com.payline.payment.sharegroop.exception.PluginException;
+import com.payline.payment.sharegroop.utils.http.CallResult;
+import com.payline.payment.sharegroop.utils.metrics.Operation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Journal of the orders processed by a bulk run, so that the run can be resumed after a crash without processing them
+ * again. Each processed order is appended to the file as a line "operation, transaction id, outcome", separated by
+ * tabs, and flushed at once: the journal survives a crash of the JVM. The outcome is "OK" when the partner API shows
+ * the operation done, otherwise the error code, the status of the order or the errors returned by the partner.
+ *
+ * <p>The retryable results, see {@link BulkResult#isRetryable()}, are not recorded: those orders are processed again
+ * when the run is resumed.</p>
+ *
+ * <p>The orders which were in progress during the crash aren't in the journal, and are sent again when the run is
+ * resumed. It's safe: refunds and cancels carry an idempotency key, and the state of the order is read when the
+ * partner refuses a mutation, see {@link com.payline.payment.sharegroop.utils.http.SharegroopHttpClient}.</p>
+ */
+public class BulkCheckpoint implements Closeable {
+
+    private static final String SEPARATOR = "\t";
+    private static final String SUCCESS = "OK";
+
+    private final Set<String> processed;
+    private final Writer writer;
+
+    private BulkCheckpoint(Set<String> processed, Writer writer) {
+        this.processed = processed;
+        this.writer = writer;
+    }
+
+    /**
+     * Open the journal of a run, creating the file if it doesn't exist.
+     *
+     * @param file the journal file
+     * @return the checkpoint, holding the orders already processed
+     * @throws IOException if the file can't be read or written
+     */
+    public static BulkCheckpoint open(Path file) throws IOException {
+        Set<String> processed = ConcurrentHashMap.newKeySet();
+        boolean partialLine = false;
+        if (Files.exists(file)) {
+            byte[] content = Files.readAllBytes(file);
+            String[] lines = new String(content, StandardCharsets.UTF_8).split("\n", -1);
+            // the last line is empty, unless the JVM crashed while writing it
+            partialLine = lines[lines.length - 1].length() > 0;
+            for (int i = 0; i < lines.length - 1; i++) {
+                String[] fields = lines[i].split(SEPARATOR, -1);
+                if (fields.length == 3) {
+                    processed.add(fields[0] + SEPARATOR + fields[1]);
+                }
+            }
+        }
+
+        Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        if (partialLine) {
+            writer.write("\n");
+            writer.flush();
+        }
+        return new BulkCheckpoint(processed, writer);
+    }
+
+    /**
+     * @return true if the operation has already been done on the order in a previous run
+     */
+    public boolean contains(Operation operation, String transactionId) {
+        return processed.contains(key(operation, transactionId));
+    }
+
+    /**
+     * @return the number of orders processed, by this run and the previous ones
+     */
+    public int size() {
+        return processed.size();
+    }
+
+    /**
+     * Append a processed order to the journal, unless its result is retryable.
+     *
+     * @param result the outcome of the operation on the order
+     * @throws IOException if the file can't be written
+     */
+    public synchronized void record(BulkResult result) throws IOException {
+        if (result.isRetryable()) {
+            return;
+        }
+        String key = key(result.getOperation(), result.getItem().getTransactionId());
+        writer.write(key + SEPARATOR + encode(outcome(result)) + "\n");
+        writer.flush();
+        processed.add(key);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    private static String outcome(BulkResult result) {
+        if (result.isDone()) {
+            return SUCCESS;
+        }
+        CallResult<SharegroopAPICallResponse> callResult = result.getResult();
+        if (!callResult.isSuccess()) {
+            return String.valueOf(callResult.getErrorCode());
+        }
+        SharegroopAPICallResponse response = callResult.getValue();
+        if (response.getData() != null && response.getData().getStatus() != null) {
+            return response.getData().getStatus();
+        }
+        return String.valueOf(response.getErrors());
+    }
+
+    private static String key(Operation operation, String transactionId) {
+        return operation.getLabel() + SEPARATOR + encode(transactionId);
+    }
+
+    /**
+     * @return the value, without any tab or line break
+     */
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(String.valueOf(value), StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new PluginException("Plugin error: UTF-8 not supported", e);
+        }
+    }
+}
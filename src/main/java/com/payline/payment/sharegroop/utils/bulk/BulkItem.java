@@ -0,0 +1,41 @@
+package com.payline.payment.sharegroop.utils.bulk;
+
+import com.payline.payment.sharegroop.bean.configuration.RequestConfiguration;
+import com.payline.payment.sharegroop.utils.Constants;
+import com.payline.payment.sharegroop.utils.PluginUtils;
+import com.payline.pmapi.bean.payment.ContractProperty;
+
+/**
+ * An order of a bulk run: the transaction id, and the configuration of the merchant it belongs to.
+ */
+public class BulkItem {
+
+    private final String transactionId;
+    private final RequestConfiguration requestConfiguration;
+
+    /**
+     * @param transactionId the partner transaction id, i.e. the Sharegroop order id
+     * @param requestConfiguration the configuration of the merchant
+     */
+    public BulkItem(String transactionId, RequestConfiguration requestConfiguration) {
+        this.transactionId = transactionId;
+        this.requestConfiguration = requestConfiguration;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public RequestConfiguration getRequestConfiguration() {
+        return requestConfiguration;
+    }
+
+    /**
+     * @return the hash of the merchant private key, see {@link PluginUtils#merchantHash(String)}
+     */
+    String getMerchant() {
+        ContractProperty privateKey = requestConfiguration.getContractConfiguration()
+                .getProperty(Constants.ContractConfigurationKeys.PRIVATE_KEY);
+        return PluginUtils.merchantHash(privateKey == null ? null : privateKey.getValue());
+    }
+}
@@ -0,0 +1,131 @@
+package com.payline.payment.sharegroop.utils.bulk;
+
+import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
+import com.payline.payment.sharegroop.exception.InvalidDataException;
+import com.payline.payment.sharegroop.exception.PluginException;
+import com.payline.payment.sharegroop.utils.http.CallResult;
+import com.payline.payment.sharegroop.utils.http.SharegroopHttpClient;
+import com.payline.payment.sharegroop.utils.metrics.Operation;
+import com.payline.payment.sharegroop.utils.properties.ConfigProperties;
+import com.payline.pmapi.bean.common.FailureCause;
+import com.payline.pmapi.logger.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.stream.StreamSupport;
+
+/**
+ * Refunds or cancels many orders, for instance all the orders of a cancelled event.
+ *
+ * <p>The orders are read from the iterator as the calls end, so that the whole list is never held in memory: at most
+ * {@code bulk.parallelism} orders are in progress at the same time, and the calls made for the same merchant are
+ * spaced out to {@code bulk.merchantRate} per second. The orders waiting for their merchant's rate don't hold any of
+ * the {@code bulk.parallelism} calls: the orders of the other merchants read meanwhile go first, see
+ * {@link MerchantScheduler}. The result of each order is given to the consumer as soon as its call ends, in no
+ * particular order.</p>
+ *
+ * <p>With a {@link BulkCheckpoint}, the orders already processed by a previous run of the same operation are skipped,
+ * so that an interrupted run can be resumed. The orders which couldn't reach the partner API, or got a server error
+ * or a rate limit, are not recorded, so that they are processed again.</p>
+ */
+public class BulkMutationExecutor {
+
+    private static final Logger LOGGER = LogManager.getLogger(BulkMutationExecutor.class);
+
+    /**
+     * The number of orders read ahead for each call in progress, to find orders of other merchants.
+     */
+    private static final int READ_AHEAD_PER_CALL = 8;
+
+    private final SharegroopHttpClient httpClient;
+    private final IntSupplier parallelism;
+    private final MerchantRateLimiter rateLimiter;
+
+    public BulkMutationExecutor() {
+        this(SharegroopHttpClient.getInstance(),
+                () -> ConfigProperties.getInstance().getConfig().getBulkParallelism(),
+                new MerchantRateLimiter(() -> ConfigProperties.getInstance().getConfig().getBulkMerchantRate(), System::nanoTime));
+    }
+
+    BulkMutationExecutor(SharegroopHttpClient httpClient, IntSupplier parallelism, MerchantRateLimiter rateLimiter) {
+        this.httpClient = httpClient;
+        this.parallelism = parallelism;
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Run the operation on all the orders, and wait for the end of the run.
+     *
+     * @param operation {@link Operation#REFUND} or {@link Operation#CANCEL}
+     * @param items the orders, read as the run goes (use {@code stream.iterator()} for a stream)
+     * @param checkpoint the journal of the run, or null not to resume nor record the run
+     * @param results receives the result of each order processed, from one thread at a time
+     * @throws InterruptedException if the thread is interrupted: the orders in progress are abandoned
+     * @throws InvalidDataException if the operation is neither a refund nor a cancel
+     */
+    public void execute(Operation operation, Iterator<BulkItem> items, BulkCheckpoint checkpoint,
+                        Consumer<BulkResult> results) throws InterruptedException {
+        if (operation != Operation.REFUND && operation != Operation.CANCEL) {
+            throw new InvalidDataException("Bulk runs only refund or cancel orders, not " + operation);
+        }
+
+        AtomicInteger skipped = new AtomicInteger();
+        Iterator<BulkItem> remaining = items;
+        if (checkpoint != null) {
+            // lazily filtered: the iterator is still read as the run goes
+            remaining = StreamSupport.stream(Spliterators.spliteratorUnknownSize(items, Spliterator.ORDERED), false)
+                    .filter(item -> {
+                        boolean processed = checkpoint.contains(operation, item.getTransactionId());
+                        if (processed) {
+                            skipped.incrementAndGet();
+                        }
+                        return !processed;
+                    })
+                    .iterator();
+        }
+
+        Object resultLock = new Object();
+        int threads = parallelism.getAsInt();
+        Iterator<BulkItem> scheduled = new MerchantScheduler(remaining, rateLimiter, threads * READ_AHEAD_PER_CALL);
+        int submitted = BulkRunner.run("sharegroop-bulk-" + operation.getLabel(), threads, scheduled,
+                item -> this.process(operation, item, checkpoint, results, resultLock));
+        LOGGER.info("Bulk {}: {} orders processed, {} skipped from the checkpoint", operation.getLabel(), submitted, skipped);
+    }
+
+    private void process(Operation operation, BulkItem item, BulkCheckpoint checkpoint, Consumer<BulkResult> results,
+                         Object resultLock) {
+        CallResult<SharegroopAPICallResponse> callResult;
+        try {
+            callResult = operation == Operation.REFUND
+                    ? httpClient.tryRefundOrder(item.getRequestConfiguration(), item.getTransactionId())
+                    : httpClient.tryCancelOrder(item.getRequestConfiguration(), item.getTransactionId());
+        } catch (RuntimeException e) {
+            LOGGER.error("Unexpected plugin error", e);
+            callResult = CallResult.failure(PluginException.runtimeErrorCode(e), FailureCause.INTERNAL_ERROR);
+        }
+        BulkResult result = new BulkResult(item, operation, callResult);
+
+        synchronized (resultLock) {
+            if (checkpoint != null) {
+                try {
+                    checkpoint.record(result);
+                } catch (IOException e) {
+                    // not fatal: the order will be processed again if the run is resumed
+                    LOGGER.error("Unable to record the bulk checkpoint", e);
+                }
+            }
+            try {
+                results.accept(result);
+            } catch (RuntimeException e) {
+                LOGGER.error("Bulk result consumer failed", e);
+            }
+        }
+    }
+
+}
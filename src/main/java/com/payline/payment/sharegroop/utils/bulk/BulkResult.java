@@ -0,0 +1,60 @@
+package com.payline.payment.sharegroop.utils.bulk;
+
+import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
+import com.payline.payment.sharegroop.utils.http.CallResult;
+import com.payline.payment.sharegroop.utils.http.SharegroopHttpClient;
+import com.payline.payment.sharegroop.utils.metrics.Operation;
+import com.payline.pmapi.bean.common.FailureCause;
+
+/**
+ * The outcome of the refund, the cancel or the status lookup of one order of a bulk run.
+ */
+public class BulkResult {
+
+    private final BulkItem item;
+    private final Operation operation;
+    private final CallResult<SharegroopAPICallResponse> result;
+
+    BulkResult(BulkItem item, Operation operation, CallResult<SharegroopAPICallResponse> result) {
+        this.item = item;
+        this.operation = operation;
+        this.result = result;
+    }
+
+    public BulkItem getItem() {
+        return item;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return the response of the partner API, or the failure if it couldn't be obtained
+     */
+    public CallResult<SharegroopAPICallResponse> getResult() {
+        return result;
+    }
+
+    /**
+     * @return true if the operation has been done: the partner API shows the order refunded or cancelled, or, for a
+     * status lookup, the order has been read
+     */
+    public boolean isDone() {
+        if (!result.isSuccess()) {
+            return false;
+        }
+        if (operation == Operation.VERIFY) {
+            return Boolean.TRUE.equals(result.getValue().getSuccess());
+        }
+        return SharegroopHttpClient.isDone(operation, result.getValue());
+    }
+
+    /**
+     * @return true if the partner API couldn't be reached, answered with a server error (5xx) or a rate limit (429),
+     * or gave a response which couldn't be read: the order is processed again when the run is resumed
+     */
+    public boolean isRetryable() {
+        return result.getFailureCause() == FailureCause.COMMUNICATION_ERROR;
+    }
+}
@@ -0,0 +1,63 @@
+package com.payline.payment.sharegroop.utils.bulk;
+
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs a task on each element of an iterator, with bounded parallelism. The elements are read as the tasks end: the
+ * iterator is never read more than {@code parallelism} elements ahead, so that a run of any size uses the same memory.
+ */
+final class BulkRunner {
+
+    private BulkRunner() {
+    }
+
+    /**
+     * Run the task on all the elements, and wait for the end of the run.
+     *
+     * @param name the name of the run, prefixing the names of its threads
+     * @param parallelism the maximum number of tasks in progress at the same time
+     * @param items the elements
+     * @param task the task, run from the threads of the run
+     * @return the number of elements processed
+     * @throws InterruptedException if the thread is interrupted: the tasks in progress are interrupted too
+     */
+    static <T> int run(String name, int parallelism, Iterator<T> items, Consumer<T> task) throws InterruptedException {
+        Semaphore slots = new Semaphore(parallelism);
+        ExecutorService executor = createExecutor(name, parallelism);
+        int submitted = 0;
+        try {
+            while (items.hasNext()) {
+                T item = items.next();
+                // throws if the thread has been interrupted, also while reading the item
+                slots.acquire();
+                submitted++;
+                executor.execute(() -> {
+                    try {
+                        task.accept(item);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+            // wait for the tasks in progress
+            slots.acquire(parallelism);
+        } finally {
+            executor.shutdownNow();
+        }
+        return submitted;
+    }
+
+    private static ExecutorService createExecutor(String name, int parallelism) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
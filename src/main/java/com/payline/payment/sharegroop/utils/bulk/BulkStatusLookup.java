@@ -0,0 +1,123 @@
+package com.payline.payment.sharegroop.utils.bulk;
+
+import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
+import com.payline.payment.sharegroop.bean.configuration.RequestConfiguration;
+import com.payline.payment.sharegroop.exception.PluginException;
+import com.payline.payment.sharegroop.utils.cache.OrderStatusCache;
+import com.payline.payment.sharegroop.utils.http.CallResult;
+import com.payline.payment.sharegroop.utils.http.SharegroopHttpClient;
+import com.payline.payment.sharegroop.utils.metrics.Operation;
+import com.payline.payment.sharegroop.utils.properties.ConfigProperties;
+import com.payline.pmapi.bean.common.FailureCause;
+import com.payline.pmapi.logger.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the status of many orders, for instance to reconcile the settlements.
+ *
+ * <p>The orders are read from the iterator as the calls end, with at most {@code bulk.parallelism} calls in progress
+ * at the same time, so that a lookup of any size uses the same memory. An order read recently enough by the plugin, by
+ * a lookup, a payment or a refund, is answered from the {@link OrderStatusCache} without calling the partner API: the
+ * {@link SharegroopHttpClient} keeps there every order it gets from the partner. The result of each
+ * order is given to the consumer as soon as it's known, in no particular order.</p>
+ */
+public class BulkStatusLookup {
+
+    private static final Logger LOGGER = LogManager.getLogger(BulkStatusLookup.class);
+
+    private final SharegroopHttpClient httpClient;
+    private final IntSupplier parallelism;
+    private final OrderStatusCache cache;
+
+    public BulkStatusLookup() {
+        this(SharegroopHttpClient.getInstance(),
+                () -> ConfigProperties.getInstance().getConfig().getBulkParallelism(),
+                OrderStatusCache.getInstance());
+    }
+
+    BulkStatusLookup(SharegroopHttpClient httpClient, IntSupplier parallelism, OrderStatusCache cache) {
+        this.httpClient = httpClient;
+        this.parallelism = parallelism;
+        this.cache = cache;
+    }
+
+    /**
+     * Read the status of orders of the same merchant, and wait for the end of the lookup.
+     *
+     * @param requestConfiguration the configuration of the merchant
+     * @param orderIds the order ids, read as the lookup goes
+     * @param maxAge how old a status may be to be reused, in seconds, 0 to call the partner API for every order which
+     *               isn't in a final status
+     * @param results receives the result of each order, from one thread at a time
+     * @throws InterruptedException if the thread is interrupted: the calls in progress are abandoned
+     */
+    public void execute(RequestConfiguration requestConfiguration, Iterator<String> orderIds, long maxAge,
+                        Consumer<BulkResult> results) throws InterruptedException {
+        Iterator<BulkItem> items = StreamSupport.stream(Spliterators.spliteratorUnknownSize(orderIds, Spliterator.ORDERED), false)
+                .map(orderId -> new BulkItem(orderId, requestConfiguration))
+                .iterator();
+        this.execute(items, maxAge, results);
+    }
+
+    /**
+     * Read the status of orders, and wait for the end of the lookup.
+     *
+     * @param items the orders, read as the lookup goes (use {@code stream.iterator()} for a stream)
+     * @param maxAge how old a status may be to be reused, in seconds, 0 to call the partner API for every order which
+     *               isn't in a final status
+     * @param results receives the result of each order, from one thread at a time
+     * @throws InterruptedException if the thread is interrupted: the calls in progress are abandoned
+     */
+    public void execute(Iterator<BulkItem> items, long maxAge, Consumer<BulkResult> results) throws InterruptedException {
+        long maxAgeNanos = TimeUnit.SECONDS.toNanos(maxAge);
+        Object resultLock = new Object();
+        AtomicInteger cached = new AtomicInteger();
+
+        // the orders found in the cache are answered at once, without waiting for a thread of the lookup
+        Iterator<BulkItem> remaining = StreamSupport.stream(Spliterators.spliteratorUnknownSize(items, Spliterator.ORDERED), false)
+                .filter(item -> {
+                    SharegroopAPICallResponse response = cache.get(item.getRequestConfiguration(), item.getTransactionId(), maxAgeNanos);
+                    if (response == null) {
+                        return true;
+                    }
+                    cached.incrementAndGet();
+                    emit(new BulkResult(item, Operation.VERIFY, CallResult.success(response)), results, resultLock);
+                    return false;
+                })
+                .iterator();
+
+        int called = BulkRunner.run("sharegroop-bulk-" + Operation.VERIFY.getLabel(), parallelism.getAsInt(), remaining,
+                item -> emit(this.lookup(item), results, resultLock));
+        LOGGER.info("Bulk status lookup: {} orders read from the partner API, {} from the cache", called, cached);
+    }
+
+    private BulkResult lookup(BulkItem item) {
+        CallResult<SharegroopAPICallResponse> callResult;
+        try {
+            callResult = httpClient.tryVerifyOrder(item.getRequestConfiguration(), item.getTransactionId());
+        } catch (RuntimeException e) {
+            LOGGER.error("Unexpected plugin error", e);
+            callResult = CallResult.failure(PluginException.runtimeErrorCode(e), FailureCause.INTERNAL_ERROR);
+        }
+        return new BulkResult(item, Operation.VERIFY, callResult);
+    }
+
+    private static void emit(BulkResult result, Consumer<BulkResult> results, Object resultLock) {
+        synchronized (resultLock) {
+            try {
+                results.accept(result);
+            } catch (RuntimeException e) {
+                LOGGER.error("Bulk result consumer failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.payline.payment.sharegroop.utils.bulk;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Spaces out the calls made for the same merchant, so that a bulk run doesn't exceed the rate the partner allows a
+ * merchant. Each call takes the next free slot of its merchant: the calls of the other merchants aren't delayed.
+ */
+class MerchantRateLimiter {
+
+    private final ConcurrentMap<String, AtomicLong> nextSlots = new ConcurrentHashMap<>();
+    private final IntSupplier rate;
+    private final LongSupplier clock;
+
+    /**
+     * @param rate the maximum number of calls per second for a merchant, 0 for no limit
+     * @param clock the current time, in nanoseconds
+     */
+    MerchantRateLimiter(IntSupplier rate, LongSupplier clock) {
+        this.rate = rate;
+        this.clock = clock;
+    }
+
+    /**
+     * Take the next slot of the merchant, only if it's free.
+     *
+     * @param merchant the merchant identifier
+     * @return 0 if the slot has been taken, otherwise how long to wait before it's free, in nanoseconds
+     */
+    long tryAcquire(String merchant) {
+        int perSecond = rate.getAsInt();
+        if (perSecond <= 0) {
+            return 0;
+        }
+        long interval = TimeUnit.SECONDS.toNanos(1) / perSecond;
+        long now = clock.getAsLong();
+        AtomicLong nextSlot = nextSlots.computeIfAbsent(String.valueOf(merchant), m -> new AtomicLong(now));
+
+        while (true) {
+            long slot = nextSlot.get();
+            if (slot - now > 0) {
+                return slot - now;
+            }
+            if (nextSlot.compareAndSet(slot, now + interval)) {
+                return 0;
+            }
+        }
+    }
+}
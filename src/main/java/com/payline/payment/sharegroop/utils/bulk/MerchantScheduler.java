@@ -0,0 +1,92 @@
+package com.payline.payment.sharegroop.utils.bulk;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gives the orders of a bulk run in the order their merchants' rates allow: the next order is the first one of a
+ * merchant whose next slot is free, see {@link MerchantRateLimiter}. The wait happens while reading the orders, before
+ * they take one of the threads of the run, so that the threads only hold calls in progress and a merchant with many
+ * orders doesn't slow the others down.
+ *
+ * <p>At most {@code readAhead} orders are read ahead of the ones given: the orders of the other merchants are only
+ * seen within that window.</p>
+ */
+final class MerchantScheduler implements Iterator<BulkItem> {
+
+    private final Iterator<BulkItem> items;
+    private final MerchantRateLimiter rateLimiter;
+    private final int readAhead;
+    // the orders read and not given yet, by merchant, the merchant served last at the end
+    private final Map<String, Deque<BulkItem>> pending = new LinkedHashMap<>();
+    private int pendingCount;
+
+    /**
+     * @param items the orders
+     * @param rateLimiter the rates of the merchants
+     * @param readAhead the maximum number of orders read ahead
+     */
+    MerchantScheduler(Iterator<BulkItem> items, MerchantRateLimiter rateLimiter, int readAhead) {
+        this.items = items;
+        this.rateLimiter = rateLimiter;
+        this.readAhead = Math.max(readAhead, 1);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return pendingCount > 0 || items.hasNext();
+    }
+
+    /**
+     * Wait for the next slot of one of the merchants, and take it.
+     *
+     * <p>If the thread is interrupted while waiting, the interrupt flag is set again and the next order is given
+     * without waiting: {@link BulkRunner} stops the run before processing it.</p>
+     */
+    @Override
+    public BulkItem next() {
+        while (pendingCount < readAhead && items.hasNext()) {
+            BulkItem item = items.next();
+            pending.computeIfAbsent(item.getMerchant(), m -> new ArrayDeque<>()).add(item);
+            pendingCount++;
+        }
+        if (pendingCount == 0) {
+            throw new NoSuchElementException();
+        }
+
+        while (true) {
+            long wait = Long.MAX_VALUE;
+            for (Map.Entry<String, Deque<BulkItem>> entry : pending.entrySet()) {
+                long merchantWait = rateLimiter.tryAcquire(entry.getKey());
+                if (merchantWait <= 0) {
+                    return this.take(entry.getKey());
+                }
+                wait = Math.min(wait, merchantWait);
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return this.take(pending.keySet().iterator().next());
+            }
+        }
+    }
+
+    /**
+     * @return the first pending order of the merchant, moving the merchant after the others
+     */
+    private BulkItem take(String merchant) {
+        Deque<BulkItem> merchantItems = pending.remove(merchant);
+        BulkItem item = merchantItems.poll();
+        if (!merchantItems.isEmpty()) {
+            pending.put(merchant, merchantItems);
+        }
+        pendingCount--;
+        return item;
+    }
+}
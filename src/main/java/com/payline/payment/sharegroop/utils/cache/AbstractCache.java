@@ -0,0 +1,106 @@
+package com.payline.payment.sharegroop.utils.cache;
+
+import com.payline.payment.sharegroop.bean.configuration.RequestConfiguration;
+import com.payline.payment.sharegroop.exception.PluginException;
+import com.payline.payment.sharegroop.utils.Constants;
+import com.payline.payment.sharegroop.utils.PluginUtils;
+import com.payline.pmapi.bean.payment.ContractProperty;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Base of the caches of partner API results. The entries are identified by a salted hash of the API base URL, of the
+ * private key and of the other parts of the key: the private keys themselves are never stored, and the salt is drawn
+ * at random for each cache. The number of entries is bounded by purging the cache when it's full.
+ *
+ * @param <E> the type of the entries
+ */
+abstract class AbstractCache<E> {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int SALT_LENGTH = 16;
+
+    protected final ConcurrentMap<String, E> entries = new ConcurrentHashMap<>();
+    protected final LongSupplier clock;
+    private final byte[] salt = new byte[SALT_LENGTH];
+    private final IntSupplier maxEntries;
+
+    /**
+     * @param maxEntries the number of entries above which the cache is purged
+     * @param clock the current time, in nanoseconds
+     */
+    AbstractCache(IntSupplier maxEntries, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        new SecureRandom().nextBytes(salt);
+    }
+
+    /**
+     * Remove all the entries.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return true if the entry can be removed because it has expired
+     */
+    protected abstract boolean isExpired(E entry, long now);
+
+    /**
+     * @return true if the entry can be removed from a full cache even if it hasn't expired
+     */
+    protected abstract boolean isEvictable(E entry);
+
+    /**
+     * Remove the expired entries when the cache is full. If they all are still valid, start over with the entries
+     * which can be evicted.
+     */
+    protected void purgeIfFull() {
+        int max = maxEntries.getAsInt();
+        if (entries.size() <= max) {
+            return;
+        }
+        long now = clock.getAsLong();
+        entries.values().removeIf(e -> this.isExpired(e, now));
+        if (entries.size() > max) {
+            entries.values().removeIf(this::isEvictable);
+        }
+    }
+
+    /**
+     * @param requestConfiguration the configuration containing the private key and the API base URL
+     * @param parts the other parts of the key, e.g. the order id
+     * @return the salted hash identifying the entry
+     */
+    protected String key(RequestConfiguration requestConfiguration, String... parts) {
+        ContractProperty privateKey = requestConfiguration.getContractConfiguration().getProperty(Constants.ContractConfigurationKeys.PRIVATE_KEY);
+        String baseUrl = requestConfiguration.getPartnerConfiguration().getProperty(Constants.PartnerConfigurationKeys.SHAREGROOP_URL);
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            digest.update(salt);
+            digest.update(String.valueOf(baseUrl).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(privateKey == null ? null : privateKey.getValue()).getBytes(StandardCharsets.UTF_8));
+            for (String part : parts) {
+                digest.update((byte) 0);
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+            }
+            return PluginUtils.toHexString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new PluginException("plugin error: no such algorithm " + HASH_ALGORITHM, e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.payline.payment.sharegroop.utils.cache;
+
+import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
+import com.payline.payment.sharegroop.bean.configuration.RequestConfiguration;
+import com.payline.payment.sharegroop.exception.PluginException;
+import com.payline.payment.sharegroop.utils.metrics.Operation;
+import com.payline.payment.sharegroop.utils.properties.ConfigProperties;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the completed order mutations (refund, cancel), so that an operation requested again on the same order is
+ * answered without calling the partner API: the partner would refuse to refund an order already refunded.
+ * Concurrent requests of the same operation on the same order are coalesced into a single call to the partner.
+ *
+ * <p>The entries are identified by a salted hash of the API base URL, of the private key, of the operation and of the
+ * order id, see {@link AbstractCache}. Only the responses showing the operation done are kept; the others are shared
+ * with the concurrent callers, then forgotten.</p>
+ */
+public class OrderMutationCache extends AbstractCache<OrderMutationCache.Entry> {
+
+    // read from the current configuration, so that a reload applies to the next mutations
+    private final LongSupplier ttl;
+
+    public OrderMutationCache() {
+        this(ConfigProperties.getInstance());
+    }
+
+    private OrderMutationCache(ConfigProperties config) {
+        super(() -> config.getConfig().getOrderMutationMaxEntries(), System::nanoTime);
+        this.ttl = () -> TimeUnit.SECONDS.toNanos(config.getConfig().getOrderMutationTtl());
+    }
+
+    OrderMutationCache(long ttl, int maxEntries, LongSupplier clock) {
+        super(() -> maxEntries, clock);
+        this.ttl = () -> ttl;
+    }
+
+    /**
+     * Run the operation on the order, or return the response of the previous run if it completed the operation.
+     *
+     * @param requestConfiguration the configuration containing the private key and the API base URL
+     * @param operation the operation
+     * @param orderId the order id
+     * @param mutation the actual operation, calling the partner API
+     * @param done tells whether a response shows the operation done
+     * @return the response of the partner API
+     * @throws PluginException thrown by the mutation
+     */
+    public SharegroopAPICallResponse execute(RequestConfiguration requestConfiguration, Operation operation, String orderId,
+                                             Supplier<SharegroopAPICallResponse> mutation,
+                                             Predicate<SharegroopAPICallResponse> done) {
+        if (orderId == null) {
+            return mutation.get();
+        }
+        String key = this.key(requestConfiguration, operation.getLabel(), orderId);
+
+        while (true) {
+            Entry current = entries.get(key);
+            if (current != null && (!current.result.isDone() || current.expiresAt - clock.getAsLong() > 0)) {
+                return join(current.result);
+            }
+
+            Entry mine = new Entry();
+            boolean owner = current == null ? entries.putIfAbsent(key, mine) == null : entries.replace(key, current, mine);
+            if (owner) {
+                this.purgeIfFull();
+                return this.run(key, mine, mutation, done);
+            }
+        }
+    }
+
+    private SharegroopAPICallResponse run(String key, Entry entry, Supplier<SharegroopAPICallResponse> mutation,
+                                          Predicate<SharegroopAPICallResponse> done) {
+        SharegroopAPICallResponse response;
+        try {
+            response = mutation.get();
+        } catch (RuntimeException e) {
+            entries.remove(key, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+
+        entry.expiresAt = clock.getAsLong() + ttl.getAsLong();
+        if (!done.test(response)) {
+            entries.remove(key, entry);
+        }
+        entry.result.complete(response);
+        return response;
+    }
+
+    @Override
+    protected boolean isExpired(Entry entry, long now) {
+        return entry.result.isDone() && entry.expiresAt - now <= 0;
+    }
+
+    @Override
+    protected boolean isEvictable(Entry entry) {
+        // the mutations in progress are kept, so that their concurrent callers still share them
+        return entry.result.isDone();
+    }
+
+    private static SharegroopAPICallResponse join(CompletableFuture<SharegroopAPICallResponse> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    static final class Entry {
+        private final CompletableFuture<SharegroopAPICallResponse> result = new CompletableFuture<>();
+        private volatile long expiresAt;
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.payline.payment.sharegroop.utils.cache;
+
+import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
+import com.payline.payment.sharegroop.bean.configuration.RequestConfiguration;
+import com.payline.payment.sharegroop.utils.http.SharegroopHttpClient;
+import com.payline.payment.sharegroop.utils.metrics.Operation;
+import com.payline.payment.sharegroop.utils.properties.ConfigProperties;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache of the orders read from the partner API, so that a status lookup can reuse a recent enough response instead
+ * of calling the partner again. It's shared by the whole plugin, and filled by {@link SharegroopHttpClient} with every
+ * order it gets from the partner: reads, refunds and cancellations. The caller chooses how old a status may be; the
+ * final statuses (refunded, cancelled) can't change anymore, and are reused whatever their age.
+ *
+ * <p>The entries are identified by a salted hash of the API base URL, of the private key and of the order id, see
+ * {@link AbstractCache}. Only the successful responses are kept, at most for {@code orderStatus.cache.ttl}.</p>
+ */
+public class OrderStatusCache extends AbstractCache<OrderStatusCache.Entry> {
+
+    // read from the current configuration, so that a reload applies to the next lookups
+    private final LongSupplier ttl;
+
+    // --- Singleton Holder pattern + initialization BEGIN
+    private OrderStatusCache(ConfigProperties config) {
+        super(() -> config.getConfig().getOrderStatusMaxEntries(), System::nanoTime);
+        this.ttl = () -> TimeUnit.SECONDS.toNanos(config.getConfig().getOrderStatusTtl());
+    }
+
+    private static class Holder {
+        private static final OrderStatusCache instance = new OrderStatusCache(ConfigProperties.getInstance());
+    }
+
+    public static OrderStatusCache getInstance() {
+        return Holder.instance;
+    }
+    // --- Singleton Holder pattern + initialization END
+
+    OrderStatusCache(long ttl, int maxEntries, LongSupplier clock) {
+        super(() -> maxEntries, clock);
+        this.ttl = () -> ttl;
+    }
+
+    /**
+     * @param requestConfiguration the configuration containing the private key and the API base URL
+     * @param orderId the order id
+     * @param maxAge how old the response may be, in nanoseconds, unless the status is final
+     * @return the last response read for the order, or null if there is none recent enough
+     */
+    public SharegroopAPICallResponse get(RequestConfiguration requestConfiguration, String orderId, long maxAge) {
+        if (orderId == null) {
+            return null;
+        }
+        Entry entry = entries.get(this.key(requestConfiguration, orderId));
+        if (entry == null) {
+            return null;
+        }
+        long age = clock.getAsLong() - entry.readAt;
+        if (age >= ttl.getAsLong() || (!entry.isFinal && age > maxAge)) {
+            return null;
+        }
+        return entry.response;
+    }
+
+    /**
+     * Remember the response read for the order, if it's successful.
+     *
+     * @param requestConfiguration the configuration containing the private key and the API base URL
+     * @param orderId the order id
+     * @param response the response of the partner API
+     */
+    public void put(RequestConfiguration requestConfiguration, String orderId, SharegroopAPICallResponse response) {
+        if (orderId == null || response == null || !Boolean.TRUE.equals(response.getSuccess())
+                || response.getData() == null || response.getData().getStatus() == null) {
+            return;
+        }
+        // an order in which a cancel is done (cancelled, or refunded if it had been paid) can't change anymore
+        boolean isFinal = SharegroopHttpClient.isDone(Operation.CANCEL, response);
+        entries.put(this.key(requestConfiguration, orderId), new Entry(response, clock.getAsLong(), isFinal));
+        this.purgeIfFull();
+    }
+
+    @Override
+    protected boolean isExpired(Entry entry, long now) {
+        return now - entry.readAt >= ttl.getAsLong();
+    }
+
+    @Override
+    protected boolean isEvictable(Entry entry) {
+        return true;
+    }
+
+    static final class Entry {
+        private final SharegroopAPICallResponse response;
+        private final long readAt;
+        private final boolean isFinal;
+
+        private Entry(SharegroopAPICallResponse response, long readAt, boolean isFinal) {
+            this.response = response;
+            this.readAt = readAt;
+            this.isFinal = isFinal;
+        }
+    }
+
+}
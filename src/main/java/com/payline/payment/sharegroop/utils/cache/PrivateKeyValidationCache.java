@@ -0,0 +1,117 @@
+package com.payline.payment.sharegroop.utils.cache;
+
+import com.payline.payment.sharegroop.bean.configuration.RequestConfiguration;
+import com.payline.payment.sharegroop.exception.PluginException;
+import com.payline.payment.sharegroop.utils.properties.ConfigProperties;
+import com.payline.pmapi.bean.common.FailureCause;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache of the private key validation results, so that identical validations don't hit the partner API again.
+ * The entries are identified by a salted hash of the private key and of the API base URL, see {@link AbstractCache}.
+ * Concurrent validations of the same key are coalesced into a single call to the partner.
+ */
+public class PrivateKeyValidationCache extends AbstractCache<PrivateKeyValidationCache.Entry> {
+
+    // read from the current configuration, so that a reload applies to the next validations
+    private final LongSupplier positiveTtl;
+    private final LongSupplier negativeTtl;
+
+    public PrivateKeyValidationCache() {
+        this(ConfigProperties.getInstance());
+    }
+
+    private PrivateKeyValidationCache(ConfigProperties config) {
+        super(() -> config.getConfig().getPrivateKeyMaxEntries(), System::nanoTime);
+        this.positiveTtl = () -> TimeUnit.SECONDS.toNanos(config.getConfig().getPrivateKeyPositiveTtl());
+        this.negativeTtl = () -> TimeUnit.SECONDS.toNanos(config.getConfig().getPrivateKeyNegativeTtl());
+    }
+
+    PrivateKeyValidationCache(long positiveTtl, long negativeTtl, int maxEntries, LongSupplier clock) {
+        super(() -> maxEntries, clock);
+        this.positiveTtl = () -> positiveTtl;
+        this.negativeTtl = () -> negativeTtl;
+    }
+
+    /**
+     * Validate the private key of the given configuration, or reuse the result of a previous validation.
+     * The verification is considered successful if it doesn't throw any {@link PluginException}.
+     * Communication errors are shared with the concurrent callers, but never cached.
+     *
+     * @param requestConfiguration the configuration containing the private key and the API base URL
+     * @param verification the actual verification, calling the partner API
+     * @return null if the private key is valid, the error code otherwise
+     */
+    public String validate(RequestConfiguration requestConfiguration, Consumer<RequestConfiguration> verification) {
+        String key = this.key(requestConfiguration);
+
+        while (true) {
+            Entry current = entries.get(key);
+            if (current != null && (!current.result.isDone() || current.expiresAt - clock.getAsLong() > 0)) {
+                return join(current.result);
+            }
+
+            Entry mine = new Entry();
+            boolean owner = current == null ? entries.putIfAbsent(key, mine) == null : entries.replace(key, current, mine);
+            if (owner) {
+                this.purgeIfFull();
+                return this.run(key, mine, requestConfiguration, verification);
+            }
+        }
+    }
+
+    private String run(String key, Entry entry, RequestConfiguration requestConfiguration, Consumer<RequestConfiguration> verification) {
+        String errorCode = null;
+        boolean cacheable = true;
+        try {
+            verification.accept(requestConfiguration);
+        } catch (PluginException e) {
+            errorCode = e.getErrorCode();
+            cacheable = e.getFailureCause() != FailureCause.COMMUNICATION_ERROR;
+        } catch (RuntimeException e) {
+            entries.remove(key, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+
+        entry.expiresAt = clock.getAsLong() + (errorCode == null ? positiveTtl : negativeTtl).getAsLong();
+        if (!cacheable) {
+            entries.remove(key, entry);
+        }
+        entry.result.complete(errorCode);
+        return errorCode;
+    }
+
+    @Override
+    protected boolean isExpired(Entry entry, long now) {
+        return entry.result.isDone() && entry.expiresAt - now <= 0;
+    }
+
+    @Override
+    protected boolean isEvictable(Entry entry) {
+        // the validations in progress are kept, so that their concurrent callers still share them
+        return entry.result.isDone();
+    }
+
+    private static String join(CompletableFuture<String> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    static final class Entry {
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private volatile long expiresAt;
+    }
+
+}
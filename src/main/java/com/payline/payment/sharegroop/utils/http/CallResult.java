@@ -0,0 +1,79 @@
+package com.payline.payment.sharegroop.utils.http;
+
+import com.payline.payment.sharegroop.exception.PluginException;
+import com.payline.pmapi.bean.common.FailureCause;
+
+/**
+ * The result of a call to the partner API made through one of the "try" methods of {@link SharegroopHttpClient}:
+ * either the value obtained, or the error code and failure cause which would have been carried by a
+ * {@link PluginException}. No exception is created on failure.
+ *
+ * @param <T> the type of the value
+ */
+public class CallResult<T> {
+
+    private final T value;
+    private final String errorCode;
+    private final FailureCause failureCause;
+
+    private CallResult(T value, String errorCode, FailureCause failureCause) {
+        this.value = value;
+        this.errorCode = errorCode;
+        this.failureCause = failureCause;
+    }
+
+    public static <T> CallResult<T> success(T value) {
+        return new CallResult<>(value, null, null);
+    }
+
+    /**
+     * @param errorCode the error code, no longer than {@link PluginException#ERROR_CODE_MAX_LENGTH}
+     * @param failureCause the failure cause
+     */
+    public static <T> CallResult<T> failure(String errorCode, FailureCause failureCause) {
+        return new CallResult<>(null, errorCode, failureCause);
+    }
+
+    /**
+     * @param e the exception describing the failure
+     */
+    public static <T> CallResult<T> failure(PluginException e) {
+        return new CallResult<>(null, e.getErrorCode(), e.getFailureCause());
+    }
+
+    public boolean isSuccess() {
+        return failureCause == null;
+    }
+
+    /**
+     * @return the value, or null if the call failed
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * @return the error code, or null if the call succeeded
+     */
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    /**
+     * @return the failure cause, or null if the call succeeded
+     */
+    public FailureCause getFailureCause() {
+        return failureCause;
+    }
+
+    /**
+     * @return the value
+     * @throws PluginException if the call failed
+     */
+    public T getOrThrow() {
+        if (!isSuccess()) {
+            throw PluginException.expected(errorCode, failureCause);
+        }
+        return value;
+    }
+}
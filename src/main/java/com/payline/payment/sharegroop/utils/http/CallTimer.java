@@ -0,0 +1,81 @@
+package com.payline.payment.sharegroop.utils.http;
+
+import com.payline.payment.sharegroop.utils.metrics.Phase;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Collects the timestamps of one HTTP exchange. It's stored in the {@link HttpContext} of the call, where the
+ * timing-aware components of the HTTP client find it: {@link TimingHttpRequestExecutor},
+ * {@link TimingPlainConnectionSocketFactory} and {@link TimingSSLConnectionSocketFactory}.
+ * An exchange runs on a single thread, so no synchronization is needed.
+ */
+class CallTimer {
+
+    static final String ATTRIBUTE = "sharegroop.callTimer";
+
+    private final long start;
+    private long firstConnectStart;
+    private long connect;
+    private long tlsHandshake;
+    private long requestSent;
+    private long headersReceived;
+
+    CallTimer(long start) {
+        this.start = start;
+    }
+
+    /**
+     * @return the timer of the call, or null if the call is not timed
+     */
+    static CallTimer from(HttpContext context) {
+        if (context == null) {
+            return null;
+        }
+        Object timer = context.getAttribute(ATTRIBUTE);
+        return timer instanceof CallTimer ? (CallTimer) timer : null;
+    }
+
+    void connectStarted(long now) {
+        if (firstConnectStart == 0) {
+            firstConnectStart = now;
+        }
+    }
+
+    void addConnect(long nanos) {
+        connect += nanos;
+    }
+
+    void addTlsHandshake(long nanos) {
+        tlsHandshake += nanos;
+    }
+
+    long getTlsHandshake() {
+        return tlsHandshake;
+    }
+
+    void requestSent(long now) {
+        requestSent = now;
+    }
+
+    void headersReceived(long now) {
+        headersReceived = now;
+    }
+
+    /**
+     * @param end the time the response body has been read
+     * @return the timings of the call
+     */
+    CallTimings stop(long end) {
+        // a stage which didn't happen (a mocked client, for instance) takes no time
+        long sent = requestSent == 0 ? start : requestSent;
+        long received = headersReceived == 0 ? sent : headersReceived;
+
+        long[] phases = new long[Phase.values().length];
+        phases[Phase.POOL_WAIT.ordinal()] = Math.max(0, (firstConnectStart == 0 ? sent : firstConnectStart) - start);
+        phases[Phase.CONNECT.ordinal()] = connect;
+        phases[Phase.TLS_HANDSHAKE.ordinal()] = tlsHandshake;
+        phases[Phase.SERVER.ordinal()] = Math.max(0, received - sent);
+        phases[Phase.BODY_READ.ordinal()] = Math.max(0, end - received);
+        return new CallTimings(phases, end - start, firstConnectStart == 0);
+    }
+}
@@ -0,0 +1,49 @@
+package com.payline.payment.sharegroop.utils.http;
+
+import com.payline.payment.sharegroop.utils.metrics.Phase;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Breakdown of the time spent in one HTTP exchange with the partner API, by {@link Phase}. All durations are in
+ * nanoseconds. Connect and TLS handshake are zero when a pooled connection has been reused.
+ */
+public class CallTimings {
+
+    private final long[] phases;
+    private final long total;
+    private final boolean connectionReused;
+
+    CallTimings(long[] phases, long total, boolean connectionReused) {
+        this.phases = phases;
+        this.total = total;
+        this.connectionReused = connectionReused;
+    }
+
+    public long get(Phase phase) {
+        return phases[phase.ordinal()];
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public boolean isConnectionReused() {
+        return connectionReused;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("CallTimings{");
+        for (Phase phase : Phase.values()) {
+            sb.append(phase.getLabel()).append('=').append(toMillis(get(phase))).append("ms, ");
+        }
+        return sb.append("total=").append(toMillis(total)).append("ms")
+                .append(", connectionReused=").append(connectionReused)
+                .append('}').toString();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
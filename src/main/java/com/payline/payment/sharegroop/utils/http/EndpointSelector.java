@@ -0,0 +1,262 @@
+package com.payline.payment.sharegroop.utils.http;
+
+import com.payline.pmapi.logger.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Chooses the partner API endpoint each call goes to, when the SHAREGROOP_URL of the partner configuration lists
+ * several base URLs separated by commas: regional or secondary endpoints of the same API.
+ *
+ * <p>The score of an endpoint is the exponentially weighted moving average (EWMA) of its latency, times the number of
+ * its calls in flight plus one. A call goes to the best of two endpoints drawn at random (power of two choices): the
+ * fastest endpoints get most of the calls, without all the calls piling on the same one.</p>
+ *
+ * <p>An endpoint failing several times in a row (I/O error or 5xx status) is ejected for a while, longer each time it's
+ * ejected again, until it succeeds. The last available endpoint of a list is never ejected.</p>
+ *
+ * <p>Each list has its own endpoints: a base URL appearing in the lists of several merchants is tracked separately in
+ * each of them, and a call only fails over to the endpoints of the list it has been sent with.</p>
+ */
+class EndpointSelector {
+
+    private static final Logger LOGGER = LogManager.getLogger(EndpointSelector.class);
+
+    private static final double EWMA_WEIGHT = 0.3;
+    /**
+     * The minimum latency recorded for a failure, in nanoseconds, so that an endpoint refusing connections doesn't
+     * look fast.
+     */
+    private static final long FAILURE_PENALTY = TimeUnit.SECONDS.toNanos(1);
+    private static final int MAX_EJECTION_MULTIPLIER = 10;
+
+    private final ConcurrentMap<String, List<Endpoint>> groups = new ConcurrentHashMap<>();
+    private final IntSupplier ejectionThreshold;
+    private final LongSupplier baseEjectionTime;
+    private final LongSupplier clock;
+
+    /**
+     * @param ejectionThreshold the number of consecutive failures ejecting an endpoint, 0 to never eject
+     * @param baseEjectionTime the duration of the first ejection of an endpoint, in nanoseconds
+     * @param clock the current time, in nanoseconds
+     */
+    EndpointSelector(IntSupplier ejectionThreshold, LongSupplier baseEjectionTime, LongSupplier clock) {
+        this.ejectionThreshold = ejectionThreshold;
+        this.baseEjectionTime = baseEjectionTime;
+        this.clock = clock;
+    }
+
+    /**
+     * @param sharegroopUrl the SHAREGROOP_URL of the partner configuration
+     * @return the base URL the call should go to: the SHAREGROOP_URL itself if it's a single URL
+     * @throws URISyntaxException if one of the base URLs is invalid
+     */
+    String select(String sharegroopUrl) throws URISyntaxException {
+        if (sharegroopUrl.indexOf(',') < 0) {
+            return sharegroopUrl;
+        }
+        return best(group(sharegroopUrl), Collections.emptySet()).baseUrl;
+    }
+
+    /**
+     * @param sharegroopUrl the SHAREGROOP_URL of the partner configuration the request has been built with, or null
+     * @param uri the URI of the request
+     * @return the endpoint of the list the URI belongs to, or null if the list has a single URL or none matches
+     */
+    Endpoint endpointOf(String sharegroopUrl, URI uri) {
+        if (sharegroopUrl == null || sharegroopUrl.indexOf(',') < 0) {
+            return null;
+        }
+        List<Endpoint> group;
+        try {
+            group = group(sharegroopUrl);
+        } catch (URISyntaxException e) {
+            return null;
+        }
+        String value = uri.toString();
+        Endpoint result = null;
+        for (Endpoint endpoint : group) {
+            if (endpoint.contains(value) && (result == null || endpoint.baseUrl.length() > result.baseUrl.length())) {
+                result = endpoint;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Choose the endpoint to send a call to again, after a failure.
+     *
+     * @param failed the endpoint which just failed
+     * @param tried the endpoints which already failed during the call
+     * @return another endpoint of the list, preferably not tried yet, or null if there is none
+     */
+    Endpoint failover(Endpoint failed, Set<Endpoint> tried) {
+        Endpoint next = best(failed.group, tried);
+        if (next == null) {
+            next = best(failed.group, Collections.singleton(failed));
+        }
+        return next;
+    }
+
+    void callStarted(Endpoint endpoint) {
+        endpoint.inFlight.incrementAndGet();
+    }
+
+    /**
+     * @param success false if the call failed with an I/O error or a 5xx status
+     * @param nanos the duration of the call, in nanoseconds
+     */
+    void callEnded(Endpoint endpoint, boolean success, long nanos) {
+        endpoint.inFlight.decrementAndGet();
+        long now = clock.getAsLong();
+        synchronized (endpoint) {
+            endpoint.record(success ? nanos : Math.max(nanos, FAILURE_PENALTY));
+            if (success) {
+                endpoint.consecutiveFailures = 0;
+                if (!endpoint.isEjected(now)) {
+                    endpoint.ejections = 0;
+                }
+                return;
+            }
+            endpoint.consecutiveFailures++;
+            int threshold = ejectionThreshold.getAsInt();
+            if (threshold > 0 && endpoint.consecutiveFailures >= threshold && !endpoint.isEjected(now)
+                    && hasOtherAvailable(endpoint, now)) {
+                endpoint.ejections++;
+                endpoint.ejectedUntil = now + baseEjectionTime.getAsLong() * Math.min(endpoint.ejections, MAX_EJECTION_MULTIPLIER);
+                endpoint.consecutiveFailures = 0;
+                LOGGER.warn("Partner API endpoint {} ejected for {} s", endpoint.baseUrl,
+                        TimeUnit.NANOSECONDS.toSeconds(endpoint.ejectedUntil - now));
+            }
+        }
+    }
+
+    private boolean hasOtherAvailable(Endpoint endpoint, long now) {
+        for (Endpoint other : endpoint.group) {
+            if (other != endpoint && !other.isEjected(now)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Endpoint> group(String sharegroopUrl) throws URISyntaxException {
+        List<Endpoint> group = groups.get(sharegroopUrl);
+        if (group != null) {
+            return group;
+        }
+        Set<String> baseUrls = new LinkedHashSet<>();
+        for (String baseUrl : sharegroopUrl.split(",")) {
+            if (!baseUrl.trim().isEmpty()) {
+                baseUrls.add(new URI(baseUrl.trim()).toString());
+            }
+        }
+        if (baseUrls.isEmpty()) {
+            throw new URISyntaxException(sharegroopUrl, "No base URL");
+        }
+        List<Endpoint> newGroup = new ArrayList<>();
+        for (String baseUrl : baseUrls) {
+            newGroup.add(new Endpoint(baseUrl, newGroup));
+        }
+        List<Endpoint> previous = groups.putIfAbsent(sharegroopUrl, Collections.unmodifiableList(newGroup));
+        return previous == null ? groups.get(sharegroopUrl) : previous;
+    }
+
+    /**
+     * @return the best of two endpoints drawn at random among the available ones which are not excluded, or null if
+     * all of them are excluded. If all the others are ejected, the ejected ones are available.
+     */
+    private Endpoint best(List<Endpoint> group, Set<Endpoint> excluded) {
+        long now = clock.getAsLong();
+        List<Endpoint> candidates = new ArrayList<>(group.size());
+        for (Endpoint endpoint : group) {
+            if (!excluded.contains(endpoint) && !endpoint.isEjected(now)) {
+                candidates.add(endpoint);
+            }
+        }
+        if (candidates.isEmpty()) {
+            for (Endpoint endpoint : group) {
+                if (!excluded.contains(endpoint)) {
+                    candidates.add(endpoint);
+                }
+            }
+        }
+        if (candidates.size() <= 1) {
+            return candidates.isEmpty() ? null : candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Endpoint a = candidates.get(first);
+        Endpoint b = candidates.get(second);
+        return a.score() <= b.score() ? a : b;
+    }
+
+    /**
+     * A base URL of the partner API, and its statistics.
+     */
+    static final class Endpoint {
+
+        private final String baseUrl;
+        /**
+         * The list the endpoint belongs to.
+         */
+        private final List<Endpoint> group;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile double ewma;
+        private volatile long ejectedUntil;
+        // guarded by this
+        private int consecutiveFailures;
+        private int ejections;
+
+        private Endpoint(String baseUrl, List<Endpoint> group) {
+            this.baseUrl = baseUrl;
+            this.group = group;
+        }
+
+        String getBaseUrl() {
+            return baseUrl;
+        }
+
+        /**
+         * @return the URI, moved from the given endpoint to this one
+         */
+        URI rewrite(URI uri, Endpoint from) {
+            return URI.create(baseUrl + uri.toString().substring(from.baseUrl.length()));
+        }
+
+        double score() {
+            return ewma * (inFlight.get() + 1);
+        }
+
+        boolean isEjected(long now) {
+            return ejectedUntil != 0 && now - ejectedUntil < 0;
+        }
+
+        private boolean contains(String uri) {
+            return uri.startsWith(baseUrl) && (uri.length() == baseUrl.length() || baseUrl.endsWith("/")
+                    || "/?#".indexOf(uri.charAt(baseUrl.length())) >= 0);
+        }
+
+        private void record(long nanos) {
+            ewma = ewma == 0 ? nanos : EWMA_WEIGHT * nanos + (1 - EWMA_WEIGHT) * ewma;
+        }
+    }
+}
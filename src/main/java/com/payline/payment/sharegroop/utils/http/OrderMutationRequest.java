@@ -0,0 +1,95 @@
+package com.payline.payment.sharegroop.utils.http;
+
+import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
+import com.payline.payment.sharegroop.utils.metrics.Operation;
+import org.apache.http.client.methods.HttpPost;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * POST request changing the state of an order: refund or cancel. It carries an idempotency key, the same for every
+ * request of the operation on the order, so that the partner can recognize a request sent again.
+ *
+ * <p>The state of the order tells whether the operation has been done: when the outcome of a request is unknown,
+ * {@link SharegroopHttpClient} reads the order before sending it again.</p>
+ */
+class OrderMutationRequest extends HttpPost {
+
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private static final Map<Operation, Set<String>> DONE_STATUSES = new EnumMap<>(Operation.class);
+
+    static {
+        DONE_STATUSES.put(Operation.REFUND, Collections.singleton("refunded"));
+        // cancelling an order which has been paid refunds the participants
+        DONE_STATUSES.put(Operation.CANCEL, Collections.unmodifiableSet(new HashSet<>(Arrays.asList("cancelled", "refunded"))));
+    }
+
+    private final Operation operation;
+
+    /**
+     * @param operation {@link Operation#REFUND} or {@link Operation#CANCEL}
+     */
+    OrderMutationRequest(URI uri, Operation operation, String orderId) {
+        super(uri);
+        this.operation = operation;
+        this.setHeader(IDEMPOTENCY_KEY, idempotencyKey(operation, orderId));
+    }
+
+    /**
+     * @return a key derived from the operation and the order only, so that it's the same in every JVM
+     */
+    static String idempotencyKey(Operation operation, String orderId) {
+        return UUID.nameUUIDFromBytes((operation.getLabel() + ":" + orderId).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * @return true if the response shows an order in which the operation has been done
+     */
+    static boolean isDone(Operation operation, SharegroopAPICallResponse response) {
+        Set<String> statuses = DONE_STATUSES.get(operation);
+        return statuses != null && response != null && Boolean.TRUE.equals(response.getSuccess())
+                && response.getData() != null && response.getData().getStatus() != null
+                && statuses.contains(response.getData().getStatus().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @return true if the response is a refusal naming a status in which the operation has been done, as in "order can
+     * not be refunded in status refunded"
+     */
+    static boolean isRefusedAsDone(Operation operation, SharegroopAPICallResponse response) {
+        Set<String> statuses = DONE_STATUSES.get(operation);
+        if (statuses == null || response == null || response.getErrors() == null) {
+            return false;
+        }
+        for (String error : response.getErrors()) {
+            String message = error == null ? "" : error.toLowerCase(Locale.ROOT);
+            for (String status : statuses) {
+                if (message.contains("status " + status)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    Operation getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return the URI of the order, from the current URI of the request: the order URI followed by the action
+     */
+    URI getOrderUri() {
+        return getURI().resolve("..");
+    }
+}
@@ -0,0 +1,124 @@
+package com.payline.payment.sharegroop.utils.http;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.protocol.HttpContext;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Keep-alive strategy following the Keep-Alive timeout sent by the partner API, minus a margin, so that the client never
+ * keeps a connection the server is about to close. When the partner sends none, a default duration applies.
+ *
+ * <p>The routes of the responses are remembered, with the keep-alive duration of their last response and the time of
+ * their last call: they are the routes kept warm by {@link SharegroopHttpClient}, until they are no longer called.</p>
+ */
+class PartnerKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+    /**
+     * The maximum margin taken on the timeout sent by the server, in milliseconds.
+     */
+    private static final long MAX_MARGIN = 1000;
+
+    /**
+     * The number of keep-alive durations after which a route no call has been made on is forgotten.
+     */
+    static final int IDLE_PERIODS = 3;
+
+    private final ConcurrentMap<HttpRoute, RouteState> routes = new ConcurrentHashMap<>();
+    private final LongSupplier defaultKeepAlive;
+    private final LongSupplier clock;
+
+    /**
+     * @param defaultKeepAlive the keep-alive duration when the server sends none, in milliseconds. 0 or less to keep
+     *                         the connections indefinitely.
+     */
+    PartnerKeepAliveStrategy(LongSupplier defaultKeepAlive) {
+        this(defaultKeepAlive, System::currentTimeMillis);
+    }
+
+    PartnerKeepAliveStrategy(LongSupplier defaultKeepAlive, LongSupplier clock) {
+        this.defaultKeepAlive = defaultKeepAlive;
+        this.clock = clock;
+    }
+
+    /**
+     * Get the keep-alive duration of the response of a call, and record the call on its route.
+     */
+    @Override
+    public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+        return this.keepAlive(response, context, true);
+    }
+
+    /**
+     * Same as {@link #getKeepAliveDuration(HttpResponse, HttpContext)}, for the response of a request keeping the
+     * connection warm: it isn't recorded as a call of the route.
+     */
+    long getPingKeepAliveDuration(HttpResponse response, HttpContext context) {
+        return this.keepAlive(response, context, false);
+    }
+
+    private long keepAlive(HttpResponse response, HttpContext context, boolean called) {
+        long timeout = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        long keepAlive = timeout > 0 ? timeout - Math.min(MAX_MARGIN, timeout / 2) : defaultKeepAlive.getAsLong();
+        HttpRoute route = HttpClientContext.adapt(context).getAttribute(HttpClientContext.HTTP_ROUTE, HttpRoute.class);
+        if (route != null) {
+            long now = clock.getAsLong();
+            routes.compute(route, (r, state) -> new RouteState(keepAlive,
+                    called || state == null ? now : state.lastCalled));
+        }
+        return keepAlive;
+    }
+
+    /**
+     * Remember a route no response has been received from yet, as called now.
+     */
+    void register(HttpRoute route) {
+        long now = clock.getAsLong();
+        routes.compute(route, (r, state) -> new RouteState(
+                state == null ? defaultKeepAlive.getAsLong() : state.keepAlive, now));
+    }
+
+    /**
+     * @return the keep-alive duration of the last response received on the route, in milliseconds. 0 or less means
+     * indefinitely.
+     */
+    long getKeepAlive(HttpRoute route) {
+        RouteState state = routes.get(route);
+        return state == null ? defaultKeepAlive.getAsLong() : state.keepAlive;
+    }
+
+    /**
+     * Forget the routes no call has been made on for {@value #IDLE_PERIODS} keep-alive durations, for instance the
+     * endpoints removed from the configuration.
+     *
+     * @param minPeriod the period to use instead of shorter or unlimited keep-alive durations, in milliseconds
+     */
+    void forgetIdleRoutes(long minPeriod) {
+        long now = clock.getAsLong();
+        routes.values().removeIf(state -> now - state.lastCalled > IDLE_PERIODS * Math.max(state.keepAlive, minPeriod));
+    }
+
+    /**
+     * @return the routes called so far, and not forgotten
+     */
+    Set<HttpRoute> getRoutes() {
+        return routes.keySet();
+    }
+
+    private static final class RouteState {
+        private final long keepAlive;
+        private final long lastCalled;
+
+        private RouteState(long keepAlive, long lastCalled) {
+            this.keepAlive = keepAlive;
+            this.lastCalled = lastCalled;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.payline.payment.sharegroop.utils.http;
 
+import com.google.gson.JsonParseException;
 import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
 import com.payline.payment.sharegroop.bean.configuration.RequestConfiguration;
 import com.payline.payment.sharegroop.bean.payment.Order;
@@ -8,34 +9,84 @@ import com.payline.payment.sharegroop.exception.PluginException;
 import com.payline.payment.sharegroop.service.JsonService;
 import com.payline.payment.sharegroop.utils.Constants;
 import com.payline.payment.sharegroop.utils.PluginUtils;
+import com.payline.payment.sharegroop.utils.cache.OrderMutationCache;
+import com.payline.payment.sharegroop.utils.cache.OrderStatusCache;
+import com.payline.payment.sharegroop.utils.http.EndpointSelector.Endpoint;
+import com.payline.payment.sharegroop.utils.jfr.PartnerExchangeEvent;
+import com.payline.payment.sharegroop.utils.log.LogCategory;
+import com.payline.payment.sharegroop.utils.log.PluginLogger;
+import com.payline.payment.sharegroop.utils.metrics.Operation;
+import com.payline.payment.sharegroop.utils.metrics.Outcome;
+import com.payline.payment.sharegroop.utils.metrics.SharegroopMetrics;
+import com.payline.payment.sharegroop.utils.metrics.SlowCall;
+import com.payline.payment.sharegroop.utils.metrics.SlowCallDetector;
 import com.payline.payment.sharegroop.utils.properties.ConfigProperties;
+import com.payline.payment.sharegroop.utils.properties.PluginConfig;
 import com.payline.pmapi.bean.common.FailureCause;
-import com.payline.pmapi.logger.LogManager;
+import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpHeaders;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.DefaultConnectionReuseStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.logging.log4j.Logger;
-
-import javax.net.ssl.HttpsURLConnection;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpCoreContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+import javax.net.ssl.SSLHandshakeException;
 import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.ProxySelector;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 
 public class SharegroopHttpClient {
 
-    private static final Logger LOGGER = LogManager.getLogger(SharegroopHttpClient.class);
+    private static final PluginLogger LOGGER = PluginLogger.getLogger(SharegroopHttpClient.class);
     private final JsonService jsonService = JsonService.getInstance();
+    private SharegroopMetrics metrics = SharegroopMetrics.getInstance();
+    private SlowCallDetector slowCalls = SlowCallDetector.getInstance();
+    private OrderMutationCache mutations = new OrderMutationCache();
+    private OrderStatusCache statuses = OrderStatusCache.getInstance();
 
     //Headers
     private static final String CONTENT_TYPE_VALUE = "application/json";
@@ -50,47 +101,69 @@ public class SharegroopHttpClient {
     private static final String SERVICE_URL_ERROR = "Service URL is invalid";
     private static final String MISSING_ORDER_ID = "Missing an order Id";
 
+    // Expected failures: stackless, and thrown again and again
+    private static final PluginException COMMUNICATION_FAILURE = PluginException.expected("Failed to contact the partner API", FailureCause.COMMUNICATION_ERROR);
+    private static final PluginException INVALID_RESPONSE_FAILURE = PluginException.expected("Invalid partner API response", FailureCause.COMMUNICATION_ERROR);
+    private static final InvalidDataException MISSING_URL_FAILURE = InvalidDataException.expected("Missing API url from partner configuration (sentitive properties)");
+    private static final InvalidDataException MISSING_PRIVATE_KEY_FAILURE = InvalidDataException.expected("Missing client private key from partner configuration (sentitive properties)");
+    private static final InvalidDataException MISSING_ORDER_ID_FAILURE = InvalidDataException.expected(MISSING_ORDER_ID);
+
+    // Keep-warm
+    private static final HttpRequestExecutor PING_EXECUTOR = new HttpRequestExecutor();
+    private static final long MIN_KEEP_WARM_DELAY = 1000;
+
+    private ConfigProperties configProperties = ConfigProperties.getInstance();
+
     /**
-     * The number of time the client must retry to send the request if it doesn't obtain a response.
+     * The configuration the client has been set up with, and the request config built from it.
      */
-    private int retries;
+    private volatile AppliedConfig appliedConfig;
 
     private HttpClient client;
 
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    private final PartnerKeepAliveStrategy keepAliveStrategy = new PartnerKeepAliveStrategy(
+            () -> TimeUnit.SECONDS.toMillis(configProperties.getConfig().getPoolKeepAlive()));
+
+    private final EndpointSelector endpoints = new EndpointSelector(
+            () -> configProperties.getConfig().getEndpointEjectionFailures(),
+            () -> TimeUnit.SECONDS.toNanos(configProperties.getConfig().getEndpointEjectionTime()),
+            System::nanoTime);
+
     // --- Singleton Holder pattern + initialization BEGIN
     /**
      * ------------------------------------------------------------------------------------------------------------------
      */
     SharegroopHttpClient() {
-            int connectionRequestTimeout;
-            int connectTimeout;
-            int socketTimeout;
-            try {
-                // request config timeouts (in seconds)
-                ConfigProperties config = ConfigProperties.getInstance();
-                connectionRequestTimeout = Integer.parseInt(config.get("http.connectionRequestTimeout"));
-                connectTimeout = Integer.parseInt(config.get("http.connectTimeout"));
-                socketTimeout = Integer.parseInt(config.get("http.socketTimeout"));
-
-                // retries
-                this.retries = Integer.parseInt(config.get("http.retries"));
-            } catch (NumberFormatException e) {
-                throw new PluginException("plugin error: http.* properties must be integers", e);
-            }
-
-            RequestConfig requestConfig = RequestConfig.custom()
-                    .setConnectionRequestTimeout(connectionRequestTimeout * 1000)
-                    .setConnectTimeout(connectTimeout * 1000)
-                    .setSocketTimeout(socketTimeout * 1000)
+            // connection pool, with socket factories timing the connect and the TLS handshake of each call. The TLS one
+            // has its own session cache, so that the new connections resume the sessions of the previous ones.
+            Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+                    .register("http", new TimingPlainConnectionSocketFactory())
+                    .register("https", TimingSSLConnectionSocketFactory.create(configProperties.getConfig(), metrics))
                     .build();
+            this.connectionManager = new PoolingHttpClientConnectionManager(socketFactories);
+            // same pool size as the one HttpClientBuilder#useSystemProperties() would have created
+            if ("true".equalsIgnoreCase(System.getProperty("http.keepAlive", "true"))) {
+                int maxConnections = Integer.parseInt(System.getProperty("http.maxConnections", "5"));
+                connectionManager.setDefaultMaxPerRoute(maxConnections);
+                connectionManager.setMaxTotal(2 * maxConnections);
+            }
+            AppliedConfig initialConfig = this.applyConfig(configProperties.getConfig());
 
             // instantiate Apache HTTP client
             this.client = HttpClientBuilder.create()
                     .useSystemProperties()
-                    .setDefaultRequestConfig(requestConfig)
-                    .setSSLSocketFactory(new SSLConnectionSocketFactory(HttpsURLConnection.getDefaultSSLSocketFactory(), SSLConnectionSocketFactory.getDefaultHostnameVerifier()))
+                    .setDefaultRequestConfig(initialConfig.requestConfig)
+                    .setConnectionManager(connectionManager)
+                    .setKeepAliveStrategy(keepAliveStrategy)
+                    .setRequestExecutor(new TimingHttpRequestExecutor())
                     .build();
 
+            if (initialConfig.config.isKeepWarmEnabled()) {
+                this.startKeepWarm();
+            }
+
     }
     /**
      * ------------------------------------------------------------------------------------------------------------------
@@ -128,30 +201,333 @@ public class SharegroopHttpClient {
      * @throws PluginException If an error repeatedly occurs and no proper response is obtained.
      */
     StringResponse execute(HttpRequestBase httpRequest) {
+        return this.execute(httpRequest, Operation.OTHER);
+    }
+
+    /**
+     * Send the request, with a retry system in case the client does not obtain a proper response from the server.
+     * Every attempt is recorded in the {@link SharegroopMetrics} and, when Flight Recorder is recording, as a
+     * {@link PartnerExchangeEvent}. The {@link CallTimings} of the attempt which obtained the response are attached to it.
+     * The attempts considered slow by the {@link SlowCallDetector} are captured for diagnosis.
+     *
+     * <p>When the partner configuration lists several endpoints, see {@link EndpointSelector}, a failed attempt is sent
+     * again to another endpoint: always for GET requests, and for other requests only when they haven't been sent.</p>
+     *
+     * @param httpRequest The request to send.
+     * @param operation The partner API operation the request belongs to.
+     * @return The response converted as a {@link StringResponse}.
+     * @throws PluginException If an error repeatedly occurs and no proper response is obtained.
+     */
+    StringResponse execute(HttpRequestBase httpRequest, Operation operation) {
+        return this.execute(httpRequest, operation, null);
+    }
+
+    /**
+     * @param sharegroopUrl the SHAREGROOP_URL the request has been built with, giving the endpoints it can fail over to
+     */
+    StringResponse execute(HttpRequestBase httpRequest, Operation operation, String sharegroopUrl) {
+        StringResponse strResponse = this.send(httpRequest, operation, sharegroopUrl);
+        if (strResponse == null) {
+            throw COMMUNICATION_FAILURE;
+        }
+        return strResponse;
+    }
+
+    /**
+     * Send the request, as {@link #execute(HttpRequestBase, Operation)} does, but without throwing if no proper response
+     * is obtained.
+     *
+     * @return The response converted as a {@link StringResponse}, or null if no proper response has been obtained.
+     */
+    private StringResponse send(HttpRequestBase httpRequest, Operation operation, String sharegroopUrl) {
+        return this.send(httpRequest, operation, sharegroopUrl, this.currentConfig().retries);
+    }
+
+    /**
+     * @param sharegroopUrl the SHAREGROOP_URL the request has been built with, or null
+     * @param retries the maximum number of attempts
+     */
+    private StringResponse send(HttpRequestBase httpRequest, Operation operation, String sharegroopUrl, int retries) {
+        AppliedConfig config = this.currentConfig();
+        httpRequest.setConfig(config.requestConfig);
         StringResponse strResponse = null;
         int attempts = 1;
+        Endpoint endpoint = endpoints.endpointOf(sharegroopUrl, httpRequest.getURI());
+        Set<Endpoint> failedEndpoints = null;
+        boolean maybeProcessed = false;
 
-        while (strResponse == null && attempts <= this.retries) {
+        while (strResponse == null && attempts <= retries) {
+            int attempt = attempts;
             if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("Start call to partner API (request : {}) (attempt : {}) ", PluginUtils.requestToString(httpRequest), attempts);
+                LOGGER.debug(LogCategory.PARTNER_REQUEST, "Start call to partner API (request : {}) (attempt : {}) ",
+                        () -> PluginUtils.requestToString(httpRequest), () -> attempt);
             } else {
-                LOGGER.info("Start call to partner API [{} {}] (attempt {})", httpRequest.getMethod(), httpRequest.getURI(), attempts);
+                LOGGER.info(LogCategory.PARTNER_REQUEST, "Start call to partner API [{} {}] (attempt {})",
+                        httpRequest::getMethod, httpRequest::getURI, () -> attempt);
             }
-            try (CloseableHttpResponse httpResponse = (CloseableHttpResponse) this.client.execute(httpRequest)) {
+            PartnerExchangeEvent event = new PartnerExchangeEvent();
+            event.begin();
+            long start = System.nanoTime();
+            CallTimer timer = new CallTimer(start);
+            HttpClientContext context = HttpClientContext.create();
+            context.setAttribute(CallTimer.ATTRIBUTE, timer);
+            IOException failure = null;
+            if (endpoint != null) {
+                endpoints.callStarted(endpoint);
+            }
+            try (CloseableHttpResponse httpResponse = (CloseableHttpResponse) this.client.execute(httpRequest, context)) {
                 strResponse = StringResponse.fromHttpResponse(httpResponse);
+                if (strResponse != null) {
+                    long end = System.nanoTime();
+                    CallTimings timings = timer.stop(end);
+                    strResponse.setTimings(timings);
+                    Outcome outcome = Outcome.ofStatus(strResponse.getStatusCode());
+                    metrics.record(operation, outcome, end - start);
+                    metrics.record(operation, timings);
+                    LOGGER.debug(LogCategory.CALL_TIMINGS, "Call timings: {}", () -> timings);
+                    if (event.shouldCommit()) {
+                        commit(event, httpRequest, operation, attempts, strResponse, outcome);
+                    }
+                    if (slowCalls.isSlow(operation, end - start, end)) {
+                        captureSlowCall(httpRequest, operation, attempts, outcome, end - start, end,
+                                PluginUtils.responseSummary(strResponse), timings);
+                    }
+                }
             } catch (IOException e) {
+                long end = System.nanoTime();
+                Outcome outcome = attempts < retries ? Outcome.RETRY : Outcome.IO_EXCEPTION;
+                metrics.record(operation, outcome, end - start);
+                if (event.shouldCommit()) {
+                    commit(event, httpRequest, operation, attempts, null, outcome);
+                }
+                if (slowCalls.isSlow(operation, end - start, end)) {
+                    captureSlowCall(httpRequest, operation, attempts, outcome, end - start, end,
+                            e.getClass().getSimpleName() + ": " + e.getMessage(), timer.stop(end));
+                }
                 LOGGER.error("An error occurred during the HTTP call :", e);
                 strResponse = null;
+                failure = e;
             } finally {
+                if (endpoint != null) {
+                    endpoints.callEnded(endpoint, strResponse != null && strResponse.getStatusCode() < 500, System.nanoTime() - start);
+                }
                 attempts++;
             }
+
+            maybeProcessed |= isMaybeProcessed(failure);
+            if (httpRequest instanceof OrderMutationRequest && attempts <= retries && isMaybeProcessed(failure)) {
+                // the partner may have processed the request: check before sending it again
+                strResponse = this.reconcile((OrderMutationRequest) httpRequest, sharegroopUrl);
+            }
+
+            if (endpoint != null && attempts <= retries && canFailOver(httpRequest, strResponse, failure)) {
+                if (failedEndpoints == null) {
+                    failedEndpoints = new HashSet<>();
+                }
+                failedEndpoints.add(endpoint);
+                Endpoint next = endpoints.failover(endpoint, failedEndpoints);
+                if (next != null) {
+                    Endpoint failed = endpoint;
+                    LOGGER.info(LogCategory.PARTNER_REQUEST, "Failing over from partner API endpoint {} to {}",
+                            failed::getBaseUrl, next::getBaseUrl);
+                    httpRequest.setURI(next.rewrite(httpRequest.getURI(), failed));
+                    endpoint = next;
+                    strResponse = null;
+                }
+            }
         }
 
         if (strResponse == null) {
-            throw new PluginException("Failed to contact the partner API", FailureCause.COMMUNICATION_ERROR);
+            return null;
+        }
+        if (httpRequest instanceof OrderMutationRequest && strResponse.getStatusCode() == 400
+                && (maybeProcessed || this.isRefusedAsDone((OrderMutationRequest) httpRequest, strResponse))) {
+            // refused because it has been done already: by an earlier attempt of this call, or by another request
+            StringResponse reconciled = this.reconcile((OrderMutationRequest) httpRequest, sharegroopUrl);
+            if (reconciled != null) {
+                strResponse = reconciled;
+            }
+        }
+        StringResponse response = strResponse;
+        LOGGER.info(LogCategory.PARTNER_RESPONSE, "Response obtained from partner API [{} {}]",
+                response::getStatusCode, response::getStatusMessage);
+        return response;
+    }
+    /**
+     * @param response the response of the failed attempt, or null if none has been obtained
+     * @param failure the error of the failed attempt, or null
+     * @return true if the attempt has failed, and the request can be sent to another endpoint: GET requests can always
+     * be, the others only if they haven't been sent, as they may have been processed.
+     */
+    private static boolean canFailOver(HttpRequestBase httpRequest, StringResponse response, IOException failure) {
+        boolean idempotent = HttpGet.METHOD_NAME.equals(httpRequest.getMethod()) || HttpHead.METHOD_NAME.equals(httpRequest.getMethod());
+        if (response != null) {
+            int status = response.getStatusCode();
+            return idempotent && (status == 502 || status == 503 || status == 504);
+        }
+        return idempotent || isNotSent(failure);
+    }
+
+    /**
+     * @return true if the error happened after the request was sent, while waiting for the response: the partner may
+     * have processed it
+     */
+    private static boolean isMaybeProcessed(IOException failure) {
+        return failure instanceof SocketTimeoutException || failure instanceof NoHttpResponseException;
+    }
+
+    /**
+     * Read the order a mutation request applies to, in a single attempt.
+     *
+     * @return the response of the partner API if it shows the mutation done, null otherwise
+     */
+    private StringResponse reconcile(OrderMutationRequest request, String sharegroopUrl) {
+        HttpGet httpGet = new HttpGet(request.getOrderUri());
+        httpGet.setHeaders(request.getHeaders(HttpHeaders.AUTHORIZATION));
+        httpGet.setHeader(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_VALUE);
+        StringResponse response = this.send(httpGet, Operation.VERIFY, sharegroopUrl, 1);
+        if (response == null || response.getStatusCode() != 200) {
+            return null;
+        }
+        if (!OrderMutationRequest.isDone(request.getOperation(), jsonService.fromJson(response.getContent(), SharegroopAPICallResponse.class))) {
+            return null;
+        }
+        LOGGER.info(LogCategory.PAYMENT_FLOW, "Order already processed by the partner API, not sent again [{} {}]",
+                request::getMethod, request::getURI);
+        return response;
+    }
+
+    /**
+     * @return true if the refusal of a mutation request says the order is in a status the mutation leads to already. The
+     * other refusals (invalid order state, validation error...) are final, and don't need a read of the order.
+     */
+    private boolean isRefusedAsDone(OrderMutationRequest request, StringResponse response) {
+        try {
+            return OrderMutationRequest.isRefusedAsDone(request.getOperation(),
+                    jsonService.fromJson(response.getContent(), SharegroopAPICallResponse.class));
+        } catch (JsonParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return true if the error happened before the request was sent: DNS resolution, connection, TLS handshake or
+     * wait for a connection from the pool
+     */
+    private static boolean isNotSent(IOException failure) {
+        return failure instanceof ConnectException
+                || failure instanceof ConnectTimeoutException
+                || failure instanceof UnknownHostException
+                || failure instanceof NoRouteToHostException
+                || failure instanceof SSLHandshakeException
+                || failure instanceof ConnectionPoolTimeoutException;
+    }
+
+    /**
+     * @return the configuration to use for the next request. If the plugin configuration has been reloaded since the
+     * last request, the client is set up with the new one first.
+     */
+    private AppliedConfig currentConfig() {
+        PluginConfig config = configProperties.getConfig();
+        AppliedConfig current = this.appliedConfig;
+        if (current != null && current.config == config) {
+            return current;
+        }
+        return this.applyConfig(config);
+    }
+
+    /**
+     * Set the connection pool up with the given configuration, and build the request config from it.
+     */
+    private AppliedConfig applyConfig(PluginConfig config) {
+        if (config.getPoolMaxPerRoute() > 0) {
+            connectionManager.setDefaultMaxPerRoute(config.getPoolMaxPerRoute());
+        }
+        if (config.getPoolMaxTotal() > 0) {
+            connectionManager.setMaxTotal(config.getPoolMaxTotal());
+        }
+        AppliedConfig applied = new AppliedConfig(config);
+        this.appliedConfig = applied;
+        return applied;
+    }
+
+    private static final class AppliedConfig {
+        private final PluginConfig config;
+        private final RequestConfig requestConfig;
+        /**
+         * The number of time the client must retry to send the request if it doesn't obtain a response.
+         */
+        private final int retries;
+
+        private AppliedConfig(PluginConfig config) {
+            this.config = config;
+            // request config timeouts (in seconds)
+            this.requestConfig = RequestConfig.custom()
+                    .setConnectionRequestTimeout(config.getConnectionRequestTimeout() * 1000)
+                    .setConnectTimeout(config.getConnectTimeout() * 1000)
+                    .setSocketTimeout(config.getSocketTimeout() * 1000)
+                    .build();
+            this.retries = config.getRetries();
+        }
+    }
+    /**
+     * Send the request and parse the response, returning a failure if no proper response is obtained. A server error
+     * (5xx), a rate limit (429) or a body which isn't a partner API response are failures too, with the
+     * {@link FailureCause#COMMUNICATION_ERROR} cause: the call can be made again later.
+     */
+    private CallResult<SharegroopAPICallResponse> tryExecute(HttpRequestBase httpRequest, Operation operation, String sharegroopUrl) {
+        StringResponse response = this.send(httpRequest, operation, sharegroopUrl);
+        if (response == null) {
+            return CallResult.failure(COMMUNICATION_FAILURE);
+        }
+        int status = response.getStatusCode();
+        if (status >= 500 || status == 429) {
+            return CallResult.failure("Partner API unavailable: HTTP " + status, FailureCause.COMMUNICATION_ERROR);
+        }
+        SharegroopAPICallResponse value;
+        try {
+            value = jsonService.fromJson(response.getContent(), SharegroopAPICallResponse.class);
+        } catch (JsonParseException e) {
+            LOGGER.error("Invalid partner API response [{} {}]", response.getStatusCode(), response.getStatusMessage());
+            return CallResult.failure(INVALID_RESPONSE_FAILURE);
+        }
+        if (value == null) {
+            return CallResult.failure(INVALID_RESPONSE_FAILURE);
+        }
+        return CallResult.success(value);
+    }
+    /**
+     * Commit the Flight Recorder event of an attempt.
+     *
+     * @param response the response, or null if none has been obtained
+     */
+    private void commit(PartnerExchangeEvent event, HttpRequestBase httpRequest, Operation operation, int attempt, StringResponse response, Outcome outcome) {
+        Header authorization = httpRequest.getFirstHeader(HttpHeaders.AUTHORIZATION);
+        long requestBytes = 0;
+        if (httpRequest instanceof HttpEntityEnclosingRequest && ((HttpEntityEnclosingRequest) httpRequest).getEntity() != null) {
+            requestBytes = ((HttpEntityEnclosingRequest) httpRequest).getEntity().getContentLength();
+        }
+        long responseBytes = response == null || response.getContent() == null ? 0 : response.getContent().getBytes(StandardCharsets.UTF_8).length;
+
+        event.commit(operation.getLabel(),
+                authorization == null ? null : PluginUtils.merchantHash(authorization.getValue()),
+                attempt,
+                response == null ? 0 : response.getStatusCode(),
+                outcome.getLabel(),
+                requestBytes,
+                responseBytes);
+    }
+    /**
+     * Capture a slow attempt in the {@link SlowCallDetector}, and log it unless it has been sampled out.
+     */
+    private void captureSlowCall(HttpRequestBase httpRequest, Operation operation, int attempt, Outcome outcome,
+                                 long nanos, long now, String response, CallTimings timings) {
+        SlowCall slowCall = slowCalls.capture(operation, attempt, outcome, nanos, now,
+                PluginUtils.requestSummary(httpRequest), response, timings,
+                String.valueOf(connectionManager.getTotalStats()));
+        if (slowCall != null) {
+            LOGGER.warn("Slow call to partner API: {}", slowCall);
         }
-        LOGGER.info("Response obtained from partner API [{} {}]", strResponse.getStatusCode(), strResponse.getStatusMessage());
-        return strResponse;
     }
     /**------------------------------------------------------------------------------------------------------------------*/
     /**
@@ -161,40 +537,68 @@ public class SharegroopHttpClient {
      */
     private void verifyPartnerConfigurationURL(RequestConfiguration requestConfiguration) {
         if (requestConfiguration.getPartnerConfiguration().getProperty(Constants.PartnerConfigurationKeys.SHAREGROOP_URL)== null) {
-            throw new InvalidDataException("Missing API url from partner configuration (sentitive properties)");
+            throw MISSING_URL_FAILURE;
         }
 
         if (requestConfiguration.getContractConfiguration().getProperty(Constants.ContractConfigurationKeys.PRIVATE_KEY) == null ||
                 requestConfiguration.getContractConfiguration().getProperty(Constants.ContractConfigurationKeys.PRIVATE_KEY).getValue() == null) {
-            throw new InvalidDataException("Missing client private key from partner configuration (sentitive properties)");
+            throw MISSING_PRIVATE_KEY_FAILURE;
         }
     }
+
+    private static String sharegroopUrl(RequestConfiguration requestConfiguration) {
+        return requestConfiguration.getPartnerConfiguration().getProperty(Constants.PartnerConfigurationKeys.SHAREGROOP_URL);
+    }
     /**------------------------------------------------------------------------------------------------------------------*/
     /**
-     * Verify the transaction status after a buyer action
+     * Verify the transaction status after a buyer action. The order read is kept in the {@link OrderStatusCache}.
      * @param requestConfiguration
      * @param createdOrderId
      * @return
      */
     public SharegroopAPICallResponse verifyOrder(RequestConfiguration requestConfiguration, String createdOrderId){
+        StringResponse response = this.execute(verifyOrderRequest(requestConfiguration, createdOrderId), Operation.VERIFY, sharegroopUrl(requestConfiguration));
+
+        SharegroopAPICallResponse order = jsonService.fromJson(response.getContent(), SharegroopAPICallResponse.class);
+        statuses.put(requestConfiguration, createdOrderId, order);
+        return order;
+    }
+
+    /**
+     * Same as {@link #verifyOrder(RequestConfiguration, String)}, but returns the expected failures (invalid
+     * configuration, partner unavailable...) instead of throwing them.
+     */
+    public CallResult<SharegroopAPICallResponse> tryVerifyOrder(RequestConfiguration requestConfiguration, String createdOrderId){
+        try {
+            CallResult<SharegroopAPICallResponse> result = this.tryExecute(verifyOrderRequest(requestConfiguration, createdOrderId), Operation.VERIFY, sharegroopUrl(requestConfiguration));
+            if (result.isSuccess()) {
+                statuses.put(requestConfiguration, createdOrderId, result.getValue());
+            }
+            return result;
+        } catch (PluginException e) {
+            return CallResult.failure(e);
+        }
+    }
+
+    private HttpGet verifyOrderRequest(RequestConfiguration requestConfiguration, String createdOrderId){
         // Check if API url are present
         verifyPartnerConfigurationURL(requestConfiguration);
 
         // Check if the createdOrderId is present
         if (createdOrderId == null) {
-            throw new InvalidDataException(MISSING_ORDER_ID);
+            throw MISSING_ORDER_ID_FAILURE;
         }
 
-        String baseUrl = requestConfiguration.getPartnerConfiguration().getProperty(Constants.PartnerConfigurationKeys.SHAREGROOP_URL);
+        String sharegroopUrl = sharegroopUrl(requestConfiguration);
 
         // Init request
         URI uri;
 
         try {
-            // Add the createOrderId to the url
-            uri = new URI(baseUrl + createPath(PATH_VERSION, PATH_ORDER, createdOrderId));
+            // Add the createOrderId to the url of the endpoint chosen
+            uri = new URI(endpoints.select(sharegroopUrl) + createPath(PATH_VERSION, PATH_ORDER, createdOrderId));
         } catch (URISyntaxException e) {
-            throw new InvalidDataException(SERVICE_URL_ERROR, e);
+            throw InvalidDataException.expected(SERVICE_URL_ERROR, e);
         }
 
         HttpGet httpGet = new HttpGet(uri);
@@ -208,11 +612,7 @@ public class SharegroopHttpClient {
         for (Map.Entry<String, String> h : headers.entrySet()) {
             httpGet.setHeader(h.getKey(), h.getValue());
         }
-
-        // Execute request
-        StringResponse response = this.execute(httpGet);
-
-        return jsonService.fromJson(response.getContent(), SharegroopAPICallResponse.class);
+        return httpGet;
     }
     /**------------------------------------------------------------------------------------------------------------------*/
     /**
@@ -222,7 +622,7 @@ public class SharegroopHttpClient {
      * @return
      */
     public Boolean verifyPrivateKey(RequestConfiguration requestConfiguration) {
-        StringResponse response = post(requestConfiguration,"","",null);
+        StringResponse response = post(requestConfiguration,"","",null, Operation.VERIFY_PRIVATE_KEY);
 
         if (response.getContent() == null){
             LOGGER.error("No response body");
@@ -238,7 +638,7 @@ public class SharegroopHttpClient {
      * @return
      */
     public SharegroopAPICallResponse createOrder(RequestConfiguration requestConfiguration, Order order) {
-        StringResponse response = post(requestConfiguration,"","",order.toString());
+        StringResponse response = post(requestConfiguration,"","",order.toString(), Operation.CREATE);
 
         return jsonService.fromJson(response.getContent(), SharegroopAPICallResponse.class);
     }
@@ -249,8 +649,15 @@ public class SharegroopHttpClient {
      * @return
      */
     public SharegroopAPICallResponse refundOrder(RequestConfiguration requestConfiguration, String createdOrderId){
-        StringResponse response = post(requestConfiguration,createdOrderId,REFUND,null);
-        return jsonService.fromJson(response.getContent(), SharegroopAPICallResponse.class);
+        return this.mutate(requestConfiguration, createdOrderId, REFUND, Operation.REFUND);
+    }
+
+    /**
+     * Same as {@link #refundOrder(RequestConfiguration, String)}, but returns the expected failures (invalid
+     * configuration, partner unavailable...) instead of throwing them.
+     */
+    public CallResult<SharegroopAPICallResponse> tryRefundOrder(RequestConfiguration requestConfiguration, String createdOrderId){
+        return this.tryMutate(requestConfiguration, createdOrderId, REFUND, Operation.REFUND);
     }
     /**------------------------------------------------------------------------------------------------------------------*/
     /**
@@ -260,8 +667,50 @@ public class SharegroopHttpClient {
      * @return
      */
     public SharegroopAPICallResponse cancelOrder(RequestConfiguration requestConfiguration, String createdOrderId){
-        StringResponse response = post(requestConfiguration,createdOrderId,CANCEL,null);
-        return jsonService.fromJson(response.getContent(), SharegroopAPICallResponse.class);
+        return this.mutate(requestConfiguration, createdOrderId, CANCEL, Operation.CANCEL);
+    }
+
+    /**
+     * Same as {@link #cancelOrder(RequestConfiguration, String)}, but returns the expected failures (invalid
+     * configuration, partner unavailable...) instead of throwing them.
+     */
+    public CallResult<SharegroopAPICallResponse> tryCancelOrder(RequestConfiguration requestConfiguration, String createdOrderId){
+        return this.tryMutate(requestConfiguration, createdOrderId, CANCEL, Operation.CANCEL);
+    }
+    /**------------------------------------------------------------------------------------------------------------------*/
+    /**
+     * @param operation {@link Operation#REFUND} or {@link Operation#CANCEL}
+     * @param response the response of the partner API to the operation, or to a read of the order
+     * @return true if the response shows an order in which the operation has been done
+     */
+    public static boolean isDone(Operation operation, SharegroopAPICallResponse response) {
+        return OrderMutationRequest.isDone(operation, response);
+    }
+
+    /**
+     * Change the state of an order (refund, cancel) with an {@link OrderMutationRequest}. If the same operation on the
+     * same order has been completed already, its response is returned without calling the partner API, see
+     * {@link OrderMutationCache}. The order returned by the partner API is kept in the {@link OrderStatusCache}.
+     */
+    private SharegroopAPICallResponse mutate(RequestConfiguration requestConfiguration, String createdOrderId, String path, Operation operation){
+        return mutations.execute(requestConfiguration, operation, createdOrderId, () -> {
+            StringResponse response = this.execute(postRequest(requestConfiguration, createdOrderId, path, null, operation), operation, sharegroopUrl(requestConfiguration));
+            SharegroopAPICallResponse order = jsonService.fromJson(response.getContent(), SharegroopAPICallResponse.class);
+            statuses.put(requestConfiguration, createdOrderId, order);
+            return order;
+        }, response -> OrderMutationRequest.isDone(operation, response));
+    }
+
+    private CallResult<SharegroopAPICallResponse> tryMutate(RequestConfiguration requestConfiguration, String createdOrderId, String path, Operation operation){
+        try {
+            return CallResult.success(mutations.execute(requestConfiguration, operation, createdOrderId, () -> {
+                SharegroopAPICallResponse order = this.tryExecute(postRequest(requestConfiguration, createdOrderId, path, null, operation), operation, sharegroopUrl(requestConfiguration)).getOrThrow();
+                statuses.put(requestConfiguration, createdOrderId, order);
+                return order;
+            }, response -> OrderMutationRequest.isDone(operation, response)));
+        } catch (PluginException e) {
+            return CallResult.failure(e);
+        }
     }
     /**------------------------------------------------------------------------------------------------------------------*/
     /**
@@ -272,22 +721,37 @@ public class SharegroopHttpClient {
      * @return
      */
     public StringResponse post(RequestConfiguration requestConfiguration, String createdOrderId, String path, String body){
+        return this.post(requestConfiguration, createdOrderId, path, body, Operation.OTHER);
+    }
+
+    private StringResponse post(RequestConfiguration requestConfiguration, String createdOrderId, String path, String body, Operation operation){
+        return this.execute(postRequest(requestConfiguration, createdOrderId, path, body), operation, sharegroopUrl(requestConfiguration));
+    }
+
+    private HttpPost postRequest(RequestConfiguration requestConfiguration, String createdOrderId, String path, String body){
+        return this.postRequest(requestConfiguration, createdOrderId, path, body, null);
+    }
+
+    /**
+     * @param mutation the operation changing the state of the order, or null if the request doesn't
+     */
+    private HttpPost postRequest(RequestConfiguration requestConfiguration, String createdOrderId, String path, String body, Operation mutation){
         // Check if API url are present
         verifyPartnerConfigurationURL(requestConfiguration);
 
-        String baseUrl = requestConfiguration.getPartnerConfiguration().getProperty(Constants.PartnerConfigurationKeys.SHAREGROOP_URL);
+        String sharegroopUrl = sharegroopUrl(requestConfiguration);
 
         // Init request
         URI uri;
 
         try {
-            // Add the createOrderId to the url
-            uri = new URI(baseUrl + createPath(PATH_VERSION, PATH_ORDER, createdOrderId,path));
+            // Add the createOrderId to the url of the endpoint chosen
+            uri = new URI(endpoints.select(sharegroopUrl) + createPath(PATH_VERSION, PATH_ORDER, createdOrderId,path));
         } catch (URISyntaxException e) {
-            throw new InvalidDataException(SERVICE_URL_ERROR, e);
+            throw InvalidDataException.expected(SERVICE_URL_ERROR, e);
         }
 
-        HttpPost httpPost = new HttpPost(uri);
+        HttpPost httpPost = mutation == null ? new HttpPost(uri) : new OrderMutationRequest(uri, mutation, createdOrderId);
 
         // Headers
         String privateKeyHolder = requestConfiguration.getContractConfiguration().getProperty(Constants.ContractConfigurationKeys.PRIVATE_KEY).getValue();
@@ -303,9 +767,184 @@ public class SharegroopHttpClient {
         if(body != null) {
             httpPost.setEntity(new StringEntity(body, StandardCharsets.UTF_8));
         }
+        return httpPost;
+    }
+    /**------------------------------------------------------------------------------------------------------------------*/
+    /**
+     * Open connections to the partner API ahead of the first calls, so that they don't pay for the DNS resolution, the
+     * TCP connect and the TLS handshake. The connections are left idle in the pool, where the next calls pick them up.
+     * Routes going through a proxy are not handled: no connection is opened for them.
+     *
+     * @param baseUrl the partner API base URL
+     * @param connections the number of connections wanted, capped by the pool size per route
+     * @return the number of connections opened. The connections already in the pool are not counted.
+     */
+    public int preconnect(String baseUrl, int connections) {
+        HttpHost target;
+        try {
+            target = URIUtils.extractHost(new URI(baseUrl));
+        } catch (URISyntaxException e) {
+            throw InvalidDataException.expected(SERVICE_URL_ERROR, e);
+        }
+        if (target == null) {
+            throw InvalidDataException.expected(SERVICE_URL_ERROR);
+        }
+
+        // the same route as the one the client plans for its calls, see HttpClientBuilder#useSystemProperties()
+        HttpRoute route;
+        try {
+            route = new SystemDefaultRoutePlanner(ProxySelector.getDefault()).determineRoute(target, new HttpGet(baseUrl), HttpClientContext.create());
+        } catch (HttpException e) {
+            throw InvalidDataException.expected(SERVICE_URL_ERROR, e);
+        }
+        if (route.getHopCount() > 1) {
+            LOGGER.info(LogCategory.PAYMENT_FLOW, "No connection opened through the proxy to {}", route::getTargetHost);
+            return 0;
+        }
+
+        keepAliveStrategy.register(route);
+        return this.warmConnections(route, connections, false);
+    }
+
+    /**
+     * Keep the routes called so far warm: on each of them, make sure "keepWarm.minIdle" connections are open, and send
+     * a HEAD request over each of them, so that the partner doesn't close them and their keep-alive is renewed. The
+     * routes not called for a few keep-alive durations, see {@link PartnerKeepAliveStrategy#forgetIdleRoutes(long)},
+     * are no longer kept warm.
+     *
+     * @return the delay before the next run, in milliseconds: the "keepWarm.interval" property, shortened to half the
+     * shortest keep-alive of the routes
+     */
+    long keepWarm() {
+        PluginConfig config = configProperties.getConfig();
+        connectionManager.closeExpiredConnections();
+        long delay = TimeUnit.SECONDS.toMillis(config.getKeepWarmInterval());
+        keepAliveStrategy.forgetIdleRoutes(delay);
+        for (HttpRoute route : keepAliveStrategy.getRoutes()) {
+            if (route.getHopCount() > 1) {
+                continue;
+            }
+            int opened = this.warmConnections(route, config.getKeepWarmMinIdle(), true);
+            LOGGER.debug(LogCategory.PARTNER_REQUEST, "Kept {} warm ({} connection(s) opened)", route::getTargetHost, () -> opened);
+            long keepAlive = keepAliveStrategy.getKeepAlive(route);
+            if (keepAlive > 0) {
+                delay = Math.min(delay, keepAlive / 2);
+            }
+        }
+        return Math.max(MIN_KEEP_WARM_DELAY, delay);
+    }
+
+    /**
+     * Lease connections of the route, open the ones which aren't, and give them back to the pool.
+     *
+     * @param route the route
+     * @param count the number of connections wanted, capped by the connections of the route not in use
+     * @param ping true to send a HEAD request over each connection
+     * @return the number of connections opened
+     */
+    private int warmConnections(HttpRoute route, int count, boolean ping) {
+        PluginConfig config = configProperties.getConfig();
+        PoolStats stats = connectionManager.getStats(route);
+        int wanted = Math.min(count, stats.getMax() - stats.getLeased());
+
+        // hold every connection until the end, so that the pool gives a different one each time
+        List<HttpClientConnection> leased = new ArrayList<>(Math.max(0, wanted));
+        try {
+            for (int i = 0; i < wanted; i++) {
+                leased.add(connectionManager.requestConnection(route, null)
+                        .get(config.getConnectionRequestTimeout() * 1000L, TimeUnit.MILLISECONDS));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | ExecutionException e) {
+            LOGGER.warn("Unable to obtain a connection to {} from the pool", route.getTargetHost(), e);
+        }
+
+        int opened = 0;
+        HttpClientContext context = HttpClientContext.create();
+        context.setAttribute(HttpClientContext.HTTP_ROUTE, route);
+        for (HttpClientConnection connection : leased) {
+            long keepAlive = keepAliveStrategy.getKeepAlive(route);
+            try {
+                if (!connection.isOpen()) {
+                    connectionManager.connect(connection, route, config.getConnectTimeout() * 1000, context);
+                    connectionManager.routeComplete(connection, route, context);
+                    opened++;
+                }
+                if (ping) {
+                    keepAlive = this.ping(connection, route, context, config);
+                }
+            } catch (IOException | HttpException e) {
+                LOGGER.warn("Unable to open a connection to {}", route.getTargetHost(), e);
+                try {
+                    connection.close();
+                } catch (IOException ignored) {
+                    // the connection is discarded anyway
+                }
+            } finally {
+                connectionManager.releaseConnection(connection, null, keepAlive, TimeUnit.MILLISECONDS);
+            }
+        }
+        return opened;
+    }
+
+    /**
+     * Send a HEAD request to the root of the route target over the connection.
+     *
+     * @return the keep-alive duration given by the response. If the connection can't be reused, or the response isn't
+     * a success or a redirection, it's closed.
+     */
+    private long ping(HttpClientConnection connection, HttpRoute route, HttpClientContext context, PluginConfig config) throws IOException, HttpException {
+        connection.setSocketTimeout(config.getSocketTimeout() * 1000);
+        BasicHttpRequest request = new BasicHttpRequest(HttpHead.METHOD_NAME, "/", HttpVersion.HTTP_1_1);
+        request.setHeader(HttpHeaders.HOST, route.getTargetHost().toHostString());
+        context.setAttribute(HttpCoreContext.HTTP_REQUEST, request);
+
+        HttpResponse response = PING_EXECUTOR.execute(request, connection, context);
+        int status = response.getStatusLine().getStatusCode();
+        if (status < 200 || status >= 400) {
+            // an error page may come from anything in front of the partner API: neither the connection nor its
+            // keep-alive can be trusted
+            LOGGER.warn("Unexpected response to the keep-warm request to {}: HTTP {}", route.getTargetHost(), status);
+            connection.close();
+            return keepAliveStrategy.getKeepAlive(route);
+        }
+        if (!DefaultConnectionReuseStrategy.INSTANCE.keepAlive(response, context)) {
+            connection.close();
+        }
+        return keepAliveStrategy.getPingKeepAliveDuration(response, context);
+    }
+
+    /**
+     * Runs {@link #keepWarm()} again and again, from a daemon thread.
+     */
+    private class KeepWarmTask implements Runnable {
+        private final ScheduledExecutorService scheduler;
+
+        private KeepWarmTask(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+        }
+
+        @Override
+        public void run() {
+            long delay;
+            try {
+                delay = keepWarm();
+            } catch (RuntimeException e) {
+                LOGGER.error("Unable to keep the connections to the partner API warm", e);
+                delay = TimeUnit.SECONDS.toMillis(configProperties.getConfig().getKeepWarmInterval());
+            }
+            scheduler.schedule(this, delay, TimeUnit.MILLISECONDS);
+        }
+    }
 
-        // Execute request
-        return this.execute(httpPost);
+    private void startKeepWarm() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "sharegroop-keep-warm");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.schedule(new KeepWarmTask(scheduler), configProperties.getConfig().getKeepWarmInterval(), TimeUnit.SECONDS);
     }
 
 }
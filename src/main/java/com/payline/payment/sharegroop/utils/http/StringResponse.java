@@ -17,6 +17,7 @@ public class StringResponse {
     private Map<String, String> headers;
     private int statusCode;
     private String statusMessage;
+    private CallTimings timings;
 
     public String getContent() {
         return content;
@@ -41,6 +42,18 @@ public class StringResponse {
         return statusMessage;
     }
 
+    /**
+     * @return the time spent in each phase of the HTTP exchange, or null if the response wasn't obtained by
+     * {@link SharegroopHttpClient}
+     */
+    public CallTimings getTimings() {
+        return timings;
+    }
+
+    void setTimings(CallTimings timings) {
+        this.timings = timings;
+    }
+
     public boolean isSuccess(){
         return statusCode >= 200 && statusCode < 300;
     }
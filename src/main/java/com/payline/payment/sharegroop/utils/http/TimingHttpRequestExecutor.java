@@ -0,0 +1,36 @@
+package com.payline.payment.sharegroop.utils.http;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+import java.io.IOException;
+
+/**
+ * {@link HttpRequestExecutor} marking, in the {@link CallTimer} of the call, when the request starts to be sent on
+ * the leased connection and when the response headers are received.
+ */
+class TimingHttpRequestExecutor extends HttpRequestExecutor {
+
+    @Override
+    protected HttpResponse doSendRequest(HttpRequest request, HttpClientConnection conn, HttpContext context) throws IOException, HttpException {
+        CallTimer timer = CallTimer.from(context);
+        if (timer != null) {
+            timer.requestSent(System.nanoTime());
+        }
+        return super.doSendRequest(request, conn, context);
+    }
+
+    @Override
+    protected HttpResponse doReceiveResponse(HttpRequest request, HttpClientConnection conn, HttpContext context) throws HttpException, IOException {
+        HttpResponse response = super.doReceiveResponse(request, conn, context);
+        CallTimer timer = CallTimer.from(context);
+        if (timer != null) {
+            timer.headersReceived(System.nanoTime());
+        }
+        return response;
+    }
+}
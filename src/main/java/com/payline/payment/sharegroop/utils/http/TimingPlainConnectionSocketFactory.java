@@ -0,0 +1,31 @@
+package com.payline.payment.sharegroop.utils.http;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * {@link PlainConnectionSocketFactory} recording the TCP connect time in the {@link CallTimer} of the call.
+ */
+class TimingPlainConnectionSocketFactory extends PlainConnectionSocketFactory {
+
+    @Override
+    public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+                                InetSocketAddress localAddress, HttpContext context) throws IOException {
+        CallTimer timer = CallTimer.from(context);
+        if (timer == null) {
+            return super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+        }
+        long start = System.nanoTime();
+        timer.connectStarted(start);
+        try {
+            return super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+        } finally {
+            timer.addConnect(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.payline.payment.sharegroop.utils.http;
+
+import com.payline.payment.sharegroop.exception.PluginException;
+import com.payline.payment.sharegroop.utils.metrics.SharegroopMetrics;
+import com.payline.payment.sharegroop.utils.properties.PluginConfig;
+import com.payline.pmapi.logger.LogManager;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+import org.apache.logging.log4j.Logger;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link SSLConnectionSocketFactory} recording the TCP connect and the TLS handshake times in the {@link CallTimer}
+ * of the call. The socket is connected in plain TCP first, then layered with TLS: the handshake happens in
+ * {@link #createLayeredSocket(Socket, String, int, HttpContext)}.
+ *
+ * <p>Each handshake is also recorded in {@link SharegroopMetrics}, as full or resumed: a handshake resumed a cached
+ * session if its session is one of the sessions of the client session cache before the handshake. The JSSE resumes
+ * TLS 1.2 sessions and TLS 1.3 tickets in place, whereas a full handshake always creates a new session, even if it has
+ * the ID of a cached one. The creation time isn't a reliable signal: it's only precise to the millisecond.</p>
+ */
+class TimingSSLConnectionSocketFactory extends SSLConnectionSocketFactory {
+
+    private static final Logger LOGGER = LogManager.getLogger(TimingSSLConnectionSocketFactory.class);
+    private static final String NONE = "NONE";
+    private static final String PKCS11 = "PKCS11";
+
+    private final SSLSessionContext sessionContext;
+    private final SharegroopMetrics metrics;
+
+    /**
+     * @param sessionContext the client session cache of the SSL context of the socket factory
+     */
+    TimingSSLConnectionSocketFactory(SSLSocketFactory socketFactory, String[] protocols, String[] cipherSuites,
+                                     HostnameVerifier hostnameVerifier, SSLSessionContext sessionContext,
+                                     SharegroopMetrics metrics) {
+        super(socketFactory, protocols, cipherSuites, hostnameVerifier);
+        this.sessionContext = sessionContext;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Create the socket factory of the partner API, with an SSL context of its own: its session cache is sized and
+     * timed by the configuration, whatever the other users of the JVM default context do with theirs. The key and trust
+     * managers are the ones of the JVM default context, from the {@code javax.net.ssl.*} system properties, so that a
+     * client certificate is still presented.
+     *
+     * @param config the TLS configuration
+     * @param metrics the metrics recording the handshakes
+     * @throws PluginException if the SSL context can't be created, or if none of the configured protocols or cipher
+     * suites is supported
+     */
+    static TimingSSLConnectionSocketFactory create(PluginConfig config, SharegroopMetrics metrics) {
+        SSLContext sslContext;
+        try {
+            TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagerFactory.init((KeyStore) null);
+            sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(keyManagers(), trustManagerFactory.getTrustManagers(), null);
+        } catch (GeneralSecurityException | IOException e) {
+            throw new PluginException("Unable to create the SSL context", e);
+        }
+        SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+        sessionContext.setSessionCacheSize(config.getTlsSessionCacheSize());
+        sessionContext.setSessionTimeout(config.getTlsSessionCacheTimeout());
+
+        return new TimingSSLConnectionSocketFactory(sslContext.getSocketFactory(),
+                supported("protocols", config.getTlsProtocols(), sslContext.getSupportedSSLParameters().getProtocols()),
+                supported("cipher suites", config.getTlsCipherSuites(), sslContext.getSupportedSSLParameters().getCipherSuites()),
+                SSLConnectionSocketFactory.getDefaultHostnameVerifier(),
+                sessionContext,
+                metrics);
+    }
+
+    /**
+     * @return the key managers of the key store given by the {@code javax.net.ssl.keyStore*} system properties, loaded
+     * the same way as for the JVM default SSL context
+     */
+    static KeyManager[] keyManagers() throws GeneralSecurityException, IOException {
+        String keyStore = System.getProperty("javax.net.ssl.keyStore", "");
+        String keyStoreType = System.getProperty("javax.net.ssl.keyStoreType", KeyStore.getDefaultType());
+        String keyStoreProvider = System.getProperty("javax.net.ssl.keyStoreProvider", "");
+        String keyStorePassword = System.getProperty("javax.net.ssl.keyStorePassword", "");
+        char[] password = keyStorePassword.isEmpty() ? null : keyStorePassword.toCharArray();
+
+        KeyStore store = null;
+        if (!keyStoreType.isEmpty()) {
+            store = keyStoreProvider.isEmpty() ? KeyStore.getInstance(keyStoreType) : KeyStore.getInstance(keyStoreType, keyStoreProvider);
+            if (keyStore.isEmpty() || NONE.equals(keyStore)) {
+                store.load(null, password);
+            } else {
+                try (InputStream in = new FileInputStream(keyStore)) {
+                    store.load(in, password);
+                }
+            }
+        }
+
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        // a PKCS11 token is unlocked by its provider, not by the key password
+        keyManagerFactory.init(store, PKCS11.equalsIgnoreCase(keyStoreType) ? null : password);
+        return keyManagerFactory.getKeyManagers();
+    }
+
+    /**
+     * @return the configured values supported by the JVM, in the configured order, or null to use the JVM defaults
+     * if none is configured
+     */
+    private static String[] supported(String label, List<String> configured, String[] supported) {
+        if (configured.isEmpty()) {
+            return null;
+        }
+        List<String> supportedValues = Arrays.asList(supported);
+        List<String> result = new ArrayList<>();
+        for (String value : configured) {
+            if (supportedValues.contains(value)) {
+                result.add(value);
+            } else {
+                LOGGER.warn("TLS {} {} not supported by the JVM, ignored", label, value);
+            }
+        }
+        if (result.isEmpty()) {
+            throw new PluginException("None of the TLS " + label + " " + configured + " is supported by the JVM");
+        }
+        return result.toArray(new String[0]);
+    }
+
+    @Override
+    public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+                                InetSocketAddress localAddress, HttpContext context) throws IOException {
+        CallTimer timer = CallTimer.from(context);
+        if (timer == null) {
+            return super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+        }
+        long start = System.nanoTime();
+        long tlsBefore = timer.getTlsHandshake();
+        timer.connectStarted(start);
+        try {
+            return super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+        } finally {
+            timer.addConnect(System.nanoTime() - start - (timer.getTlsHandshake() - tlsBefore));
+        }
+    }
+
+    @Override
+    public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context) throws IOException {
+        CallTimer timer = CallTimer.from(context);
+        Set<SSLSession> cachedSessions = cachedSessions();
+        long start = System.nanoTime();
+        try {
+            Socket layeredSocket = super.createLayeredSocket(socket, target, port, context);
+            if (layeredSocket instanceof SSLSocket) {
+                SSLSession session = ((SSLSocket) layeredSocket).getSession();
+                metrics.recordHandshake(cachedSessions.contains(session), System.nanoTime() - start);
+            }
+            return layeredSocket;
+        } finally {
+            if (timer != null) {
+                timer.addTlsHandshake(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * @return the sessions of the client session cache, compared by identity
+     */
+    private Set<SSLSession> cachedSessions() {
+        Set<SSLSession> sessions = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Enumeration<byte[]> ids = sessionContext.getIds(); ids.hasMoreElements(); ) {
+            SSLSession session = sessionContext.getSession(ids.nextElement());
+            if (session != null) {
+                sessions.add(session);
+            }
+        }
+        return sessions;
+    }
+}
@@ -1,25 +1,50 @@
 package com.payline.payment.sharegroop.utils.i18n;
 
+import com.payline.payment.sharegroop.exception.PluginException;
 import com.payline.payment.sharegroop.utils.properties.ConfigProperties;
+import com.payline.payment.sharegroop.utils.properties.PluginConfig;
 import com.payline.pmapi.logger.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
-import java.util.MissingResourceException;
+import java.util.Map;
+import java.util.Properties;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * I18n (for Internationalization) service that provides messages following a given locale.
+ * The messages of each locale are loaded once, with the fallback chain already resolved, into immutable tables.
  */
 public class I18nService {
 
     private static final Logger LOGGER = LogManager.getLogger(I18nService.class);
     private static final String DEFAULT_LOCALE = "en";
+    private static final String BUNDLE_NAME = "messages";
+    private static final ResourceBundle.Control CONTROL = ResourceBundle.Control.getControl(ResourceBundle.Control.FORMAT_PROPERTIES);
+
+    /**
+     * The message tables, by requested locale.
+     */
+    private final ConcurrentMap<Locale, MessageTable> tables = new ConcurrentHashMap<>();
 
     private I18nService() {
-        ConfigProperties configProperties = ConfigProperties.getInstance();
-        String defaultLocale = configProperties.get("i18n.defaultLocale");
+        PluginConfig config = ConfigProperties.getInstance().getConfig();
+        String defaultLocale = config.getDefaultLocale();
         Locale.setDefault( new Locale(defaultLocale != null ? defaultLocale : DEFAULT_LOCALE) );
+
+        // preload the tables of the locales declared in the configuration
+        for (String languageTag : config.getLocales()) {
+            this.getTable(Locale.forLanguageTag(languageTag));
+        }
     }
 
     private static class SingletonHolder {
@@ -38,13 +63,85 @@ public class I18nService {
      * @return The message in the right language
      */
     public String getMessage(final String key, final Locale locale) {
-        ResourceBundle messages = ResourceBundle.getBundle("messages", locale);
-        try {
-            return messages.getString(key);
+        MessageTable table = this.getTable(locale);
+        String message = table.messages.get(key);
+        if (message != null) {
+            return message;
+        }
+        return table.missing.computeIfAbsent(key, k -> {
+            LOGGER.error("Trying to get a message with a key that does not exist: {}  (language: {} )", k, locale.getLanguage());
+            return "???" + locale + "." + k + "???";
+        });
+    }
+
+    private MessageTable getTable(Locale locale) {
+        MessageTable table = tables.get(locale);
+        if (table == null) {
+            table = tables.computeIfAbsent(locale, I18nService::load);
+        }
+        return table;
+    }
+
+    /**
+     * Build the message table of a locale, resolving the fallback chain the same way {@link ResourceBundle} does:
+     * the most specific existing bundle is used, completed by its parents. If only the base bundle exists for the
+     * requested locale, the default locale is tried instead.
+     *
+     * @param locale the requested locale
+     * @return the message table
+     */
+    private static MessageTable load(Locale locale) {
+        Map<Locale, Properties> chain = loadChain(locale);
+        if (chain.isEmpty() || Locale.ROOT.equals(chain.keySet().iterator().next())) {
+            Locale fallback = CONTROL.getFallbackLocale(BUNDLE_NAME, locale);
+            if (fallback != null) {
+                Map<Locale, Properties> fallbackChain = loadChain(fallback);
+                if (!fallbackChain.isEmpty() && !Locale.ROOT.equals(fallbackChain.keySet().iterator().next())) {
+                    chain = fallbackChain;
+                }
+            }
+        }
+
+        // merge from the base bundle to the most specific one
+        List<Properties> bundles = new ArrayList<>(chain.values());
+        Map<String, String> messages = new HashMap<>();
+        for (int i = bundles.size() - 1; i >= 0; i--) {
+            for (String key : bundles.get(i).stringPropertyNames()) {
+                messages.put(key, bundles.get(i).getProperty(key));
+            }
         }
-        catch (MissingResourceException e) {
-            LOGGER.error("Trying to get a message with a key that does not exist: {}  (language: {} )", key,locale.getLanguage());
-            return "???" + locale + "." + key + "???";
+        return new MessageTable(messages);
+    }
+
+    /**
+     * Load the existing bundles of the candidate locales, from the most specific to the base bundle.
+     */
+    private static Map<Locale, Properties> loadChain(Locale locale) {
+        Map<Locale, Properties> chain = new LinkedHashMap<>();
+        for (Locale candidate : CONTROL.getCandidateLocales(BUNDLE_NAME, locale)) {
+            String filename = CONTROL.toResourceName(CONTROL.toBundleName(BUNDLE_NAME, candidate), "properties");
+            try (InputStream input = I18nService.class.getClassLoader().getResourceAsStream(filename)) {
+                if (input != null) {
+                    Properties properties = new Properties();
+                    properties.load(input);
+                    chain.put(candidate, properties);
+                }
+            } catch (IOException e) {
+                throw new PluginException("Unable to load messages file: " + filename, e);
+            }
+        }
+        return chain;
+    }
+
+    /**
+     * The resolved messages of a locale, and the placeholders already returned for missing keys.
+     */
+    private static final class MessageTable {
+        private final Map<String, String> messages;
+        private final ConcurrentMap<String, String> missing = new ConcurrentHashMap<>();
+
+        private MessageTable(Map<String, String> messages) {
+            this.messages = Collections.unmodifiableMap(messages);
         }
     }
-}
\ No newline at end of file
+}
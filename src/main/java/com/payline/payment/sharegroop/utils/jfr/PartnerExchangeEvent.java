@@ -0,0 +1,32 @@
+package com.payline.payment.sharegroop.utils.jfr;
+
+/**
+ * Flight Recorder event of one attempt to call the partner API.
+ *
+ * <p>This version does nothing: the plugin targets Java 8, where JFR events can't be defined. The multi-release jar
+ * replaces it on Java 11+ by a {@code jdk.jfr.Event} with the same methods (see src/main/java11). Callers must only
+ * compute the event data when {@link #shouldCommit()} returns true.</p>
+ */
+public class PartnerExchangeEvent {
+
+    public void begin() {
+        // no Flight Recorder before Java 11
+    }
+
+    public boolean shouldCommit() {
+        return false;
+    }
+
+    /**
+     * @param operation the partner API operation
+     * @param merchantHash the hash of the merchant private key, see {@link com.payline.payment.sharegroop.utils.PluginUtils#merchantHash(String)}
+     * @param attempt the attempt number, starting at 1
+     * @param status the HTTP status code, 0 if no response has been obtained
+     * @param outcome the outcome of the attempt
+     * @param requestBytes the size of the request body
+     * @param responseBytes the size of the response body
+     */
+    public void commit(String operation, String merchantHash, int attempt, int status, String outcome, long requestBytes, long responseBytes) {
+        // no Flight Recorder before Java 11
+    }
+}
@@ -0,0 +1,26 @@
+package com.payline.payment.sharegroop.utils.jfr;
+
+/**
+ * Flight Recorder event of the verification of a webhook signature.
+ *
+ * <p>This version does nothing: it's replaced on Java 11+ by the one of the multi-release jar, see
+ * {@link PartnerExchangeEvent}.</p>
+ */
+public class WebhookVerificationEvent {
+
+    public void begin() {
+        // no Flight Recorder before Java 11
+    }
+
+    public boolean shouldCommit() {
+        return false;
+    }
+
+    /**
+     * @param contentBytes the size of the notification content
+     * @param valid whether the signature is valid
+     */
+    public void commit(long contentBytes, boolean valid) {
+        // no Flight Recorder before Java 11
+    }
+}
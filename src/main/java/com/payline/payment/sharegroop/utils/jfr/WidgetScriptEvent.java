@@ -0,0 +1,27 @@
+package com.payline.payment.sharegroop.utils.jfr;
+
+/**
+ * Flight Recorder event of the rendering of the widget script.
+ *
+ * <p>This version does nothing: it's replaced on Java 11+ by the one of the multi-release jar, see
+ * {@link PartnerExchangeEvent}.</p>
+ */
+public class WidgetScriptEvent {
+
+    public void begin() {
+        // no Flight Recorder before Java 11
+    }
+
+    public boolean shouldCommit() {
+        return false;
+    }
+
+    /**
+     * @param merchantHash the hash of the merchant private key
+     * @param items the number of items of the order
+     * @param scriptBytes the size of the script
+     */
+    public void commit(String merchantHash, int items, long scriptBytes) {
+        // no Flight Recorder before Java 11
+    }
+}
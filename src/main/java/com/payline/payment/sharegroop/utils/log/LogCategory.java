@@ -0,0 +1,38 @@
+package com.payline.payment.sharegroop.utils.log;
+
+/**
+ * The categories of the INFO and DEBUG messages logged through {@link PluginLogger}. Each category has its own
+ * sampling rate, set by the "logging.sampling.&lt;label&gt;" property.
+ */
+public enum LogCategory {
+    /**
+     * The requests sent to the partner API.
+     */
+    PARTNER_REQUEST("partnerRequest"),
+    /**
+     * The responses obtained from the partner API.
+     */
+    PARTNER_RESPONSE("partnerResponse"),
+    /**
+     * The timings of the calls to the partner API.
+     */
+    CALL_TIMINGS("callTimings"),
+    /**
+     * The steps of the payment.
+     */
+    PAYMENT_FLOW("paymentFlow"),
+    /**
+     * The payment data sent back by the widget.
+     */
+    PAYMENT_DATA("paymentData");
+
+    private final String label;
+
+    LogCategory(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,127 @@
+package com.payline.payment.sharegroop.utils.log;
+
+import com.payline.payment.sharegroop.utils.properties.ConfigProperties;
+import com.payline.payment.sharegroop.utils.properties.PluginConfig;
+import com.payline.pmapi.logger.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Logging facade for the hot paths of the plugin.
+ *
+ * <p>INFO and DEBUG messages belong to a {@link LogCategory}. Their parameters are suppliers, only called if the level
+ * is enabled and the message is kept by the sampling rate of its category. The values they return are then masked
+ * by the {@link Redactor}. When the level is disabled, a message only costs a level check.</p>
+ *
+ * <p>WARN and ERROR messages are never sampled: they are passed to the underlying logger as is.</p>
+ */
+public class PluginLogger {
+
+    private final Logger logger;
+    private final double[] samplingRates;
+
+    PluginLogger(Logger logger, double[] samplingRates) {
+        this.logger = logger;
+        this.samplingRates = samplingRates;
+    }
+
+    private static class Holder {
+        private static final double[] samplingRates = loadSamplingRates();
+    }
+
+    public static PluginLogger getLogger(Class<?> clazz) {
+        return new PluginLogger(LogManager.getLogger(clazz), Holder.samplingRates);
+    }
+
+    public boolean isDebugEnabled() {
+        return logger.isDebugEnabled();
+    }
+
+    public void debug(LogCategory category, String message) {
+        if (logger.isDebugEnabled() && isSampled(category)) {
+            logger.debug(message);
+        }
+    }
+
+    public void debug(LogCategory category, String message, Supplier<?> p0) {
+        if (logger.isDebugEnabled() && isSampled(category)) {
+            logger.debug(message, format(p0));
+        }
+    }
+
+    public void debug(LogCategory category, String message, Supplier<?> p0, Supplier<?> p1) {
+        if (logger.isDebugEnabled() && isSampled(category)) {
+            logger.debug(message, format(p0), format(p1));
+        }
+    }
+
+    public void debug(LogCategory category, String message, Supplier<?> p0, Supplier<?> p1, Supplier<?> p2) {
+        if (logger.isDebugEnabled() && isSampled(category)) {
+            logger.debug(message, format(p0), format(p1), format(p2));
+        }
+    }
+
+    public void info(LogCategory category, String message) {
+        if (logger.isInfoEnabled() && isSampled(category)) {
+            logger.info(message);
+        }
+    }
+
+    public void info(LogCategory category, String message, Supplier<?> p0) {
+        if (logger.isInfoEnabled() && isSampled(category)) {
+            logger.info(message, format(p0));
+        }
+    }
+
+    public void info(LogCategory category, String message, Supplier<?> p0, Supplier<?> p1) {
+        if (logger.isInfoEnabled() && isSampled(category)) {
+            logger.info(message, format(p0), format(p1));
+        }
+    }
+
+    public void info(LogCategory category, String message, Supplier<?> p0, Supplier<?> p1, Supplier<?> p2) {
+        if (logger.isInfoEnabled() && isSampled(category)) {
+            logger.info(message, format(p0), format(p1), format(p2));
+        }
+    }
+
+    public void warn(String message, Object... params) {
+        logger.warn(message, params);
+    }
+
+    public void error(String message) {
+        logger.error(message);
+    }
+
+    public void error(String message, Object... params) {
+        logger.error(message, params);
+    }
+
+    public void error(String message, Throwable t) {
+        logger.error(message, t);
+    }
+
+    private boolean isSampled(LogCategory category) {
+        double rate = samplingRates[category.ordinal()];
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    private static String format(Supplier<?> supplier) {
+        return Redactor.redact(String.valueOf(supplier.get()));
+    }
+
+    /**
+     * Read the sampling rate of each category from the "logging.sampling.*" properties. A missing property means
+     * every message is logged.
+     */
+    static double[] loadSamplingRates() {
+        PluginConfig config = ConfigProperties.getInstance().getConfig();
+        double[] rates = new double[LogCategory.values().length];
+        for (LogCategory category : LogCategory.values()) {
+            rates[category.ordinal()] = config.getSamplingRate(category.getLabel());
+        }
+        return rates;
+    }
+}
@@ -0,0 +1,61 @@
+package com.payline.payment.sharegroop.utils.log;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Masks the sensitive data of a log message: the keys and secrets, the email addresses and the names of the buyers.
+ * The rules are compiled once.
+ */
+public class Redactor {
+
+    private static final String MASK = "*****";
+
+    /**
+     * JSON properties whose value is a secret.
+     */
+    private static final Pattern SECRET_PROPERTIES = Pattern.compile(
+            "(\"(?:privateKey|secretKey|apiKey|password|token|authorization)\"\\s*:\\s*\")[^\"]*(\")",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * JSON properties whose value is the name of a person.
+     */
+    private static final Pattern NAME_PROPERTIES = Pattern.compile(
+            "(\"(?:firstName|lastName|fullName)\"\\s*:\\s*\")[^\"]*(\")",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Sharegroop keys, anywhere in the message: only their type and environment are kept.
+     */
+    private static final Pattern SHAREGROOP_KEYS = Pattern.compile("\\b([sp]k_(?:test|live)_)\\w+");
+
+    /**
+     * Email addresses: only the domain is kept.
+     */
+    private static final Pattern EMAILS = Pattern.compile("[A-Za-z0-9._%+-]+@([A-Za-z0-9.-]+\\.[A-Za-z]{2,})");
+
+    /* Static utility class : no need to instantiate it */
+    private Redactor() {
+    }
+
+    /**
+     * @param message the message to redact
+     * @return the message, with its sensitive data masked
+     */
+    public static String redact(String message) {
+        if (message == null || message.isEmpty()) {
+            return message;
+        }
+        String result = replace(SECRET_PROPERTIES, message, "$1" + MASK + "$2");
+        result = replace(NAME_PROPERTIES, result, "$1" + MASK + "$2");
+        result = replace(SHAREGROOP_KEYS, result, "$1" + MASK);
+        return replace(EMAILS, result, MASK + "@$1");
+    }
+
+    private static String replace(Pattern pattern, String value, String replacement) {
+        Matcher matcher = pattern.matcher(value);
+        // most messages match no rule: don't copy them
+        return matcher.find() ? matcher.replaceAll(replacement) : value;
+    }
+}
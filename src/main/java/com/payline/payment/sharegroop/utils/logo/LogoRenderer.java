@@ -0,0 +1,76 @@
+package com.payline.payment.sharegroop.utils.logo;
+
+import com.payline.payment.sharegroop.bean.logo.LogoFile;
+import com.payline.payment.sharegroop.bean.logo.LogoVariant;
+import com.payline.payment.sharegroop.bean.logo.LogoVariants;
+import com.payline.payment.sharegroop.exception.PluginException;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Render the scaled variants of a logo. This is the only place where images are decoded and encoded: it is meant to
+ * run once, when the variants are prepared, and never while serving a logo.
+ */
+public class LogoRenderer {
+
+    /* Static utility class : no need to instantiate it (Sonar bug fix) */
+    private LogoRenderer() {
+    }
+
+    /**
+     * Render the given logo in each of the requested sizes.
+     *
+     * @param source the original logo file
+     * @param format the informal name of the format to encode the variants with (ex: "png")
+     * @param sizes the sizes to render, as {height, width} pairs
+     * @return the rendered variants
+     */
+    public static LogoVariants render(LogoFile source, String format, List<int[]> sizes) {
+        BufferedImage image;
+        try {
+            image = ImageIO.read(new ByteArrayInputStream(source.getContent()));
+        } catch (IOException e) {
+            throw new PluginException("Plugin error: unable to read the logo", e);
+        }
+        if (image == null) {
+            throw new PluginException("Plugin error: unsupported logo format");
+        }
+
+        List<LogoVariant> variants = new ArrayList<>(sizes.size());
+        for (int[] size : sizes) {
+            variants.add(new LogoVariant(size[0], size[1], new LogoFile(scale(image, size[0], size[1], format), source.getContentType())));
+        }
+        return new LogoVariants(variants);
+    }
+
+    private static byte[] scale(BufferedImage image, int height, int width, String format) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            if (!ImageIO.write(scaled, format, output)) {
+                throw new PluginException("Plugin error: unsupported logo format " + format);
+            }
+        } catch (IOException e) {
+            throw new PluginException("Plugin error: unable to write the logo", e);
+        }
+        return output.toByteArray();
+    }
+}
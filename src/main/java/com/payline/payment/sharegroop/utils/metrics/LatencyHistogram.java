@@ -0,0 +1,117 @@
+package com.payline.payment.sharegroop.utils.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram, with log-linear buckets: every power of two (in microseconds) is split into 16 buckets,
+ * so that any recorded value is known within about 6%. Values from 1 microsecond to about 2 minutes are tracked,
+ * longer ones are counted in the last bucket.
+ *
+ * <p>Recording a value doesn't allocate nor lock: it can stay on in production.</p>
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 26;
+    private static final long MAX_MICROS = (1L << (MAX_EXPONENT + 1)) - 1;
+    static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param nanos the latency to record, in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = nanos < 0 ? 0 : nanos;
+        buckets.incrementAndGet(indexOf(TimeUnit.NANOSECONDS.toMicros(value)));
+        count.increment();
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return a summary of the recorded latencies
+     */
+    public LatencySnapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        long sum = totalNanos.sum();
+        long n = count.sum();
+        long max = maxNanos.get();
+        // the bucket upper bounds may exceed the highest value actually recorded
+        return new LatencySnapshot(
+                total,
+                n == 0 ? 0 : toMillis(sum / n),
+                toMillis(Math.min(max, percentile(counts, total, 0.50))),
+                toMillis(Math.min(max, percentile(counts, total, 0.90))),
+                toMillis(Math.min(max, percentile(counts, total, 0.99))),
+                toMillis(Math.min(max, percentile(counts, total, 0.999))),
+                toMillis(max)
+        );
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    static int indexOf(long micros) {
+        long value = Math.min(micros, MAX_MICROS);
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return the highest value (in microseconds) counted in the bucket
+     */
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+
+    private static long percentile(long[] counts, long total, double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return TimeUnit.MICROSECONDS.toNanos(upperBoundOf(i));
+            }
+        }
+        return TimeUnit.MICROSECONDS.toNanos(upperBoundOf(counts.length - 1));
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000d;
+    }
+}
@@ -0,0 +1,72 @@
+package com.payline.payment.sharegroop.utils.metrics;
+
+import com.payline.pmapi.logger.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Registration of the metrics in the platform MBean server.
+ *
+ * <p>The MBean server outlives the plugin: when the plugin is loaded again in another class loader, its MBeans replace
+ * the ones of the previous class loader, so that the latest instance is exposed and the previous class loader isn't
+ * kept by the server.</p>
+ */
+class MBeans {
+
+    private static final Logger LOGGER = LogManager.getLogger(MBeans.class);
+
+    /**
+     * The maximum number of attempts to replace an MBean registered under the same name at the same time.
+     */
+    private static final int MAX_ATTEMPTS = 5;
+
+    private MBeans() {
+    }
+
+    /**
+     * Register an MBean, replacing the one registered under the same name, if any. A failure only disables the JMX
+     * exposure: the metrics are still recorded.
+     *
+     * @param mbean the MBean
+     * @param objectName its object name
+     * @return true if the MBean has been registered
+     */
+    static boolean register(Object mbean, String objectName) {
+        return register(ManagementFactory.getPlatformMBeanServer(), mbean, objectName);
+    }
+
+    static boolean register(MBeanServer server, Object mbean, String objectName) {
+        try {
+            ObjectName name = new ObjectName(objectName);
+            for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+                try {
+                    server.registerMBean(mbean, name);
+                    return true;
+                } catch (InstanceAlreadyExistsException e) {
+                    unregister(server, name);
+                }
+            }
+            LOGGER.warn("Unable to register the metrics MBean {}: registered again and again meanwhile", objectName);
+        } catch (JMException | SecurityException e) {
+            LOGGER.warn("Unable to register the metrics MBean {}", objectName, e);
+        }
+        return false;
+    }
+
+    /**
+     * Unregister an MBean, unless it's already gone.
+     */
+    private static void unregister(MBeanServer server, ObjectName name) throws JMException {
+        try {
+            server.unregisterMBean(name);
+        } catch (InstanceNotFoundException e) {
+            // unregistered meanwhile: the next attempt registers the MBean
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.payline.payment.sharegroop.utils.metrics;
+
+/**
+ * The calls made to the partner API.
+ */
+public enum Operation {
+    VERIFY("verify"),
+    CREATE("create"),
+    REFUND("refund"),
+    CANCEL("cancel"),
+    VERIFY_PRIVATE_KEY("verifyPrivateKey"),
+    /**
+     * Any request sent without a known operation.
+     */
+    OTHER("other");
+
+    private final String label;
+
+    Operation(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
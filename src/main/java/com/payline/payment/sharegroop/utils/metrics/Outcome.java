@@ -0,0 +1,41 @@
+package com.payline.payment.sharegroop.utils.metrics;
+
+/**
+ * The outcome of one attempt to call the partner API.
+ */
+public enum Outcome {
+    STATUS_1XX("1xx"),
+    STATUS_2XX("2xx"),
+    STATUS_3XX("3xx"),
+    STATUS_4XX("4xx"),
+    STATUS_5XX("5xx"),
+    /**
+     * No response, and another attempt has been made.
+     */
+    RETRY("retry"),
+    /**
+     * No response, and it was the last attempt.
+     */
+    IO_EXCEPTION("ioException");
+
+    private static final Outcome[] BY_STATUS_CLASS = {STATUS_1XX, STATUS_1XX, STATUS_2XX, STATUS_3XX, STATUS_4XX, STATUS_5XX};
+
+    private final String label;
+
+    Outcome(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @param statusCode an HTTP status code
+     * @return the outcome matching the status class (out of range codes are considered as server errors)
+     */
+    public static Outcome ofStatus(int statusCode) {
+        int statusClass = statusCode / 100;
+        return statusClass >= 0 && statusClass < BY_STATUS_CLASS.length ? BY_STATUS_CLASS[statusClass] : STATUS_5XX;
+    }
+}
@@ -0,0 +1,38 @@
+package com.payline.payment.sharegroop.utils.metrics;
+
+/**
+ * The phases of one HTTP exchange with the partner API.
+ */
+public enum Phase {
+    /**
+     * Waiting for a connection from the pool (bounded by "http.connectionRequestTimeout"). Also includes the DNS
+     * resolution when a new connection is opened.
+     */
+    POOL_WAIT("poolWait"),
+    /**
+     * Opening the TCP connection. Only recorded when a new connection is opened.
+     */
+    CONNECT("connect"),
+    /**
+     * TLS handshake. Only recorded when a new HTTPS connection is opened.
+     */
+    TLS_HANDSHAKE("tlsHandshake"),
+    /**
+     * From the first byte of the request sent to the response headers received: mostly the partner processing time.
+     */
+    SERVER("server"),
+    /**
+     * Reading the response body.
+     */
+    BODY_READ("bodyRead");
+
+    private final String label;
+
+    Phase(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
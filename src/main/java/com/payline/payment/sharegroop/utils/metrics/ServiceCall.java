@@ -0,0 +1,28 @@
+package com.payline.payment.sharegroop.utils.metrics;
+
+/**
+ * The pmapi service methods measured when the service instrumentation is enabled.
+ */
+public enum ServiceCall {
+    PAYMENT_REQUEST("payment.paymentRequest"),
+    REFUND_REQUEST("refund.refundRequest"),
+    RESET_REQUEST("reset.resetRequest"),
+    NOTIFICATION_PARSE("notification.parse"),
+    NOTIFY_TRANSACTION_STATUS("notification.notifyTransactionStatus"),
+    CONFIGURATION_GET_PARAMETERS("configuration.getParameters"),
+    CONFIGURATION_CHECK("configuration.check"),
+    PAYMENT_FORM_CONFIGURATION("paymentForm.getPaymentFormConfiguration"),
+    PAYMENT_FORM_LOGO("paymentForm.getPaymentFormLogo"),
+    PAYMENT_FORM_GET_LOGO("paymentForm.getLogo"),
+    READ_ADDITIONAL_DATA("transactionManager.readAdditionalData");
+
+    private final String label;
+
+    ServiceCall(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
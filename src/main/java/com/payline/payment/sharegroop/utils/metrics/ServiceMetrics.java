@@ -0,0 +1,170 @@
+package com.payline.payment.sharegroop.utils.metrics;
+
+import com.payline.payment.sharegroop.utils.properties.ConfigProperties;
+import com.payline.payment.sharegroop.utils.properties.PluginConfig;
+import com.payline.pmapi.bean.common.FailureCause;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of the calls to the pmapi services of the plugin, by {@link ServiceCall} and
+ * {@link ServiceResult}, and the distribution of the {@link FailureCause} of the failures.
+ *
+ * <p>The instrumentation is enabled by the "metrics.services.enabled" property. When it's disabled, the services
+ * check {@link #isEnabled()} and call the implementation directly. The values can be read through JMX, see
+ * {@link ServiceMetricsMXBean}.</p>
+ */
+public class ServiceMetrics implements ServiceMetricsMXBean {
+
+    public static final String OBJECT_NAME = "com.payline.payment.sharegroop:type=ServiceMetrics";
+
+    private final boolean enabled;
+    private final LongAdder[][] counts = new LongAdder[ServiceCall.values().length][ServiceResult.values().length];
+    private final LatencyHistogram[][] latencies = new LatencyHistogram[ServiceCall.values().length][ServiceResult.values().length];
+    private final LongAdder[][] failureCauses = new LongAdder[ServiceCall.values().length][FailureCause.values().length];
+
+    // --- Singleton Holder pattern + initialization BEGIN
+    ServiceMetrics(boolean enabled) {
+        this.enabled = enabled;
+        for (ServiceCall call : ServiceCall.values()) {
+            for (ServiceResult result : ServiceResult.values()) {
+                counts[call.ordinal()][result.ordinal()] = new LongAdder();
+                latencies[call.ordinal()][result.ordinal()] = new LatencyHistogram();
+            }
+            for (FailureCause cause : FailureCause.values()) {
+                failureCauses[call.ordinal()][cause.ordinal()] = new LongAdder();
+            }
+        }
+    }
+
+    private static class Holder {
+        private static final ServiceMetrics instance = create();
+    }
+
+    public static ServiceMetrics getInstance() {
+        return Holder.instance;
+    }
+    // --- Singleton Holder pattern + initialization END
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Record one call to a service method.
+     *
+     * @param call the service method
+     * @param result the type of result
+     * @param failureCause the failure cause, if the result is a failure which has one, null otherwise
+     * @param nanos the duration of the call, in nanoseconds
+     */
+    public void record(ServiceCall call, ServiceResult result, FailureCause failureCause, long nanos) {
+        counts[call.ordinal()][result.ordinal()].increment();
+        latencies[call.ordinal()][result.ordinal()].record(nanos);
+        if (failureCause != null) {
+            failureCauses[call.ordinal()][failureCause.ordinal()].increment();
+        }
+    }
+
+    /**
+     * @return the number of calls recorded for the service method and the result type
+     */
+    public long getCount(ServiceCall call, ServiceResult result) {
+        return counts[call.ordinal()][result.ordinal()].sum();
+    }
+
+    /**
+     * @return the number of failures recorded for the service method and the failure cause
+     */
+    public long getFailureCount(ServiceCall call, FailureCause failureCause) {
+        return failureCauses[call.ordinal()][failureCause.ordinal()].sum();
+    }
+
+    /**
+     * @return the latencies recorded for the service method and the result type
+     */
+    public LatencySnapshot getLatency(ServiceCall call, ServiceResult result) {
+        return latencies[call.ordinal()][result.ordinal()].snapshot();
+    }
+
+    @Override
+    public Map<String, Long> getCallCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        for (ServiceCall call : ServiceCall.values()) {
+            for (ServiceResult serviceResult : ServiceResult.values()) {
+                long count = getCount(call, serviceResult);
+                if (count > 0) {
+                    result.put(call.getLabel() + "." + serviceResult.getLabel(), count);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, LatencySnapshot> getLatencies() {
+        Map<String, LatencySnapshot> result = new TreeMap<>();
+        for (ServiceCall call : ServiceCall.values()) {
+            for (ServiceResult serviceResult : ServiceResult.values()) {
+                LatencyHistogram histogram = latencies[call.ordinal()][serviceResult.ordinal()];
+                if (histogram.getCount() > 0) {
+                    result.put(call.getLabel() + "." + serviceResult.getLabel(), histogram.snapshot());
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getFailureCauses() {
+        Map<String, Long> result = new TreeMap<>();
+        for (ServiceCall call : ServiceCall.values()) {
+            for (FailureCause cause : FailureCause.values()) {
+                long count = getFailureCount(call, cause);
+                if (count > 0) {
+                    result.put(call.getLabel() + "." + cause.name(), count);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long getTotalCalls() {
+        long total = 0;
+        for (LongAdder[] byResult : counts) {
+            for (LongAdder count : byResult) {
+                total += count.sum();
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void reset() {
+        for (ServiceCall call : ServiceCall.values()) {
+            for (ServiceResult result : ServiceResult.values()) {
+                counts[call.ordinal()][result.ordinal()].reset();
+                latencies[call.ordinal()][result.ordinal()].reset();
+            }
+            for (FailureCause cause : FailureCause.values()) {
+                failureCauses[call.ordinal()][cause.ordinal()].reset();
+            }
+        }
+    }
+
+    /**
+     * Create the metrics, enabled by the "metrics.services.enabled" property, and register them in the platform
+     * MBean server unless disabled by the "metrics.jmx.enabled" property.
+     */
+    private static ServiceMetrics create() {
+        PluginConfig config = ConfigProperties.getInstance().getConfig();
+        ServiceMetrics metrics = new ServiceMetrics(config.isServiceMetricsEnabled());
+        if (metrics.isEnabled() && config.isJmxEnabled()) {
+            MBeans.register(metrics, OBJECT_NAME);
+        }
+        return metrics;
+    }
+}
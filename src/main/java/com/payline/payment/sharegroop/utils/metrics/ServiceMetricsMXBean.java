@@ -0,0 +1,36 @@
+package com.payline.payment.sharegroop.utils.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link ServiceMetrics}, registered in the platform MBean server as
+ * {@value ServiceMetrics#OBJECT_NAME}. Keys start with the service method, for instance "payment.paymentRequest".
+ */
+public interface ServiceMetricsMXBean {
+
+    /**
+     * @return the number of calls, by service method and result type, for instance "payment.paymentRequest.onHold"
+     */
+    Map<String, Long> getCallCounts();
+
+    /**
+     * @return the latency of the calls, by service method and result type
+     */
+    Map<String, LatencySnapshot> getLatencies();
+
+    /**
+     * @return the number of failures, by service method and failure cause, for instance
+     * "refund.refundRequest.COMMUNICATION_ERROR"
+     */
+    Map<String, Long> getFailureCauses();
+
+    /**
+     * @return the total number of calls
+     */
+    long getTotalCalls();
+
+    /**
+     * Clear all the recorded values.
+     */
+    void reset();
+}
@@ -0,0 +1,31 @@
+package com.payline.payment.sharegroop.utils.metrics;
+
+/**
+ * The type of result returned by a pmapi service method.
+ */
+public enum ServiceResult {
+    SUCCESS("success"),
+    FAILURE("failure"),
+    ON_HOLD("onHold"),
+    FORM_UPDATED("formUpdated"),
+    REDIRECT("redirect"),
+    /**
+     * A notification the plugin chose to ignore.
+     */
+    IGNORED("ignored"),
+    OTHER("other"),
+    /**
+     * The method threw an exception instead of returning a result.
+     */
+    EXCEPTION("exception");
+
+    private final String label;
+
+    ServiceResult(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
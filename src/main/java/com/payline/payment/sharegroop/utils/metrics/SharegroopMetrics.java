@@ -0,0 +1,239 @@
+package com.payline.payment.sharegroop.utils.metrics;
+
+import com.payline.payment.sharegroop.utils.http.CallTimings;
+import com.payline.payment.sharegroop.utils.properties.ConfigProperties;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of the calls to the partner API, by {@link Operation} and {@link Outcome}, and
+ * the time spent in each {@link Phase} of the calls, by {@link Operation}, the TLS handshakes with the partner
+ * API, full or resumed, and the resets which needed to verify the order after cancelling it.
+ *
+ * <p>Recording doesn't allocate: every (operation, outcome) and (operation, phase) pair has its counter and histogram
+ * created up front. The values can be read through JMX, see {@link SharegroopMetricsMXBean}.</p>
+ */
+public class SharegroopMetrics implements SharegroopMetricsMXBean {
+
+    public static final String OBJECT_NAME = "com.payline.payment.sharegroop:type=SharegroopMetrics";
+
+    private final LongAdder[][] counts = new LongAdder[Operation.values().length][Outcome.values().length];
+    private final LatencyHistogram[][] latencies = new LatencyHistogram[Operation.values().length][Outcome.values().length];
+    private final LatencyHistogram[][] phases = new LatencyHistogram[Operation.values().length][Phase.values().length];
+    private final LatencyHistogram fullHandshakes = new LatencyHistogram();
+    private final LatencyHistogram resumedHandshakes = new LatencyHistogram();
+    private final LongAdder resetVerifications = new LongAdder();
+    private final LongAdder resetVerificationsAvoided = new LongAdder();
+
+    // --- Singleton Holder pattern + initialization BEGIN
+    SharegroopMetrics() {
+        for (Operation operation : Operation.values()) {
+            for (Outcome outcome : Outcome.values()) {
+                counts[operation.ordinal()][outcome.ordinal()] = new LongAdder();
+                latencies[operation.ordinal()][outcome.ordinal()] = new LatencyHistogram();
+            }
+            for (Phase phase : Phase.values()) {
+                phases[operation.ordinal()][phase.ordinal()] = new LatencyHistogram();
+            }
+        }
+    }
+
+    private static class Holder {
+        private static final SharegroopMetrics instance = register(new SharegroopMetrics());
+    }
+
+    public static SharegroopMetrics getInstance() {
+        return Holder.instance;
+    }
+    // --- Singleton Holder pattern + initialization END
+
+    /**
+     * Record one attempt to call the partner API.
+     *
+     * @param operation the operation
+     * @param outcome the outcome of the attempt
+     * @param nanos the duration of the attempt, in nanoseconds
+     */
+    public void record(Operation operation, Outcome outcome, long nanos) {
+        counts[operation.ordinal()][outcome.ordinal()].increment();
+        latencies[operation.ordinal()][outcome.ordinal()].record(nanos);
+    }
+
+    /**
+     * Record the time spent in each phase of a call which obtained a response. Connect and TLS handshake are only
+     * recorded when a new connection has been opened, so that their count is the number of connections opened.
+     *
+     * @param operation the operation
+     * @param timings the timings of the call
+     */
+    public void record(Operation operation, CallTimings timings) {
+        for (Phase phase : Phase.values()) {
+            if (timings.isConnectionReused() && (phase == Phase.CONNECT || phase == Phase.TLS_HANDSHAKE)) {
+                continue;
+            }
+            if (phase == Phase.TLS_HANDSHAKE && timings.get(phase) == 0) {
+                // plain HTTP
+                continue;
+            }
+            phases[operation.ordinal()][phase.ordinal()].record(timings.get(phase));
+        }
+    }
+
+    /**
+     * Record a TLS handshake with the partner API.
+     *
+     * @param resumed true if a cached session has been resumed, false for a full handshake
+     * @param nanos the duration of the handshake, in nanoseconds
+     */
+    public void recordHandshake(boolean resumed, long nanos) {
+        (resumed ? resumedHandshakes : fullHandshakes).record(nanos);
+    }
+
+    /**
+     * Record a reset, after the order has been cancelled.
+     *
+     * @param avoided true if the status of the cancel response was final, false if the order had to be verified
+     */
+    public void recordResetVerification(boolean avoided) {
+        (avoided ? resetVerificationsAvoided : resetVerifications).increment();
+    }
+
+    /**
+     * @return the number of attempts recorded for the operation and the outcome
+     */
+    public long getCount(Operation operation, Outcome outcome) {
+        return counts[operation.ordinal()][outcome.ordinal()].sum();
+    }
+
+    /**
+     * @return the latencies recorded for the operation and the outcome
+     */
+    public LatencySnapshot getLatency(Operation operation, Outcome outcome) {
+        return latencies[operation.ordinal()][outcome.ordinal()].snapshot();
+    }
+
+    /**
+     * @return the time spent in the phase by the calls of the operation
+     */
+    public LatencySnapshot getPhaseLatency(Operation operation, Phase phase) {
+        return phases[operation.ordinal()][phase.ordinal()].snapshot();
+    }
+
+    @Override
+    public Map<String, Long> getCallCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        for (Operation operation : Operation.values()) {
+            for (Outcome outcome : Outcome.values()) {
+                long count = getCount(operation, outcome);
+                if (count > 0) {
+                    result.put(key(operation, outcome), count);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, LatencySnapshot> getLatencies() {
+        Map<String, LatencySnapshot> result = new TreeMap<>();
+        for (Operation operation : Operation.values()) {
+            for (Outcome outcome : Outcome.values()) {
+                LatencyHistogram histogram = latencies[operation.ordinal()][outcome.ordinal()];
+                if (histogram.getCount() > 0) {
+                    result.put(key(operation, outcome), histogram.snapshot());
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, LatencySnapshot> getPhaseLatencies() {
+        Map<String, LatencySnapshot> result = new TreeMap<>();
+        for (Operation operation : Operation.values()) {
+            for (Phase phase : Phase.values()) {
+                LatencyHistogram histogram = phases[operation.ordinal()][phase.ordinal()];
+                if (histogram.getCount() > 0) {
+                    result.put(operation.getLabel() + "." + phase.getLabel(), histogram.snapshot());
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long getFullHandshakes() {
+        return fullHandshakes.getCount();
+    }
+
+    @Override
+    public long getResumedHandshakes() {
+        return resumedHandshakes.getCount();
+    }
+
+    @Override
+    public Map<String, LatencySnapshot> getHandshakeLatencies() {
+        Map<String, LatencySnapshot> result = new TreeMap<>();
+        if (fullHandshakes.getCount() > 0) {
+            result.put("full", fullHandshakes.snapshot());
+        }
+        if (resumedHandshakes.getCount() > 0) {
+            result.put("resumed", resumedHandshakes.snapshot());
+        }
+        return result;
+    }
+
+    @Override
+    public long getResetVerifications() {
+        return resetVerifications.sum();
+    }
+
+    @Override
+    public long getResetVerificationsAvoided() {
+        return resetVerificationsAvoided.sum();
+    }
+
+    @Override
+    public long getTotalCalls() {
+        long total = 0;
+        for (LongAdder[] byOutcome : counts) {
+            for (LongAdder count : byOutcome) {
+                total += count.sum();
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void reset() {
+        for (Operation operation : Operation.values()) {
+            for (Outcome outcome : Outcome.values()) {
+                counts[operation.ordinal()][outcome.ordinal()].reset();
+                latencies[operation.ordinal()][outcome.ordinal()].reset();
+            }
+            for (Phase phase : Phase.values()) {
+                phases[operation.ordinal()][phase.ordinal()].reset();
+            }
+        }
+        fullHandshakes.reset();
+        resumedHandshakes.reset();
+        resetVerifications.reset();
+        resetVerificationsAvoided.reset();
+    }
+
+    private static String key(Operation operation, Outcome outcome) {
+        return operation.getLabel() + "." + outcome.getLabel();
+    }
+
+    /**
+     * Register the metrics in the platform MBean server, unless disabled by the "metrics.jmx.enabled" property.
+     */
+    private static SharegroopMetrics register(SharegroopMetrics metrics) {
+        if (ConfigProperties.getInstance().getConfig().isJmxEnabled()) {
+            MBeans.register(metrics, OBJECT_NAME);
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,61 @@
+package com.payline.payment.sharegroop.utils.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link SharegroopMetrics}, registered in the platform MBean server as
+ * {@value SharegroopMetrics#OBJECT_NAME}. Keys are "operation.outcome", for instance "verify.2xx".
+ */
+public interface SharegroopMetricsMXBean {
+
+    /**
+     * @return the number of attempts, by operation and outcome
+     */
+    Map<String, Long> getCallCounts();
+
+    /**
+     * @return the latency of the attempts, by operation and outcome
+     */
+    Map<String, LatencySnapshot> getLatencies();
+
+    /**
+     * @return the time spent in each phase of the calls which obtained a response, by operation and phase, for
+     * instance "verify.poolWait". The count of "connect" is the number of connections opened.
+     */
+    Map<String, LatencySnapshot> getPhaseLatencies();
+
+    /**
+     * @return the number of full TLS handshakes with the partner API
+     */
+    long getFullHandshakes();
+
+    /**
+     * @return the number of TLS handshakes with the partner API which resumed a cached session
+     */
+    long getResumedHandshakes();
+
+    /**
+     * @return the duration of the TLS handshakes with the partner API, by kind: "full" or "resumed"
+     */
+    Map<String, LatencySnapshot> getHandshakeLatencies();
+
+    /**
+     * @return the number of resets which verified the order after cancelling it, the cancel response being ambiguous
+     */
+    long getResetVerifications();
+
+    /**
+     * @return the number of resets which trusted the final status of the cancel response, without verifying the order
+     */
+    long getResetVerificationsAvoided();
+
+    /**
+     * @return the total number of attempts
+     */
+    long getTotalCalls();
+
+    /**
+     * Clear all the recorded values.
+     */
+    void reset();
+}
@@ -0,0 +1,114 @@
+package com.payline.payment.sharegroop.utils.metrics;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Diagnostic capture of one slow call to the partner API, kept by the {@link SlowCallDetector}. The request and the
+ * response are summaries: the Authorization header is masked and the bodies are reduced to their size.
+ * Durations are in milliseconds.
+ */
+public class SlowCall {
+
+    private final Instant timestamp;
+    private final String operation;
+    private final int attempt;
+    private final String outcome;
+    private final double durationMillis;
+    private final double thresholdMillis;
+    private final String request;
+    private final String response;
+    private final Map<String, Double> phases;
+    private final boolean connectionReused;
+    private final String poolState;
+
+    SlowCall(Instant timestamp, Operation operation, int attempt, Outcome outcome, double durationMillis,
+             double thresholdMillis, String request, String response, Map<String, Double> phases,
+             boolean connectionReused, String poolState) {
+        this.timestamp = timestamp;
+        this.operation = operation.getLabel();
+        this.attempt = attempt;
+        this.outcome = outcome.getLabel();
+        this.durationMillis = durationMillis;
+        this.thresholdMillis = thresholdMillis;
+        this.request = request;
+        this.response = response;
+        this.phases = Collections.unmodifiableMap(phases);
+        this.connectionReused = connectionReused;
+        this.poolState = poolState;
+    }
+
+    /**
+     * @return the end of the call, as an ISO-8601 instant
+     */
+    public String getTimestamp() {
+        return timestamp.toString();
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public String getOutcome() {
+        return outcome;
+    }
+
+    public double getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * @return the threshold the call exceeded
+     */
+    public double getThresholdMillis() {
+        return thresholdMillis;
+    }
+
+    public String getRequest() {
+        return request;
+    }
+
+    public String getResponse() {
+        return response;
+    }
+
+    /**
+     * @return the time spent in each {@link Phase} of the call, by phase label
+     */
+    public Map<String, Double> getPhases() {
+        return phases;
+    }
+
+    public boolean isConnectionReused() {
+        return connectionReused;
+    }
+
+    /**
+     * @return the state of the connection pool at the end of the call
+     */
+    public String getPoolState() {
+        return poolState;
+    }
+
+    @Override
+    public String toString() {
+        return "SlowCall{" +
+                "timestamp=" + timestamp +
+                ", operation=" + operation +
+                ", attempt=" + attempt +
+                ", outcome=" + outcome +
+                ", duration=" + durationMillis + "ms" +
+                ", threshold=" + thresholdMillis + "ms" +
+                ", request=" + request +
+                ", response=" + response +
+                ", phases=" + phases +
+                ", connectionReused=" + connectionReused +
+                ", pool=" + poolState +
+                '}';
+    }
+}
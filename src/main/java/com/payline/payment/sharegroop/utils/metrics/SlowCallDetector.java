@@ -0,0 +1,266 @@
+package com.payline.payment.sharegroop.utils.metrics;
+
+import com.payline.payment.sharegroop.exception.PluginException;
+import com.payline.payment.sharegroop.utils.http.CallTimings;
+import com.payline.payment.sharegroop.utils.properties.ConfigProperties;
+import com.payline.payment.sharegroop.utils.properties.PluginConfig;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Detects the slow calls to the partner API and keeps a diagnostic capture of the latest ones in a bounded ring
+ * buffer, see {@link SlowCall}.
+ *
+ * <p>A call is slow when it exceeds the fixed threshold ("slowCalls.thresholdMillis") or the configured percentile
+ * ("slowCalls.percentile") of the successful calls of its operation, once enough of them have been recorded in the
+ * {@link SharegroopMetrics}. The thresholds are computed every "slowCalls.percentile.refreshInterval" seconds, so that
+ * {@link #isSlow(Operation, long, long)} only compares the duration of the call with them: the diagnostic capture
+ * is only built for the slow calls. At most "slowCalls.maxPerSecond" calls are captured per second, so that a
+ * slow-partner incident doesn't flood the buffer nor the logs.</p>
+ */
+public class SlowCallDetector implements SlowCallDetectorMXBean {
+
+    public static final String OBJECT_NAME = "com.payline.payment.sharegroop:type=SlowCallDetector";
+
+    private static final long SAMPLING_WINDOW = TimeUnit.SECONDS.toNanos(1);
+    private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final SharegroopMetrics metrics;
+    private final long fixedThreshold;
+    private final ToDoubleFunction<LatencySnapshot> percentile;
+    private final long minSamples;
+    private final long refreshInterval;
+    private final int maxPerSecond;
+
+    private final AtomicLongArray thresholds = new AtomicLongArray(Operation.values().length);
+    private volatile long nextRefresh;
+
+    // ring buffer and sampling state, guarded by "this"
+    private final SlowCall[] buffer;
+    private int next;
+    private int size;
+    private long windowStart;
+    private int windowCount;
+    private long captured;
+    private long dropped;
+
+    // --- Singleton Holder pattern + initialization BEGIN
+    /**
+     * @param metrics the metrics the percentiles are read from
+     * @param fixedThresholdMillis the fixed threshold, 0 to disable it
+     * @param percentile the percentile of the successful calls, null to disable it
+     * @param minSamples the number of successful calls needed before the percentile of an operation is used
+     * @param refreshIntervalMillis the time between two computations of the thresholds
+     * @param capacity the number of slow calls kept in memory
+     * @param maxPerSecond the maximum number of slow calls captured per second
+     */
+    SlowCallDetector(SharegroopMetrics metrics, long fixedThresholdMillis, ToDoubleFunction<LatencySnapshot> percentile,
+                     long minSamples, long refreshIntervalMillis, int capacity, int maxPerSecond) {
+        this.metrics = metrics;
+        this.fixedThreshold = fixedThresholdMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(fixedThresholdMillis) : Long.MAX_VALUE;
+        this.percentile = percentile;
+        this.minSamples = minSamples;
+        this.refreshInterval = TimeUnit.MILLISECONDS.toNanos(refreshIntervalMillis);
+        this.maxPerSecond = maxPerSecond;
+        this.buffer = new SlowCall[Math.max(1, capacity)];
+        for (int i = 0; i < thresholds.length(); i++) {
+            thresholds.set(i, fixedThreshold);
+        }
+        long now = System.nanoTime();
+        this.nextRefresh = now + refreshInterval;
+        this.windowStart = now - SAMPLING_WINDOW;
+    }
+
+    private static class Holder {
+        private static final SlowCallDetector instance = create();
+    }
+
+    public static SlowCallDetector getInstance() {
+        return Holder.instance;
+    }
+    // --- Singleton Holder pattern + initialization END
+
+    /**
+     * @param operation the operation of the call
+     * @param nanos the duration of the call, in nanoseconds
+     * @param now the current {@link System#nanoTime()}
+     * @return true if the call exceeds the threshold of its operation
+     */
+    public boolean isSlow(Operation operation, long nanos, long now) {
+        if (now - nextRefresh >= 0) {
+            refresh(now);
+        }
+        return nanos > thresholds.get(operation.ordinal());
+    }
+
+    /**
+     * @return the current threshold of the operation, in nanoseconds ({@link Long#MAX_VALUE} if there is none)
+     */
+    public long getThreshold(Operation operation) {
+        return thresholds.get(operation.ordinal());
+    }
+
+    /**
+     * Keep a slow call in the buffer, unless the sampling limit of the current second has been reached.
+     *
+     * @param operation the operation of the call
+     * @param attempt the attempt number
+     * @param outcome the outcome of the attempt
+     * @param nanos the duration of the call, in nanoseconds
+     * @param now the current {@link System#nanoTime()}
+     * @param request the redacted summary of the request
+     * @param response the redacted summary of the response, or of the error
+     * @param timings the timings of the call
+     * @param poolState the state of the connection pool
+     * @return the capture, or null if it has been sampled out
+     */
+    public synchronized SlowCall capture(Operation operation, int attempt, Outcome outcome, long nanos, long now,
+                                         String request, String response, CallTimings timings, String poolState) {
+        if (now - windowStart >= SAMPLING_WINDOW) {
+            windowStart = now;
+            windowCount = 0;
+        }
+        if (windowCount >= maxPerSecond) {
+            dropped++;
+            return null;
+        }
+        windowCount++;
+
+        Map<String, Double> phases = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            phases.put(phase.getLabel(), toMillis(timings.get(phase)));
+        }
+        SlowCall slowCall = new SlowCall(Instant.now(), operation, attempt, outcome, toMillis(nanos),
+                toMillis(getThreshold(operation)), request, response, phases, timings.isConnectionReused(), poolState);
+
+        buffer[next] = slowCall;
+        next = (next + 1) % buffer.length;
+        size = Math.min(size + 1, buffer.length);
+        captured++;
+        return slowCall;
+    }
+
+    /**
+     * @return the slow calls kept in memory, oldest first
+     */
+    public synchronized List<SlowCall> dump() {
+        List<SlowCall> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(buffer[(next - size + i + buffer.length) % buffer.length]);
+        }
+        return result;
+    }
+
+    @Override
+    public List<SlowCall> getSlowCalls() {
+        return dump();
+    }
+
+    @Override
+    public Map<String, Double> getThresholds() {
+        Map<String, Double> result = new TreeMap<>();
+        for (Operation operation : Operation.values()) {
+            long threshold = getThreshold(operation);
+            if (threshold != Long.MAX_VALUE) {
+                result.put(operation.getLabel(), toMillis(threshold));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized long getCapturedCount() {
+        return captured;
+    }
+
+    @Override
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (int i = 0; i < buffer.length; i++) {
+            buffer[i] = null;
+        }
+        next = 0;
+        size = 0;
+        captured = 0;
+        dropped = 0;
+    }
+
+    /**
+     * Compute the threshold of each operation: the lowest of the fixed threshold and the percentile.
+     */
+    private void refresh(long now) {
+        synchronized (thresholds) {
+            if (now - nextRefresh < 0) {
+                // another thread did it
+                return;
+            }
+            for (Operation operation : Operation.values()) {
+                long threshold = fixedThreshold;
+                if (percentile != null) {
+                    LatencySnapshot successes = metrics.getLatency(operation, Outcome.STATUS_2XX);
+                    long dynamic = (long) (percentile.applyAsDouble(successes) * NANOS_PER_MILLI);
+                    if (successes.getCount() >= minSamples && dynamic > 0) {
+                        threshold = Math.min(threshold, dynamic);
+                    }
+                }
+                thresholds.set(operation.ordinal(), threshold);
+            }
+            nextRefresh = now + refreshInterval;
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) NANOS_PER_MILLI;
+    }
+
+    /**
+     * @param value the "slowCalls.percentile" property: 90, 99, 99.9 or empty
+     * @return the matching percentile of a {@link LatencySnapshot}, or null if it's empty
+     */
+    static ToDoubleFunction<LatencySnapshot> percentileOf(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        switch (value.trim()) {
+            case "90":
+                return LatencySnapshot::getP90;
+            case "99":
+                return LatencySnapshot::getP99;
+            case "99.9":
+                return LatencySnapshot::getP999;
+            default:
+                throw new PluginException("Plugin config error: slowCalls.percentile must be 90, 99, 99.9 or empty");
+        }
+    }
+
+    /**
+     * Create the detector from the "slowCalls.*" properties, and register it in the platform MBean server unless
+     * disabled by the "metrics.jmx.enabled" property.
+     */
+    private static SlowCallDetector create() {
+        PluginConfig config = ConfigProperties.getInstance().getConfig();
+        SlowCallDetector detector = new SlowCallDetector(SharegroopMetrics.getInstance(),
+                config.getSlowCallThresholdMillis(),
+                percentileOf(config.getSlowCallPercentile()),
+                config.getSlowCallMinSamples(),
+                TimeUnit.SECONDS.toMillis(config.getSlowCallRefreshInterval()),
+                config.getSlowCallCapacity(),
+                config.getSlowCallMaxPerSecond());
+        if (config.isJmxEnabled()) {
+            MBeans.register(detector, OBJECT_NAME);
+        }
+        return detector;
+    }
+}
@@ -0,0 +1,36 @@
+package com.payline.payment.sharegroop.utils.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Management interface of {@link SlowCallDetector}, registered in the platform MBean server as
+ * {@value SlowCallDetector#OBJECT_NAME}.
+ */
+public interface SlowCallDetectorMXBean {
+
+    /**
+     * @return the slow calls kept in memory, oldest first
+     */
+    List<SlowCall> getSlowCalls();
+
+    /**
+     * @return the current threshold of each operation, in milliseconds. Operations with no threshold are omitted.
+     */
+    Map<String, Double> getThresholds();
+
+    /**
+     * @return the number of slow calls captured since the start (or the last clear)
+     */
+    long getCapturedCount();
+
+    /**
+     * @return the number of slow calls which have not been captured because of the sampling
+     */
+    long getDroppedCount();
+
+    /**
+     * Empty the buffer and reset the counts.
+     */
+    void clear();
+}
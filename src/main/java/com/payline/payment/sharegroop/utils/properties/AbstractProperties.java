@@ -4,6 +4,8 @@ import com.payline.payment.sharegroop.exception.PluginException;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 
 public abstract class AbstractProperties {
@@ -26,6 +28,17 @@ public abstract class AbstractProperties {
         return this.properties.getProperty(key);
     }
 
+    /**
+     * @return a copy of all the properties read from the file, by name
+     */
+    Map<String, String> toMap() {
+        Map<String, String> map = new HashMap<>();
+        for (String key : this.properties.stringPropertyNames()) {
+            map.put(key, this.properties.getProperty(key));
+        }
+        return map;
+    }
+
     /**
      * Read the properties files using the filename returned by the method getFilename().
      */
@@ -0,0 +1,101 @@
+package com.payline.payment.sharegroop.utils.properties;
+
+import com.payline.pmapi.logger.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the external configuration file from a daemon thread, and calls a listener each time it's created or
+ * modified.
+ *
+ * <p>An editor or a deployment tool often writes the file in several steps (truncate, then write), each one raising an
+ * event. The listener is only called once the file has been left alone for {@value #QUIET_PERIOD_MILLIS} ms, so that
+ * it reads the complete file.</p>
+ */
+class ConfigFileWatcher implements Runnable {
+
+    private static final Logger LOGGER = LogManager.getLogger(ConfigFileWatcher.class);
+
+    static final long QUIET_PERIOD_MILLIS = 500;
+
+    private final WatchService watchService;
+    private final Path file;
+    private final Runnable listener;
+
+    private ConfigFileWatcher(WatchService watchService, Path file, Runnable listener) {
+        this.watchService = watchService;
+        this.file = file;
+        this.listener = listener;
+    }
+
+    /**
+     * Start watching the file. If the watch can't be set up, the error is logged and the file is never read again.
+     *
+     * @param file the file to watch
+     * @param listener called after each change
+     */
+    static void start(Path file, Runnable listener) {
+        Path absoluteFile = file.toAbsolutePath();
+        try {
+            WatchService watchService = FileSystems.getDefault().newWatchService();
+            absoluteFile.getParent().register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            Thread thread = new Thread(new ConfigFileWatcher(watchService, absoluteFile, listener), "sharegroop-config-watcher");
+            thread.setDaemon(true);
+            thread.start();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Unable to watch the configuration file {}", absoluteFile, e);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                if (!this.isFileChanged(watchService.take())) {
+                    continue;
+                }
+                // wait for the end of the writes: each new change of the file restarts the quiet period
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(QUIET_PERIOD_MILLIS);
+                long remaining;
+                while ((remaining = deadline - System.nanoTime()) > 0) {
+                    WatchKey key = watchService.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (key == null) {
+                        break;
+                    }
+                    if (this.isFileChanged(key)) {
+                        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(QUIET_PERIOD_MILLIS);
+                    }
+                }
+                listener.run();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // the watch has been stopped
+        }
+    }
+
+    /**
+     * Consume the events of the key, and reset it.
+     *
+     * @return true if one of the events concerns the watched file
+     */
+    private boolean isFileChanged(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            changed |= event.context() instanceof Path && file.getFileName().equals(event.context());
+        }
+        key.reset();
+        return changed;
+    }
+}
@@ -1,13 +1,71 @@
 package com.payline.payment.sharegroop.utils.properties;
 
+import com.payline.payment.sharegroop.exception.PluginException;
+import com.payline.pmapi.logger.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
 /**
  * Utility class which reads and provides config properties.
+ *
+ * <p>The values of the config.properties file can be overridden, by order of precedence:</p>
+ * <ol>
+ *     <li>by the system property "sharegroop.&lt;name&gt;", e.g. sharegroop.http.socketTimeout</li>
+ *     <li>by the environment variable "SHAREGROOP_&lt;NAME&gt;", e.g. SHAREGROOP_HTTP_SOCKETTIMEOUT</li>
+ *     <li>by an external properties file, given by the system property "sharegroop.config.file" or the environment
+ *     variable "SHAREGROOP_CONFIG_FILE"</li>
+ * </ol>
+ *
+ * <p>The external file is watched: when it changes, the configuration is read and validated again, then the new
+ * {@link PluginConfig} replaces the current one. If it's invalid, the current one is kept. The packaged values are
+ * never used in place of the external ones after a change: an external file which can't be read, or which lost some of
+ * its keys (e.g. while it's being written), is invalid too. Removing a key from the external file requires a restart.</p>
  */
 public class ConfigProperties extends AbstractProperties {
 
+    private static final Logger LOGGER = LogManager.getLogger(ConfigProperties.class);
+
     private static final String FILENAME = "config.properties";
+    private static final String SYSTEM_PROPERTY_PREFIX = "sharegroop.";
+    private static final String ENVIRONMENT_VARIABLE_PREFIX = "SHAREGROOP_";
+    private static final String CONFIG_FILE = "config.file";
 
-    private ConfigProperties(){}
+    private final UnaryOperator<String> systemProperties;
+    private final UnaryOperator<String> environment;
+    private final AtomicReference<PluginConfig> config = new AtomicReference<>();
+    // the keys of the external file of the current configuration
+    private Set<String> externalKeys = Collections.emptySet();
+
+    private ConfigProperties() {
+        this(System::getProperty, System::getenv);
+        Path configFile = getConfigFile();
+        if (configFile != null) {
+            ConfigFileWatcher.start(configFile, this::reload);
+        }
+    }
+
+    /**
+     * @param systemProperties gives the value of a system property
+     * @param environment gives the value of an environment variable
+     */
+    ConfigProperties(UnaryOperator<String> systemProperties, UnaryOperator<String> environment) {
+        this.systemProperties = systemProperties;
+        this.environment = environment;
+        this.config.set(load());
+    }
 
     private static class Holder {
         private static final ConfigProperties instance = new ConfigProperties();
@@ -22,4 +80,95 @@ public class ConfigProperties extends AbstractProperties {
         return FILENAME;
     }
 
+    /**
+     * Get a configuration property by its name, from the current configuration.
+     *
+     * @param key The name/key of the property to get.
+     * @return The property value. Can be null if the property has not been found.
+     */
+    @Override
+    public String get(final String key) {
+        return this.config.get().get(key);
+    }
+
+    /**
+     * @return the current configuration. Keep the returned instance for the duration of an operation to read
+     * consistent values.
+     */
+    public PluginConfig getConfig() {
+        return this.config.get();
+    }
+
+    /**
+     * Read and validate the configuration again, and replace the current one with it.
+     *
+     * @return true if the configuration has been replaced, false if it's invalid and the current one has been kept.
+     */
+    public synchronized boolean reload() {
+        try {
+            this.config.set(load());
+            LOGGER.info("Plugin configuration reloaded");
+            return true;
+        } catch (PluginException e) {
+            LOGGER.error("Invalid plugin configuration, the current one is kept", e);
+            return false;
+        }
+    }
+
+    /**
+     * Merge the properties of the file packaged with the plugin with the external file and the overrides.
+     */
+    private PluginConfig load() {
+        Map<String, String> values = toMap();
+
+        Path configFile = getConfigFile();
+        Set<String> keys = Collections.emptySet();
+        if (configFile != null) {
+            Properties external = new Properties();
+            try (InputStream inputStream = Files.newInputStream(configFile)) {
+                external.load(inputStream);
+            } catch (IOException | IllegalArgumentException e) {
+                throw new PluginException("Unable to load properties file: " + configFile, e);
+            }
+            keys = external.stringPropertyNames();
+            Set<String> lostKeys = new TreeSet<>(this.externalKeys);
+            lostKeys.removeAll(keys);
+            if (!lostKeys.isEmpty()) {
+                throw new PluginException("Properties missing from file " + configFile + ": " + lostKeys);
+            }
+            for (String key : keys) {
+                values.put(key, external.getProperty(key));
+            }
+        }
+
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            String override = override(entry.getKey());
+            if (override != null) {
+                entry.setValue(override);
+            }
+        }
+        PluginConfig pluginConfig = new PluginConfig(values);
+        this.externalKeys = keys;
+        return pluginConfig;
+    }
+
+    /**
+     * @return the value of the system property or the environment variable overriding the given property, or null
+     */
+    private String override(String key) {
+        String value = systemProperties.apply(SYSTEM_PROPERTY_PREFIX + key);
+        if (value == null) {
+            value = environment.apply(ENVIRONMENT_VARIABLE_PREFIX + key.replace('.', '_').toUpperCase(Locale.ROOT));
+        }
+        return value;
+    }
+
+    /**
+     * @return the path of the external properties file, or null if there is none
+     */
+    Path getConfigFile() {
+        String configFile = override(CONFIG_FILE);
+        return configFile == null || configFile.trim().isEmpty() ? null : Paths.get(configFile.trim());
+    }
+
 }
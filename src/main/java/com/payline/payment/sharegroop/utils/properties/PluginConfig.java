@@ -0,0 +1,565 @@
+package com.payline.payment.sharegroop.utils.properties;
+
+import com.payline.payment.sharegroop.exception.PluginException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, typed snapshot of the plugin configuration. The values are parsed and validated once, when the snapshot
+ * is built: reading them costs a field access. A new snapshot is built when the configuration changes, see
+ * {@link ConfigProperties#getConfig()}.
+ */
+public class PluginConfig {
+
+    private static final String SAMPLING_PREFIX = "logging.sampling.";
+    private static final int MAX_TIMEOUT = 3600;
+    private static final List<String> PERCENTILES = Arrays.asList("90", "99", "99.9");
+
+    private final Map<String, String> values;
+
+    // HTTP client
+    private final int connectionRequestTimeout;
+    private final int connectTimeout;
+    private final int socketTimeout;
+    private final int retries;
+    private final int poolMaxPerRoute;
+    private final int poolMaxTotal;
+    private final int poolKeepAlive;
+
+    // partner API endpoints
+    private final int endpointEjectionFailures;
+    private final int endpointEjectionTime;
+
+    // TLS
+    private final List<String> tlsProtocols;
+    private final List<String> tlsCipherSuites;
+    private final int tlsSessionCacheSize;
+    private final int tlsSessionCacheTimeout;
+
+    // keep-warm
+    private final boolean keepWarmEnabled;
+    private final int keepWarmMinIdle;
+    private final int keepWarmInterval;
+
+    // warm-up
+    private final int warmUpConnections;
+
+    // metrics
+    private final boolean jmxEnabled;
+    private final boolean serviceMetricsEnabled;
+
+    // slow calls
+    private final long slowCallThresholdMillis;
+    private final String slowCallPercentile;
+    private final long slowCallMinSamples;
+    private final long slowCallRefreshInterval;
+    private final int slowCallCapacity;
+    private final int slowCallMaxPerSecond;
+
+    // logging
+    private final Map<String, Double> samplingRates;
+
+    // private key validation
+    private final int privateKeyPositiveTtl;
+    private final int privateKeyNegativeTtl;
+    private final int privateKeyMaxEntries;
+    private final int privateKeyCheckParallelism;
+
+    // order mutations
+    private final int orderMutationTtl;
+    private final int orderMutationMaxEntries;
+
+    // order statuses
+    private final int orderStatusTtl;
+    private final int orderStatusMaxEntries;
+
+    // bulk runs
+    private final int bulkParallelism;
+    private final int bulkMerchantRate;
+
+    // internationalization
+    private final String defaultLocale;
+    private final List<String> locales;
+
+    // logo
+    private final String logoFilename;
+    private final String logoFormat;
+    private final String logoContentType;
+    private final int logoHeight;
+    private final int logoWidth;
+    private final List<int[]> logoVariants;
+    private final int logoVariantsMax;
+
+    /**
+     * @param values the raw values, by property name
+     * @throws PluginException listing all the invalid properties, if any
+     */
+    PluginConfig(Map<String, String> values) {
+        this.values = Collections.unmodifiableMap(new HashMap<>(values));
+        List<String> errors = new ArrayList<>();
+
+        this.connectionRequestTimeout = intValue("http.connectionRequestTimeout", 0, MAX_TIMEOUT, errors);
+        this.connectTimeout = intValue("http.connectTimeout", 0, MAX_TIMEOUT, errors);
+        this.socketTimeout = intValue("http.socketTimeout", 0, MAX_TIMEOUT, errors);
+        this.retries = intValue("http.retries", 1, errors);
+        this.poolMaxPerRoute = optionalIntValue("http.pool.maxPerRoute", errors);
+        this.poolMaxTotal = optionalIntValue("http.pool.maxTotal", errors);
+        this.poolKeepAlive = intValue("http.pool.keepAlive", 0, errors);
+
+        this.endpointEjectionFailures = intValue("endpoints.ejection.consecutiveFailures", 0, errors);
+        this.endpointEjectionTime = intValue("endpoints.ejection.baseTime", 1, errors);
+
+        this.tlsProtocols = listValue("tls.protocols");
+        this.tlsCipherSuites = listValue("tls.cipherSuites");
+        this.tlsSessionCacheSize = intValue("tls.sessionCache.size", 0, errors);
+        this.tlsSessionCacheTimeout = intValue("tls.sessionCache.timeout", 0, errors);
+
+        this.keepWarmEnabled = booleanValue("keepWarm.enabled", errors);
+        this.keepWarmMinIdle = intValue("keepWarm.minIdle", 0, errors);
+        this.keepWarmInterval = intValue("keepWarm.interval", 1, errors);
+
+        this.warmUpConnections = intValue("warmUp.connections", 0, errors);
+
+        this.jmxEnabled = booleanValue("metrics.jmx.enabled", errors);
+        this.serviceMetricsEnabled = booleanValue("metrics.services.enabled", errors);
+
+        this.slowCallThresholdMillis = longValue("slowCalls.thresholdMillis", 0, errors);
+        this.slowCallPercentile = trimToEmpty(values.get("slowCalls.percentile"));
+        if (!slowCallPercentile.isEmpty() && !PERCENTILES.contains(slowCallPercentile)) {
+            errors.add("slowCalls.percentile must be 90, 99, 99.9 or empty");
+        }
+        this.slowCallMinSamples = longValue("slowCalls.percentile.minSamples", 0, errors);
+        this.slowCallRefreshInterval = longValue("slowCalls.percentile.refreshInterval", 0, errors);
+        this.slowCallCapacity = intValue("slowCalls.capacity", 1, errors);
+        this.slowCallMaxPerSecond = intValue("slowCalls.maxPerSecond", 0, errors);
+
+        Map<String, Double> rates = new HashMap<>();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (entry.getKey().startsWith(SAMPLING_PREFIX)) {
+                rates.put(entry.getKey().substring(SAMPLING_PREFIX.length()), rateValue(entry.getKey(), errors));
+            }
+        }
+        this.samplingRates = Collections.unmodifiableMap(rates);
+
+        this.privateKeyPositiveTtl = intValue("privateKey.cache.positiveTtl", 0, errors);
+        this.privateKeyNegativeTtl = intValue("privateKey.cache.negativeTtl", 0, errors);
+        this.privateKeyMaxEntries = intValue("privateKey.cache.maxEntries", 1, errors);
+        this.privateKeyCheckParallelism = intValue("privateKey.check.parallelism", 1, errors);
+
+        this.orderMutationTtl = intValue("orderMutation.cache.ttl", 0, errors);
+        this.orderMutationMaxEntries = intValue("orderMutation.cache.maxEntries", 1, errors);
+
+        this.orderStatusTtl = intValue("orderStatus.cache.ttl", 0, errors);
+        this.orderStatusMaxEntries = intValue("orderStatus.cache.maxEntries", 1, errors);
+
+        this.bulkParallelism = intValue("bulk.parallelism", 1, errors);
+        this.bulkMerchantRate = intValue("bulk.merchantRate", 0, errors);
+
+        this.defaultLocale = values.get("i18n.defaultLocale");
+        this.locales = listValue("i18n.locales");
+
+        this.logoFilename = values.get("logo.filename");
+        this.logoFormat = values.get("logo.format");
+        this.logoContentType = values.get("logo.contentType");
+        this.logoHeight = intValue("logo.height", 1, errors);
+        this.logoWidth = intValue("logo.width", 1, errors);
+        this.logoVariants = sizesValue("logo.variants", errors);
+        this.logoVariantsMax = intValue("logo.variants.max", 1, errors);
+
+        if (!errors.isEmpty()) {
+            throw new PluginException("Plugin config error: " + String.join(", ", errors));
+        }
+    }
+
+    /**
+     * @param key the property name
+     * @return the raw value of the property, or null if it's not set
+     */
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    /**
+     * @return the time to wait for a connection from the pool, in seconds
+     */
+    public int getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    /**
+     * @return the time to establish the connection with the partner, in seconds
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * @return the time waiting for data, in seconds
+     */
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public int getRetries() {
+        return retries;
+    }
+
+    /**
+     * @return the maximum number of connections to the partner, or 0 to size the pool from the system properties
+     */
+    public int getPoolMaxPerRoute() {
+        return poolMaxPerRoute;
+    }
+
+    /**
+     * @return the maximum number of connections in the pool, or 0 to size the pool from the system properties
+     */
+    public int getPoolMaxTotal() {
+        return poolMaxTotal;
+    }
+
+    /**
+     * @return how long an idle connection is kept when the partner API sends no Keep-Alive timeout, in seconds. 0 means
+     * no limit.
+     */
+    public int getPoolKeepAlive() {
+        return poolKeepAlive;
+    }
+
+    /**
+     * @return the number of consecutive failures ejecting a partner API endpoint, 0 to never eject
+     */
+    public int getEndpointEjectionFailures() {
+        return endpointEjectionFailures;
+    }
+
+    /**
+     * @return how long a partner API endpoint is ejected the first time, in seconds
+     */
+    public int getEndpointEjectionTime() {
+        return endpointEjectionTime;
+    }
+
+    /**
+     * @return the TLS protocols enabled for the partner API, by order of preference, or an empty list for the JVM
+     * defaults
+     */
+    public List<String> getTlsProtocols() {
+        return tlsProtocols;
+    }
+
+    /**
+     * @return the TLS cipher suites enabled for the partner API, by order of preference, or an empty list for the JVM
+     * defaults
+     */
+    public List<String> getTlsCipherSuites() {
+        return tlsCipherSuites;
+    }
+
+    /**
+     * @return the maximum number of TLS sessions kept for resumption, 0 means no limit
+     */
+    public int getTlsSessionCacheSize() {
+        return tlsSessionCacheSize;
+    }
+
+    /**
+     * @return how long a TLS session is kept for resumption, in seconds. 0 means no limit.
+     */
+    public int getTlsSessionCacheTimeout() {
+        return tlsSessionCacheTimeout;
+    }
+
+    public boolean isKeepWarmEnabled() {
+        return keepWarmEnabled;
+    }
+
+    /**
+     * @return the minimum number of idle connections kept per partner API host
+     */
+    public int getKeepWarmMinIdle() {
+        return keepWarmMinIdle;
+    }
+
+    /**
+     * @return the maximum time between two refreshes of the idle connections, in seconds
+     */
+    public int getKeepWarmInterval() {
+        return keepWarmInterval;
+    }
+
+    /**
+     * @return the number of connections opened to each partner API host by the warm-up
+     */
+    public int getWarmUpConnections() {
+        return warmUpConnections;
+    }
+
+    public boolean isJmxEnabled() {
+        return jmxEnabled;
+    }
+
+    public boolean isServiceMetricsEnabled() {
+        return serviceMetricsEnabled;
+    }
+
+    public long getSlowCallThresholdMillis() {
+        return slowCallThresholdMillis;
+    }
+
+    /**
+     * @return "90", "99", "99.9", or an empty string if the percentile threshold is disabled
+     */
+    public String getSlowCallPercentile() {
+        return slowCallPercentile;
+    }
+
+    public long getSlowCallMinSamples() {
+        return slowCallMinSamples;
+    }
+
+    /**
+     * @return the time between two computations of the slow call percentiles, in seconds
+     */
+    public long getSlowCallRefreshInterval() {
+        return slowCallRefreshInterval;
+    }
+
+    public int getSlowCallCapacity() {
+        return slowCallCapacity;
+    }
+
+    public int getSlowCallMaxPerSecond() {
+        return slowCallMaxPerSecond;
+    }
+
+    /**
+     * @param category the label of a log category
+     * @return the share of the messages of the category which are logged, 1 if it's not set
+     */
+    public double getSamplingRate(String category) {
+        Double rate = samplingRates.get(category);
+        return rate == null ? 1 : rate;
+    }
+
+    /**
+     * @return how long a successful private key validation is reused, in seconds
+     */
+    public int getPrivateKeyPositiveTtl() {
+        return privateKeyPositiveTtl;
+    }
+
+    /**
+     * @return how long a failed private key validation is reused, in seconds
+     */
+    public int getPrivateKeyNegativeTtl() {
+        return privateKeyNegativeTtl;
+    }
+
+    public int getPrivateKeyMaxEntries() {
+        return privateKeyMaxEntries;
+    }
+
+    public int getPrivateKeyCheckParallelism() {
+        return privateKeyCheckParallelism;
+    }
+
+    /**
+     * @return how long a completed refund or cancel is remembered, in seconds
+     */
+    public int getOrderMutationTtl() {
+        return orderMutationTtl;
+    }
+
+    public int getOrderMutationMaxEntries() {
+        return orderMutationMaxEntries;
+    }
+
+    /**
+     * @return how long an order read from the partner API may be reused, in seconds, whatever its status
+     */
+    public int getOrderStatusTtl() {
+        return orderStatusTtl;
+    }
+
+    public int getOrderStatusMaxEntries() {
+        return orderStatusMaxEntries;
+    }
+
+    /**
+     * @return the maximum number of orders of a bulk run in progress at the same time
+     */
+    public int getBulkParallelism() {
+        return bulkParallelism;
+    }
+
+    /**
+     * @return the maximum number of refunds or cancels per second sent for the same merchant by the bulk runs, or 0
+     * for no limit
+     */
+    public int getBulkMerchantRate() {
+        return bulkMerchantRate;
+    }
+
+    /**
+     * @return the default language, or null if it's not set
+     */
+    public String getDefaultLocale() {
+        return defaultLocale;
+    }
+
+    /**
+     * @return the language tags of the locales prepared at startup
+     */
+    public List<String> getLocales() {
+        return locales;
+    }
+
+    /**
+     * @return the name of the logo file in the classpath, or null if it's not set
+     */
+    public String getLogoFilename() {
+        return logoFilename;
+    }
+
+    public String getLogoFormat() {
+        return logoFormat;
+    }
+
+    /**
+     * @return the content type the logo is served with, or null if it's not set
+     */
+    public String getLogoContentType() {
+        return logoContentType;
+    }
+
+    /**
+     * @return the height the logo is displayed with, in pixels
+     */
+    public int getLogoHeight() {
+        return logoHeight;
+    }
+
+    /**
+     * @return the width the logo is displayed with, in pixels
+     */
+    public int getLogoWidth() {
+        return logoWidth;
+    }
+
+    /**
+     * @return the additional sizes the logo is rendered in, as {height, width} arrays which must not be modified
+     */
+    public List<int[]> getLogoVariants() {
+        return logoVariants;
+    }
+
+    /**
+     * @return the maximum number of logo variants rendered
+     */
+    public int getLogoVariantsMax() {
+        return logoVariantsMax;
+    }
+
+    private int intValue(String key, int min, List<String> errors) {
+        return intValue(key, min, Integer.MAX_VALUE, errors);
+    }
+
+    private int intValue(String key, int min, int max, List<String> errors) {
+        return (int) numberValue(key, min, max, errors);
+    }
+
+    private long longValue(String key, long min, List<String> errors) {
+        return numberValue(key, min, Long.MAX_VALUE, errors);
+    }
+
+    private long numberValue(String key, long min, long max, List<String> errors) {
+        String value = trimToEmpty(values.get(key));
+        try {
+            long number = Long.parseLong(value);
+            if (number >= min && number <= max) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        errors.add(key + " must be an integer from " + min + " to " + max);
+        return min;
+    }
+
+    /**
+     * @return the value, or 0 if the property is not set
+     */
+    private int optionalIntValue(String key, List<String> errors) {
+        return trimToEmpty(values.get(key)).isEmpty() ? 0 : intValue(key, 1, errors);
+    }
+
+    private boolean booleanValue(String key, List<String> errors) {
+        String value = trimToEmpty(values.get(key));
+        if (value.isEmpty() || "false".equalsIgnoreCase(value)) {
+            return false;
+        }
+        if ("true".equalsIgnoreCase(value)) {
+            return true;
+        }
+        errors.add(key + " must be true or false");
+        return false;
+    }
+
+    private double rateValue(String key, List<String> errors) {
+        try {
+            double rate = Double.parseDouble(trimToEmpty(values.get(key)));
+            if (rate >= 0 && rate <= 1) {
+                return rate;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        errors.add(key + " must be a number from 0 to 1");
+        return 1;
+    }
+
+    /**
+     * @return the trimmed, non-empty items of a comma-separated value
+     */
+    private List<String> listValue(String key) {
+        List<String> items = new ArrayList<>();
+        for (String item : trimToEmpty(values.get(key)).split(",")) {
+            if (!item.trim().isEmpty()) {
+                items.add(item.trim());
+            }
+        }
+        return Collections.unmodifiableList(items);
+    }
+
+    /**
+     * @return the positive sizes of a comma-separated list of heightxwidth values
+     */
+    private List<int[]> sizesValue(String key, List<String> errors) {
+        List<int[]> sizes = new ArrayList<>();
+        for (String item : listValue(key)) {
+            String[] dimensions = item.split("x");
+            try {
+                int[] size = {Integer.parseInt(dimensions[0].trim()), Integer.parseInt(dimensions[1].trim())};
+                if (dimensions.length == 2 && size[0] > 0 && size[1] > 0) {
+                    sizes.add(size);
+                    continue;
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                // reported below
+            }
+            errors.add(key + " must be a list of positive heightxwidth sizes");
+            break;
+        }
+        return Collections.unmodifiableList(sizes);
+    }
+
+    private static String trimToEmpty(String value) {
+        return value == null ? "" : value.trim();
+    }
+}
@@ -0,0 +1,113 @@
+package com.payline.payment.sharegroop.utils.warmup;
+
+import com.payline.payment.sharegroop.bean.JsResponse;
+import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
+import com.payline.payment.sharegroop.bean.notification.SharegroopNotificationResponse;
+import com.payline.payment.sharegroop.bean.payment.Order;
+import com.payline.payment.sharegroop.service.JsonService;
+import com.payline.payment.sharegroop.service.impl.PaymentFormConfigurationServiceImpl;
+import com.payline.payment.sharegroop.utils.http.SharegroopHttpClient;
+import com.payline.payment.sharegroop.utils.i18n.I18nService;
+import com.payline.payment.sharegroop.utils.log.Redactor;
+import com.payline.payment.sharegroop.utils.metrics.ServiceMetrics;
+import com.payline.payment.sharegroop.utils.metrics.SharegroopMetrics;
+import com.payline.payment.sharegroop.utils.metrics.SlowCallDetector;
+import com.payline.payment.sharegroop.utils.properties.ConfigProperties;
+import com.payline.payment.sharegroop.utils.properties.ReleaseProperties;
+import com.payline.pmapi.logger.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Warm-up of the plugin, to run once at startup before the first payments.
+ *
+ * <p>The plugin singletons initialize lazily, on the first request needing them: without a warm-up, the first payments
+ * after a deploy pay for loading the configuration and the message bundles, rendering the logo, building the JSON
+ * adapters, setting the HTTP client up and connecting to the partner API. The warm-up does all of it ahead of time.</p>
+ *
+ * <p>A failing stage doesn't stop the warm-up: it's reported, and its work is left to the first payment.</p>
+ */
+public class PluginWarmUp {
+
+    private static final Logger LOGGER = LogManager.getLogger(PluginWarmUp.class);
+
+    private PluginWarmUp() {
+    }
+
+    /**
+     * Run the warm-up, without opening any connection.
+     *
+     * @return the report of the warm-up
+     */
+    public static WarmUpReport run() {
+        return run(Collections.emptyList());
+    }
+
+    /**
+     * Run the warm-up, and open connections to the given partner API base URLs (usually the SHAREGROOP_URL of each
+     * partner configuration). The number of connections per host is set by the "warmUp.connections" property.
+     *
+     * @param baseUrls the partner API base URLs, or lists of base URLs separated by commas
+     * @return the report of the warm-up
+     */
+    public static WarmUpReport run(Collection<String> baseUrls) {
+        WarmUpReport report = new WarmUpReport();
+
+        stage(report, WarmUpStage.CONFIG, () -> {
+            ConfigProperties.getInstance().getConfig();
+            ReleaseProperties.getInstance();
+        });
+        stage(report, WarmUpStage.I18N, () -> I18nService.getInstance().getMessage("paymentMethod.name", Locale.getDefault()));
+        stage(report, WarmUpStage.JSON, () -> {
+            JsonService.getInstance().prime(SharegroopAPICallResponse.class, SharegroopNotificationResponse.class, JsResponse.class);
+            Order.fromJson("{\"items\":[{}]}").toString();
+            Redactor.redact("");
+        });
+        stage(report, WarmUpStage.LOGO, () -> new PaymentFormConfigurationServiceImpl().getLogo(null, Locale.getDefault()));
+        stage(report, WarmUpStage.HTTP_CLIENT, () -> {
+            SharegroopHttpClient.getInstance();
+            SharegroopMetrics.getInstance();
+            SlowCallDetector.getInstance();
+            ServiceMetrics.getInstance();
+        });
+        if (!baseUrls.isEmpty()) {
+            int connections = ConfigProperties.getInstance().getConfig().getWarmUpConnections();
+            stage(report, WarmUpStage.CONNECTIONS, () -> {
+                Set<String> distinctUrls = new LinkedHashSet<>();
+                for (String baseUrl : baseUrls) {
+                    for (String url : baseUrl.split(",")) {
+                        if (!url.trim().isEmpty()) {
+                            distinctUrls.add(url.trim());
+                        }
+                    }
+                }
+                for (String baseUrl : distinctUrls) {
+                    report.addConnections(SharegroopHttpClient.getInstance().preconnect(baseUrl, connections));
+                }
+            });
+        }
+
+        if (report.isSuccess()) {
+            LOGGER.info("{}", report);
+        } else {
+            LOGGER.warn("{}", report);
+        }
+        return report;
+    }
+
+    private static void stage(WarmUpReport report, WarmUpStage stage, Runnable work) {
+        long start = System.nanoTime();
+        try {
+            work.run();
+            report.stageDone(stage, System.nanoTime() - start);
+        } catch (RuntimeException | LinkageError e) {
+            report.stageFailed(stage, System.nanoTime() - start, e);
+            LOGGER.warn("Warm-up stage {} failed", stage.getLabel(), e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.payline.payment.sharegroop.utils.warmup;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * What the {@link PluginWarmUp} did: how long each stage took, which ones failed, and how many connections it opened.
+ */
+public class WarmUpReport {
+
+    private final Map<WarmUpStage, Long> durations = new EnumMap<>(WarmUpStage.class);
+    private final Map<WarmUpStage, String> failures = new EnumMap<>(WarmUpStage.class);
+    private int connections;
+
+    WarmUpReport() {
+    }
+
+    void stageDone(WarmUpStage stage, long nanos) {
+        durations.put(stage, nanos);
+    }
+
+    void stageFailed(WarmUpStage stage, long nanos, Throwable t) {
+        durations.put(stage, nanos);
+        failures.put(stage, t.getClass().getSimpleName() + ": " + t.getMessage());
+    }
+
+    void addConnections(int count) {
+        connections += count;
+    }
+
+    /**
+     * @return the duration of the stage in milliseconds, or 0 if it hasn't run
+     */
+    public double getDurationMillis(WarmUpStage stage) {
+        Long nanos = durations.get(stage);
+        return nanos == null ? 0 : nanos / 1e6;
+    }
+
+    public double getTotalMillis() {
+        long total = 0;
+        for (long nanos : durations.values()) {
+            total += nanos;
+        }
+        return total / 1e6;
+    }
+
+    /**
+     * @return the error which interrupted the stage, or null if it succeeded or hasn't run
+     */
+    public String getFailure(WarmUpStage stage) {
+        return failures.get(stage);
+    }
+
+    public boolean isSuccess() {
+        return failures.isEmpty();
+    }
+
+    /**
+     * @return the number of connections opened to the partner API
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Warm-up done in ")
+                .append(String.format(Locale.ROOT, "%.1f", getTotalMillis())).append(" ms (");
+        String separator = "";
+        for (Map.Entry<WarmUpStage, Long> entry : durations.entrySet()) {
+            sb.append(separator).append(entry.getKey().getLabel()).append('=')
+                    .append(String.format(Locale.ROOT, "%.1f", entry.getValue() / 1e6)).append(" ms");
+            String failure = failures.get(entry.getKey());
+            if (failure != null) {
+                sb.append(" [failed: ").append(failure).append(']');
+            }
+            separator = ", ";
+        }
+        return sb.append("), ").append(connections).append(" connection(s) opened").toString();
+    }
+}
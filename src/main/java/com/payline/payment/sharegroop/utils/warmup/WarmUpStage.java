@@ -0,0 +1,41 @@
+package com.payline.payment.sharegroop.utils.warmup;
+
+/**
+ * The stages of the {@link PluginWarmUp}, in the order they run.
+ */
+public enum WarmUpStage {
+    /**
+     * Configuration and release properties.
+     */
+    CONFIG("config"),
+    /**
+     * Message bundles of the configured locales.
+     */
+    I18N("i18n"),
+    /**
+     * JSON type adapters of the partner API and widget messages, and the log redaction patterns.
+     */
+    JSON("json"),
+    /**
+     * Logo file and rendered variants.
+     */
+    LOGO("logo"),
+    /**
+     * HTTP client, connection pool and metrics.
+     */
+    HTTP_CLIENT("httpClient"),
+    /**
+     * Connections opened to the partner API hosts.
+     */
+    CONNECTIONS("connections");
+
+    private final String label;
+
+    WarmUpStage(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
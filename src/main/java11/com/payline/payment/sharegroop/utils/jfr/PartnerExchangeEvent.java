@@ -0,0 +1,55 @@
+package com.payline.payment.sharegroop.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of one attempt to call the partner API (Java 11+ version of the multi-release jar).
+ */
+@Name("com.payline.payment.sharegroop.PartnerExchange")
+@Label("Partner Exchange")
+@Description("One attempt to call the Sharegroop API")
+@Category({"Payline", "Sharegroop"})
+@StackTrace(false)
+public class PartnerExchangeEvent extends Event {
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Merchant Hash")
+    private String merchantHash;
+
+    @Label("Attempt")
+    private int attempt;
+
+    @Label("Status")
+    @Description("HTTP status code, 0 if no response has been obtained")
+    private int status;
+
+    @Label("Outcome")
+    private String outcome;
+
+    @Label("Request Size")
+    @DataAmount
+    private long requestBytes;
+
+    @Label("Response Size")
+    @DataAmount
+    private long responseBytes;
+
+    public void commit(String operation, String merchantHash, int attempt, int status, String outcome, long requestBytes, long responseBytes) {
+        this.operation = operation;
+        this.merchantHash = merchantHash;
+        this.attempt = attempt;
+        this.status = status;
+        this.outcome = outcome;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+        commit();
+    }
+}
@@ -0,0 +1,33 @@
+package com.payline.payment.sharegroop.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of the verification of a webhook signature (Java 11+ version of the multi-release jar).
+ */
+@Name("com.payline.payment.sharegroop.WebhookVerification")
+@Label("Webhook Verification")
+@Description("Verification of the signature of a Sharegroop notification")
+@Category({"Payline", "Sharegroop"})
+@StackTrace(false)
+public class WebhookVerificationEvent extends Event {
+
+    @Label("Content Size")
+    @DataAmount
+    private long contentBytes;
+
+    @Label("Valid")
+    private boolean valid;
+
+    public void commit(long contentBytes, boolean valid) {
+        this.contentBytes = contentBytes;
+        this.valid = valid;
+        commit();
+    }
+}
@@ -0,0 +1,37 @@
+package com.payline.payment.sharegroop.utils.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of the rendering of the widget script (Java 11+ version of the multi-release jar).
+ */
+@Name("com.payline.payment.sharegroop.WidgetScript")
+@Label("Widget Script")
+@Description("Rendering of the Sharegroop widget script")
+@Category({"Payline", "Sharegroop"})
+@StackTrace(false)
+public class WidgetScriptEvent extends Event {
+
+    @Label("Merchant Hash")
+    private String merchantHash;
+
+    @Label("Items")
+    private int items;
+
+    @Label("Script Size")
+    @DataAmount
+    private long scriptBytes;
+
+    public void commit(String merchantHash, int items, long scriptBytes) {
+        this.merchantHash = merchantHash;
+        this.items = items;
+        this.scriptBytes = scriptBytes;
+        commit();
+    }
+}
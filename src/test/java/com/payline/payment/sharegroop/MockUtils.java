@@ -1,6 +1,8 @@
 package com.payline.payment.sharegroop;
 
+import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
 import com.payline.payment.sharegroop.bean.payment.Order;
+import com.payline.payment.sharegroop.service.JsonService;
 import com.payline.payment.sharegroop.utils.Constants;
 import com.payline.pmapi.bean.common.Buyer;
 import com.payline.pmapi.bean.configuration.PartnerConfiguration;
@@ -351,4 +353,13 @@ public class MockUtils {
                 "}";
     }
 
+    /**
+     * Generate a shareGroop response, parsed from {@link #aShareGroopResponse(String)}
+     * @param status
+     * @return
+     */
+    public static SharegroopAPICallResponse aSharegroopAPICallResponse(String status) {
+        return JsonService.getInstance().fromJson(aShareGroopResponse(status), SharegroopAPICallResponse.class);
+    }
+
 }
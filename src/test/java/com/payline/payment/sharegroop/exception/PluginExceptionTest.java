@@ -109,5 +109,33 @@ class PluginExceptionTest {
         assertEquals("plugin error: NullPointerException", errorCode);
     }
     /**------------------------------------------------------------------------------------------------------------------*/
+    @Test
+    void runtimeErrorCode_message(){
+        // the message is appended to the class name, even if it contains dots
+        assertEquals("plugin error: IllegalStateException: v1.2 failed", PluginException.runtimeErrorCode( new IllegalStateException("v1.2 failed") ));
+        // and the error code is truncated
+        assertEquals( PluginException.ERROR_CODE_MAX_LENGTH, PluginException.runtimeErrorCode( new IllegalStateException(LONG_MESSAGE) ).length() );
+    }
+    /**------------------------------------------------------------------------------------------------------------------*/
+    @Test
+    void expected(){
+        // when creating exceptions for expected failures
+        PluginException pluginException = PluginException.expected( LONG_MESSAGE, FailureCause.COMMUNICATION_ERROR );
+        InvalidDataException invalidDataException = InvalidDataException.expected( "Missing an order Id", CAUSE );
+
+        // then they have no stack trace, but an error code and a failure cause
+        assertEquals( 0, pluginException.getStackTrace().length );
+        assertEquals( PluginException.ERROR_CODE_MAX_LENGTH, pluginException.getErrorCode().length() );
+        assertEquals( FailureCause.COMMUNICATION_ERROR, pluginException.getFailureCause() );
+        assertEquals( 0, invalidDataException.getStackTrace().length );
+        assertEquals( FailureCause.INVALID_DATA, invalidDataException.getFailureCause() );
+        assertSame( CAUSE, invalidDataException.getCause() );
+
+        // and they can't be altered when thrown again
+        pluginException.addSuppressed( new Exception("suppressed") );
+        assertEquals( 0, pluginException.getSuppressed().length );
+        assertThrows( IllegalStateException.class, () -> PluginException.expected( null, FailureCause.INVALID_DATA ) );
+    }
+    /**------------------------------------------------------------------------------------------------------------------*/
 
 }
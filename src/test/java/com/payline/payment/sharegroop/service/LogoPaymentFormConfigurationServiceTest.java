@@ -1,9 +1,11 @@
 package com.payline.payment.sharegroop.service;
 
 import com.payline.payment.sharegroop.MockUtils;
+import com.payline.payment.sharegroop.bean.logo.LogoVariants;
 import com.payline.payment.sharegroop.exception.PluginException;
 import com.payline.payment.sharegroop.utils.i18n.I18nService;
 import com.payline.payment.sharegroop.utils.properties.ConfigProperties;
+import com.payline.payment.sharegroop.utils.properties.PluginConfig;
 import com.payline.pmapi.bean.paymentform.bean.PaymentFormLogo;
 import com.payline.pmapi.bean.paymentform.request.PaymentFormConfigurationRequest;
 import com.payline.pmapi.bean.paymentform.request.PaymentFormLogoRequest;
@@ -16,10 +18,17 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Locale;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 
 class LogoPaymentFormConfigurationServiceTest {
 
@@ -37,19 +46,21 @@ class LogoPaymentFormConfigurationServiceTest {
 
     @Mock private I18nService i18n;
     @Mock private ConfigProperties config;
+    @Mock private PluginConfig pluginConfig;
 
     @BeforeEach
     void setup(){
         testService = new TestService();
         MockitoAnnotations.initMocks( this );
+        doReturn( pluginConfig ).when( config ).getConfig();
     }
 
     @Test
     void getPaymentFormLogo_nominal(){
         // given: the configuration is correct
         PaymentFormLogoRequest paymentFormLogoRequest = MockUtils.aPaymentFormLogoRequest();
-        doReturn("64").when( config ).get("logo.height");
-        doReturn("64").when( config ).get("logo.width");
+        doReturn(64).when( pluginConfig ).getLogoHeight();
+        doReturn(64).when( pluginConfig ).getLogoWidth();
         doReturn( "Natixis" ).when( i18n ).getMessage("paymentMethod.name", paymentFormLogoRequest.getLocale() );
 
         // when: calling method getPaymentFormLogo()
@@ -64,56 +75,160 @@ class LogoPaymentFormConfigurationServiceTest {
     }
 
     @Test
-    void getPaymentFormLogo_wrongHeight(){
-        // given: the logo.height config value is incorrect (not an integer)
-        PaymentFormLogoRequest paymentFormLogoRequest = MockUtils.aPaymentFormLogoRequest();
-        doReturn("abc").when( config ).get("logo.height");
-        doReturn("64").when( config ).get("logo.width");
-        doReturn( "Natixis" ).when( i18n ).getMessage("paymentMethod.name", paymentFormLogoRequest.getLocale() );
+    void getLogo_nominal(){
+        // given: a valid configuration
+        doReturn("test_logo.png").when( pluginConfig ).getLogoFilename();
+        doReturn("png").when( pluginConfig ).getLogoFormat();
+        doReturn("image/png").when( pluginConfig ).getLogoContentType();
 
-        // when: calling method getPaymentFormLogo()
-        assertThrows( PluginException.class, () -> testService.getPaymentFormLogo( paymentFormLogoRequest ) );
+        // when: calling method getLogo()
+        PaymentFormLogo paymentFormLogo = testService.getLogo( "whatever", Locale.getDefault() );
+
+        // then:
+        assertNotNull( paymentFormLogo.getContentType() );
+        assertNotNull( paymentFormLogo.getFile() );
     }
 
     @Test
-    void getPaymentFormLogo_wrongWidth(){
-        // given: the logo.height config value is incorrect (not an integer)
-        PaymentFormLogoRequest paymentFormLogoRequest = MockUtils.aPaymentFormLogoRequest();
-        doReturn("64").when( config ).get("logo.height");
-        doReturn("abc").when( config ).get("logo.width");
-        doReturn( "Natixis" ).when( i18n ).getMessage("paymentMethod.name", paymentFormLogoRequest.getLocale() );
+    void getLogo_copies(){
+        // given: a valid configuration
+        doReturn("test_logo.png").when( pluginConfig ).getLogoFilename();
+        doReturn("image/png").when( pluginConfig ).getLogoContentType();
 
-        // when: calling method getPaymentFormLogo()
-        assertThrows( PluginException.class, () -> testService.getPaymentFormLogo( paymentFormLogoRequest ) );
+        // when: calling method getLogo() twice, and modifying the first result
+        byte[] first = testService.getLogo( "whatever", Locale.getDefault() ).getFile();
+        byte[] expected = first.clone();
+        first[0]++;
+        byte[] second = testService.getLogo( "whatever", Locale.getDefault() ).getFile();
+
+        // then: the second result is not affected
+        assertNotSame( first, second );
+        assertArrayEquals( expected, second );
     }
 
     @Test
-    void getLogo_nominal(){
+    void getLogoETag(){
         // given: a valid configuration
-        doReturn("test_logo.png").when( config ).get("logo.filename");
-        doReturn("png").when( config ).get("logo.format");
-        doReturn("image/png").when( config ).get("logo.contentType");
+        doReturn("test_logo.png").when( pluginConfig ).getLogoFilename();
+        doReturn("image/png").when( pluginConfig ).getLogoContentType();
 
-        // when: calling method getLogo()
-        PaymentFormLogo paymentFormLogo = testService.getLogo( "whatever", Locale.getDefault() );
+        // when: calling method getLogoETag() twice
+        String eTag = testService.getLogoETag( "whatever", Locale.getDefault() );
 
-        // then:
-        assertNotNull( paymentFormLogo.getContentType() );
-        assertNotNull( paymentFormLogo.getFile() );
+        // then: the entity tag is a quoted hash, always the same
+        assertTrue( eTag.matches("\"[0-9a-f]{64}\"") );
+        assertEquals( eTag, testService.getLogoETag( "whatever", Locale.getDefault() ) );
+    }
+
+    @Test
+    void getLogo_size(){
+        // given: a valid configuration, with an additional variant
+        doReturn("test_logo.png").when( pluginConfig ).getLogoFilename();
+        doReturn("png").when( pluginConfig ).getLogoFormat();
+        doReturn("image/png").when( pluginConfig ).getLogoContentType();
+        doReturn(10).when( pluginConfig ).getLogoHeight();
+        doReturn(20).when( pluginConfig ).getLogoWidth();
+        doReturn(Collections.singletonList(new int[]{100, 200})).when( pluginConfig ).getLogoVariants();
+        doReturn(8).when( pluginConfig ).getLogoVariantsMax();
+
+        // when: requesting the logo in several sizes
+        PaymentFormLogo small = testService.getLogo( "whatever", Locale.getDefault(), 8, 16 );
+        PaymentFormLogo medium = testService.getLogo( "whatever", Locale.getDefault(), 15, 40 );
+        PaymentFormLogo huge = testService.getLogo( "whatever", Locale.getDefault(), 500, 500 );
+
+        // then: the smallest variant covering the requested size is returned, or the largest one
+        assertEquals( "image/png", small.getContentType() );
+        assertArrayEquals( new int[]{10, 20}, dimensions( small ) );
+        assertArrayEquals( new int[]{20, 40}, dimensions( medium ) );
+        assertArrayEquals( new int[]{100, 200}, dimensions( huge ) );
+        assertEquals( 4, testService.getLogoVariants().getVariants().size() );
+    }
+
+    @Test
+    void getLogoVariants_reloaded(){
+        // given: a valid configuration, whose variants have been rendered
+        doReturn("test_logo.png").when( pluginConfig ).getLogoFilename();
+        doReturn("png").when( pluginConfig ).getLogoFormat();
+        doReturn("image/png").when( pluginConfig ).getLogoContentType();
+        doReturn(10).when( pluginConfig ).getLogoHeight();
+        doReturn(20).when( pluginConfig ).getLogoWidth();
+        doReturn(8).when( pluginConfig ).getLogoVariantsMax();
+        assertEquals( 3, testService.getLogoVariants().getVariants().size() );
+
+        // when: the configuration is reloaded with other sizes
+        PluginConfig reloaded = mock( PluginConfig.class );
+        doReturn("test_logo.png").when( reloaded ).getLogoFilename();
+        doReturn("png").when( reloaded ).getLogoFormat();
+        doReturn("image/png").when( reloaded ).getLogoContentType();
+        doReturn(12).when( reloaded ).getLogoHeight();
+        doReturn(20).when( reloaded ).getLogoWidth();
+        doReturn(Arrays.asList(new int[]{100, 200}, new int[]{50, 100})).when( reloaded ).getLogoVariants();
+        doReturn(8).when( reloaded ).getLogoVariantsMax();
+        doReturn( reloaded ).when( config ).getConfig();
+
+        // then: the variants are rendered again
+        assertEquals( 5, testService.getLogoVariants().getVariants().size() );
+        assertArrayEquals( new int[]{12, 20}, dimensions( testService.getLogo( "whatever", Locale.getDefault(), 1, 1 ) ) );
+    }
+
+    @Test
+    void getLogoVariants_reloadedUnchanged(){
+        // given: a valid configuration, whose variants have been rendered
+        doReturn("test_logo.png").when( pluginConfig ).getLogoFilename();
+        doReturn("png").when( pluginConfig ).getLogoFormat();
+        doReturn(10).when( pluginConfig ).getLogoHeight();
+        doReturn(20).when( pluginConfig ).getLogoWidth();
+        doReturn(8).when( pluginConfig ).getLogoVariantsMax();
+        LogoVariants variants = testService.getLogoVariants();
+
+        // when: the configuration is reloaded with the same logo settings
+        PluginConfig reloaded = mock( PluginConfig.class );
+        doReturn("test_logo.png").when( reloaded ).getLogoFilename();
+        doReturn("png").when( reloaded ).getLogoFormat();
+        doReturn(10).when( reloaded ).getLogoHeight();
+        doReturn(20).when( reloaded ).getLogoWidth();
+        doReturn(8).when( reloaded ).getLogoVariantsMax();
+        doReturn( reloaded ).when( config ).getConfig();
+
+        // then: the variants aren't rendered again
+        assertSame( variants, testService.getLogoVariants() );
+    }
+
+    @Test
+    void getLogoVariants_noFilename(){
+        // given: no logo file configured
+        doReturn("png").when( pluginConfig ).getLogoFormat();
+        doReturn("image/png").when( pluginConfig ).getLogoContentType();
+        doReturn(10).when( pluginConfig ).getLogoHeight();
+        doReturn(20).when( pluginConfig ).getLogoWidth();
+        doReturn(8).when( pluginConfig ).getLogoVariantsMax();
+
+        // when: rendering the variants, then a plugin exception is thrown
+        assertThrows( PluginException.class, () -> testService.getLogoVariants() );
     }
 
     @Test
     void getLogo_wrongFilename(){
         // given: a valid configuration
-        doReturn("does_not_exist.png").when( config ).get("logo.filename");
-        doReturn("png").when( config ).get("logo.format");
-        doReturn("image/png").when( config ).get("logo.contentType");
+        doReturn("does_not_exist.png").when( pluginConfig ).getLogoFilename();
+        doReturn("png").when( pluginConfig ).getLogoFormat();
+        doReturn("image/png").when( pluginConfig ).getLogoContentType();
         Locale locale = Locale.getDefault();
 
         // when: calling method getLogo(), then: an exception is thrown
         assertThrows( PluginException.class, () -> testService.getLogo( "whatever", locale ) );
     }
 
+    private static int[] dimensions( PaymentFormLogo logo ){
+        try {
+            BufferedImage image = ImageIO.read( new ByteArrayInputStream( logo.getFile() ) );
+            return new int[]{ image.getHeight(), image.getWidth() };
+        }
+        catch( IOException e ){
+            throw new AssertionError( e );
+        }
+    }
+
     @Test
     void getLogoByFilename_OK() {
 
@@ -124,6 +239,17 @@ class LogoPaymentFormConfigurationServiceTest {
         assertNotNull(paymentFormLogo.getFile());
     }
 
+    @Test
+    void getLogoByFilename_noContentType() {
+        // given: a logo served without content type
+        testService.getLogoByFilename("test_logo.png","png",null);
+
+        // when: serving it again, then it's served from the file read the first time
+        PaymentFormLogo paymentFormLogo = testService.getLogoByFilename("test_logo.png","png",null);
+        assertNull(paymentFormLogo.getContentType());
+        assertNotNull(paymentFormLogo.getFile());
+    }
+
     @Test
     void getLogoByFilename_wrongFilename() {
 
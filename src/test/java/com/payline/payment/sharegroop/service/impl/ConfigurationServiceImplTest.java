@@ -65,6 +65,41 @@ class ConfigurationServiceImplTest {
     }
     /**------------------------------------------------------------------------------------------------------------------*/
     @Test
+    void check_cachedValidation(){
+        // given: a valid configuration, checked twice
+        ContractParametersCheckRequest checkRequest = MockUtils.aContractParametersCheckRequest();
+        doReturn( true ).when( sharegroopHttpClient ).verifyPrivateKey( any(RequestConfiguration.class) );
+
+        // when: checking the configuration twice
+        assertTrue( service.check( checkRequest ).isEmpty() );
+        assertTrue( service.check( checkRequest ).isEmpty() );
+
+        // then: the partner API is only called once
+        verify( sharegroopHttpClient, times(1) ).verifyPrivateKey( any( RequestConfiguration.class ) );
+    }
+    /**------------------------------------------------------------------------------------------------------------------*/
+    @Test
+    void checkAll(){
+        // given: several requests, one of them with an empty accountInfo
+        List<ContractParametersCheckRequest> requests = Arrays.asList(
+                MockUtils.aContractParametersCheckRequest(),
+                MockUtils.aContractParametersCheckRequestBuilder().withAccountInfo(new HashMap<>()).build(),
+                MockUtils.aContractParametersCheckRequest()
+        );
+        doReturn( true ).when( sharegroopHttpClient ).verifyPrivateKey( any(RequestConfiguration.class) );
+
+        // when: checking all the requests
+        List<Map<String, String>> results = service.checkAll( requests );
+
+        // then: the results are in the order of the requests, and the private key is only validated once
+        assertEquals( 3, results.size() );
+        assertTrue( results.get(0).isEmpty() );
+        assertFalse( results.get(1).isEmpty() );
+        assertTrue( results.get(2).isEmpty() );
+        verify( sharegroopHttpClient, times(1) ).verifyPrivateKey( any( RequestConfiguration.class ) );
+    }
+    /**------------------------------------------------------------------------------------------------------------------*/
+    @Test
     void check_emptyAccountInfo(){
         // given: an empty accountInfo
         ContractParametersCheckRequest checkRequest = MockUtils.aContractParametersCheckRequestBuilder()
@@ -140,5 +175,22 @@ class ConfigurationServiceImplTest {
         }
     }
     /**------------------------------------------------------------------------------------------------------------------*/
+    @Test
+    void getParameters_defensiveCopies() {
+        // given: the parameters were retrieved once and modified by the caller
+        List<AbstractParameter> first = service.getParameters( Locale.FRANCE );
+        String label = first.get(0).getLabel();
+        first.get(0).setLabel("modified");
+        ((ListBoxParameter) first.get(2)).getList().clear();
+
+        // when: retrieving the parameters again
+        List<AbstractParameter> second = service.getParameters( Locale.FRANCE );
+
+        // then: the new instances are not affected by the modifications
+        assertNotSame( first.get(0), second.get(0) );
+        assertEquals( label, second.get(0).getLabel() );
+        assertFalse( ((ListBoxParameter) second.get(2)).getList().isEmpty() );
+    }
+    /**------------------------------------------------------------------------------------------------------------------*/
 
 }
@@ -1,5 +1,6 @@
 package com.payline.payment.sharegroop.service.impl;
 
+import com.google.gson.JsonObject;
 import com.payline.payment.sharegroop.MockUtils;
 import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
 import com.payline.payment.sharegroop.service.JsonService;
@@ -12,6 +13,7 @@ import com.payline.pmapi.bean.payment.response.impl.PaymentResponseFailure;
 import com.payline.pmapi.bean.payment.response.impl.PaymentResponseFormUpdated;
 import com.payline.pmapi.bean.payment.response.impl.PaymentResponseOnHold;
 import com.payline.pmapi.bean.payment.response.impl.PaymentResponseSuccess;
+import com.payline.pmapi.bean.paymentform.bean.form.PartnerWidgetForm;
 import com.payline.pmapi.bean.paymentform.response.configuration.impl.PaymentFormConfigurationResponseSpecific;
 import com.payline.pmapi.service.PaymentService;
 import org.junit.jupiter.api.Assertions;
@@ -52,6 +54,23 @@ class PaymentServiceImplTest {
         PaymentFormConfigurationResponseSpecific responseSpecific = (PaymentFormConfigurationResponseSpecific) responseFormUpdated.getPaymentFormConfigurationResponse();
         Assertions.assertEquals("Après avoir payé votre part, vous recevrez par e-mail le lien à envoyer à vos co-payeurs", responseSpecific.getPaymentForm().getDescription());
         Assertions.assertEquals(null, responseSpecific.getPaymentForm().getButtonText());
+
+        // the script is the constant bootstrap, called with the configuration of the payment
+        String script = ((PartnerWidgetForm) responseSpecific.getPaymentForm()).getLoadingScriptAfterImport();
+        Assertions.assertTrue(script.startsWith("(function(c){"));
+        Assertions.assertTrue(script.endsWith(");"));
+        Assertions.assertTrue(script.contains("ShareGroop.initCaptain(c).mount();"));
+
+        String configuration = script.substring(script.indexOf("})(") + 3, script.length() - 2);
+        JsonObject json = jsonService.fromJson(configuration, JsonObject.class);
+        Assertions.assertEquals("#sharegroopPaymentForm", json.get("selector").getAsString());
+        Assertions.assertEquals("PublicKey", json.get("publicKey").getAsString());
+        Assertions.assertEquals("fr", json.get("locale").getAsString());
+        Assertions.assertEquals("EUR", json.get("currency").getAsString());
+        Assertions.assertEquals("foo@bar.baz", json.getAsJsonObject("order").get("email").getAsString());
+        Assertions.assertEquals(1000, json.getAsJsonObject("order").get("amount").getAsInt());
+        Assertions.assertEquals(1, json.getAsJsonObject("order").getAsJsonArray("items").size());
+        Assertions.assertEquals("foo", json.getAsJsonObject("order").getAsJsonArray("items").get(0).getAsJsonObject().get("trackId").getAsString());
     }
 
     @Test
@@ -5,6 +5,7 @@ import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
 import com.payline.payment.sharegroop.exception.PluginException;
 import com.payline.payment.sharegroop.service.JsonService;
 import com.payline.payment.sharegroop.utils.http.SharegroopHttpClient;
+import com.payline.payment.sharegroop.utils.metrics.SharegroopMetrics;
 import com.payline.pmapi.bean.reset.request.ResetRequest;
 import com.payline.pmapi.bean.reset.response.ResetResponse;
 import com.payline.pmapi.bean.reset.response.impl.ResetResponseFailure;
@@ -20,6 +21,8 @@ import org.mockito.MockitoAnnotations;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 class ResetServiceImplTest {
 
@@ -42,6 +45,9 @@ class ResetServiceImplTest {
     @Mock
     private SharegroopHttpClient httpClient;
 
+    @Mock
+    private SharegroopMetrics metrics;
+
     private final JsonService jsonService = JsonService.getInstance();
 
     @BeforeEach
@@ -61,6 +67,53 @@ class ResetServiceImplTest {
         Assertions.assertEquals(ResetResponseSuccess.class, response.getClass());
     }
 
+    @Test
+    void reset_refundedNotVerified() {
+        // given: the cancel response shows the order refunded
+        SharegroopAPICallResponse sharegroopResponse = jsonService.fromJson(MockUtils.aShareGroopResponse("refunded"), SharegroopAPICallResponse.class);
+        Mockito.doReturn(sharegroopResponse).when(httpClient).cancelOrder(any(), anyString());
+
+        // when: resetting the transaction
+        ResetResponse response = service.resetRequest(MockUtils.aPaylineResetRequest());
+
+        // then: the reset succeeds, without verifying the order
+        Assertions.assertEquals(ResetResponseSuccess.class, response.getClass());
+        verify(httpClient, never()).verifyOrder(any(), anyString());
+        verify(metrics).recordResetVerification(true);
+    }
+
+    @Test
+    void reset_cancelledNotVerified() {
+        // given: the cancel response shows the order cancelled, as it hadn't been paid
+        SharegroopAPICallResponse sharegroopResponse = jsonService.fromJson(MockUtils.aShareGroopResponse("cancelled"), SharegroopAPICallResponse.class);
+        Mockito.doReturn(sharegroopResponse).when(httpClient).cancelOrder(any(), anyString());
+
+        // when: resetting the transaction
+        ResetResponse response = service.resetRequest(MockUtils.aPaylineResetRequest());
+
+        // then: the reset fails, without verifying the order
+        Assertions.assertEquals(ResetResponseFailure.class, response.getClass());
+        verify(httpClient, never()).verifyOrder(any(), anyString());
+        verify(metrics).recordResetVerification(true);
+    }
+
+    @Test
+    void reset_ambiguousStatusVerified() {
+        // given: the cancel response shows the order still confirmed, the verification shows it refunded
+        SharegroopAPICallResponse cancelResponse = jsonService.fromJson(MockUtils.aShareGroopResponse("confirmed"), SharegroopAPICallResponse.class);
+        SharegroopAPICallResponse verifyResponse = jsonService.fromJson(MockUtils.aShareGroopResponse("refunded"), SharegroopAPICallResponse.class);
+        Mockito.doReturn(cancelResponse).when(httpClient).cancelOrder(any(), anyString());
+        Mockito.doReturn(verifyResponse).when(httpClient).verifyOrder(any(), anyString());
+
+        // when: resetting the transaction
+        ResetResponse response = service.resetRequest(MockUtils.aPaylineResetRequest());
+
+        // then: the order is verified, and the reset succeeds
+        Assertions.assertEquals(ResetResponseSuccess.class, response.getClass());
+        verify(httpClient).verifyOrder(any(), anyString());
+        verify(metrics).recordResetVerification(false);
+    }
+
     @Test
     void reset_RequestTestKO() {
         SharegroopAPICallResponse sharegroopResponse = jsonService.fromJson(RESET_RESPONSE_KO, SharegroopAPICallResponse.class);
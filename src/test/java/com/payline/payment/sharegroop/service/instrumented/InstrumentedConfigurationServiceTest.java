@@ -0,0 +1,72 @@
+package com.payline.payment.sharegroop.service.instrumented;
+
+import com.payline.payment.sharegroop.utils.metrics.ServiceCall;
+import com.payline.payment.sharegroop.utils.metrics.ServiceMetrics;
+import com.payline.payment.sharegroop.utils.metrics.ServiceResult;
+import com.payline.pmapi.bean.configuration.request.ContractParametersCheckRequest;
+import com.payline.pmapi.service.ConfigurationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class InstrumentedConfigurationServiceTest {
+
+    @Mock
+    private ConfigurationService delegate;
+    @Mock
+    private ServiceMetrics metrics;
+
+    private InstrumentedConfigurationService service;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.initMocks(this);
+        service = new InstrumentedConfigurationService(delegate, metrics);
+        doReturn(true).when(metrics).isEnabled();
+    }
+
+    @Test
+    void check_errors() {
+        // given: a check which finds errors
+        Map<String, String> errors = Collections.singletonMap("privateKey", "invalid");
+        doReturn(errors).when(delegate).check(any(ContractParametersCheckRequest.class));
+
+        // when: checking the contract parameters
+        Map<String, String> result = service.check(mock(ContractParametersCheckRequest.class));
+
+        // then: the check is recorded as a failure
+        assertSame(errors, result);
+        verify(metrics).record(eq(ServiceCall.CONFIGURATION_CHECK), eq(ServiceResult.FAILURE), isNull(), anyLong());
+    }
+
+    @Test
+    void check_noErrors() {
+        // given: a check which finds no error
+        doReturn(Collections.emptyMap()).when(delegate).check(any(ContractParametersCheckRequest.class));
+
+        // when: checking the contract parameters
+        service.check(mock(ContractParametersCheckRequest.class));
+
+        // then: the check is recorded as a success
+        verify(metrics).record(eq(ServiceCall.CONFIGURATION_CHECK), eq(ServiceResult.SUCCESS), isNull(), anyLong());
+    }
+
+    @Test
+    void getName() {
+        // given: the name given by the actual service
+        doReturn("Sharegroop").when(delegate).getName(any());
+
+        // when: getting the name, then: it's not recorded
+        assertEquals("Sharegroop", service.getName(null));
+        verify(metrics, never()).record(any(), any(), any(), anyLong());
+    }
+}
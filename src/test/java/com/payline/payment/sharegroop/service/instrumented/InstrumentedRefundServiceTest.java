@@ -0,0 +1,82 @@
+package com.payline.payment.sharegroop.service.instrumented;
+
+import com.payline.payment.sharegroop.MockUtils;
+import com.payline.payment.sharegroop.utils.metrics.ServiceCall;
+import com.payline.payment.sharegroop.utils.metrics.ServiceMetrics;
+import com.payline.payment.sharegroop.utils.metrics.ServiceResult;
+import com.payline.pmapi.bean.common.FailureCause;
+import com.payline.pmapi.bean.refund.request.RefundRequest;
+import com.payline.pmapi.bean.refund.response.RefundResponse;
+import com.payline.pmapi.bean.refund.response.impl.RefundResponseFailure;
+import com.payline.pmapi.service.RefundService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class InstrumentedRefundServiceTest {
+
+    @Mock
+    private RefundService delegate;
+    @Mock
+    private ServiceMetrics metrics;
+
+    private InstrumentedRefundService service;
+
+    private final RefundResponse failure = RefundResponseFailure.RefundResponseFailureBuilder.aRefundResponseFailure()
+            .withErrorCode("400")
+            .withFailureCause(FailureCause.INVALID_DATA)
+            .build();
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.initMocks(this);
+        service = new InstrumentedRefundService(delegate, metrics);
+    }
+
+    @Test
+    void refundRequest_disabled() {
+        // given: the instrumentation is disabled
+        RefundRequest request = MockUtils.aPaylineRefundRequest();
+        doReturn(false).when(metrics).isEnabled();
+        doReturn(failure).when(delegate).refundRequest(request);
+
+        // when: calling the service
+        RefundResponse response = service.refundRequest(request);
+
+        // then: the response of the actual service is returned, nothing is recorded
+        assertSame(failure, response);
+        verify(metrics, never()).record(any(), any(), any(), anyLong());
+    }
+
+    @Test
+    void refundRequest_enabled() {
+        // given: the instrumentation is enabled
+        RefundRequest request = MockUtils.aPaylineRefundRequest();
+        doReturn(true).when(metrics).isEnabled();
+        doReturn(failure).when(delegate).refundRequest(request);
+
+        // when: calling the service
+        RefundResponse response = service.refundRequest(request);
+
+        // then: the call is recorded with its result type and failure cause
+        assertSame(failure, response);
+        verify(metrics).record(eq(ServiceCall.REFUND_REQUEST), eq(ServiceResult.FAILURE), eq(FailureCause.INVALID_DATA), anyLong());
+    }
+
+    @Test
+    void canMultiple() {
+        // given: the capabilities of the actual service
+        doReturn(true).when(delegate).canMultiple();
+        doReturn(false).when(delegate).canPartial();
+
+        // when: asking for them, then: they are not altered
+        assertTrue(service.canMultiple());
+        assertFalse(service.canPartial());
+    }
+}
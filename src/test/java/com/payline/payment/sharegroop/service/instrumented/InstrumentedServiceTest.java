@@ -0,0 +1,108 @@
+package com.payline.payment.sharegroop.service.instrumented;
+
+import com.payline.payment.sharegroop.utils.metrics.ServiceCall;
+import com.payline.payment.sharegroop.utils.metrics.ServiceMetrics;
+import com.payline.payment.sharegroop.utils.metrics.ServiceResult;
+import com.payline.pmapi.bean.common.FailureCause;
+import com.payline.pmapi.bean.notification.response.impl.IgnoreNotificationResponse;
+import com.payline.pmapi.bean.notification.response.impl.PaymentResponseByNotificationResponse;
+import com.payline.pmapi.bean.payment.response.PaymentResponse;
+import com.payline.pmapi.bean.payment.response.buyerpaymentidentifier.impl.EmptyTransactionDetails;
+import com.payline.pmapi.bean.payment.response.impl.PaymentResponseFailure;
+import com.payline.pmapi.bean.payment.response.impl.PaymentResponseSuccess;
+import com.payline.pmapi.bean.refund.response.impl.RefundResponseFailure;
+import com.payline.pmapi.bean.reset.response.impl.ResetResponseSuccess;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
+
+class InstrumentedServiceTest {
+
+    @Mock
+    private ServiceMetrics metrics;
+
+    private InstrumentedService service;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.initMocks(this);
+        service = new InstrumentedService(metrics) {
+        };
+    }
+
+    @Test
+    void resultOf() {
+        PaymentResponse failure = PaymentResponseFailure.PaymentResponseFailureBuilder.aPaymentResponseFailure()
+                .withErrorCode("400")
+                .withFailureCause(FailureCause.REFUSED)
+                .build();
+
+        assertEquals(ServiceResult.FAILURE, InstrumentedService.resultOf(failure));
+        assertEquals(ServiceResult.SUCCESS, InstrumentedService.resultOf(ResetResponseSuccess.ResetResponseSuccessBuilder.aResetResponseSuccess()
+                .withPartnerTransactionId("ord_1")
+                .withStatusCode("200")
+                .build()));
+        assertEquals(ServiceResult.IGNORED, InstrumentedService.resultOf(new IgnoreNotificationResponse()));
+        assertEquals(ServiceResult.SUCCESS, InstrumentedService.resultOf(Collections.emptyList()));
+        assertEquals(ServiceResult.OTHER, InstrumentedService.resultOf(null));
+    }
+
+    @Test
+    void resultOf_notification() {
+        // given: a notification carrying a payment success
+        PaymentResponse success = PaymentResponseSuccess.PaymentResponseSuccessBuilder.aPaymentResponseSuccess()
+                .withStatusCode("200")
+                .withTransactionDetails(new EmptyTransactionDetails())
+                .withPartnerTransactionId("ord_1")
+                .build();
+        PaymentResponseByNotificationResponse notification = PaymentResponseByNotificationResponse.PaymentResponseByNotificationResponseBuilder
+                .aPaymentResponseByNotificationResponseBuilder()
+                .withPaymentResponse(success)
+                .build();
+
+        // when: classifying it, then: the payment response gives the result type
+        assertEquals(ServiceResult.SUCCESS, InstrumentedService.resultOf(notification));
+        assertNull(InstrumentedService.failureCauseOf(notification));
+    }
+
+    @Test
+    void failureCauseOf() {
+        RefundResponseFailure failure = RefundResponseFailure.RefundResponseFailureBuilder.aRefundResponseFailure()
+                .withErrorCode("500")
+                .withFailureCause(FailureCause.COMMUNICATION_ERROR)
+                .build();
+
+        assertEquals(FailureCause.COMMUNICATION_ERROR, InstrumentedService.failureCauseOf(failure));
+        assertNull(InstrumentedService.failureCauseOf(new IgnoreNotificationResponse()));
+    }
+
+    @Test
+    void measure_exception() {
+        // when: the service throws an exception
+        assertThrows(IllegalStateException.class, () -> service.measure(ServiceCall.PAYMENT_REQUEST, () -> {
+            throw new IllegalStateException();
+        }));
+
+        // then: it is recorded, and rethrown
+        verify(metrics).record(eq(ServiceCall.PAYMENT_REQUEST), eq(ServiceResult.EXCEPTION), isNull(), anyLong());
+    }
+
+    @Test
+    void measure_void() {
+        // when: calling a method which doesn't return anything
+        service.measure(ServiceCall.NOTIFY_TRANSACTION_STATUS, () -> {
+        });
+
+        // then: it is recorded as a success
+        verify(metrics).record(eq(ServiceCall.NOTIFY_TRANSACTION_STATUS), eq(ServiceResult.SUCCESS), isNull(), anyLong());
+    }
+}
@@ -0,0 +1,56 @@
+package com.payline.payment.sharegroop.simulator;
+
+import java.util.Random;
+
+/**
+ * Distribution of the time the simulated API takes to answer a request.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * @param random the random source of the simulator, seeded for reproducible runs
+     * @return the next latency, in milliseconds
+     */
+    long nextMillis(Random random);
+
+    /**
+     * @return no latency at all
+     */
+    static LatencyDistribution none() {
+        return random -> 0;
+    }
+
+    /**
+     * @param millis the latency, in milliseconds
+     * @return a constant latency
+     */
+    static LatencyDistribution fixed(long millis) {
+        return random -> millis;
+    }
+
+    /**
+     * @param minMillis the lowest latency, in milliseconds
+     * @param maxMillis the highest latency, in milliseconds
+     * @return a latency uniformly distributed between both bounds
+     */
+    static LatencyDistribution uniform(long minMillis, long maxMillis) {
+        if (maxMillis < minMillis) {
+            throw new IllegalArgumentException("maxMillis must be greater than minMillis");
+        }
+        return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis + 1));
+    }
+
+    /**
+     * A log-normal distribution, the usual shape of network and API latencies: most calls close to the median,
+     * with a long tail of slow ones.
+     *
+     * @param medianMillis the median latency, in milliseconds
+     * @param sigma the standard deviation of the underlying normal distribution (0.5 gives a p99 about 3 times the median)
+     * @return a log-normal latency
+     */
+    static LatencyDistribution logNormal(double medianMillis, double sigma) {
+        double mu = Math.log(medianMillis);
+        return random -> Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+    }
+}
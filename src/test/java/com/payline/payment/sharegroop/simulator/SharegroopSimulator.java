@@ -0,0 +1,669 @@
+package com.payline.payment.sharegroop.simulator;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process simulation of the Sharegroop API, to test and load-test the plugin without the partner sandbox.
+ *
+ * <p>It implements the endpoints used by the plugin (order creation, order verification, refund and cancel) with
+ * realistic JSON responses and an in-memory order store. Latencies, server errors, throttling (429) and connection
+ * resets are drawn from a seeded random source, so that a run can be reproduced. Order state changes can be
+ * notified to a webhook URL, with a valid SG-Signature header.</p>
+ *
+ * <p>Responses are sent from a scheduler once their latency has elapsed, so slow responses don't hold the server
+ * threads: the simulator can keep thousands of slow calls in flight.</p>
+ */
+public class SharegroopSimulator implements AutoCloseable {
+
+    /**
+     * The simulated API endpoints.
+     */
+    public enum Endpoint {
+        CREATE, VERIFY, REFUND, CANCEL
+    }
+
+    /**
+     * The faults the simulator can inject.
+     */
+    public enum Fault {
+        SERVER_ERROR, THROTTLED, CONNECTION_RESET
+    }
+
+    public static final String STATUS_PENDING = "pending";
+    public static final String STATUS_CONFIRMED = "confirmed";
+    public static final String STATUS_COMPLETED = "completed";
+    public static final String STATUS_REFUNDED = "refunded";
+    public static final String STATUS_CANCELLED = "cancelled";
+
+    public static final String EVENT_COMPLETED = "order.completed";
+    public static final String EVENT_REFUNDED = "order.refunded";
+    public static final String EVENT_CANCELLED = "order.cancelled";
+
+    private static final String PLATFORM_ID = "pl_5ee79772-d68b-4e83-b334-b9b5c0349738";
+    private static final String CONTENT_TYPE = "application/json";
+    private static final String SIGNATURE_HEADER = "SG-Signature";
+
+    static {
+        // without it, the response headers and body are sent in separate segments and delayed ACKs add ~40ms per call
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final Builder config;
+    private final Random random;
+    private final HttpServer server;
+    private final ExecutorService serverExecutor;
+    private final ScheduledExecutorService responseScheduler;
+    private final ExecutorService webhookExecutor;
+    private final ConcurrentMap<String, JsonObject> orders = new ConcurrentHashMap<>();
+    private final Map<Endpoint, LongAdder> calls = new EnumMap<>(Endpoint.class);
+    private final Map<Fault, LongAdder> faults = new EnumMap<>(Fault.class);
+    private final LongAdder webhooksSent = new LongAdder();
+
+    private SharegroopSimulator(Builder config) throws IOException {
+        this.config = config;
+        this.random = new Random(config.seed);
+        for (Endpoint endpoint : Endpoint.values()) {
+            calls.put(endpoint, new LongAdder());
+        }
+        for (Fault fault : Fault.values()) {
+            faults.put(fault, new LongAdder());
+        }
+
+        this.serverExecutor = Executors.newFixedThreadPool(config.threads, daemonThreads("sharegroop-simulator"));
+        this.responseScheduler = Executors.newScheduledThreadPool(2, daemonThreads("sharegroop-simulator-response"));
+        this.webhookExecutor = Executors.newSingleThreadExecutor(daemonThreads("sharegroop-simulator-webhook"));
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), config.backlog);
+        this.server.createContext("/v1/orders", this::handle);
+        this.server.setExecutor(serverExecutor);
+        this.server.start();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the URL to use as SHAREGROOP_URL in the partner configuration
+     */
+    public String getBaseUrl() {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort();
+    }
+
+    public String getPrivateKey() {
+        return config.privateKey;
+    }
+
+    public String getWebhookSecretKey() {
+        return config.webhookSecretKey;
+    }
+
+    /**
+     * Simulate an order created and paid by the buyers through the widget, as it is before the step 2 of a payment.
+     *
+     * @param amount the amount, in the smallest currency unit
+     * @param email the email of the buyer
+     * @return the id of the confirmed order
+     */
+    public String placeOrder(int amount, String email) {
+        JsonObject body = new JsonObject();
+        body.addProperty("amount", amount);
+        body.addProperty("currency", "EUR");
+        body.addProperty("email", email);
+        body.addProperty("ux", "collect");
+        body.addProperty("locale", "fr");
+        JsonObject order = newOrder(body, "front");
+        order.addProperty("status", STATUS_CONFIRMED);
+        order.addProperty("amountConfirmed", amount);
+        return order.get("id").getAsString();
+    }
+
+    /**
+     * Simulate the last participant paying their share: the order becomes completed and, if a webhook target is
+     * configured, the corresponding notification is sent.
+     *
+     * @param orderId the order id
+     */
+    public void completeOrder(String orderId) {
+        JsonObject order = orders.get(orderId);
+        if (order == null) {
+            throw new IllegalArgumentException("Unknown order " + orderId);
+        }
+        synchronized (order) {
+            order.addProperty("status", STATUS_COMPLETED);
+            order.addProperty("amountConfirmed", order.get("amount").getAsInt());
+            order.addProperty("updatedAt", System.currentTimeMillis());
+        }
+        notifyWebhook(EVENT_COMPLETED, orderId);
+    }
+
+    /**
+     * @param orderId the order id
+     * @return the current status of the order, or null if it doesn't exist
+     */
+    public String getStatus(String orderId) {
+        JsonObject order = orders.get(orderId);
+        if (order == null) {
+            return null;
+        }
+        synchronized (order) {
+            return order.get("status").getAsString();
+        }
+    }
+
+    /**
+     * @param endpoint the endpoint
+     * @return the number of requests received by the endpoint, faults included
+     */
+    public long getCallCount(Endpoint endpoint) {
+        return calls.get(endpoint).sum();
+    }
+
+    /**
+     * @return the number of requests received by all the endpoints, faults included
+     */
+    public long getCallCount() {
+        long total = 0;
+        for (LongAdder adder : calls.values()) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    /**
+     * @param fault the fault
+     * @return the number of times the fault has been injected
+     */
+    public long getFaultCount(Fault fault) {
+        return faults.get(fault).sum();
+    }
+
+    public long getWebhooksSent() {
+        return webhooksSent.sum();
+    }
+
+    /**
+     * Build the content of a webhook notification and its signature, as Sharegroop sends them.
+     *
+     * @param event the event (see the EVENT_* constants)
+     * @param orderId the order id
+     * @return the signed notification
+     */
+    public SignedEvent sign(String event, String orderId) {
+        JsonObject content = new JsonObject();
+        content.addProperty("event", event);
+        content.addProperty("id", orderId);
+        content.addProperty("date", System.currentTimeMillis());
+        String json = content.toString();
+        return new SignedEvent(json, "v1=" + hmac(json, config.webhookSecretKey));
+    }
+
+    /**
+     * Send a signed webhook notification.
+     *
+     * @param target the URL to notify
+     * @param event the event (see the EVENT_* constants)
+     * @param orderId the order id
+     * @return the HTTP status code returned by the target
+     * @throws IOException if the target can't be reached
+     */
+    public int sendWebhook(URI target, String event, String orderId) throws IOException {
+        SignedEvent signed = sign(event, orderId);
+        HttpURLConnection connection = (HttpURLConnection) target.toURL().openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", CONTENT_TYPE);
+            connection.setRequestProperty(SIGNATURE_HEADER, signed.getSignature());
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(signed.getContent().getBytes(StandardCharsets.UTF_8));
+            }
+            webhooksSent.increment();
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        responseScheduler.shutdownNow();
+        webhookExecutor.shutdownNow();
+        serverExecutor.shutdownNow();
+    }
+
+    // --- Request handling
+
+    private void handle(HttpExchange exchange) throws IOException {
+        List<String> path = new ArrayList<>();
+        for (String segment : exchange.getRequestURI().getPath().split("/")) {
+            if (!segment.isEmpty()) {
+                path.add(segment);
+            }
+        }
+        // path is: v1, orders [, id [, refund|cancel]]
+        String orderId = path.size() > 2 ? path.get(2) : null;
+        String action = path.size() > 3 ? path.get(3) : null;
+        Endpoint endpoint;
+        if (orderId == null) {
+            endpoint = Endpoint.CREATE;
+        } else if (action == null) {
+            endpoint = Endpoint.VERIFY;
+        } else if ("refund".equals(action)) {
+            endpoint = Endpoint.REFUND;
+        } else if ("cancel".equals(action)) {
+            endpoint = Endpoint.CANCEL;
+        } else {
+            respond(exchange, 0, 404, error(404, "not found"));
+            return;
+        }
+        calls.get(endpoint).increment();
+        byte[] requestBody = readBody(exchange.getRequestBody());
+
+        // draw the latency and the fault before anything else, so that a seed always gives the same sequence
+        long latency = config.latencies.getOrDefault(endpoint, config.latency).nextMillis(random);
+        double draw = random.nextDouble();
+        if (draw < config.resetRate) {
+            faults.get(Fault.CONNECTION_RESET).increment();
+            responseScheduler.schedule(exchange::close, latency, TimeUnit.MILLISECONDS);
+            return;
+        }
+        draw -= config.resetRate;
+        if (draw < config.throttleRate) {
+            faults.get(Fault.THROTTLED).increment();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            respond(exchange, latency, 429, error(429, "too many requests"));
+            return;
+        }
+        draw -= config.throttleRate;
+        if (draw < config.errorRate) {
+            faults.get(Fault.SERVER_ERROR).increment();
+            respond(exchange, latency, 500, error(500, "internal server error"));
+            return;
+        }
+
+        if (!config.privateKey.equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            respond(exchange, latency, 401, error(401, "unauthorized"));
+            return;
+        }
+
+        Response response;
+        switch (endpoint) {
+            case CREATE:
+                response = create(requestBody);
+                break;
+            case VERIFY:
+                response = verify(orderId);
+                break;
+            case REFUND:
+                response = refund(orderId);
+                break;
+            default:
+                response = cancel(orderId);
+                break;
+        }
+        respond(exchange, latency, response.status, response.body);
+    }
+
+    private Response create(byte[] requestBody) {
+        JsonElement body = null;
+        if (requestBody.length > 0) {
+            try {
+                body = new JsonParser().parse(new String(requestBody, StandardCharsets.UTF_8));
+            } catch (JsonSyntaxException e) {
+                body = null;
+            }
+        }
+        // the plugin relies on this exact answer to validate the private key
+        if (body == null || !body.isJsonObject()) {
+            return new Response(400, error(400, "should be object"));
+        }
+        JsonObject order = newOrder(body.getAsJsonObject(), "api");
+        return new Response(200, success(order));
+    }
+
+    private Response verify(String orderId) {
+        JsonObject order = orders.get(orderId);
+        if (order == null) {
+            return new Response(404, error(404, "order not found"));
+        }
+        return new Response(200, success(order));
+    }
+
+    private Response refund(String orderId) {
+        JsonObject order = orders.get(orderId);
+        if (order == null) {
+            return new Response(404, error(404, "order not found"));
+        }
+        synchronized (order) {
+            String status = order.get("status").getAsString();
+            if (!STATUS_CONFIRMED.equals(status) && !STATUS_COMPLETED.equals(status)) {
+                return new Response(400, error(400, "order can not be refunded in status " + status));
+            }
+            order.addProperty("status", STATUS_REFUNDED);
+            order.addProperty("updatedAt", System.currentTimeMillis());
+        }
+        notifyWebhook(EVENT_REFUNDED, orderId);
+        return new Response(200, success(order));
+    }
+
+    private Response cancel(String orderId) {
+        JsonObject order = orders.get(orderId);
+        if (order == null) {
+            return new Response(404, error(404, "order not found"));
+        }
+        String event;
+        synchronized (order) {
+            String status = order.get("status").getAsString();
+            if (STATUS_PENDING.equals(status)) {
+                order.addProperty("status", STATUS_CANCELLED);
+                event = EVENT_CANCELLED;
+            } else if (STATUS_CONFIRMED.equals(status) || STATUS_COMPLETED.equals(status)) {
+                // cancelling an order which has been paid refunds the participants
+                order.addProperty("status", STATUS_REFUNDED);
+                event = EVENT_REFUNDED;
+            } else {
+                return new Response(400, error(400, "order can not be cancelled in status " + status));
+            }
+            order.addProperty("updatedAt", System.currentTimeMillis());
+        }
+        notifyWebhook(event, orderId);
+        return new Response(200, success(order));
+    }
+
+    private JsonObject newOrder(JsonObject body, String integration) {
+        String id = "ord_" + new UUID(random.nextLong(), random.nextLong());
+        long now = System.currentTimeMillis();
+
+        JsonObject order = new JsonObject();
+        for (Map.Entry<String, JsonElement> property : body.entrySet()) {
+            order.add(property.getKey(), property.getValue().deepCopy());
+        }
+        order.addProperty("id", id);
+        order.addProperty("platformId", PLATFORM_ID);
+        order.addProperty("status", STATUS_PENDING);
+        order.addProperty("type", "direct");
+        order.addProperty("integration", integration);
+        order.addProperty("ecard", false);
+        order.addProperty("nbShares", 1);
+        order.addProperty("amountConfirmed", 0);
+        order.addProperty("delay", 8640);
+        order.addProperty("createdAt", now);
+        order.addProperty("updatedAt", now);
+        order.addProperty("dueDate", now + TimeUnit.DAYS.toMillis(6));
+        if (!order.has("items")) {
+            order.add("items", new JsonArray());
+        }
+        for (JsonElement item : order.getAsJsonArray("items")) {
+            item.getAsJsonObject().addProperty("id", "itm_" + new UUID(random.nextLong(), random.nextLong()));
+        }
+
+        orders.put(id, order);
+        return order;
+    }
+
+    private void notifyWebhook(String event, String orderId) {
+        if (config.webhookTarget == null) {
+            return;
+        }
+        webhookExecutor.execute(() -> {
+            try {
+                sendWebhook(config.webhookTarget, event, orderId);
+            } catch (IOException e) {
+                // the target is not available: like Sharegroop, don't insist
+            }
+        });
+    }
+
+    private void respond(HttpExchange exchange, long latency, int status, String body) {
+        Runnable send = () -> {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            try {
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                exchange.sendResponseHeaders(status, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            } catch (IOException e) {
+                // the client has gone away
+                exchange.close();
+            }
+        };
+        if (latency <= 0) {
+            send.run();
+        } else {
+            responseScheduler.schedule(send, latency, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static String success(JsonObject order) {
+        JsonObject response = new JsonObject();
+        response.addProperty("success", true);
+        synchronized (order) {
+            response.add("data", order.deepCopy());
+        }
+        return response.toString();
+    }
+
+    private static String error(int status, String message) {
+        JsonObject response = new JsonObject();
+        response.addProperty("status", status);
+        response.addProperty("success", false);
+        JsonArray errors = new JsonArray();
+        errors.add(message);
+        response.add("errors", errors);
+        return response.toString();
+    }
+
+    private static byte[] readBody(InputStream input) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static String hmac(String content, String secretKey) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] hash = mac.doFinal(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class Response {
+        private final int status;
+        private final String body;
+
+        private Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    /**
+     * A webhook notification content, with the value of its SG-Signature header.
+     */
+    public static class SignedEvent {
+        private final String content;
+        private final String signature;
+
+        SignedEvent(String content, String signature) {
+            this.content = content;
+            this.signature = signature;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public String getSignature() {
+            return signature;
+        }
+    }
+
+    /**
+     * Configuration of the simulator. All the rates are probabilities, between 0 and 1.
+     */
+    public static class Builder {
+        private long seed = 42;
+        private LatencyDistribution latency = LatencyDistribution.none();
+        private final Map<Endpoint, LatencyDistribution> latencies = new EnumMap<>(Endpoint.class);
+        private double errorRate;
+        private double throttleRate;
+        private double resetRate;
+        private String privateKey = "sk_test_simulator";
+        private String webhookSecretKey = "whsec_simulator";
+        private URI webhookTarget;
+        private int threads = 8;
+        private int backlog = 256;
+
+        private Builder() {
+        }
+
+        public Builder withSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * @param latency the latency of all the endpoints which have no specific latency
+         */
+        public Builder withLatency(LatencyDistribution latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        public Builder withLatency(Endpoint endpoint, LatencyDistribution latency) {
+            this.latencies.put(endpoint, latency);
+            return this;
+        }
+
+        /**
+         * @param errorRate the rate of requests answered with a 500 error
+         */
+        public Builder withErrorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        /**
+         * @param throttleRate the rate of requests answered with a 429 error
+         */
+        public Builder withThrottleRate(double throttleRate) {
+            this.throttleRate = throttleRate;
+            return this;
+        }
+
+        /**
+         * @param resetRate the rate of requests for which the connection is closed without any response
+         */
+        public Builder withResetRate(double resetRate) {
+            this.resetRate = resetRate;
+            return this;
+        }
+
+        /**
+         * @param privateKey the private key expected in the Authorization header
+         */
+        public Builder withPrivateKey(String privateKey) {
+            this.privateKey = privateKey;
+            return this;
+        }
+
+        public Builder withWebhookSecretKey(String webhookSecretKey) {
+            this.webhookSecretKey = webhookSecretKey;
+            return this;
+        }
+
+        /**
+         * @param webhookTarget the URL notified of the order status changes, or null to send no notification
+         */
+        public Builder withWebhookTarget(URI webhookTarget) {
+            this.webhookTarget = webhookTarget;
+            return this;
+        }
+
+        /**
+         * @param threads the number of threads reading the requests (the responses are sent by a scheduler)
+         */
+        public Builder withThreads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public Builder withBacklog(int backlog) {
+            this.backlog = backlog;
+            return this;
+        }
+
+        /**
+         * Start a simulator on an ephemeral port of the loopback interface.
+         *
+         * @return the running simulator, to close after use
+         * @throws IOException if the server can't be started
+         */
+        public SharegroopSimulator start() throws IOException {
+            if (errorRate + throttleRate + resetRate > 1) {
+                throw new IllegalArgumentException("The sum of the fault rates can't exceed 1");
+            }
+            return new SharegroopSimulator(this);
+        }
+    }
+}
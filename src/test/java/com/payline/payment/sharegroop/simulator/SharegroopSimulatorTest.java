@@ -0,0 +1,224 @@
+package com.payline.payment.sharegroop.simulator;
+
+import com.payline.payment.sharegroop.MockUtils;
+import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
+import com.payline.payment.sharegroop.bean.configuration.RequestConfiguration;
+import com.payline.payment.sharegroop.exception.PluginException;
+import com.payline.payment.sharegroop.service.impl.NotificationServiceImpl;
+import com.payline.payment.sharegroop.utils.Constants;
+import com.payline.payment.sharegroop.utils.http.SharegroopHttpClient;
+import com.payline.pmapi.bean.common.FailureCause;
+import com.payline.pmapi.bean.configuration.PartnerConfiguration;
+import com.payline.pmapi.bean.payment.ContractConfiguration;
+import com.payline.pmapi.bean.payment.ContractProperty;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharegroopSimulatorTest {
+
+    private final SharegroopHttpClient client = SharegroopHttpClient.getInstance();
+    private SharegroopSimulator simulator;
+
+    @AfterEach
+    void tearDown() {
+        if (simulator != null) {
+            simulator.close();
+        }
+    }
+
+    @Test
+    void createOrder() throws IOException {
+        // given: a simulator without faults
+        simulator = SharegroopSimulator.builder().start();
+
+        // when: creating an order
+        SharegroopAPICallResponse response = client.createOrder(aRequestConfiguration(simulator.getPrivateKey()), MockUtils.anOrder());
+
+        // then: the order is pending, with the data of the request
+        assertTrue(response.getSuccess());
+        assertTrue(response.getData().getId().startsWith("ord_"));
+        assertEquals(SharegroopSimulator.STATUS_PENDING, response.getData().getStatus());
+        assertEquals(MockUtils.anOrder().getAmount(), response.getData().getAmount());
+        assertEquals(1, simulator.getCallCount(SharegroopSimulator.Endpoint.CREATE));
+    }
+
+    @Test
+    void verifyThenRefund() throws IOException {
+        // given: an order paid by the buyers
+        simulator = SharegroopSimulator.builder().start();
+        String orderId = simulator.placeOrder(1000, "foo@bar.baz");
+        RequestConfiguration configuration = aRequestConfiguration(simulator.getPrivateKey());
+
+        // when: verifying, then refunding the order
+        SharegroopAPICallResponse verified = client.verifyOrder(configuration, orderId);
+        SharegroopAPICallResponse refunded = client.refundOrder(configuration, orderId);
+
+        // then: the status follows the order lifecycle
+        assertEquals(SharegroopSimulator.STATUS_CONFIRMED, verified.getData().getStatus());
+        assertEquals(SharegroopSimulator.STATUS_REFUNDED, refunded.getData().getStatus());
+        assertEquals(SharegroopSimulator.STATUS_REFUNDED, simulator.getStatus(orderId));
+        assertEquals(2, simulator.getCallCount());
+    }
+
+    @Test
+    void cancel_pending() throws IOException {
+        // given: an order not paid yet
+        simulator = SharegroopSimulator.builder().start();
+        RequestConfiguration configuration = aRequestConfiguration(simulator.getPrivateKey());
+        String orderId = client.createOrder(configuration, MockUtils.anOrder()).getData().getId();
+
+        // when: cancelling the order, then trying to refund it
+        SharegroopAPICallResponse cancelled = client.cancelOrder(configuration, orderId);
+        SharegroopAPICallResponse refunded = client.refundOrder(configuration, orderId);
+
+        // then: the order is cancelled and can't be refunded anymore
+        assertEquals(SharegroopSimulator.STATUS_CANCELLED, cancelled.getData().getStatus());
+        assertFalse(refunded.getSuccess());
+        assertEquals("400", refunded.getStatus());
+    }
+
+    @Test
+    void verifyPrivateKey() throws IOException {
+        // given: a simulator
+        simulator = SharegroopSimulator.builder().withPrivateKey("sk_test_valid").start();
+
+        // when: checking a valid and an invalid private key, then: only the valid one is accepted
+        assertTrue(client.verifyPrivateKey(aRequestConfiguration("sk_test_valid")));
+        assertFalse(client.verifyPrivateKey(aRequestConfiguration("sk_test_invalid")));
+    }
+
+    @Test
+    void throttled() throws IOException {
+        // given: a simulator throttling every request
+        simulator = SharegroopSimulator.builder().withThrottleRate(1).start();
+        String orderId = simulator.placeOrder(1000, "foo@bar.baz");
+
+        // when: verifying an order
+        SharegroopAPICallResponse response = client.verifyOrder(aRequestConfiguration(simulator.getPrivateKey()), orderId);
+
+        // then: a 429 error is returned
+        assertFalse(response.getSuccess());
+        assertEquals("429", response.getStatus());
+        assertEquals(1, simulator.getFaultCount(SharegroopSimulator.Fault.THROTTLED));
+    }
+
+    @Test
+    void connectionReset() throws IOException {
+        // given: a simulator closing every connection without answering
+        simulator = SharegroopSimulator.builder().withResetRate(1).start();
+        String orderId = simulator.placeOrder(1000, "foo@bar.baz");
+        RequestConfiguration configuration = aRequestConfiguration(simulator.getPrivateKey());
+
+        // when: verifying an order, then: the client gives up after its retries
+        PluginException e = assertThrows(PluginException.class, () -> client.verifyOrder(configuration, orderId));
+        assertEquals(FailureCause.COMMUNICATION_ERROR, e.getFailureCause());
+        assertEquals(simulator.getFaultCount(SharegroopSimulator.Fault.CONNECTION_RESET), simulator.getCallCount());
+        assertTrue(simulator.getCallCount() > 0);
+    }
+
+    @Test
+    void latency() throws IOException {
+        // given: a simulator answering verifications in 200ms
+        simulator = SharegroopSimulator.builder()
+                .withLatency(SharegroopSimulator.Endpoint.VERIFY, LatencyDistribution.fixed(200))
+                .start();
+        String orderId = simulator.placeOrder(1000, "foo@bar.baz");
+
+        // when: verifying an order
+        long start = System.nanoTime();
+        client.verifyOrder(aRequestConfiguration(simulator.getPrivateKey()), orderId);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // then: the response is delayed
+        assertTrue(elapsed >= 200);
+    }
+
+    @Test
+    void latencyDistributions() {
+        // given: the same seed
+        LatencyDistribution logNormal = LatencyDistribution.logNormal(50, 0.5);
+        LatencyDistribution uniform = LatencyDistribution.uniform(10, 20);
+        Random first = new Random(7);
+        Random second = new Random(7);
+
+        // when: drawing latencies, then: the sequences are the same, and within bounds
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(logNormal.nextMillis(first), logNormal.nextMillis(second));
+            long latency = uniform.nextMillis(first);
+            assertEquals(latency, uniform.nextMillis(second));
+            assertTrue(latency >= 10 && latency <= 20);
+        }
+    }
+
+    @Test
+    void sign() throws IOException {
+        // given: a simulator
+        simulator = SharegroopSimulator.builder().withWebhookSecretKey("whsec_test").start();
+
+        // when: signing an event
+        SharegroopSimulator.SignedEvent event = simulator.sign(SharegroopSimulator.EVENT_COMPLETED, "ord_1");
+
+        // then: the plugin accepts the signature
+        assertTrue(event.getSignature().startsWith("v1="));
+        assertTrue(new NotificationServiceImpl().verifySignature("whsec_test", event.getContent(), event.getSignature().replace("v1=", "")));
+    }
+
+    @Test
+    void webhook() throws Exception {
+        // given: a webhook target, and a simulator notifying it
+        BlockingQueue<String> signatures = new ArrayBlockingQueue<>(1);
+        HttpServer target = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        target.createContext("/", exchange -> {
+            signatures.add(exchange.getRequestHeaders().getFirst("SG-Signature"));
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        target.start();
+        try {
+            simulator = SharegroopSimulator.builder()
+                    .withWebhookTarget(URI.create("http://" + target.getAddress().getHostString() + ":" + target.getAddress().getPort() + "/"))
+                    .start();
+            String orderId = simulator.placeOrder(1000, "foo@bar.baz");
+
+            // when: the order is completed
+            simulator.completeOrder(orderId);
+
+            // then: a signed notification is sent
+            String signature = signatures.poll(5, TimeUnit.SECONDS);
+            assertNotNull(signature);
+            assertTrue(signature.startsWith("v1="));
+            assertEquals(SharegroopSimulator.STATUS_COMPLETED, simulator.getStatus(orderId));
+        } finally {
+            target.stop(0);
+        }
+    }
+
+    private RequestConfiguration aRequestConfiguration(String privateKey) {
+        Map<String, ContractProperty> contractProperties = new HashMap<>();
+        contractProperties.put(Constants.ContractConfigurationKeys.PRIVATE_KEY, new ContractProperty(privateKey));
+        contractProperties.put(Constants.ContractConfigurationKeys.PUBLIC_KEY, new ContractProperty("PublicKey"));
+        contractProperties.put(Constants.ContractConfigurationKeys.UX, new ContractProperty("collect"));
+
+        Map<String, String> partnerConfiguration = new HashMap<>();
+        partnerConfiguration.put(Constants.PartnerConfigurationKeys.SHAREGROOP_URL, simulator.getBaseUrl());
+        Map<String, String> sensitiveConfiguration = new HashMap<>();
+        sensitiveConfiguration.put(Constants.PartnerConfigurationKeys.SHAREGROOP_WEBHOOK_SECRET_KEY, simulator.getWebhookSecretKey());
+
+        return new RequestConfiguration(new ContractConfiguration("Sharegroop", contractProperties), MockUtils.anEnvironment(),
+                new PartnerConfiguration(partnerConfiguration, sensitiveConfiguration));
+    }
+}
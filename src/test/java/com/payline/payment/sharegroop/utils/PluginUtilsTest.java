@@ -2,19 +2,26 @@ package com.payline.payment.sharegroop.utils;
 
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.entity.StringEntity;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class PluginUtilsTest {
 
@@ -54,6 +61,35 @@ class PluginUtilsTest {
         assertEquals(expected, result);
     }
 
+    @Test
+    void requestToString_streamedBody() throws IOException {
+        // given: a HTTP request with a body which can only be read once
+        HttpPost request = new HttpPost( "http://domain.test.fr/endpoint" );
+        InputStream content = new ByteArrayInputStream( "{\"amount\":1000}".getBytes(StandardCharsets.UTF_8) );
+        request.setEntity( new InputStreamEntity( content ));
+
+        // when: converting the request to String for display
+        String result = PluginUtils.requestToString( request );
+
+        // then: the body is not read, it's still available for the HTTP client
+        assertTrue( result.endsWith("<< Streamed request body >>") );
+        assertEquals( 15, content.available() );
+    }
+
+    @Test
+    void requestSummary(){
+        // given: a HTTP request with an authorization header and a body
+        HttpPost request = new HttpPost( "http://domain.test.fr/endpoint" );
+        request.setHeader("Authorization", "Bearer sk_test_key");
+        request.setEntity( new StringEntity( "{\"name\":\"Jean Martin\"}", StandardCharsets.UTF_8 ));
+
+        // when: summarizing the request
+        String result = PluginUtils.requestSummary( request );
+
+        // then: the key and the body are not shown, only the size of the body
+        assertEquals("POST http://domain.test.fr/endpoint [Authorization: Bearer *****] (22 bytes)", result);
+    }
+
     @Test
     void truncate() {
         assertEquals("0123456789", PluginUtils.truncate("01234567890123456789", 10));
@@ -62,4 +98,24 @@ class PluginUtilsTest {
         assertNull(PluginUtils.truncate(null, 30));
     }
 
+    @Test
+    void toHexString() {
+        assertEquals("00017f80ff", PluginUtils.toHexString(new byte[]{0, 1, 127, -128, -1}));
+        assertEquals("", PluginUtils.toHexString(new byte[0]));
+    }
+
+    @Test
+    void merchantHash() {
+        // when: hashing the same key twice, and another key
+        String hash = PluginUtils.merchantHash("sk_test_key");
+        String other = PluginUtils.merchantHash("sk_other_key");
+
+        // then: the hash is short, stable and doesn't reveal the key
+        assertEquals(16, hash.length());
+        assertEquals(hash, PluginUtils.merchantHash("sk_test_key"));
+        assertNotEquals(hash, other);
+        assertFalse(hash.contains("sk_test_key"));
+        assertNull(PluginUtils.merchantHash(null));
+    }
+
 }
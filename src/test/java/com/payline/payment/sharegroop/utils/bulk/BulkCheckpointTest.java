@@ -0,0 +1,126 @@
+package com.payline.payment.sharegroop.utils.bulk;
+
+import com.payline.payment.sharegroop.MockUtils;
+import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
+import com.payline.payment.sharegroop.bean.configuration.RequestConfiguration;
+import com.payline.payment.sharegroop.utils.http.CallResult;
+import com.payline.payment.sharegroop.utils.metrics.Operation;
+import com.payline.pmapi.bean.common.FailureCause;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkCheckpointTest {
+
+    private final RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+    private Path file;
+
+    @BeforeEach
+    void setup() throws IOException {
+        file = Files.createTempFile("bulk", ".checkpoint");
+        Files.delete(file);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private BulkResult aResult(Operation operation, String transactionId) {
+        SharegroopAPICallResponse response = MockUtils.aSharegroopAPICallResponse("refunded");
+        return new BulkResult(new BulkItem(transactionId, requestConfiguration), operation, CallResult.success(response));
+    }
+
+    @Test
+    void record_resumed() throws IOException {
+        // given: a run which processed two orders
+        try (BulkCheckpoint checkpoint = BulkCheckpoint.open(file)) {
+            checkpoint.record(aResult(Operation.REFUND, "ord_1"));
+            checkpoint.record(new BulkResult(new BulkItem("ord_2", requestConfiguration), Operation.REFUND,
+                    CallResult.failure("400", FailureCause.INVALID_DATA)));
+        }
+
+        // when: opening the checkpoint again
+        try (BulkCheckpoint checkpoint = BulkCheckpoint.open(file)) {
+            // then: both orders are known, for this operation only
+            assertEquals(2, checkpoint.size());
+            assertTrue(checkpoint.contains(Operation.REFUND, "ord_1"));
+            assertTrue(checkpoint.contains(Operation.REFUND, "ord_2"));
+            assertFalse(checkpoint.contains(Operation.CANCEL, "ord_1"));
+            assertFalse(checkpoint.contains(Operation.REFUND, "ord_3"));
+        }
+    }
+
+    @Test
+    void open_partialLine() throws IOException {
+        // given: a journal whose last line was cut by a crash
+        Files.write(file, "refund\tord_1\tOK\nrefund\tord_".getBytes(StandardCharsets.UTF_8));
+
+        // when: resuming the run
+        try (BulkCheckpoint checkpoint = BulkCheckpoint.open(file)) {
+            checkpoint.record(aResult(Operation.REFUND, "ord_2"));
+        }
+
+        // then: the partial line is ignored, and the new one is readable
+        try (BulkCheckpoint checkpoint = BulkCheckpoint.open(file)) {
+            assertEquals(2, checkpoint.size());
+            assertTrue(checkpoint.contains(Operation.REFUND, "ord_1"));
+            assertTrue(checkpoint.contains(Operation.REFUND, "ord_2"));
+        }
+    }
+
+    @Test
+    void record_specialCharacters() throws IOException {
+        // given: a transaction id containing a tab and a line break
+        try (BulkCheckpoint checkpoint = BulkCheckpoint.open(file)) {
+            checkpoint.record(aResult(Operation.CANCEL, "ord\t1\n"));
+        }
+
+        // then: it's kept on a single line
+        assertEquals(1, Files.readAllLines(file, StandardCharsets.UTF_8).size());
+        try (BulkCheckpoint checkpoint = BulkCheckpoint.open(file)) {
+            assertTrue(checkpoint.contains(Operation.CANCEL, "ord\t1\n"));
+        }
+    }
+
+    @Test
+    void open_invalidLinesIgnored() throws IOException {
+        // given: a journal containing an invalid line
+        Files.write(file, "garbage\nrefund\tord_1\tOK\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE);
+
+        // when: opening it, then only the valid line is read
+        try (BulkCheckpoint checkpoint = BulkCheckpoint.open(file)) {
+            assertEquals(1, checkpoint.size());
+        }
+    }
+
+    @Test
+    void record_outcome() throws IOException {
+        // given: a refund done, a refund not done, a refund refused and a retryable refund
+        try (BulkCheckpoint checkpoint = BulkCheckpoint.open(file)) {
+            checkpoint.record(aResult(Operation.REFUND, "ord_1"));
+            checkpoint.record(new BulkResult(new BulkItem("ord_2", requestConfiguration), Operation.REFUND,
+                    CallResult.success(MockUtils.aSharegroopAPICallResponse("completed"))));
+            checkpoint.record(new BulkResult(new BulkItem("ord_3", requestConfiguration), Operation.REFUND,
+                    CallResult.failure("400", FailureCause.INVALID_DATA)));
+            checkpoint.record(new BulkResult(new BulkItem("ord_4", requestConfiguration), Operation.REFUND,
+                    CallResult.failure("Partner API unavailable: HTTP 503", FailureCause.COMMUNICATION_ERROR)));
+        }
+
+        // then: only the refund done is recorded as OK, and the retryable one isn't recorded
+        assertEquals(Arrays.asList("refund\tord_1\tOK", "refund\tord_2\tcompleted", "refund\tord_3\t400"),
+                Files.readAllLines(file, StandardCharsets.UTF_8));
+        try (BulkCheckpoint checkpoint = BulkCheckpoint.open(file)) {
+            assertFalse(checkpoint.contains(Operation.REFUND, "ord_4"));
+        }
+    }
+}
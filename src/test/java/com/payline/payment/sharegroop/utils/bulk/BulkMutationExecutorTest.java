@@ -0,0 +1,213 @@
+package com.payline.payment.sharegroop.utils.bulk;
+
+import com.payline.payment.sharegroop.MockUtils;
+import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
+import com.payline.payment.sharegroop.bean.configuration.RequestConfiguration;
+import com.payline.payment.sharegroop.exception.PluginException;
+import com.payline.payment.sharegroop.utils.Constants;
+import com.payline.payment.sharegroop.utils.http.CallResult;
+import com.payline.payment.sharegroop.utils.http.SharegroopHttpClient;
+import com.payline.payment.sharegroop.utils.metrics.Operation;
+import com.payline.pmapi.bean.common.FailureCause;
+import com.payline.pmapi.bean.payment.ContractConfiguration;
+import com.payline.pmapi.bean.payment.ContractProperty;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BulkMutationExecutorTest {
+
+    private static final int PARALLELISM = 3;
+
+    @Mock
+    private SharegroopHttpClient httpClient;
+
+    private final RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+    private final List<BulkResult> results = Collections.synchronizedList(new ArrayList<>());
+    private BulkMutationExecutor executor;
+    private Path file;
+
+    @BeforeEach
+    void setup() throws IOException {
+        MockitoAnnotations.initMocks(this);
+        executor = new BulkMutationExecutor(httpClient, () -> PARALLELISM, new MerchantRateLimiter(() -> 0, System::nanoTime));
+        file = Files.createTempFile("bulk", ".checkpoint");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private List<BulkItem> items(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new BulkItem("ord_" + i, requestConfiguration))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void execute_refund() throws InterruptedException {
+        // given: the partner API refunds the orders
+        doReturn(CallResult.success(MockUtils.aSharegroopAPICallResponse("refunded"))).when(httpClient).tryRefundOrder(any(), anyString());
+
+        // when: refunding 10 orders
+        executor.execute(Operation.REFUND, items(10).iterator(), null, results::add);
+
+        // then: each order is refunded once, and has its result
+        assertEquals(10, results.size());
+        assertTrue(results.stream().allMatch(r -> r.getResult().isSuccess() && r.getOperation() == Operation.REFUND));
+        verify(httpClient, times(10)).tryRefundOrder(any(), anyString());
+        verify(httpClient, never()).tryCancelOrder(any(), anyString());
+    }
+
+    @Test
+    void execute_cancel() throws InterruptedException {
+        // given: the partner API cancels the orders
+        doReturn(CallResult.success(MockUtils.aSharegroopAPICallResponse("cancelled"))).when(httpClient).tryCancelOrder(any(), anyString());
+
+        // when: cancelling 2 orders
+        executor.execute(Operation.CANCEL, items(2).iterator(), null, results::add);
+
+        // then: both are cancelled
+        assertEquals(2, results.size());
+        verify(httpClient, times(2)).tryCancelOrder(any(), anyString());
+    }
+
+    @Test
+    void execute_boundedParallelism() throws InterruptedException {
+        // given: slow calls, counting the calls in progress
+        AtomicInteger inProgress = new AtomicInteger();
+        AtomicInteger maxInProgress = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxInProgress.accumulateAndGet(inProgress.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inProgress.decrementAndGet();
+            return CallResult.success(MockUtils.aSharegroopAPICallResponse("refunded"));
+        }).when(httpClient).tryRefundOrder(any(), anyString());
+
+        // when: refunding 12 orders
+        executor.execute(Operation.REFUND, items(12).iterator(), null, results::add);
+
+        // then: no more than PARALLELISM calls were in progress at the same time
+        assertEquals(12, results.size());
+        assertTrue(maxInProgress.get() <= PARALLELISM);
+        assertTrue(maxInProgress.get() > 1);
+    }
+
+    @Test
+    void execute_merchantsMixed() throws InterruptedException {
+        // given: a merchant limited to 20 calls per second, with 12 orders, among which come 3 orders of another merchant
+        ContractConfiguration otherContract = MockUtils.aContractConfiguration();
+        otherContract.getContractProperties().put(Constants.ContractConfigurationKeys.PRIVATE_KEY, new ContractProperty("OtherPrivateKey"));
+        RequestConfiguration otherMerchant = new RequestConfiguration(otherContract, MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+        List<BulkItem> items = items(12);
+        for (int i = 0; i < 3; i++) {
+            items.add(6 + i, new BulkItem("other_" + i, otherMerchant));
+        }
+        executor = new BulkMutationExecutor(httpClient, () -> PARALLELISM, new MerchantRateLimiter(() -> 20, System::nanoTime));
+        doReturn(CallResult.success(MockUtils.aSharegroopAPICallResponse("refunded"))).when(httpClient).tryRefundOrder(any(), anyString());
+
+        // when: refunding all the orders
+        executor.execute(Operation.REFUND, items.iterator(), null, results::add);
+
+        // then: the orders of the other merchant don't wait behind the throttled ones, which hold no thread meanwhile
+        assertEquals(15, results.size());
+        List<String> ids = results.stream().map(r -> r.getItem().getTransactionId()).collect(Collectors.toList());
+        assertTrue(ids.indexOf("other_0") < 4 && ids.indexOf("other_1") < 6 && ids.indexOf("other_2") < 8, ids.toString());
+    }
+
+    @Test
+    void execute_resumed() throws InterruptedException, IOException {
+        // given: a first run, in which the partner API couldn't be reached for one order
+        doReturn(CallResult.success(MockUtils.aSharegroopAPICallResponse("refunded"))).when(httpClient).tryRefundOrder(any(), anyString());
+        doReturn(CallResult.failure("Failed to contact the partner API", FailureCause.COMMUNICATION_ERROR))
+                .when(httpClient).tryRefundOrder(any(), eq("ord_2"));
+        try (BulkCheckpoint checkpoint = BulkCheckpoint.open(file)) {
+            executor.execute(Operation.REFUND, items(4).iterator(), checkpoint, results::add);
+        }
+        assertEquals(4, results.size());
+        assertTrue(results.stream().anyMatch(BulkResult::isRetryable));
+
+        // when: resuming the run
+        reset(httpClient);
+        doReturn(CallResult.success(MockUtils.aSharegroopAPICallResponse("refunded"))).when(httpClient).tryRefundOrder(any(), anyString());
+        results.clear();
+        try (BulkCheckpoint checkpoint = BulkCheckpoint.open(file)) {
+            executor.execute(Operation.REFUND, items(4).iterator(), checkpoint, results::add);
+        }
+
+        // then: only the failed order is refunded again
+        assertEquals(1, results.size());
+        assertEquals("ord_2", results.get(0).getItem().getTransactionId());
+        verify(httpClient, times(1)).tryRefundOrder(any(), anyString());
+    }
+
+    @Test
+    void execute_unexpectedError() throws InterruptedException {
+        // given: an unexpected error for one order
+        doReturn(CallResult.success(MockUtils.aSharegroopAPICallResponse("refunded"))).when(httpClient).tryRefundOrder(any(), anyString());
+        doThrow(new IllegalStateException("boom")).when(httpClient).tryRefundOrder(any(), eq("ord_1"));
+
+        // when: refunding 3 orders
+        executor.execute(Operation.REFUND, items(3).iterator(), null, results::add);
+
+        // then: the run goes on, and the error is reported for that order only
+        assertEquals(3, results.size());
+        BulkResult failed = results.stream().filter(r -> !r.getResult().isSuccess()).findFirst().orElse(null);
+        assertNotNull(failed);
+        assertEquals("ord_1", failed.getItem().getTransactionId());
+        assertEquals(FailureCause.INTERNAL_ERROR, failed.getResult().getFailureCause());
+    }
+
+    @Test
+    void execute_interrupted() throws InterruptedException {
+        // given: a call which never ends
+        CountDownLatch started = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            return CallResult.success(MockUtils.aSharegroopAPICallResponse("refunded"));
+        }).when(httpClient).tryRefundOrder(any(), anyString());
+        Thread caller = Thread.currentThread();
+        Thread interrupter = new Thread(() -> {
+            try {
+                started.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            caller.interrupt();
+        });
+        interrupter.start();
+
+        // when: the run is interrupted, then it stops
+        assertThrows(InterruptedException.class, () -> executor.execute(Operation.REFUND, items(5).iterator(), null, results::add));
+        interrupter.join();
+    }
+
+    @Test
+    void execute_invalidOperation() {
+        // when: running an operation other than refund or cancel, then an exception is thrown
+        assertThrows(PluginException.class, () -> executor.execute(Operation.VERIFY, items(1).iterator(), null, results::add));
+        verifyNoInteractions(httpClient);
+    }
+}
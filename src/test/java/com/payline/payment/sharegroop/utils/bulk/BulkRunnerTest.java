@@ -0,0 +1,43 @@
+package com.payline.payment.sharegroop.utils.bulk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkRunnerTest {
+
+    @Test
+    void run_boundedReadAhead() throws InterruptedException {
+        // given: an iterator counting the elements read, and a slow task counting the elements processed
+        AtomicInteger read = new AtomicInteger();
+        AtomicInteger processed = new AtomicInteger();
+        AtomicInteger maxAhead = new AtomicInteger();
+        Iterator<Integer> items = IntStream.range(0, 20).peek(i -> {
+            maxAhead.accumulateAndGet(read.incrementAndGet() - processed.get(), Math::max);
+        }).boxed().iterator();
+
+        // when: running the task with a parallelism of 2
+        int count = BulkRunner.run("test", 2, items, i -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            processed.incrementAndGet();
+        });
+
+        // then: all the elements are processed, and the iterator is never read far ahead
+        assertEquals(20, count);
+        assertEquals(20, processed.get());
+        assertTrue(maxAhead.get() <= 3);
+    }
+
+    @Test
+    void run_empty() throws InterruptedException {
+        assertEquals(0, BulkRunner.run("test", 2, IntStream.range(0, 0).boxed().iterator(), i -> fail("no element")));
+    }
+}
@@ -0,0 +1,163 @@
+package com.payline.payment.sharegroop.utils.bulk;
+
+import com.payline.payment.sharegroop.MockUtils;
+import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
+import com.payline.payment.sharegroop.bean.configuration.RequestConfiguration;
+import com.payline.payment.sharegroop.utils.cache.OrderStatusCache;
+import com.payline.payment.sharegroop.utils.http.CallResult;
+import com.payline.payment.sharegroop.utils.http.SharegroopHttpClient;
+import com.payline.payment.sharegroop.utils.metrics.Operation;
+import com.payline.pmapi.bean.common.FailureCause;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BulkStatusLookupTest {
+
+    @Mock
+    private SharegroopHttpClient httpClient;
+
+    private final RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+    private final List<BulkResult> results = Collections.synchronizedList(new ArrayList<>());
+    private final OrderStatusCache cache = OrderStatusCache.getInstance();
+    private BulkStatusLookup lookup;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.initMocks(this);
+        cache.clear();
+        lookup = new BulkStatusLookup(httpClient, () -> 3, cache);
+    }
+
+    /**
+     * @return an answer returning the order in the given status, and keeping it in the cache as the client does
+     */
+    private Answer<CallResult<SharegroopAPICallResponse>> anOrderRead(String status) {
+        return invocation -> {
+            SharegroopAPICallResponse response = MockUtils.aSharegroopAPICallResponse(status);
+            cache.put(invocation.getArgument(0), invocation.getArgument(1), response);
+            return CallResult.success(response);
+        };
+    }
+
+    private static Iterator<String> orderIds(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "ord_" + i).collect(Collectors.toList()).iterator();
+    }
+
+    @Test
+    void execute_nominal() throws InterruptedException {
+        // given: the partner API returns the orders
+        doAnswer(anOrderRead("completed")).when(httpClient).tryVerifyOrder(any(), anyString());
+
+        // when: looking up 10 orders
+        lookup.execute(requestConfiguration, orderIds(10), 60, results::add);
+
+        // then: each order has its status
+        assertEquals(10, results.size());
+        assertTrue(results.stream().allMatch(r -> r.getResult().isSuccess() && r.getOperation() == Operation.VERIFY));
+        assertEquals(10, results.stream().map(r -> r.getItem().getTransactionId()).distinct().count());
+        verify(httpClient, times(10)).tryVerifyOrder(any(), anyString());
+    }
+
+    @Test
+    void execute_cachedStatusReused() throws InterruptedException {
+        // given: a first lookup
+        doAnswer(anOrderRead("completed")).when(httpClient).tryVerifyOrder(any(), anyString());
+        lookup.execute(requestConfiguration, orderIds(5), 60, results::add);
+
+        // when: looking up the same orders again, and a new one
+        results.clear();
+        lookup.execute(requestConfiguration, orderIds(6), 60, results::add);
+
+        // then: only the new order is read from the partner API
+        assertEquals(6, results.size());
+        verify(httpClient, times(11)).tryVerifyOrder(any(), anyString());
+        verify(httpClient, times(2)).tryVerifyOrder(any(), eq("ord_5"));
+    }
+
+    @Test
+    void execute_staleStatusRead() throws InterruptedException {
+        // given: a first lookup of orders which aren't in a final status
+        doAnswer(anOrderRead("completed")).when(httpClient).tryVerifyOrder(any(), anyString());
+        lookup.execute(requestConfiguration, orderIds(2), 60, results::add);
+
+        // when: looking up the same orders, without accepting cached statuses
+        lookup.execute(requestConfiguration, orderIds(2), 0, results::add);
+
+        // then: they are read again
+        verify(httpClient, times(4)).tryVerifyOrder(any(), anyString());
+    }
+
+    @Test
+    void execute_finalStatusReused() throws InterruptedException {
+        // given: a first lookup of refunded orders
+        doAnswer(anOrderRead("refunded")).when(httpClient).tryVerifyOrder(any(), anyString());
+        lookup.execute(requestConfiguration, orderIds(2), 60, results::add);
+
+        // when: looking up the same orders, without accepting cached statuses
+        lookup.execute(requestConfiguration, orderIds(2), 0, results::add);
+
+        // then: they aren't read again, as their status can't change
+        assertEquals(4, results.size());
+        verify(httpClient, times(2)).tryVerifyOrder(any(), anyString());
+    }
+
+    @Test
+    void execute_failureNotCached() throws InterruptedException {
+        // given: the partner API can't be reached
+        doReturn(CallResult.failure("Failed to contact the partner API", FailureCause.COMMUNICATION_ERROR))
+                .when(httpClient).tryVerifyOrder(any(), anyString());
+
+        // when: looking up the same order twice
+        lookup.execute(requestConfiguration, orderIds(1), 60, results::add);
+        lookup.execute(requestConfiguration, orderIds(1), 60, results::add);
+
+        // then: the failure is reported each time, and the partner API is called again
+        assertEquals(2, results.size());
+        assertTrue(results.stream().allMatch(BulkResult::isRetryable));
+        verify(httpClient, times(2)).tryVerifyOrder(any(), anyString());
+    }
+
+    @Test
+    void execute_unexpectedError() throws InterruptedException {
+        // given: an unexpected error for one order
+        doAnswer(anOrderRead("completed")).when(httpClient).tryVerifyOrder(any(), anyString());
+        doThrow(new IllegalStateException("boom")).when(httpClient).tryVerifyOrder(any(), eq("ord_1"));
+
+        // when: looking up 3 orders
+        lookup.execute(requestConfiguration, orderIds(3), 60, results::add);
+
+        // then: the lookup goes on, and the error is reported for that order only
+        assertEquals(3, results.size());
+        assertEquals(1, results.stream().filter(r -> r.getResult().getFailureCause() == FailureCause.INTERNAL_ERROR).count());
+    }
+
+    @Test
+    void execute_statusFromRefundReused() throws InterruptedException {
+        // given: an order refunded by the client, which keeps the response in the cache
+        cache.put(requestConfiguration, "ord_0", MockUtils.aSharegroopAPICallResponse("refunded"));
+
+        // when: looking up that order
+        lookup.execute(requestConfiguration, orderIds(1), 0, results::add);
+
+        // then: its status is given without calling the partner API
+        assertEquals(1, results.size());
+        assertEquals("refunded", results.get(0).getResult().getValue().getData().getStatus());
+        verify(httpClient, never()).tryVerifyOrder(any(), anyString());
+    }
+}
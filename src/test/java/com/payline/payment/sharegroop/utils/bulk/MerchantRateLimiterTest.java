@@ -0,0 +1,65 @@
+package com.payline.payment.sharegroop.utils.bulk;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MerchantRateLimiterTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(1000 * MILLIS);
+    private final AtomicInteger rate = new AtomicInteger(10);
+    private final MerchantRateLimiter limiter = new MerchantRateLimiter(rate::get, now::get);
+
+    @Test
+    void tryAcquire_spacedOut() {
+        // when: taking a slot, then the next one is free 100 ms later
+        assertEquals(0, limiter.tryAcquire("merchant1"));
+        assertEquals(100 * MILLIS, limiter.tryAcquire("merchant1"));
+
+        // when: time goes by, then the wait is shorter, and a slot isn't taken while waiting
+        now.addAndGet(40 * MILLIS);
+        assertEquals(60 * MILLIS, limiter.tryAcquire("merchant1"));
+        assertEquals(60 * MILLIS, limiter.tryAcquire("merchant1"));
+
+        // when: the slot is free, then it's taken
+        now.addAndGet(60 * MILLIS);
+        assertEquals(0, limiter.tryAcquire("merchant1"));
+        assertEquals(100 * MILLIS, limiter.tryAcquire("merchant1"));
+    }
+
+    @Test
+    void tryAcquire_merchantsIndependent() {
+        // when: taking slots for two merchants, then one doesn't delay the other
+        assertEquals(0, limiter.tryAcquire("merchant1"));
+        assertEquals(0, limiter.tryAcquire("merchant2"));
+        assertEquals(100 * MILLIS, limiter.tryAcquire("merchant1"));
+    }
+
+    @Test
+    void tryAcquire_idleMerchant() {
+        // given: a merchant idle for a while
+        limiter.tryAcquire("merchant1");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        // when: taking slots, then the idle time isn't saved up as a burst
+        assertEquals(0, limiter.tryAcquire("merchant1"));
+        assertEquals(100 * MILLIS, limiter.tryAcquire("merchant1"));
+    }
+
+    @Test
+    void tryAcquire_noLimit() {
+        // given: no rate limit
+        rate.set(0);
+
+        // when: taking slots, then there is never any wait
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("merchant1"));
+        }
+    }
+}
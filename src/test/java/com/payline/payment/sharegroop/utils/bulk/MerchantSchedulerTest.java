@@ -0,0 +1,78 @@
+package com.payline.payment.sharegroop.utils.bulk;
+
+import com.payline.payment.sharegroop.MockUtils;
+import com.payline.payment.sharegroop.bean.configuration.RequestConfiguration;
+import com.payline.payment.sharegroop.utils.Constants;
+import com.payline.pmapi.bean.payment.ContractConfiguration;
+import com.payline.pmapi.bean.payment.ContractProperty;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MerchantSchedulerTest {
+
+    private final RequestConfiguration merchant1 = aRequestConfiguration("PrivateKey1");
+    private final RequestConfiguration merchant2 = aRequestConfiguration("PrivateKey2");
+
+    private static RequestConfiguration aRequestConfiguration(String privateKey) {
+        ContractConfiguration contractConfiguration = MockUtils.aContractConfiguration();
+        contractConfiguration.getContractProperties().put(Constants.ContractConfigurationKeys.PRIVATE_KEY, new ContractProperty(privateKey));
+        return new RequestConfiguration(contractConfiguration, MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+    }
+
+    private static List<String> drain(MerchantScheduler scheduler) {
+        List<String> ids = new ArrayList<>();
+        while (scheduler.hasNext()) {
+            ids.add(scheduler.next().getTransactionId());
+        }
+        return ids;
+    }
+
+    @Test
+    void next_otherMerchantFirst() {
+        // given: 4 orders of a merchant limited to 100 calls per second, followed by 2 orders of another merchant
+        List<BulkItem> items = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            items.add(new BulkItem("a" + i, merchant1));
+        }
+        items.add(new BulkItem("b0", merchant2));
+        items.add(new BulkItem("b1", merchant2));
+        MerchantScheduler scheduler = new MerchantScheduler(items.iterator(), new MerchantRateLimiter(() -> 100, System::nanoTime), 10);
+
+        // when: reading the orders, then the other merchant doesn't wait for the orders of the first one
+        assertEquals(Arrays.asList("a0", "b0", "a1", "b1", "a2", "a3"), drain(scheduler));
+    }
+
+    @Test
+    void next_boundedReadAhead() {
+        // given: an iterator counting the orders read
+        AtomicInteger read = new AtomicInteger();
+        List<BulkItem> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            items.add(new BulkItem("a" + i, merchant1));
+        }
+        MerchantScheduler scheduler = new MerchantScheduler(items.stream().peek(i -> read.incrementAndGet()).iterator(),
+                new MerchantRateLimiter(() -> 0, System::nanoTime), 3);
+
+        // when: reading the first order, then only the read-ahead window is read
+        assertEquals("a0", scheduler.next().getTransactionId());
+        assertEquals(3, read.get());
+
+        // and the orders of a single merchant keep their order
+        assertEquals(Arrays.asList("a1", "a2", "a3", "a4", "a5", "a6", "a7", "a8", "a9"), drain(scheduler));
+    }
+
+    @Test
+    void next_empty() {
+        MerchantScheduler scheduler = new MerchantScheduler(Collections.emptyIterator(), new MerchantRateLimiter(() -> 10, System::nanoTime), 3);
+        assertFalse(scheduler.hasNext());
+        assertThrows(NoSuchElementException.class, scheduler::next);
+    }
+}
@@ -0,0 +1,80 @@
+package com.payline.payment.sharegroop.utils.cache;
+
+import com.payline.payment.sharegroop.MockUtils;
+import com.payline.payment.sharegroop.bean.configuration.RequestConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AbstractCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+
+    /**
+     * A cache of expiry dates, whose negative entries are pinned.
+     */
+    private class TestCache extends AbstractCache<Long> {
+        TestCache(int maxEntries) {
+            super(() -> maxEntries, now::get);
+        }
+
+        void put(String key, long expiresAt) {
+            entries.put(key, expiresAt);
+            this.purgeIfFull();
+        }
+
+        @Override
+        protected boolean isExpired(Long entry, long now) {
+            return entry >= 0 && entry - now <= 0;
+        }
+
+        @Override
+        protected boolean isEvictable(Long entry) {
+            return entry >= 0;
+        }
+    }
+
+    @Test
+    void key_salted() {
+        // given: two caches
+        TestCache cache = new TestCache(10);
+        TestCache other = new TestCache(10);
+
+        // then: the key depends on each of its parts, and on the salt of the cache
+        String key = cache.key(requestConfiguration, "refund", "ord_1");
+        assertEquals(key, cache.key(requestConfiguration, "refund", "ord_1"));
+        assertEquals(64, key.length());
+        assertFalse(key.contains("PrivateKey"));
+        assertNotEquals(key, cache.key(requestConfiguration, "refund", "ord_2"));
+        assertNotEquals(key, cache.key(requestConfiguration, "refundord_1"));
+        assertNotEquals(key, cache.key(requestConfiguration));
+        assertNotEquals(key, other.key(requestConfiguration, "refund", "ord_1"));
+    }
+
+    @Test
+    void purgeIfFull() {
+        // given: a full cache, with an expired entry
+        TestCache cache = new TestCache(3);
+        cache.put("expired", 5);
+        cache.put("valid", 100);
+        cache.put("pinned", -1);
+        now.set(10);
+
+        // when: adding an entry, then the expired one is removed
+        cache.put("new", 100);
+        assertEquals(3, cache.size());
+        assertFalse(cache.entries.containsKey("expired"));
+
+        // when: adding another one, all being valid, then the evictable ones are removed
+        cache.put("other", 100);
+        assertEquals(1, cache.size());
+        assertTrue(cache.entries.containsKey("pinned"));
+
+        // and clearing removes all of them
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,99 @@
+package com.payline.payment.sharegroop.utils.cache;
+
+import com.payline.payment.sharegroop.MockUtils;
+import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
+import com.payline.payment.sharegroop.bean.configuration.RequestConfiguration;
+import com.payline.payment.sharegroop.exception.PluginException;
+import com.payline.payment.sharegroop.service.JsonService;
+import com.payline.payment.sharegroop.utils.metrics.Operation;
+import com.payline.pmapi.bean.common.FailureCause;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderMutationCacheTest {
+
+    private static final long TTL = 100;
+    private static final Predicate<SharegroopAPICallResponse> REFUNDED = r -> "refunded".equals(r.getData().getStatus());
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+    private OrderMutationCache cache;
+
+    @BeforeEach
+    void setup() {
+        cache = new OrderMutationCache(TTL, 10, now::get);
+    }
+
+    private Supplier<SharegroopAPICallResponse> answering(String status) {
+        return () -> {
+            calls.incrementAndGet();
+            return JsonService.getInstance().fromJson(MockUtils.aShareGroopResponse(status), SharegroopAPICallResponse.class);
+        };
+    }
+
+    @Test
+    void execute_completedReused() {
+        SharegroopAPICallResponse first = cache.execute(requestConfiguration, Operation.REFUND, "ord_1", answering("refunded"), REFUNDED);
+        now.addAndGet(TTL - 1);
+        assertSame(first, cache.execute(requestConfiguration, Operation.REFUND, "ord_1", answering("refunded"), REFUNDED));
+        assertEquals(1, calls.get());
+
+        // once expired, the partner API is called again
+        now.addAndGet(1);
+        cache.execute(requestConfiguration, Operation.REFUND, "ord_1", answering("refunded"), REFUNDED);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void execute_notCompletedNotCached() {
+        cache.execute(requestConfiguration, Operation.REFUND, "ord_1", answering("confirmed"), REFUNDED);
+        cache.execute(requestConfiguration, Operation.REFUND, "ord_1", answering("confirmed"), REFUNDED);
+
+        assertEquals(2, calls.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void execute_differentOperationsAndOrders() {
+        cache.execute(requestConfiguration, Operation.REFUND, "ord_1", answering("refunded"), REFUNDED);
+        cache.execute(requestConfiguration, Operation.CANCEL, "ord_1", answering("refunded"), REFUNDED);
+        cache.execute(requestConfiguration, Operation.REFUND, "ord_2", answering("refunded"), REFUNDED);
+
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void execute_failurePropagated() {
+        Supplier<SharegroopAPICallResponse> failing = () -> {
+            throw new PluginException("Failed to contact the partner API", FailureCause.COMMUNICATION_ERROR);
+        };
+
+        assertThrows(PluginException.class, () -> cache.execute(requestConfiguration, Operation.REFUND, "ord_1", failing, REFUNDED));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void execute_noOrderId() {
+        cache.execute(requestConfiguration, Operation.REFUND, null, answering("refunded"), REFUNDED);
+        cache.execute(requestConfiguration, Operation.REFUND, null, answering("refunded"), REFUNDED);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void execute_bounded() {
+        for (int i = 0; i < 25; i++) {
+            cache.execute(requestConfiguration, Operation.REFUND, "ord_" + i, answering("refunded"), REFUNDED);
+        }
+
+        assertTrue(cache.size() <= 11);
+    }
+}
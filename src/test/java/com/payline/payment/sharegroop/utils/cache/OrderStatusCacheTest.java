@@ -0,0 +1,75 @@
+package com.payline.payment.sharegroop.utils.cache;
+
+import com.payline.payment.sharegroop.MockUtils;
+import com.payline.payment.sharegroop.bean.SharegroopAPICallResponse;
+import com.payline.payment.sharegroop.bean.configuration.RequestConfiguration;
+import com.payline.payment.sharegroop.service.JsonService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderStatusCacheTest {
+
+    private static final long TTL = 100;
+
+    private final AtomicLong now = new AtomicLong();
+    private final RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+    private OrderStatusCache cache;
+
+    @BeforeEach
+    void setup() {
+        cache = new OrderStatusCache(TTL, 10, now::get);
+    }
+
+    @Test
+    void get_freshEnough() {
+        // given: an order read a while ago
+        SharegroopAPICallResponse response = MockUtils.aSharegroopAPICallResponse("confirmed");
+        cache.put(requestConfiguration, "ord_1", response);
+        now.addAndGet(10);
+
+        // when: getting it, then it's reused only if it's recent enough
+        assertSame(response, cache.get(requestConfiguration, "ord_1", 10));
+        assertNull(cache.get(requestConfiguration, "ord_1", 9));
+        assertNull(cache.get(requestConfiguration, "ord_2", 10));
+    }
+
+    @Test
+    void get_finalStatus() {
+        // given: a refunded order read a while ago
+        SharegroopAPICallResponse response = MockUtils.aSharegroopAPICallResponse("refunded");
+        cache.put(requestConfiguration, "ord_1", response);
+        now.addAndGet(TTL - 1);
+
+        // when: getting it, then it's reused whatever its age
+        assertSame(response, cache.get(requestConfiguration, "ord_1", 0));
+
+        // once expired, it isn't
+        now.addAndGet(1);
+        assertNull(cache.get(requestConfiguration, "ord_1", 0));
+    }
+
+    @Test
+    void put_failureNotCached() {
+        // when: putting a failed response
+        SharegroopAPICallResponse response = JsonService.getInstance()
+                .fromJson(MockUtils.aShareGroopResponse("refunded").replace("\"success\":true", "\"success\":false"), SharegroopAPICallResponse.class);
+        cache.put(requestConfiguration, "ord_1", response);
+
+        // then: it isn't kept
+        assertEquals(0, cache.size());
+        assertNull(cache.get(requestConfiguration, "ord_1", TTL));
+    }
+
+    @Test
+    void put_bounded() {
+        for (int i = 0; i < 25; i++) {
+            cache.put(requestConfiguration, "ord_" + i, MockUtils.aSharegroopAPICallResponse("confirmed"));
+        }
+
+        assertTrue(cache.size() <= 10);
+    }
+}
@@ -0,0 +1,153 @@
+package com.payline.payment.sharegroop.utils.cache;
+
+import com.payline.payment.sharegroop.MockUtils;
+import com.payline.payment.sharegroop.bean.configuration.RequestConfiguration;
+import com.payline.payment.sharegroop.exception.PluginException;
+import com.payline.payment.sharegroop.utils.Constants;
+import com.payline.pmapi.bean.common.FailureCause;
+import com.payline.pmapi.bean.payment.ContractConfiguration;
+import com.payline.pmapi.bean.payment.ContractProperty;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrivateKeyValidationCacheTest {
+
+    private static final long POSITIVE_TTL = 100;
+    private static final long NEGATIVE_TTL = 10;
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+    private PrivateKeyValidationCache cache;
+
+    @BeforeEach
+    void setup() {
+        cache = new PrivateKeyValidationCache(POSITIVE_TTL, NEGATIVE_TTL, 10, now::get);
+    }
+
+    private RequestConfiguration aRequestConfiguration(String privateKey) {
+        ContractConfiguration contractConfiguration = MockUtils.aContractConfiguration();
+        contractConfiguration.getContractProperties().put(Constants.ContractConfigurationKeys.PRIVATE_KEY, new ContractProperty(privateKey));
+        return new RequestConfiguration(contractConfiguration, MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+    }
+
+    private Consumer<RequestConfiguration> failing(FailureCause failureCause) {
+        return configuration -> {
+            calls.incrementAndGet();
+            throw new PluginException("invalid key", failureCause);
+        };
+    }
+
+    @Test
+    void validate_positiveResultReused() {
+        Consumer<RequestConfiguration> verification = configuration -> calls.incrementAndGet();
+
+        assertNull(cache.validate(aRequestConfiguration("key"), verification));
+        now.addAndGet(POSITIVE_TTL - 1);
+        assertNull(cache.validate(aRequestConfiguration("key"), verification));
+        assertEquals(1, calls.get());
+
+        // once expired, the key is validated again
+        now.addAndGet(1);
+        assertNull(cache.validate(aRequestConfiguration("key"), verification));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void validate_negativeResultReusedForShorterTime() {
+        Consumer<RequestConfiguration> verification = failing(FailureCause.INVALID_DATA);
+
+        assertEquals("invalid key", cache.validate(aRequestConfiguration("key"), verification));
+        now.addAndGet(NEGATIVE_TTL - 1);
+        assertEquals("invalid key", cache.validate(aRequestConfiguration("key"), verification));
+        assertEquals(1, calls.get());
+
+        now.addAndGet(1);
+        cache.validate(aRequestConfiguration("key"), verification);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void validate_communicationErrorNotCached() {
+        Consumer<RequestConfiguration> verification = failing(FailureCause.COMMUNICATION_ERROR);
+
+        assertEquals("invalid key", cache.validate(aRequestConfiguration("key"), verification));
+        assertEquals("invalid key", cache.validate(aRequestConfiguration("key"), verification));
+        assertEquals(2, calls.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void validate_differentKeys() {
+        Consumer<RequestConfiguration> verification = configuration -> calls.incrementAndGet();
+
+        cache.validate(aRequestConfiguration("key1"), verification);
+        cache.validate(aRequestConfiguration("key2"), verification);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void validate_unexpectedErrorPropagated() {
+        RequestConfiguration configuration = aRequestConfiguration("key");
+        Consumer<RequestConfiguration> verification = c -> {
+            throw new IllegalStateException("unexpected");
+        };
+
+        assertThrows(IllegalStateException.class, () -> cache.validate(configuration, verification));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void validate_concurrentCallsCoalesced() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Consumer<RequestConfiguration> verification = configuration -> {
+            calls.incrementAndGet();
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> first = executor.submit(() -> cache.validate(aRequestConfiguration("key"), verification));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<String> second = executor.submit(() -> cache.validate(aRequestConfiguration("key"), verification));
+            Future<String> third = executor.submit(() -> cache.validate(aRequestConfiguration("key"), verification));
+            release.countDown();
+
+            assertNull(first.get(5, TimeUnit.SECONDS));
+            assertNull(second.get(5, TimeUnit.SECONDS));
+            assertNull(third.get(5, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void validate_bounded() {
+        Consumer<RequestConfiguration> verification = configuration -> calls.incrementAndGet();
+
+        for (int i = 0; i < 25; i++) {
+            cache.validate(aRequestConfiguration("key" + i), verification);
+        }
+
+        assertTrue(cache.size() <= 11);
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.payline.payment.sharegroop.utils.http;
+
+import com.payline.payment.sharegroop.utils.metrics.Phase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CallTimerTest {
+
+    @Test
+    void stop_newConnection() {
+        // given: a call which waited for the pool, opened a TLS connection, then got its response
+        CallTimer timer = new CallTimer(1_000);
+        timer.connectStarted(3_000);
+        timer.addConnect(2_000);
+        timer.addTlsHandshake(10_000);
+        timer.requestSent(16_000);
+        timer.headersReceived(50_000);
+
+        // when: the body has been read
+        CallTimings timings = timer.stop(55_000);
+
+        // then: each phase has its share of the total
+        assertEquals(2_000, timings.get(Phase.POOL_WAIT));
+        assertEquals(2_000, timings.get(Phase.CONNECT));
+        assertEquals(10_000, timings.get(Phase.TLS_HANDSHAKE));
+        assertEquals(34_000, timings.get(Phase.SERVER));
+        assertEquals(5_000, timings.get(Phase.BODY_READ));
+        assertEquals(54_000, timings.getTotal());
+        assertFalse(timings.isConnectionReused());
+    }
+
+    @Test
+    void stop_reusedConnection() {
+        // given: a call on a pooled connection
+        CallTimer timer = new CallTimer(1_000);
+        timer.requestSent(4_000);
+        timer.headersReceived(20_000);
+
+        // when: the body has been read
+        CallTimings timings = timer.stop(21_000);
+
+        // then: no connect time, the time before sending the request is the pool wait
+        assertEquals(3_000, timings.get(Phase.POOL_WAIT));
+        assertEquals(0, timings.get(Phase.CONNECT));
+        assertEquals(0, timings.get(Phase.TLS_HANDSHAKE));
+        assertEquals(16_000, timings.get(Phase.SERVER));
+        assertEquals(1_000, timings.get(Phase.BODY_READ));
+        assertTrue(timings.isConnectionReused());
+    }
+
+    @Test
+    void stop_noStages() {
+        // given: a call which didn't go through the timing-aware components
+        CallTimer timer = new CallTimer(1_000);
+
+        // when: the response has been read
+        CallTimings timings = timer.stop(3_000);
+
+        // then: the whole time is body read, nothing is negative
+        assertEquals(0, timings.get(Phase.POOL_WAIT));
+        assertEquals(0, timings.get(Phase.SERVER));
+        assertEquals(2_000, timings.get(Phase.BODY_READ));
+    }
+
+    @Test
+    void from() {
+        // given: a context holding a timer, and an empty one
+        CallTimer timer = new CallTimer(0);
+        HttpClientContext context = HttpClientContext.create();
+        context.setAttribute(CallTimer.ATTRIBUTE, timer);
+
+        // when: looking for the timer, then: it's found only in the first one
+        assertSame(timer, CallTimer.from(context));
+        assertNull(CallTimer.from(HttpClientContext.create()));
+        assertNull(CallTimer.from(null));
+    }
+}
@@ -0,0 +1,165 @@
+package com.payline.payment.sharegroop.utils.http;
+
+import com.payline.payment.sharegroop.utils.http.EndpointSelector.Endpoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndpointSelectorTest {
+
+    private static final String ENDPOINTS = "https://api-eu.sharegroop.test,https://api-us.sharegroop.test";
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(1);
+    private EndpointSelector selector;
+
+    @BeforeEach
+    void setup() {
+        selector = new EndpointSelector(() -> 3, () -> TimeUnit.SECONDS.toNanos(30), clock::get);
+    }
+
+    private Endpoint endpoint(String baseUrl) {
+        return endpoint(ENDPOINTS, baseUrl);
+    }
+
+    private Endpoint endpoint(String sharegroopUrl, String baseUrl) {
+        return selector.endpointOf(sharegroopUrl, URI.create(baseUrl + "/v1/orders/"));
+    }
+
+    @Test
+    void select_singleUrl() throws URISyntaxException {
+        // when: selecting among a single URL, then it's returned as is, and not tracked
+        assertEquals("https://api.sharegroop.test", selector.select("https://api.sharegroop.test"));
+        assertNull(endpoint("https://api.sharegroop.test", "https://api.sharegroop.test"));
+    }
+
+    @Test
+    void select_fastest() throws URISyntaxException {
+        // given: two endpoints, one much faster than the other
+        selector.select(ENDPOINTS);
+        Endpoint eu = endpoint("https://api-eu.sharegroop.test");
+        Endpoint us = endpoint("https://api-us.sharegroop.test");
+        selector.callStarted(eu);
+        selector.callEnded(eu, true, 20 * MILLIS);
+        selector.callStarted(us);
+        selector.callEnded(us, true, 200 * MILLIS);
+
+        // when: selecting an endpoint, then the fastest is chosen
+        for (int i = 0; i < 10; i++) {
+            assertEquals("https://api-eu.sharegroop.test", selector.select(ENDPOINTS));
+        }
+    }
+
+    @Test
+    void select_loadAware() throws URISyntaxException {
+        // given: the fastest endpoint already has many calls in flight
+        selector.select(ENDPOINTS);
+        Endpoint eu = endpoint("https://api-eu.sharegroop.test");
+        Endpoint us = endpoint("https://api-us.sharegroop.test");
+        selector.callStarted(eu);
+        selector.callEnded(eu, true, 20 * MILLIS);
+        selector.callStarted(us);
+        selector.callEnded(us, true, 50 * MILLIS);
+        for (int i = 0; i < 5; i++) {
+            selector.callStarted(eu);
+        }
+
+        // when: selecting an endpoint, then the other one is chosen
+        assertEquals("https://api-us.sharegroop.test", selector.select(ENDPOINTS));
+    }
+
+    @Test
+    void callEnded_ejection() throws URISyntaxException {
+        // given: an endpoint failing 3 times in a row
+        selector.select(ENDPOINTS);
+        Endpoint eu = endpoint("https://api-eu.sharegroop.test");
+        for (int i = 0; i < 3; i++) {
+            selector.callStarted(eu);
+            selector.callEnded(eu, false, MILLIS);
+        }
+
+        // then: it's ejected, and the other endpoint gets the calls
+        assertTrue(eu.isEjected(clock.get()));
+        assertEquals("https://api-us.sharegroop.test", selector.select(ENDPOINTS));
+
+        // when: the ejection time is over, then it's back
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        assertFalse(eu.isEjected(clock.get()));
+    }
+
+    @Test
+    void callEnded_lastEndpointNotEjected() throws URISyntaxException {
+        // given: both endpoints failing
+        selector.select(ENDPOINTS);
+        Endpoint eu = endpoint("https://api-eu.sharegroop.test");
+        Endpoint us = endpoint("https://api-us.sharegroop.test");
+        for (int i = 0; i < 3; i++) {
+            selector.callStarted(eu);
+            selector.callEnded(eu, false, MILLIS);
+            selector.callStarted(us);
+            selector.callEnded(us, false, MILLIS);
+        }
+
+        // then: only the first one to reach the threshold is ejected
+        assertTrue(eu.isEjected(clock.get()));
+        assertFalse(us.isEjected(clock.get()));
+    }
+
+    @Test
+    void failover() throws URISyntaxException {
+        // given: a failed endpoint
+        selector.select(ENDPOINTS);
+        Endpoint eu = endpoint("https://api-eu.sharegroop.test");
+        Endpoint us = endpoint("https://api-us.sharegroop.test");
+
+        // when: failing over, then the other endpoint is chosen, even if it failed too
+        assertSame(us, selector.failover(eu, Collections.singleton(eu)));
+        assertSame(us, selector.failover(eu, new HashSet<>(Arrays.asList(eu, us))));
+
+        // and the URI is moved to it
+        assertEquals(URI.create("https://api-us.sharegroop.test/v1/orders/123/"),
+                us.rewrite(URI.create("https://api-eu.sharegroop.test/v1/orders/123/"), eu));
+    }
+
+    @Test
+    void select_invalidUrl() {
+        // when: selecting among a list with an invalid URL, then an exception is thrown
+        assertThrows(URISyntaxException.class, () -> selector.select("https://api.sharegroop.test, ://api"));
+    }
+
+    @Test
+    void failover_sharedUrl() throws URISyntaxException {
+        // given: two lists sharing their first URL, and a single URL, used by different merchants
+        String otherEndpoints = "https://api-eu.sharegroop.test,https://api-asia.sharegroop.test";
+        selector.select(ENDPOINTS);
+        selector.select(otherEndpoints);
+        Endpoint eu = endpoint("https://api-eu.sharegroop.test");
+        Endpoint otherEu = endpoint(otherEndpoints, "https://api-eu.sharegroop.test");
+
+        // then: each list has its own endpoint for the shared URL
+        assertNotSame(eu, otherEu);
+        assertNull(endpoint("https://api-eu.sharegroop.test", "https://api-eu.sharegroop.test"));
+        assertNull(endpoint(null, "https://api-eu.sharegroop.test"));
+
+        // when: failing over, then the call stays within the list it has been sent with
+        assertEquals("https://api-us.sharegroop.test", selector.failover(eu, Collections.singleton(eu)).getBaseUrl());
+        assertEquals("https://api-asia.sharegroop.test", selector.failover(otherEu, Collections.singleton(otherEu)).getBaseUrl());
+
+        // and the failures of an endpoint don't eject the same URL in the other list
+        for (int i = 0; i < 3; i++) {
+            selector.callStarted(eu);
+            selector.callEnded(eu, false, MILLIS);
+        }
+        assertTrue(eu.isEjected(clock.get()));
+        assertFalse(otherEu.isEjected(clock.get()));
+    }
+}
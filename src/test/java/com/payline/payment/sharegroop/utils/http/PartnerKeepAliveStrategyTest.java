@@ -0,0 +1,99 @@
+package com.payline.payment.sharegroop.utils.http;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartnerKeepAliveStrategyTest {
+
+    private final HttpRoute route = new HttpRoute(new HttpHost("api.sharegroop.com", 443, "https"));
+    private final AtomicLong now = new AtomicLong();
+    private PartnerKeepAliveStrategy strategy;
+    private HttpClientContext context;
+
+    @BeforeEach
+    void setup() {
+        strategy = new PartnerKeepAliveStrategy(() -> 50000, now::get);
+        context = HttpClientContext.create();
+        context.setAttribute(HttpClientContext.HTTP_ROUTE, route);
+    }
+
+    private HttpResponse aResponse(String keepAlive) {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        if (keepAlive != null) {
+            response.setHeader("Keep-Alive", keepAlive);
+        }
+        return response;
+    }
+
+    @Test
+    void getKeepAliveDuration_serverTimeout() {
+        // the server timeout, minus a margin of 1 second at most
+        assertEquals(59000, strategy.getKeepAliveDuration(aResponse("timeout=60"), context));
+        assertEquals(59000, strategy.getKeepAlive(route));
+        assertEquals(1000, strategy.getKeepAliveDuration(aResponse("timeout=2"), context));
+    }
+
+    @Test
+    void getKeepAliveDuration_noTimeout() {
+        // the default duration applies
+        assertEquals(50000, strategy.getKeepAliveDuration(aResponse(null), context));
+        assertEquals(Collections.singleton(route), strategy.getRoutes());
+    }
+
+    @Test
+    void register() {
+        // given: a route already called
+        strategy.getKeepAliveDuration(aResponse("timeout=10"), context);
+
+        // when: registering it, then: its keep-alive is kept
+        strategy.register(route);
+        assertEquals(9000, strategy.getKeepAlive(route));
+
+        // a new route gets the default duration
+        HttpRoute other = new HttpRoute(new HttpHost("api.sandbox.sharegroop.com", 443, "https"));
+        strategy.register(other);
+        assertEquals(50000, strategy.getKeepAlive(other));
+        assertEquals(2, strategy.getRoutes().size());
+    }
+
+    @Test
+    void forgetIdleRoutes() {
+        // given: a route called with a keep-alive of 9 seconds, and a route registered without keep-alive
+        strategy.getKeepAliveDuration(aResponse("timeout=10"), context);
+        HttpRoute other = new HttpRoute(new HttpHost("api.sandbox.sharegroop.com", 443, "https"));
+        strategy.register(other);
+
+        // when: the routes are only kept warm for 3 keep-alive durations
+        now.set(27000);
+        strategy.getPingKeepAliveDuration(aResponse("timeout=10"), context);
+        strategy.forgetIdleRoutes(1000);
+        assertEquals(2, strategy.getRoutes().size());
+        now.set(27001);
+        strategy.forgetIdleRoutes(1000);
+
+        // then: the route called is forgotten, the other one has a longer keep-alive
+        assertEquals(Collections.singleton(other), strategy.getRoutes());
+
+        // and a route with no keep-alive limit is forgotten after 3 times the given period
+        PartnerKeepAliveStrategy unlimited = new PartnerKeepAliveStrategy(() -> 0, now::get);
+        unlimited.register(route);
+        now.set(27001 + 3 * 30000);
+        unlimited.forgetIdleRoutes(30000);
+        assertEquals(1, unlimited.getRoutes().size());
+        now.incrementAndGet();
+        unlimited.forgetIdleRoutes(30000);
+        assertTrue(unlimited.getRoutes().isEmpty());
+    }
+}
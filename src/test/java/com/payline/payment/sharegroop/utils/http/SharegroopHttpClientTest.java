@@ -7,23 +7,47 @@ import com.payline.payment.sharegroop.bean.payment.Order;
 import com.payline.payment.sharegroop.exception.InvalidDataException;
 import com.payline.payment.sharegroop.exception.PluginException;
 import com.payline.payment.sharegroop.utils.Constants;
+import com.payline.payment.sharegroop.utils.cache.OrderStatusCache;
+import com.payline.payment.sharegroop.utils.metrics.Operation;
+import com.payline.payment.sharegroop.utils.metrics.Outcome;
+import com.payline.payment.sharegroop.utils.metrics.SharegroopMetrics;
+import com.payline.payment.sharegroop.utils.metrics.SlowCallDetector;
+import com.payline.pmapi.bean.common.FailureCause;
 import com.payline.pmapi.bean.configuration.PartnerConfiguration;
 import com.payline.pmapi.bean.payment.ContractConfiguration;
 import com.payline.pmapi.bean.payment.ContractProperty;
+import org.apache.http.HttpHeaders;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.protocol.HttpContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.payline.payment.sharegroop.utils.http.HttpTestUtils.mockHttpResponse;
 import static org.junit.jupiter.api.Assertions.*;
@@ -36,6 +60,12 @@ class SharegroopHttpClientTest {
     private SharegroopHttpClient sharegroopHttpClient;
     @Mock
     private CloseableHttpClient http;
+    @Mock
+    private SharegroopMetrics metrics;
+    @Mock
+    private SlowCallDetector slowCalls;
+    @Mock
+    private OrderStatusCache statuses;
 
     @BeforeEach
     void setup() {
@@ -53,7 +83,7 @@ class SharegroopHttpClientTest {
         String expectedStatusMessage = "OK";
         String expectedContent = "{\"content\":\"fake\"}";
         doReturn(mockHttpResponse(expectedStatusCode, expectedStatusMessage, expectedContent, null))
-                .when(http).execute(request);
+                .when(http).execute(eq(request), any(HttpContext.class));
 
         // when: sending the request
         StringResponse stringResponse = sharegroopHttpClient.execute(request);
@@ -69,7 +99,7 @@ class SharegroopHttpClientTest {
     void execute_retry() throws IOException {
         // given: the first 2 requests end up in timeout, the third request gets a response
         HttpGet request = new HttpGet("http://domain.test.fr/endpoint");
-        when(http.execute(request))
+        when(http.execute(eq(request), any(HttpContext.class)))
                 .thenThrow(ConnectTimeoutException.class)
                 .thenThrow(ConnectTimeoutException.class)
                 .thenReturn(mockHttpResponse(200, "OK", "content", null));
@@ -81,11 +111,98 @@ class SharegroopHttpClientTest {
         assertNotNull(stringResponse);
     }
 
+    @Test
+    void execute_metrics() throws IOException {
+        // given: the first request ends up in timeout, the second one gets a response
+        HttpGet request = new HttpGet("http://domain.test.fr/endpoint");
+        when(http.execute(eq(request), any(HttpContext.class)))
+                .thenThrow(ConnectTimeoutException.class)
+                .thenReturn(mockHttpResponse(404, "Not Found", "content", null));
+
+        // when: sending the request
+        sharegroopHttpClient.execute(request, Operation.VERIFY);
+
+        // then: both attempts are recorded
+        verify(metrics).record(eq(Operation.VERIFY), eq(Outcome.RETRY), anyLong());
+        verify(metrics).record(eq(Operation.VERIFY), eq(Outcome.STATUS_4XX), anyLong());
+        // and the timings of the call which got the response
+        verify(metrics).record(eq(Operation.VERIFY), any(CallTimings.class));
+        verifyNoMoreInteractions(metrics);
+    }
+
+    @Test
+    void execute_timings() throws IOException {
+        // given: a request which gets a response
+        HttpGet request = new HttpGet("http://domain.test.fr/endpoint");
+        doReturn(mockHttpResponse(200, "OK", "content", null))
+                .when(http).execute(eq(request), any(HttpContext.class));
+
+        // when: sending the request
+        StringResponse stringResponse = sharegroopHttpClient.execute(request, Operation.VERIFY);
+
+        // then: the timings of the call are attached to the response
+        CallTimings timings = stringResponse.getTimings();
+        assertNotNull(timings);
+        assertTrue(timings.getTotal() >= 0);
+        assertTrue(timings.isConnectionReused());
+        verify(metrics).record(Operation.VERIFY, timings);
+    }
+
+    @Test
+    void execute_slowCall() throws IOException {
+        // given: a request with a private key, which gets a response considered slow
+        HttpPost request = new HttpPost("http://domain.test.fr/endpoint");
+        request.setHeader(HttpHeaders.AUTHORIZATION, "sk_test_key");
+        request.setEntity(new StringEntity("{\"email\":\"buyer@test.fr\"}", StandardCharsets.UTF_8));
+        doReturn(mockHttpResponse(200, "OK", "content", null))
+                .when(http).execute(eq(request), any(HttpContext.class));
+        doReturn(true).when(slowCalls).isSlow(eq(Operation.CREATE), anyLong(), anyLong());
+
+        // when: sending the request
+        sharegroopHttpClient.execute(request, Operation.CREATE);
+
+        // then: the call is captured, without the private key nor the body
+        ArgumentCaptor<String> requestSummary = ArgumentCaptor.forClass(String.class);
+        verify(slowCalls).capture(eq(Operation.CREATE), eq(1), eq(Outcome.STATUS_2XX), anyLong(), anyLong(),
+                requestSummary.capture(), eq("200 OK (7 bytes)"), any(CallTimings.class), anyString());
+        assertFalse(requestSummary.getValue().contains("sk_test_key"));
+        assertFalse(requestSummary.getValue().contains("buyer@test.fr"));
+    }
+
+    @Test
+    void execute_notSlow() throws IOException {
+        // given: a request which gets a response in time
+        HttpGet request = new HttpGet("http://domain.test.fr/endpoint");
+        doReturn(mockHttpResponse(200, "OK", "content", null))
+                .when(http).execute(eq(request), any(HttpContext.class));
+
+        // when: sending the request
+        sharegroopHttpClient.execute(request, Operation.VERIFY);
+
+        // then: nothing is captured
+        verify(slowCalls).isSlow(eq(Operation.VERIFY), anyLong(), anyLong());
+        verifyNoMoreInteractions(slowCalls);
+    }
+
+    @Test
+    void execute_metricsFail() throws IOException {
+        // given: a request which always gets an exception
+        HttpGet request = new HttpGet("http://domain.test.fr/endpoint");
+        doThrow(IOException.class).when(http).execute(eq(request), any(HttpContext.class));
+
+        // when: sending the request
+        assertThrows(PluginException.class, () -> sharegroopHttpClient.execute(request, Operation.REFUND));
+
+        // then: the last attempt is recorded as a failure, the other ones as retries
+        verify(metrics, times(2)).record(eq(Operation.REFUND), eq(Outcome.RETRY), anyLong());
+        verify(metrics).record(eq(Operation.REFUND), eq(Outcome.IO_EXCEPTION), anyLong());
+    }
+
     @Test
     void execute_retryFail() throws IOException {
         // given: a request which always gets an exception
         HttpGet request = new HttpGet("http://domain.test.fr/endpoint");
-        doThrow(IOException.class).when(http).execute(request);
+        doThrow(IOException.class).when(http).execute(eq(request), any(HttpContext.class));
 
         // when: sending the request, a PluginException is thrown
         assertThrows(PluginException.class, () -> sharegroopHttpClient.execute(request));
@@ -95,7 +212,7 @@ class SharegroopHttpClientTest {
     void execute_invalidResponse() throws IOException {
         // given: a request that gets an invalid response (null)
         HttpGet request = new HttpGet("http://domain.test.fr/malfunctioning-endpoint");
-        doReturn(null).when(http).execute(request);
+        doReturn(null).when(http).execute(eq(request), any(HttpContext.class));
 
         // when: sending the request, a PluginException is thrown
         assertThrows(PluginException.class, () -> sharegroopHttpClient.execute(request));
@@ -109,14 +226,14 @@ class SharegroopHttpClientTest {
 
         String content = MockUtils.aShareGroopResponse("initiated");
         StringResponse response = HttpTestUtils.mockStringResponse(200, "OK", content, null);
-        doReturn(response).when(sharegroopHttpClient).execute(any(HttpRequestBase.class));
+        doReturn(response).when(sharegroopHttpClient).execute(any(HttpRequestBase.class), any(Operation.class), any());
 
         // when : calling createOrder method
         SharegroopAPICallResponse result = sharegroopHttpClient.createOrder(requestConfiguration, MockUtils.anOrder());
 
         // then
         assertNotNull(result);
-        verify(http, never()).execute(any(HttpRequestBase.class));
+        verify(http, never()).execute(any(HttpRequestBase.class), any(HttpContext.class));
     }
 
     @Test
@@ -179,7 +296,7 @@ class SharegroopHttpClientTest {
         RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
         StringResponse verifyPrivateKeyValidResponse = HttpTestUtils.mockStringResponse(400, "Bad Request", "{\"status\":400,\"success\":false,\"errors\":[\"should be object\"]}", null);
 
-        doReturn(verifyPrivateKeyValidResponse).when(sharegroopHttpClient).execute(any(HttpRequestBase.class));
+        doReturn(verifyPrivateKeyValidResponse).when(sharegroopHttpClient).execute(any(HttpRequestBase.class), any(Operation.class), any());
 
         // when : calling verifyPrivateKey method
         Boolean result = sharegroopHttpClient.verifyPrivateKey(requestConfiguration);
@@ -268,15 +385,223 @@ class SharegroopHttpClientTest {
 
         String content = MockUtils.aShareGroopResponse("initiated");
         StringResponse response = HttpTestUtils.mockStringResponse(200, "OK", content, null);
-        doReturn(response).when(sharegroopHttpClient).execute(any(HttpRequestBase.class));
+        doReturn(response).when(sharegroopHttpClient).execute(any(HttpRequestBase.class), any(Operation.class), any());
 
         // when : calling verify method
         SharegroopAPICallResponse result = sharegroopHttpClient.verifyOrder(requestConfiguration, MockUtils.anOrderId());
 
         // then
         assertNotNull(result);
+        verify(statuses).put(requestConfiguration, MockUtils.anOrderId(), result);
+
+        verify(http, never()).execute(any(HttpRequestBase.class), any(HttpContext.class));
+    }
+
+    @Test
+    void tryVerifyOrder_nominal() throws IOException {
+        // given: a valid configuration, and the partner API which answers
+        RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+        doReturn(mockHttpResponse(200, "OK", MockUtils.aShareGroopResponse("confirmed"), null))
+                .when(http).execute(any(HttpRequestBase.class), any(HttpContext.class));
+
+        // when: calling the result-object variant
+        CallResult<SharegroopAPICallResponse> result = sharegroopHttpClient.tryVerifyOrder(requestConfiguration, MockUtils.anOrderId());
+
+        // then: the response is returned, and kept for the status lookups
+        assertTrue(result.isSuccess());
+        assertNotNull(result.getValue());
+        assertNull(result.getFailureCause());
+        verify(statuses).put(requestConfiguration, MockUtils.anOrderId(), result.getValue());
+    }
+
+    @Test
+    void tryVerifyOrder_missingOrderId() {
+        // given: no order id
+        RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+
+        // when: calling the result-object variant
+        CallResult<SharegroopAPICallResponse> result = sharegroopHttpClient.tryVerifyOrder(requestConfiguration, null);
+
+        // then: a failure is returned instead of being thrown
+        assertFalse(result.isSuccess());
+        assertEquals(FailureCause.INVALID_DATA, result.getFailureCause());
+        assertEquals("Missing an order Id", result.getErrorCode());
+        assertThrows(InvalidDataException.class, () -> sharegroopHttpClient.verifyOrder(requestConfiguration, null));
+    }
+
+    @Test
+    void tryVerifyOrder_serverError() throws IOException {
+        // given: the partner API answers with a server error, and a JSON body
+        RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+        doReturn(mockHttpResponse(503, "Service Unavailable", "{\"status\":503,\"success\":false}", null))
+                .when(http).execute(any(HttpRequestBase.class), any(HttpContext.class));
+
+        // when: calling the result-object variant
+        CallResult<SharegroopAPICallResponse> result = sharegroopHttpClient.tryVerifyOrder(requestConfiguration, MockUtils.anOrderId());
+
+        // then: a communication failure is returned, so that the call can be made again later
+        assertFalse(result.isSuccess());
+        assertEquals(FailureCause.COMMUNICATION_ERROR, result.getFailureCause());
+        assertEquals("Partner API unavailable: HTTP 503", result.getErrorCode());
+        verifyNoInteractions(statuses);
+    }
+
+    @Test
+    void tryVerifyOrder_rateLimited() throws IOException {
+        // given: the partner API rejects the call because of its rate limit
+        RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+        doReturn(mockHttpResponse(429, "Too Many Requests", "{\"status\":429,\"success\":false}", null))
+                .when(http).execute(any(HttpRequestBase.class), any(HttpContext.class));
+
+        // when: calling the result-object variant
+        CallResult<SharegroopAPICallResponse> result = sharegroopHttpClient.tryVerifyOrder(requestConfiguration, MockUtils.anOrderId());
+
+        // then: a communication failure is returned
+        assertEquals(FailureCause.COMMUNICATION_ERROR, result.getFailureCause());
+    }
+
+    @Test
+    void tryVerifyOrder_unreadableResponse() throws IOException {
+        // given: an HTML page instead of a partner API response, e.g. from a proxy
+        RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+        doReturn(mockHttpResponse(200, "OK", "<html><body>Bad gateway</body></html>", null))
+                .when(http).execute(any(HttpRequestBase.class), any(HttpContext.class));
+
+        // when: calling the result-object variant
+        CallResult<SharegroopAPICallResponse> result = sharegroopHttpClient.tryVerifyOrder(requestConfiguration, MockUtils.anOrderId());
+
+        // then: a communication failure is returned instead of the parsing error being thrown
+        assertFalse(result.isSuccess());
+        assertEquals(FailureCause.COMMUNICATION_ERROR, result.getFailureCause());
+        assertEquals("Invalid partner API response", result.getErrorCode());
+    }
+
+    @Test
+    void tryRefundOrder_communicationFailure() throws IOException {
+        // given: the partner API which can't be reached
+        RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+        doThrow(IOException.class).when(http).execute(any(HttpRequestBase.class), any(HttpContext.class));
+
+        // when: calling the result-object variant
+        CallResult<SharegroopAPICallResponse> result = sharegroopHttpClient.tryRefundOrder(requestConfiguration, MockUtils.anOrderId());
+
+        // then: a communication failure is returned, after all the attempts
+        assertFalse(result.isSuccess());
+        assertEquals(FailureCause.COMMUNICATION_ERROR, result.getFailureCause());
+        verify(http, times(3)).execute(any(HttpRequestBase.class), any(HttpContext.class));
+        PluginException e = assertThrows(PluginException.class, result::getOrThrow);
+        assertEquals(FailureCause.COMMUNICATION_ERROR, e.getFailureCause());
+    }
+
+    @Test
+    void tryCancelOrder_nominal() throws IOException {
+        // given: a valid configuration, and the partner API which answers
+        RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+        doReturn(mockHttpResponse(200, "OK", MockUtils.aShareGroopResponse("cancelled"), null))
+                .when(http).execute(any(HttpRequestBase.class), any(HttpContext.class));
+
+        // when: calling the result-object variant
+        CallResult<SharegroopAPICallResponse> result = sharegroopHttpClient.tryCancelOrder(requestConfiguration, MockUtils.anOrderId());
+
+        // then: the response is returned
+        assertTrue(result.isSuccess());
+        assertSame(result.getValue(), result.getOrThrow());
+        verify(metrics).record(eq(Operation.CANCEL), eq(Outcome.STATUS_2XX), anyLong());
+    }
+
+    @Test
+    void verifyOrder_failover() throws IOException {
+        // given: two endpoints, the first call fails
+        RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), aPartnerConfigurationWithTwoEndpoints());
+        List<String> hosts = new ArrayList<>();
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            hosts.add(((HttpRequestBase) invocation.getArgument(0)).getURI().getHost());
+            if (calls.incrementAndGet() == 1) {
+                throw new SocketTimeoutException();
+            }
+            return mockHttpResponse(200, "OK", MockUtils.aShareGroopResponse("completed"), null);
+        }).when(http).execute(any(HttpRequestBase.class), any(HttpContext.class));
+
+        // when: verifying the order
+        SharegroopAPICallResponse response = sharegroopHttpClient.verifyOrder(requestConfiguration, MockUtils.anOrderId());
+
+        // then: the GET request is sent again to the other endpoint
+        assertNotNull(response);
+        assertEquals(2, hosts.size());
+        assertNotEquals(hosts.get(0), hosts.get(1));
+    }
+
+    @Test
+    void verifyOrder_noFailoverOutsideOwnList() throws IOException {
+        // given: a merchant with two endpoints, and another one with a single URL, the first endpoint of the list
+        RequestConfiguration withList = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), aPartnerConfigurationWithTwoEndpoints());
+        Map<String, String> partnerConfigurationMap = new HashMap<>();
+        partnerConfigurationMap.put(Constants.PartnerConfigurationKeys.SHAREGROOP_URL, "https://api-eu.sharegroop.test");
+        RequestConfiguration withSingleUrl = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), new PartnerConfiguration(partnerConfigurationMap, new HashMap<>()));
+        doReturn(mockHttpResponse(200, "OK", MockUtils.aShareGroopResponse("completed"), null))
+                .when(http).execute(any(HttpRequestBase.class), any(HttpContext.class));
+        sharegroopHttpClient.verifyOrder(withList, MockUtils.anOrderId());
+
+        List<String> hosts = new ArrayList<>();
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            hosts.add(((HttpRequestBase) invocation.getArgument(0)).getURI().getHost());
+            if (calls.incrementAndGet() == 1) {
+                throw new SocketTimeoutException();
+            }
+            return mockHttpResponse(200, "OK", MockUtils.aShareGroopResponse("completed"), null);
+        }).when(http).execute(any(HttpRequestBase.class), any(HttpContext.class));
+
+        // when: the call of the merchant with a single URL fails
+        sharegroopHttpClient.verifyOrder(withSingleUrl, MockUtils.anOrderId());
+
+        // then: it's sent again to its own URL, never to the other endpoint of the list
+        assertEquals(Arrays.asList("api-eu.sharegroop.test", "api-eu.sharegroop.test"), hosts);
+    }
+
+    @Test
+    void refundOrder_noFailoverOnceSent() throws IOException {
+        // given: two endpoints, the first call loses its connection once sent
+        RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), aPartnerConfigurationWithTwoEndpoints());
+        List<String> hosts = new ArrayList<>();
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            hosts.add(((HttpRequestBase) invocation.getArgument(0)).getURI().getHost());
+            if (calls.incrementAndGet() == 1) {
+                throw new SocketException("Connection reset");
+            }
+            return mockHttpResponse(200, "OK", MockUtils.aShareGroopResponse("refunded"), null);
+        }).when(http).execute(any(HttpRequestBase.class), any(HttpContext.class));
+
+        // when: refunding the order
+        sharegroopHttpClient.refundOrder(requestConfiguration, MockUtils.anOrderId());
+
+        // then: the POST request, which may have been processed, is sent again to the same endpoint
+        assertEquals(2, hosts.size());
+        assertEquals(hosts.get(0), hosts.get(1));
+    }
 
-        verify(http, never()).execute(any(HttpRequestBase.class));
+    @Test
+    void refundOrder_failoverBeforeSent() throws IOException {
+        // given: two endpoints, the first one refuses the connection
+        RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), aPartnerConfigurationWithTwoEndpoints());
+        List<String> hosts = new ArrayList<>();
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            hosts.add(((HttpRequestBase) invocation.getArgument(0)).getURI().getHost());
+            if (calls.incrementAndGet() == 1) {
+                throw new ConnectException("Connection refused");
+            }
+            return mockHttpResponse(200, "OK", MockUtils.aShareGroopResponse("refunded"), null);
+        }).when(http).execute(any(HttpRequestBase.class), any(HttpContext.class));
+
+        // when: refunding the order
+        sharegroopHttpClient.refundOrder(requestConfiguration, MockUtils.anOrderId());
+
+        // then: the POST request, which hasn't been sent, is sent to the other endpoint
+        assertEquals(2, hosts.size());
+        assertNotEquals(hosts.get(0), hosts.get(1));
     }
 
     @Test
@@ -317,15 +642,108 @@ class SharegroopHttpClientTest {
         StringResponse response = HttpTestUtils.mockStringResponse(200, "OK", content, null);
         String orderId = MockUtils.anOrderId();
 
-        doReturn(response).when(sharegroopHttpClient).execute(any(HttpRequestBase.class));
+        doReturn(response).when(sharegroopHttpClient).execute(any(HttpRequestBase.class), any(Operation.class), any());
 
         // when : calling refund method
         SharegroopAPICallResponse result = sharegroopHttpClient.refundOrder(requestConfiguration,orderId);
 
         // then
         assertNotNull(result);
+        verify(statuses).put(requestConfiguration, orderId, result);
+
+        verify(http, never()).execute(any(HttpRequestBase.class), any(HttpContext.class));
+    }
+
+    @Test
+    void refundOrder_reconciledAfterTimeout() throws IOException {
+        // given: the refund times out once sent, and the order shows it has been processed
+        RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+        List<String> requests = new ArrayList<>();
+        doAnswer(invocation -> {
+            HttpRequestBase request = invocation.getArgument(0);
+            requests.add(request.getMethod() + " " + request.getURI().getPath());
+            if (requests.size() == 1) {
+                assertNotNull(request.getFirstHeader("Idempotency-Key"));
+                throw new SocketTimeoutException("Read timed out");
+            }
+            return mockHttpResponse(200, "OK", MockUtils.aShareGroopResponse("refunded"), null);
+        }).when(http).execute(any(HttpRequestBase.class), any(HttpContext.class));
+        String orderId = MockUtils.anOrderId();
 
-        verify(http, never()).execute(any(HttpRequestBase.class));
+        // when: refunding the order
+        SharegroopAPICallResponse result = sharegroopHttpClient.refundOrder(requestConfiguration, orderId);
+
+        // then: the order is read instead of refunded again
+        assertEquals("refunded", result.getData().getStatus());
+        assertEquals(2, requests.size());
+        assertEquals("POST /v1/orders/" + orderId + "/refund/", requests.get(0));
+        assertEquals("GET /v1/orders/" + orderId + "/", requests.get(1));
+    }
+
+    @Test
+    void refundOrder_alreadyRefunded() throws IOException {
+        // given: the partner refuses the refund, because the order has been refunded already
+        RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+        when(http.execute(any(HttpRequestBase.class), any(HttpContext.class)))
+                .thenReturn(mockHttpResponse(400, "Bad Request", "{\"status\":400,\"success\":false,\"errors\":[\"order can not be refunded in status refunded\"]}", null))
+                .thenReturn(mockHttpResponse(200, "OK", MockUtils.aShareGroopResponse("refunded"), null));
+
+        // when: refunding the order
+        SharegroopAPICallResponse result = sharegroopHttpClient.refundOrder(requestConfiguration, MockUtils.anOrderId());
+
+        // then: the refund is successful
+        assertTrue(result.getSuccess());
+        assertEquals("refunded", result.getData().getStatus());
+    }
+
+    @Test
+    void refundOrder_refusedNotReconciled() throws IOException {
+        // given: the partner refuses the refund for another reason than a refund done
+        RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+        doReturn(mockHttpResponse(400, "Bad Request", "{\"status\":400,\"success\":false,\"errors\":[\"order can not be refunded in status initiated\"]}", null))
+                .when(http).execute(any(HttpRequestBase.class), any(HttpContext.class));
+
+        // when: refunding the order
+        SharegroopAPICallResponse result = sharegroopHttpClient.refundOrder(requestConfiguration, MockUtils.anOrderId());
+
+        // then: the refusal is returned, without reading the order
+        assertFalse(result.getSuccess());
+        verify(http, times(1)).execute(any(HttpRequestBase.class), any(HttpContext.class));
+    }
+
+    @Test
+    void refundOrder_refusedAfterTimeout() throws IOException {
+        // given: the refund times out once sent, the order doesn't show it yet, and the next attempt is refused
+        RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+        when(http.execute(any(HttpRequestBase.class), any(HttpContext.class)))
+                .thenThrow(new SocketTimeoutException("Read timed out"))
+                .thenReturn(mockHttpResponse(200, "OK", MockUtils.aShareGroopResponse("completed"), null))
+                .thenReturn(mockHttpResponse(400, "Bad Request", "{\"status\":400,\"success\":false,\"errors\":[\"refund in progress\"]}", null))
+                .thenReturn(mockHttpResponse(200, "OK", MockUtils.aShareGroopResponse("refunded"), null));
+
+        // when: refunding the order
+        SharegroopAPICallResponse result = sharegroopHttpClient.refundOrder(requestConfiguration, MockUtils.anOrderId());
+
+        // then: as the first attempt may have been processed, the order is read again after the refusal
+        assertEquals("refunded", result.getData().getStatus());
+        verify(http, times(4)).execute(any(HttpRequestBase.class), any(HttpContext.class));
+    }
+
+    @Test
+    void refundOrder_completedReused() throws IOException {
+        // given: a refund completed
+        RequestConfiguration requestConfiguration = new RequestConfiguration(MockUtils.aContractConfiguration(), MockUtils.anEnvironment(), MockUtils.aPartnerConfiguration());
+        doReturn(mockHttpResponse(200, "OK", MockUtils.aShareGroopResponse("refunded"), null))
+                .when(http).execute(any(HttpRequestBase.class), any(HttpContext.class));
+        String orderId = MockUtils.anOrderId();
+        sharegroopHttpClient.refundOrder(requestConfiguration, orderId);
+
+        // when: requesting the same refund again
+        CallResult<SharegroopAPICallResponse> result = sharegroopHttpClient.tryRefundOrder(requestConfiguration, orderId);
+
+        // then: it's answered without calling the partner API
+        assertTrue(result.isSuccess());
+        verify(http, times(1)).execute(any(HttpRequestBase.class), any(HttpContext.class));
     }
 
     // --- Test SharegroopHttpClient#Cancel ---
@@ -396,7 +814,7 @@ class SharegroopHttpClientTest {
         StringResponse response = HttpTestUtils.mockStringResponse(200, "OK", content, null);
         String orderId = MockUtils.anOrderId();
 
-        doReturn(response).when(sharegroopHttpClient).execute(any(HttpRequestBase.class));
+        doReturn(response).when(sharegroopHttpClient).execute(any(HttpRequestBase.class), any(Operation.class), any());
 
         // when : calling refund method
         SharegroopAPICallResponse result = sharegroopHttpClient.cancelOrder(requestConfiguration, orderId);
@@ -404,7 +822,135 @@ class SharegroopHttpClientTest {
         // then
         assertNotNull(result);
 
-        verify(http, never()).execute(any(HttpRequestBase.class));
+        verify(http, never()).execute(any(HttpRequestBase.class), any(HttpContext.class));
+    }
+
+    // --- Test SharegroopHttpClient#preconnect ---
+    @Test
+    void preconnect_nominal() throws IOException {
+        // given: a server accepting connections
+        try (ServerSocket server = new ServerSocket(0)) {
+            Thread acceptor = new Thread(() -> {
+                try {
+                    while (true) {
+                        server.accept();
+                    }
+                } catch (IOException e) {
+                    // server closed
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+            String baseUrl = "http://localhost:" + server.getLocalPort();
+
+            // when: opening connections twice
+            int opened = sharegroopHttpClient.preconnect(baseUrl, 2);
+            int openedAgain = sharegroopHttpClient.preconnect(baseUrl, 2);
+
+            // then: the connections are opened once, then reused from the pool
+            assertEquals(2, opened);
+            assertEquals(0, openedAgain);
+        }
+    }
+
+    @Test
+    void preconnect_invalidUrl() {
+        assertThrows(InvalidDataException.class, () -> sharegroopHttpClient.preconnect("://api.sandbox.sharegroop.com", 2));
+        assertThrows(InvalidDataException.class, () -> sharegroopHttpClient.preconnect("/v1/orders", 2));
+    }
+
+    // --- Test SharegroopHttpClient#keepWarm ---
+    @Test
+    void keepWarm_nominal() throws IOException {
+        // given: a server answering every request on a connection, with a keep-alive of 4 seconds
+        AtomicInteger requests = new AtomicInteger();
+        try (ServerSocket server = new ServerSocket(0)) {
+            Thread acceptor = new Thread(() -> {
+                try {
+                    while (true) {
+                        Socket socket = server.accept();
+                        Thread connection = new Thread(() -> answer(socket, requests, "200 OK"));
+                        connection.setDaemon(true);
+                        connection.start();
+                    }
+                } catch (IOException e) {
+                    // server closed
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+            sharegroopHttpClient.preconnect("http://localhost:" + server.getLocalPort(), 1);
+
+            // when: keeping the connections warm
+            long delay = sharegroopHttpClient.keepWarm();
+
+            // then: the idle connection is pinged, and the next run is scheduled within half the keep-alive
+            assertEquals(1, requests.get());
+            assertEquals(1500, delay);
+        }
+    }
+
+    @Test
+    void keepWarm_errorStatus() throws IOException {
+        // given: a server answering the keep-warm requests with an error, and a keep-alive of 4 seconds
+        AtomicInteger requests = new AtomicInteger();
+        AtomicInteger connections = new AtomicInteger();
+        try (ServerSocket server = new ServerSocket(0)) {
+            Thread acceptor = new Thread(() -> {
+                try {
+                    while (true) {
+                        Socket socket = server.accept();
+                        connections.incrementAndGet();
+                        Thread connection = new Thread(() -> answer(socket, requests, "404 Not Found"));
+                        connection.setDaemon(true);
+                        connection.start();
+                    }
+                } catch (IOException e) {
+                    // server closed
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+            sharegroopHttpClient.preconnect("http://localhost:" + server.getLocalPort(), 1);
+
+            // when: keeping the connections warm twice
+            long delay = sharegroopHttpClient.keepWarm();
+            sharegroopHttpClient.keepWarm();
+
+            // then: the keep-alive of the error isn't trusted, and the connection isn't reused
+            assertEquals(30000, delay);
+            assertEquals(2, requests.get());
+            assertEquals(2, connections.get());
+        }
+    }
+
+    @Test
+    void keepWarm_noRoute() {
+        // no route called yet: nothing to do until the next interval
+        assertEquals(30000, sharegroopHttpClient.keepWarm());
+    }
+
+    private static PartnerConfiguration aPartnerConfigurationWithTwoEndpoints() {
+        Map<String, String> partnerConfigurationMap = new HashMap<>();
+        partnerConfigurationMap.put(Constants.PartnerConfigurationKeys.SHAREGROOP_URL, "https://api-eu.sharegroop.test, https://api-us.sharegroop.test");
+        return new PartnerConfiguration(partnerConfigurationMap, new HashMap<>());
+    }
+
+    private static void answer(Socket socket, AtomicInteger requests, String status) {
+        try (Socket s = socket) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+            OutputStream output = s.getOutputStream();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    requests.incrementAndGet();
+                    output.write(("HTTP/1.1 " + status + "\r\nContent-Length: 0\r\nKeep-Alive: timeout=4\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                    output.flush();
+                }
+            }
+        } catch (IOException e) {
+            // connection closed
+        }
     }
 
     static PartnerConfiguration anInvalidPartnerConfiguration() {
@@ -0,0 +1,245 @@
+package com.payline.payment.sharegroop.utils.http;
+
+import com.payline.payment.sharegroop.exception.PluginException;
+import com.payline.payment.sharegroop.utils.metrics.SharegroopMetrics;
+import com.payline.payment.sharegroop.utils.properties.PluginConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509KeyManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class TimingSSLConnectionSocketFactoryTest {
+
+    @Mock private SSLSocketFactory sslSocketFactory;
+    @Mock private SSLSocket sslSocket;
+    @Mock private SSLSession session;
+    @Mock private SSLSessionContext sessionContext;
+    @Mock private HostnameVerifier hostnameVerifier;
+    @Mock private SharegroopMetrics metrics;
+
+    private TimingSSLConnectionSocketFactory socketFactory;
+
+    @BeforeEach
+    void setup() throws IOException {
+        MockitoAnnotations.initMocks(this);
+        doReturn(sslSocket).when(sslSocketFactory).createSocket(any(Socket.class), anyString(), anyInt(), anyBoolean());
+        doReturn(session).when(sslSocket).getSession();
+        doReturn(true).when(hostnameVerifier).verify(anyString(), any(SSLSession.class));
+        doReturn(Collections.enumeration(Collections.singletonList(new byte[]{1}))).when(sessionContext).getIds();
+        socketFactory = new TimingSSLConnectionSocketFactory(sslSocketFactory, new String[]{"TLSv1.2"},
+                new String[]{"TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256"}, hostnameVerifier, sessionContext, metrics);
+    }
+
+    @Test
+    void createLayeredSocket_fullHandshake() throws IOException {
+        // given: a session created by the handshake, another one being cached
+        doReturn(mock(SSLSession.class)).when(sessionContext).getSession(any(byte[].class));
+
+        // when: layering TLS on a connected socket
+        Socket socket = socketFactory.createLayeredSocket(new Socket(), "api.sharegroop.com", 443, HttpClientContext.create());
+
+        // then: a full handshake is recorded
+        assertSame(sslSocket, socket);
+        verify(metrics).recordHandshake(eq(false), anyLong());
+    }
+
+    @Test
+    void createLayeredSocket_resumedHandshake() throws IOException {
+        // given: a session cached before the handshake
+        doReturn(session).when(sessionContext).getSession(any(byte[].class));
+
+        // when: layering TLS on a connected socket
+        socketFactory.createLayeredSocket(new Socket(), "api.sharegroop.com", 443, HttpClientContext.create());
+
+        // then: a resumption is recorded
+        verify(metrics).recordHandshake(eq(true), anyLong());
+    }
+
+    @Test
+    void createLayeredSocket_resumptionTls12() throws Exception {
+        assertResumption("TLSv1.2");
+    }
+
+    @Test
+    void createLayeredSocket_resumptionTls13() throws Exception {
+        assertResumption("TLSv1.3");
+    }
+
+    /**
+     * Connect twice to a local TLS server with the given protocol: the first handshake is full, the second one resumes
+     * the session of the first one.
+     */
+    private void assertResumption(String protocol) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = TimingSSLConnectionSocketFactoryTest.class.getResourceAsStream("/test_client.p12")) {
+            keyStore.load(in, "changeit".toCharArray());
+        }
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, "changeit".toCharArray());
+        SSLContext serverContext = SSLContext.getInstance("TLS");
+        serverContext.init(keyManagerFactory.getKeyManagers(), null, null);
+        TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(keyStore);
+        SSLContext clientContext = SSLContext.getInstance("TLS");
+        clientContext.init(null, trustManagerFactory.getTrustManagers(), null);
+
+        TimingSSLConnectionSocketFactory factory = new TimingSSLConnectionSocketFactory(clientContext.getSocketFactory(),
+                new String[]{protocol}, null, NoopHostnameVerifier.INSTANCE, clientContext.getClientSessionContext(),
+                metrics);
+
+        try (SSLServerSocket server = (SSLServerSocket) serverContext.getServerSocketFactory()
+                .createServerSocket(0, 2, InetAddress.getLoopbackAddress())) {
+            Thread serverThread = new Thread(() -> {
+                for (int i = 0; i < 2; i++) {
+                    try (Socket accepted = server.accept()) {
+                        accepted.getOutputStream().write(accepted.getInputStream().read());
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            });
+            serverThread.start();
+
+            for (int i = 0; i < 2; i++) {
+                try (Socket plain = new Socket()) {
+                    plain.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort()), 5000);
+                    plain.setSoTimeout(5000);
+                    Socket socket = factory.createLayeredSocket(plain, "localhost", server.getLocalPort(), HttpClientContext.create());
+                    // an exchange reads the TLS 1.3 session ticket, which is sent after the handshake
+                    socket.getOutputStream().write(1);
+                    assertEquals(1, socket.getInputStream().read());
+                    socket.close();
+                }
+            }
+            serverThread.join(5000);
+        }
+
+        // then: one full handshake, and one resumed
+        verify(metrics).recordHandshake(eq(false), anyLong());
+        verify(metrics).recordHandshake(eq(true), anyLong());
+    }
+
+    @Test
+    void create_nominal() {
+        // given: a configuration with a protocol the JVM doesn't support
+        PluginConfig config = mock(PluginConfig.class);
+        doReturn(Arrays.asList("TLSv0.9", "TLSv1.2")).when(config).getTlsProtocols();
+        doReturn(Collections.emptyList()).when(config).getTlsCipherSuites();
+        doReturn(100).when(config).getTlsSessionCacheSize();
+
+        // when: creating the socket factory, then the unsupported protocol is ignored
+        assertNotNull(TimingSSLConnectionSocketFactory.create(config, metrics));
+    }
+
+    @Test
+    void create_noSupportedProtocol() {
+        // given: a configuration with no protocol the JVM supports
+        PluginConfig config = mock(PluginConfig.class);
+        doReturn(Collections.singletonList("TLSv0.9")).when(config).getTlsProtocols();
+        doReturn(Collections.emptyList()).when(config).getTlsCipherSuites();
+
+        // when: creating the socket factory, then an exception is thrown
+        assertThrows(PluginException.class, () -> TimingSSLConnectionSocketFactory.create(config, metrics));
+    }
+
+    @Test
+    void keyManagers_clientCertificate() throws Exception {
+        // given: the JVM key store holds a client certificate
+        String keyStore = Paths.get(getClass().getResource("/test_client.p12").toURI()).toString();
+        withKeyStore(keyStore, "PKCS12", "changeit", () -> {
+            // when: getting the key managers
+            KeyManager[] keyManagers = TimingSSLConnectionSocketFactory.keyManagers();
+
+            // then: the client certificate is available
+            X509KeyManager keyManager = (X509KeyManager) keyManagers[0];
+            assertArrayEquals(new String[]{"client"}, keyManager.getClientAliases("RSA", null));
+        });
+    }
+
+    @Test
+    void keyManagers_noKeyStore() throws Exception {
+        withKeyStore(null, null, null, () -> {
+            // when: getting the key managers without key store, then there is no client certificate
+            X509KeyManager keyManager = (X509KeyManager) TimingSSLConnectionSocketFactory.keyManagers()[0];
+            assertNull(keyManager.getClientAliases("RSA", null));
+        });
+    }
+
+    @Test
+    void keyManagers_wrongPassword() throws Exception {
+        String keyStore = Paths.get(getClass().getResource("/test_client.p12").toURI()).toString();
+        withKeyStore(keyStore, "PKCS12", "wrong", () ->
+                assertThrows(IOException.class, TimingSSLConnectionSocketFactory::keyManagers));
+    }
+
+    private interface KeyStoreTest {
+        void run() throws Exception;
+    }
+
+    /**
+     * Run the test with the given javax.net.ssl key store properties, then restore them.
+     */
+    private static void withKeyStore(String keyStore, String type, String password, KeyStoreTest test) throws Exception {
+        String[] keys = {"javax.net.ssl.keyStore", "javax.net.ssl.keyStoreType", "javax.net.ssl.keyStorePassword"};
+        String[] values = {keyStore, type, password};
+        String[] previous = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            previous[i] = System.getProperty(keys[i]);
+            setOrClear(keys[i], values[i]);
+        }
+        try {
+            test.run();
+        } finally {
+            for (int i = 0; i < keys.length; i++) {
+                setOrClear(keys[i], previous[i]);
+            }
+        }
+    }
+
+    private static void setOrClear(String key, String value) {
+        if (value == null) {
+            System.clearProperty(key);
+        } else {
+            System.setProperty(key, value);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.payline.payment.sharegroop.utils.i18n;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class I18nServiceTest {
+
+    private final I18nService i18n = I18nService.getInstance();
+
+    @Test
+    void getMessage_nominal() {
+        assertEquals("Clé publique", i18n.getMessage("contract.PUBLIC_KEY.label", Locale.FRANCE));
+        assertEquals("ShareGroop", i18n.getMessage("paymentMethod.name", Locale.ENGLISH));
+    }
+
+    @Test
+    void getMessage_sameAsResourceBundle() {
+        // the fallback chain is resolved like ResourceBundle does, including for locales without a dedicated file
+        String[] keys = {"paymentMethod.name", "contract.UX.label", "step1.description"};
+        Locale[] locales = {Locale.FRANCE, Locale.FRENCH, Locale.CANADA_FRENCH, Locale.ENGLISH, Locale.UK, Locale.GERMAN, Locale.ROOT};
+
+        for (Locale locale : locales) {
+            for (String key : keys) {
+                assertEquals(ResourceBundle.getBundle("messages", locale).getString(key), i18n.getMessage(key, locale));
+            }
+        }
+    }
+
+    @Test
+    void getMessage_missingKey() {
+        // when: getting a message that does not exist
+        String message = i18n.getMessage("does.not.exist", Locale.FRANCE);
+
+        // then: a placeholder is returned, always the same
+        assertEquals("???fr_FR.does.not.exist???", message);
+        assertSame(message, i18n.getMessage("does.not.exist", Locale.FRANCE));
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.payline.payment.sharegroop.utils.log;
+
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class PluginLoggerTest {
+
+    @Mock
+    private Logger logger;
+
+    private double[] samplingRates;
+    private PluginLogger pluginLogger;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.initMocks(this);
+        samplingRates = new double[LogCategory.values().length];
+        Arrays.fill(samplingRates, 1);
+        pluginLogger = new PluginLogger(logger, samplingRates);
+    }
+
+    @Test
+    void info_redacted() {
+        // given: INFO is enabled
+        doReturn(true).when(logger).isInfoEnabled();
+
+        // when: logging a message with buyer data
+        pluginLogger.info(LogCategory.PAYMENT_DATA, "Payment data: {}", () -> "{\"email\":\"jean.martin@test.fr\"}");
+
+        // then: the data is redacted
+        verify(logger).info("Payment data: {}", "{\"email\":\"*****@test.fr\"}");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void debug_disabled() {
+        // given: DEBUG is disabled
+        doReturn(false).when(logger).isDebugEnabled();
+        Supplier<String> parameter = mock(Supplier.class);
+
+        // when: logging a debug message
+        pluginLogger.debug(LogCategory.PARTNER_REQUEST, "Request: {}", parameter);
+
+        // then: the parameter is never computed
+        verify(parameter, never()).get();
+        verify(logger, never()).debug(anyString(), any(Object.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void info_sampledOut() {
+        // given: a category whose messages are never logged
+        doReturn(true).when(logger).isInfoEnabled();
+        samplingRates[LogCategory.PARTNER_REQUEST.ordinal()] = 0;
+        Supplier<String> parameter = mock(Supplier.class);
+
+        // when: logging messages of this category, and of another one
+        pluginLogger.info(LogCategory.PARTNER_REQUEST, "Request: {}", parameter);
+        pluginLogger.info(LogCategory.PARTNER_RESPONSE, "Response: {}", () -> 200);
+
+        // then: only the other one is logged
+        verify(parameter, never()).get();
+        verify(logger).info("Response: {}", "200");
+        verifyNoMoreInteractions(parameter);
+    }
+
+    @Test
+    void error_notSampled() {
+        // given: every category sampled out
+        Arrays.fill(samplingRates, 0);
+        Exception e = new Exception("test");
+
+        // when: logging an error
+        pluginLogger.error("An error occurred", e);
+
+        // then: it's logged
+        verify(logger).error("An error occurred", e);
+    }
+
+    @Test
+    void loadSamplingRates() {
+        // the default configuration logs everything
+        double[] rates = PluginLogger.loadSamplingRates();
+        assertEquals(LogCategory.values().length, rates.length);
+        for (double rate : rates) {
+            assertEquals(1, rate, 0);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.payline.payment.sharegroop.utils.log;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RedactorTest {
+
+    @Test
+    void redact_json() {
+        // given: an order with buyer data
+        String order = "{\"amount\":1000,\"email\":\"jean.martin@test.fr\",\"firstName\":\"Jean\",\"lastName\": \"Martin\",\"items\":[{\"name\":\"Shoes\"}]}";
+
+        // when: redacting it
+        String result = Redactor.redact(order);
+
+        // then: the buyer data is masked, the rest is kept
+        assertEquals("{\"amount\":1000,\"email\":\"*****@test.fr\",\"firstName\":\"*****\",\"lastName\": \"*****\",\"items\":[{\"name\":\"Shoes\"}]}", result);
+    }
+
+    @Test
+    void redact_keys() {
+        assertEquals("Authorization: sk_test_*****", Redactor.redact("Authorization: sk_test_0123456789abcdef"));
+        assertEquals("{\"privateKey\":\"*****\"}", Redactor.redact("{\"privateKey\":\"anything\"}"));
+    }
+
+    @Test
+    void redact_nothingToMask() {
+        String message = "POST https://api.sharegroop.com/v1/orders/ord_123/refund/";
+        assertSame(message, Redactor.redact(message));
+        assertEquals("", Redactor.redact(""));
+        assertNull(Redactor.redact(null));
+    }
+}
@@ -0,0 +1,58 @@
+package com.payline.payment.sharegroop.utils.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    void indexOf_bounds() {
+        // the buckets are contiguous, and every value falls into a bucket whose upper bound is within 6.25%
+        int previous = 0;
+        for (long micros = 0; micros < 1_000_000; micros++) {
+            int index = LatencyHistogram.indexOf(micros);
+            assertTrue(index == previous || index == previous + 1);
+            assertTrue(LatencyHistogram.upperBoundOf(index) >= micros);
+            assertTrue(LatencyHistogram.upperBoundOf(index) <= micros * 1.0625);
+            previous = index;
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.indexOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    void snapshot() {
+        // given: 100 values, from 1ms to 100ms
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        // when: summarizing the histogram
+        LatencySnapshot snapshot = histogram.snapshot();
+
+        // then: the percentiles are close to the recorded values
+        assertEquals(100, snapshot.getCount());
+        assertEquals(50.5, snapshot.getMean(), 0.01);
+        assertEquals(50, snapshot.getP50(), 50 * 0.0625);
+        assertEquals(90, snapshot.getP90(), 90 * 0.0625);
+        assertEquals(99, snapshot.getP99(), 99 * 0.0625);
+        assertEquals(100, snapshot.getMax(), 0.01);
+    }
+
+    @Test
+    void reset() {
+        // given: a histogram with values
+        histogram.record(1_000_000);
+
+        // when: resetting it
+        histogram.reset();
+
+        // then: it is empty
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.snapshot().getP99());
+    }
+}
@@ -0,0 +1,62 @@
+package com.payline.payment.sharegroop.utils.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MBeansTest {
+
+    private static final String OBJECT_NAME = "com.payline.payment.sharegroop:type=Test";
+
+    @Test
+    void register_replaces() throws Exception {
+        // given: an MBean registered by a previous instance of the plugin
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        SharegroopMetrics previous = new SharegroopMetrics();
+        previous.record(Operation.VERIFY, Outcome.STATUS_2XX, 1_000_000);
+        assertTrue(MBeans.register(server, previous, OBJECT_NAME));
+
+        // when: registering the new one under the same name
+        boolean registered = MBeans.register(server, new SharegroopMetrics(), OBJECT_NAME);
+
+        // then: it replaces the previous one
+        assertTrue(registered);
+        assertEquals(0L, server.getAttribute(new ObjectName(OBJECT_NAME), "TotalCalls"));
+        assertEquals(1, server.queryNames(new ObjectName("com.payline.payment.sharegroop:*"), null).size());
+    }
+
+    @Test
+    void register_replacedMeanwhile() throws Exception {
+        // given: an MBean registered again under the same name, then unregistered, while replacing it
+        MBeanServer server = mock(MBeanServer.class);
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        SharegroopMetrics metrics = new SharegroopMetrics();
+        doThrow(InstanceAlreadyExistsException.class)
+                .doThrow(InstanceAlreadyExistsException.class)
+                .doReturn(null)
+                .when(server).registerMBean(metrics, name);
+        doThrow(InstanceNotFoundException.class).doNothing().when(server).unregisterMBean(name);
+
+        // when: registering it, then it's eventually registered
+        assertTrue(MBeans.register(server, metrics, OBJECT_NAME));
+        verify(server, times(3)).registerMBean(metrics, name);
+    }
+
+    @Test
+    void register_alwaysReplacedMeanwhile() throws Exception {
+        // given: an MBean registered again and again under the same name
+        MBeanServer server = mock(MBeanServer.class);
+        doThrow(InstanceAlreadyExistsException.class).when(server).registerMBean(any(), any(ObjectName.class));
+
+        // when: registering it, then it gives up without throwing
+        assertFalse(MBeans.register(server, new SharegroopMetrics(), OBJECT_NAME));
+    }
+}
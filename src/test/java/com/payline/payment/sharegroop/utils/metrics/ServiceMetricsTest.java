@@ -0,0 +1,62 @@
+package com.payline.payment.sharegroop.utils.metrics;
+
+import com.payline.pmapi.bean.common.FailureCause;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceMetricsTest {
+
+    private ServiceMetrics metrics;
+
+    @BeforeEach
+    void setup() {
+        metrics = new ServiceMetrics(true);
+    }
+
+    @Test
+    void record() {
+        // when: recording calls
+        metrics.record(ServiceCall.PAYMENT_REQUEST, ServiceResult.ON_HOLD, null, 4_000_000);
+        metrics.record(ServiceCall.PAYMENT_REQUEST, ServiceResult.ON_HOLD, null, 6_000_000);
+        metrics.record(ServiceCall.REFUND_REQUEST, ServiceResult.FAILURE, FailureCause.COMMUNICATION_ERROR, 1_000_000);
+
+        // then: they are counted by service method and result type, failures by cause
+        assertEquals(2, metrics.getCount(ServiceCall.PAYMENT_REQUEST, ServiceResult.ON_HOLD));
+        assertEquals(1, metrics.getFailureCount(ServiceCall.REFUND_REQUEST, FailureCause.COMMUNICATION_ERROR));
+        assertEquals(3, metrics.getTotalCalls());
+        assertEquals(5, metrics.getLatency(ServiceCall.PAYMENT_REQUEST, ServiceResult.ON_HOLD).getMean(), 0.01);
+
+        Map<String, Long> counts = metrics.getCallCounts();
+        assertEquals(2, counts.size());
+        assertEquals(2L, counts.get("payment.paymentRequest.onHold"));
+        assertEquals(1L, counts.get("refund.refundRequest.failure"));
+        assertEquals(counts.keySet(), metrics.getLatencies().keySet());
+        assertEquals(1L, metrics.getFailureCauses().get("refund.refundRequest.COMMUNICATION_ERROR"));
+    }
+
+    @Test
+    void reset() {
+        // given: recorded calls
+        metrics.record(ServiceCall.RESET_REQUEST, ServiceResult.FAILURE, FailureCause.INVALID_DATA, 1_000_000);
+
+        // when: resetting the metrics
+        metrics.reset();
+
+        // then: nothing is left
+        assertEquals(0, metrics.getTotalCalls());
+        assertTrue(metrics.getCallCounts().isEmpty());
+        assertTrue(metrics.getFailureCauses().isEmpty());
+    }
+
+    @Test
+    void isEnabled() {
+        assertTrue(metrics.isEnabled());
+        assertFalse(new ServiceMetrics(false).isEnabled());
+        // disabled by default
+        assertFalse(ServiceMetrics.getInstance().isEnabled());
+    }
+}
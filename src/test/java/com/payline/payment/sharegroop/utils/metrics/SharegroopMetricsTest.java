@@ -0,0 +1,141 @@
+package com.payline.payment.sharegroop.utils.metrics;
+
+import com.payline.payment.sharegroop.utils.http.CallTimings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class SharegroopMetricsTest {
+
+    private SharegroopMetrics metrics;
+
+    @BeforeEach
+    void setup() {
+        metrics = new SharegroopMetrics();
+    }
+
+    @Test
+    void record() {
+        // when: recording attempts
+        metrics.record(Operation.VERIFY, Outcome.STATUS_2XX, 5_000_000);
+        metrics.record(Operation.VERIFY, Outcome.STATUS_2XX, 7_000_000);
+        metrics.record(Operation.REFUND, Outcome.RETRY, 1_000_000);
+
+        // then: they are counted by operation and outcome
+        assertEquals(2, metrics.getCount(Operation.VERIFY, Outcome.STATUS_2XX));
+        assertEquals(1, metrics.getCount(Operation.REFUND, Outcome.RETRY));
+        assertEquals(0, metrics.getCount(Operation.CANCEL, Outcome.STATUS_2XX));
+        assertEquals(3, metrics.getTotalCalls());
+        assertEquals(6, metrics.getLatency(Operation.VERIFY, Outcome.STATUS_2XX).getMean(), 0.01);
+
+        Map<String, Long> counts = metrics.getCallCounts();
+        assertEquals(2, counts.size());
+        assertEquals(2L, counts.get("verify.2xx"));
+        assertEquals(1L, counts.get("refund.retry"));
+        assertEquals(counts.keySet(), metrics.getLatencies().keySet());
+    }
+
+    @Test
+    void record_timings() {
+        // given: the timings of a call on a new plain HTTP connection, and of a call on a reused one
+        CallTimings first = mock(CallTimings.class);
+        doReturn(2_000_000L).when(first).get(Phase.CONNECT);
+        doReturn(7_000_000L).when(first).get(Phase.SERVER);
+        CallTimings second = mock(CallTimings.class);
+        doReturn(true).when(second).isConnectionReused();
+        doReturn(4_000_000L).when(second).get(Phase.SERVER);
+
+        // when: recording them
+        metrics.record(Operation.VERIFY, first);
+        metrics.record(Operation.VERIFY, second);
+
+        // then: connect is only recorded for the new connection, and TLS handshake never
+        assertEquals(2, metrics.getPhaseLatency(Operation.VERIFY, Phase.SERVER).getCount());
+        assertEquals(1, metrics.getPhaseLatency(Operation.VERIFY, Phase.CONNECT).getCount());
+        assertEquals(0, metrics.getPhaseLatency(Operation.VERIFY, Phase.TLS_HANDSHAKE).getCount());
+        assertTrue(metrics.getPhaseLatencies().containsKey("verify.poolWait"));
+        assertFalse(metrics.getPhaseLatencies().containsKey("verify.tlsHandshake"));
+        // but they aren't calls
+        assertEquals(0, metrics.getTotalCalls());
+    }
+
+    @Test
+    void recordHandshake() {
+        // when: recording a full handshake and two resumptions
+        metrics.recordHandshake(false, 40_000_000);
+        metrics.recordHandshake(true, 4_000_000);
+        metrics.recordHandshake(true, 6_000_000);
+
+        // then: they are counted by kind, and they aren't calls
+        assertEquals(1, metrics.getFullHandshakes());
+        assertEquals(2, metrics.getResumedHandshakes());
+        assertEquals(5, metrics.getHandshakeLatencies().get("resumed").getMean(), 0.01);
+        assertEquals(0, metrics.getTotalCalls());
+
+        // when: resetting the metrics
+        metrics.reset();
+
+        // then: the handshakes are cleared too
+        assertEquals(0, metrics.getFullHandshakes());
+        assertTrue(metrics.getHandshakeLatencies().isEmpty());
+    }
+
+    @Test
+    void recordResetVerification() {
+        // when: recording a reset which verified the order, and two which didn't
+        metrics.recordResetVerification(false);
+        metrics.recordResetVerification(true);
+        metrics.recordResetVerification(true);
+
+        // then: they are counted apart
+        assertEquals(1, metrics.getResetVerifications());
+        assertEquals(2, metrics.getResetVerificationsAvoided());
+
+        // when: resetting the metrics, then they are cleared
+        metrics.reset();
+        assertEquals(0, metrics.getResetVerificationsAvoided());
+    }
+
+    @Test
+    void reset() {
+        // given: recorded attempts
+        metrics.record(Operation.CREATE, Outcome.STATUS_5XX, 1_000_000);
+
+        // when: resetting the metrics
+        metrics.reset();
+
+        // then: nothing is left
+        assertEquals(0, metrics.getTotalCalls());
+        assertTrue(metrics.getCallCounts().isEmpty());
+        assertTrue(metrics.getPhaseLatencies().isEmpty());
+    }
+
+    @Test
+    void outcome_ofStatus() {
+        assertEquals(Outcome.STATUS_2XX, Outcome.ofStatus(200));
+        assertEquals(Outcome.STATUS_4XX, Outcome.ofStatus(429));
+        assertEquals(Outcome.STATUS_5XX, Outcome.ofStatus(503));
+        assertEquals(Outcome.STATUS_5XX, Outcome.ofStatus(999));
+    }
+
+    @Test
+    void getInstance_registered() throws Exception {
+        // when: getting the singleton
+        SharegroopMetrics instance = SharegroopMetrics.getInstance();
+        instance.record(Operation.VERIFY_PRIVATE_KEY, Outcome.STATUS_4XX, 1_000_000);
+
+        // then: it is readable through JMX
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(SharegroopMetrics.OBJECT_NAME);
+        assertTrue(server.isRegistered(name));
+        assertTrue((Long) server.getAttribute(name, "TotalCalls") > 0);
+    }
+}
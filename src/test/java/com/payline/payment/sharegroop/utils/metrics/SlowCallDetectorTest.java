@@ -0,0 +1,138 @@
+package com.payline.payment.sharegroop.utils.metrics;
+
+import com.payline.payment.sharegroop.exception.PluginException;
+import com.payline.payment.sharegroop.utils.http.CallTimings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class SlowCallDetectorTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private SharegroopMetrics metrics;
+    private CallTimings timings;
+
+    @BeforeEach
+    void setup() {
+        metrics = new SharegroopMetrics();
+        timings = mock(CallTimings.class);
+        doReturn(40 * MS).when(timings).get(Phase.SERVER);
+    }
+
+    @Test
+    void isSlow_fixedThreshold() {
+        // given: a detector with a fixed threshold of 100ms
+        SlowCallDetector detector = new SlowCallDetector(metrics, 100, null, 10, 0, 10, 10);
+        long now = System.nanoTime();
+
+        // then: only the calls exceeding it are slow
+        assertTrue(detector.isSlow(Operation.VERIFY, 150 * MS, now));
+        assertFalse(detector.isSlow(Operation.VERIFY, 50 * MS, now));
+        assertEquals(100, detector.getThresholds().get("verify"), 0.01);
+    }
+
+    @Test
+    void isSlow_disabled() {
+        // given: a detector with neither a fixed threshold nor a percentile
+        SlowCallDetector detector = new SlowCallDetector(metrics, 0, null, 10, 0, 10, 10);
+
+        // then: no call is slow
+        assertFalse(detector.isSlow(Operation.VERIFY, TimeUnit.MINUTES.toNanos(10), System.nanoTime()));
+        assertTrue(detector.getThresholds().isEmpty());
+    }
+
+    @Test
+    void isSlow_percentile() {
+        // given: 100 successful verify calls of 10ms, and a detector on the 99th percentile
+        for (int i = 0; i < 100; i++) {
+            metrics.record(Operation.VERIFY, Outcome.STATUS_2XX, 10 * MS);
+        }
+        SlowCallDetector detector = new SlowCallDetector(metrics, 3000, SlowCallDetector.percentileOf("99"), 100, 0, 10, 10);
+        long now = System.nanoTime();
+
+        // then: the calls slower than the percentile are slow
+        assertTrue(detector.isSlow(Operation.VERIFY, 50 * MS, now));
+        assertFalse(detector.isSlow(Operation.VERIFY, 5 * MS, now));
+        // and the operations with too few calls keep the fixed threshold
+        assertFalse(detector.isSlow(Operation.CANCEL, 50 * MS, now));
+        assertEquals(3000, detector.getThreshold(Operation.CANCEL) / (double) MS, 0.01);
+    }
+
+    @Test
+    void capture_ringBuffer() {
+        // given: a detector keeping 3 calls
+        SlowCallDetector detector = new SlowCallDetector(metrics, 100, null, 10, 0, 3, 10);
+        long now = System.nanoTime();
+
+        // when: capturing 5 calls
+        for (int attempt = 1; attempt <= 5; attempt++) {
+            detector.capture(Operation.REFUND, attempt, Outcome.STATUS_5XX, 150 * MS, now,
+                    "POST http://domain.test.fr/endpoint", "500 Internal Server Error (0 bytes)", timings, "[leased: 1]");
+        }
+
+        // then: the last 3 are kept, oldest first
+        List<SlowCall> slowCalls = detector.dump();
+        assertEquals(3, slowCalls.size());
+        assertEquals(3, slowCalls.get(0).getAttempt());
+        assertEquals(5, slowCalls.get(2).getAttempt());
+        assertEquals(5, detector.getCapturedCount());
+
+        SlowCall slowCall = slowCalls.get(2);
+        assertEquals("refund", slowCall.getOperation());
+        assertEquals("5xx", slowCall.getOutcome());
+        assertEquals(150, slowCall.getDurationMillis(), 0.01);
+        assertEquals(100, slowCall.getThresholdMillis(), 0.01);
+        assertEquals(40, slowCall.getPhases().get("server"), 0.01);
+        assertEquals("[leased: 1]", slowCall.getPoolState());
+    }
+
+    @Test
+    void capture_sampling() {
+        // given: a detector capturing at most 2 calls per second
+        SlowCallDetector detector = new SlowCallDetector(metrics, 100, null, 10, 0, 10, 2);
+        long now = System.nanoTime();
+
+        // when: capturing 3 calls in the same second, then another one a second later
+        SlowCall first = detector.capture(Operation.VERIFY, 1, Outcome.STATUS_2XX, 150 * MS, now, "request", "response", timings, "pool");
+        SlowCall second = detector.capture(Operation.VERIFY, 1, Outcome.STATUS_2XX, 150 * MS, now, "request", "response", timings, "pool");
+        SlowCall third = detector.capture(Operation.VERIFY, 1, Outcome.STATUS_2XX, 150 * MS, now, "request", "response", timings, "pool");
+        SlowCall fourth = detector.capture(Operation.VERIFY, 1, Outcome.STATUS_2XX, 150 * MS, now + TimeUnit.SECONDS.toNanos(1), "request", "response", timings, "pool");
+
+        // then: the third one is sampled out
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(third);
+        assertNotNull(fourth);
+        assertEquals(3, detector.dump().size());
+        assertEquals(1, detector.getDroppedCount());
+    }
+
+    @Test
+    void clear() {
+        // given: a detector with a captured call
+        SlowCallDetector detector = new SlowCallDetector(metrics, 100, null, 10, 0, 10, 10);
+        detector.capture(Operation.VERIFY, 1, Outcome.STATUS_2XX, 150 * MS, System.nanoTime(), "request", "response", timings, "pool");
+
+        // when: clearing it
+        detector.clear();
+
+        // then: the buffer and the counts are empty
+        assertTrue(detector.getSlowCalls().isEmpty());
+        assertEquals(0, detector.getCapturedCount());
+    }
+
+    @Test
+    void percentileOf() {
+        assertNull(SlowCallDetector.percentileOf(""));
+        assertNull(SlowCallDetector.percentileOf(null));
+        assertNotNull(SlowCallDetector.percentileOf("99.9"));
+        assertThrows(PluginException.class, () -> SlowCallDetector.percentileOf("95"));
+    }
+}
@@ -0,0 +1,167 @@
+package com.payline.payment.sharegroop.utils.properties;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigPropertiesTest {
+
+    private Map<String, String> systemProperties;
+    private Map<String, String> environment;
+    private Path configFile;
+
+    @BeforeEach
+    void setup() throws IOException {
+        systemProperties = new HashMap<>();
+        environment = new HashMap<>();
+        configFile = Files.createTempFile("sharegroop", ".properties");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(configFile);
+    }
+
+    private ConfigProperties configProperties() {
+        return new ConfigProperties(systemProperties::get, environment::get);
+    }
+
+    private void writeConfigFile(String content) throws IOException {
+        Files.write(configFile, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void get_classpathValues() {
+        // given: no override
+        ConfigProperties config = configProperties();
+
+        // then: the values of the packaged file are used
+        assertEquals("10", config.get("http.socketTimeout"));
+        assertEquals(10, config.getConfig().getSocketTimeout());
+        assertNull(config.getConfigFile());
+    }
+
+    @Test
+    void get_overrides() throws IOException {
+        // given: a value overridden at each level
+        writeConfigFile("http.socketTimeout=20\nhttp.connectTimeout=20\nhttp.retries=5\n");
+        environment.put("SHAREGROOP_CONFIG_FILE", configFile.toString());
+        environment.put("SHAREGROOP_HTTP_CONNECTTIMEOUT", "30");
+        environment.put("SHAREGROOP_HTTP_RETRIES", "6");
+        systemProperties.put("sharegroop.http.retries", "7");
+
+        // when: loading the config
+        PluginConfig config = configProperties().getConfig();
+
+        // then: the system property wins over the environment variable, which wins over the external file
+        assertEquals(20, config.getSocketTimeout());
+        assertEquals(30, config.getConnectTimeout());
+        assertEquals(7, config.getRetries());
+        assertEquals(5, config.getConnectionRequestTimeout());
+    }
+
+    @Test
+    void reload_valid() throws IOException {
+        // given: an external file
+        writeConfigFile("http.retries=5\n");
+        systemProperties.put("sharegroop.config.file", configFile.toString());
+        ConfigProperties config = configProperties();
+        PluginConfig before = config.getConfig();
+
+        // when: the file changes and the config is reloaded
+        writeConfigFile("http.retries=2\n");
+        boolean reloaded = config.reload();
+
+        // then: the new config replaces the previous one, which is left untouched
+        assertTrue(reloaded);
+        assertEquals(2, config.getConfig().getRetries());
+        assertEquals("2", config.get("http.retries"));
+        assertEquals(5, before.getRetries());
+    }
+
+    @Test
+    void reload_invalid() throws IOException {
+        // given: an external file
+        writeConfigFile("http.retries=5\n");
+        systemProperties.put("sharegroop.config.file", configFile.toString());
+        ConfigProperties config = configProperties();
+        PluginConfig before = config.getConfig();
+
+        // when: the file gets an invalid value and the config is reloaded
+        writeConfigFile("http.retries=many\n");
+        boolean reloaded = config.reload();
+
+        // then: the current config is kept
+        assertFalse(reloaded);
+        assertSame(before, config.getConfig());
+    }
+
+    @Test
+    void reload_emptyFile() throws IOException {
+        // given: an external file
+        writeConfigFile("http.retries=5\n");
+        systemProperties.put("sharegroop.config.file", configFile.toString());
+        ConfigProperties config = configProperties();
+        PluginConfig before = config.getConfig();
+
+        // when: the file is truncated before being written, and the config is reloaded in between
+        writeConfigFile("");
+        boolean reloaded = config.reload();
+
+        // then: the current config is kept, instead of falling back to the packaged values
+        assertFalse(reloaded);
+        assertSame(before, config.getConfig());
+        assertEquals(5, config.getConfig().getRetries());
+    }
+
+    @Test
+    void reload_lostKey() throws IOException {
+        // given: an external file with 2 keys
+        writeConfigFile("http.retries=5\nhttp.socketTimeout=20\n");
+        systemProperties.put("sharegroop.config.file", configFile.toString());
+        ConfigProperties config = configProperties();
+        PluginConfig before = config.getConfig();
+
+        // when: one of the keys disappears
+        writeConfigFile("http.retries=2\n");
+        boolean reloaded = config.reload();
+
+        // then: the current config is kept
+        assertFalse(reloaded);
+        assertSame(before, config.getConfig());
+
+        // when: the key is back, with a new key
+        writeConfigFile("http.retries=2\nhttp.socketTimeout=20\nhttp.connectTimeout=30\n");
+
+        // then: the file is accepted
+        assertTrue(config.reload());
+        assertEquals(2, config.getConfig().getRetries());
+        assertEquals(30, config.getConfig().getConnectTimeout());
+    }
+
+    @Test
+    void reload_unparsableFile() throws IOException {
+        // given: an external file
+        writeConfigFile("http.retries=5\n");
+        systemProperties.put("sharegroop.config.file", configFile.toString());
+        ConfigProperties config = configProperties();
+        PluginConfig before = config.getConfig();
+
+        // when: the file gets a malformed escape sequence
+        writeConfigFile("http.retries=5\nhttp.socketTimeout=\\u00zz\n");
+        boolean reloaded = config.reload();
+
+        // then: the current config is kept
+        assertFalse(reloaded);
+        assertSame(before, config.getConfig());
+    }
+}
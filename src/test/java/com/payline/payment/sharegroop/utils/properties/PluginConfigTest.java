@@ -0,0 +1,151 @@
+package com.payline.payment.sharegroop.utils.properties;
+
+import com.payline.payment.sharegroop.exception.PluginException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PluginConfigTest {
+
+    private Map<String, String> values;
+
+    @BeforeEach
+    void setup() {
+        values = new HashMap<>();
+        values.put("http.connectionRequestTimeout", "5");
+        values.put("http.connectTimeout", "5");
+        values.put("http.socketTimeout", "10");
+        values.put("http.retries", "3");
+        values.put("http.pool.maxPerRoute", "");
+        values.put("http.pool.keepAlive", "0");
+        values.put("endpoints.ejection.consecutiveFailures", "5");
+        values.put("endpoints.ejection.baseTime", "30");
+        values.put("tls.protocols", "TLSv1.3, TLSv1.2");
+        values.put("tls.sessionCache.size", "100");
+        values.put("tls.sessionCache.timeout", "86400");
+        values.put("keepWarm.enabled", "false");
+        values.put("keepWarm.minIdle", "1");
+        values.put("keepWarm.interval", "30");
+        values.put("warmUp.connections", "2");
+        values.put("metrics.jmx.enabled", "true");
+        values.put("slowCalls.thresholdMillis", "3000");
+        values.put("slowCalls.percentile", "99.9");
+        values.put("slowCalls.percentile.minSamples", "1000");
+        values.put("slowCalls.percentile.refreshInterval", "30");
+        values.put("slowCalls.capacity", "50");
+        values.put("slowCalls.maxPerSecond", "2");
+        values.put("logging.sampling.partnerRequest", "0.5");
+        values.put("privateKey.cache.positiveTtl", "600");
+        values.put("privateKey.cache.negativeTtl", "30");
+        values.put("privateKey.cache.maxEntries", "10000");
+        values.put("privateKey.check.parallelism", "4");
+        values.put("orderMutation.cache.ttl", "86400");
+        values.put("orderMutation.cache.maxEntries", "10000");
+        values.put("orderStatus.cache.ttl", "3600");
+        values.put("orderStatus.cache.maxEntries", "10000");
+        values.put("bulk.parallelism", "8");
+        values.put("bulk.merchantRate", "10");
+        values.put("i18n.defaultLocale", "en");
+        values.put("i18n.locales", "en, fr-FR,,");
+        values.put("logo.filename", "sharegroop_logo.png");
+        values.put("logo.height", "24");
+        values.put("logo.width", "25");
+        values.put("logo.variants", "48x50, 100x200");
+        values.put("logo.variants.max", "8");
+    }
+
+    @Test
+    void typedValues() {
+        // when: building the config
+        PluginConfig config = new PluginConfig(values);
+
+        // then: the values are parsed
+        assertEquals(10, config.getSocketTimeout());
+        assertEquals(3, config.getRetries());
+        assertEquals(0, config.getPoolMaxPerRoute());
+        assertEquals(0, config.getPoolMaxTotal());
+        assertEquals(Arrays.asList("TLSv1.3", "TLSv1.2"), config.getTlsProtocols());
+        assertTrue(config.getTlsCipherSuites().isEmpty());
+        assertEquals(100, config.getTlsSessionCacheSize());
+        assertEquals(2, config.getWarmUpConnections());
+        assertFalse(config.isKeepWarmEnabled());
+        assertEquals(30, config.getKeepWarmInterval());
+        assertTrue(config.isJmxEnabled());
+        assertFalse(config.isServiceMetricsEnabled());
+        assertEquals("99.9", config.getSlowCallPercentile());
+        assertEquals(0.5, config.getSamplingRate("partnerRequest"), 0);
+        assertEquals(1, config.getSamplingRate("paymentData"), 0);
+        assertEquals(600, config.getPrivateKeyPositiveTtl());
+        assertEquals(3600, config.getOrderStatusTtl());
+        assertEquals(8, config.getBulkParallelism());
+        assertEquals(10, config.getBulkMerchantRate());
+        assertEquals(Arrays.asList("en", "fr-FR"), config.getLocales());
+        assertEquals("sharegroop_logo.png", config.getLogoFilename());
+        assertNull(config.getLogoContentType());
+        assertEquals(24, config.getLogoHeight());
+        assertEquals(2, config.getLogoVariants().size());
+        assertArrayEquals(new int[]{100, 200}, config.getLogoVariants().get(1));
+        assertEquals(8, config.getLogoVariantsMax());
+        assertEquals("10", config.get("http.socketTimeout"));
+    }
+
+    @Test
+    void invalidValues() {
+        // given: several invalid values
+        values.put("http.retries", "0");
+        values.put("http.socketTimeout", "ten");
+        values.put("metrics.jmx.enabled", "yes");
+        values.put("logging.sampling.partnerRequest", "2");
+
+        // when: building the config, then: all the errors are reported at once
+        PluginException e = assertThrows(PluginException.class, () -> new PluginConfig(values));
+        assertTrue(e.getMessage().contains("http.retries"));
+        assertTrue(e.getMessage().contains("http.socketTimeout"));
+        assertTrue(e.getMessage().contains("metrics.jmx.enabled"));
+        assertTrue(e.getMessage().contains("logging.sampling.partnerRequest"));
+    }
+
+    @Test
+    void invalidLogoSizes() {
+        // given: invalid logo sizes
+        values.put("logo.height", "abc");
+        values.put("logo.width", "0");
+        values.put("logo.variants", "48x50, 0x24");
+
+        // when: building the config, then: all of them are reported
+        PluginException e = assertThrows(PluginException.class, () -> new PluginConfig(values));
+        assertTrue(e.getMessage().contains("logo.height"));
+        assertTrue(e.getMessage().contains("logo.width"));
+        assertTrue(e.getMessage().contains("logo.variants"));
+    }
+
+    @Test
+    void invalidLogoVariant() {
+        values.put("logo.variants", "48");
+        assertThrows(PluginException.class, () -> new PluginConfig(values));
+    }
+
+    @Test
+    void invalidPercentile() {
+        values.put("slowCalls.percentile", "95");
+        assertThrows(PluginException.class, () -> new PluginConfig(values));
+    }
+
+    @Test
+    void config_isImmutable() {
+        // given: a config
+        PluginConfig config = new PluginConfig(values);
+
+        // when: the source values change
+        values.put("http.retries", "5");
+
+        // then: the config doesn't
+        assertEquals(3, config.getRetries());
+        assertEquals("3", config.get("http.retries"));
+    }
+}
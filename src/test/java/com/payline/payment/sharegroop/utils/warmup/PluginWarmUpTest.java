@@ -0,0 +1,37 @@
+package com.payline.payment.sharegroop.utils.warmup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PluginWarmUpTest {
+
+    @Test
+    void run_withoutConnections() {
+        // when: running the warm-up without any partner API URL
+        WarmUpReport report = PluginWarmUp.run();
+
+        // then: every stage but the connections one has run and succeeded
+        assertTrue(report.isSuccess(), report.toString());
+        assertEquals(0, report.getConnections());
+        assertEquals(0, report.getDurationMillis(WarmUpStage.CONNECTIONS), 0);
+        for (WarmUpStage stage : new WarmUpStage[]{WarmUpStage.CONFIG, WarmUpStage.I18N, WarmUpStage.JSON, WarmUpStage.LOGO, WarmUpStage.HTTP_CLIENT}) {
+            assertTrue(report.getDurationMillis(stage) > 0, stage.getLabel());
+        }
+    }
+
+    @Test
+    void report_failure() {
+        // given: a report with a failed stage
+        WarmUpReport report = new WarmUpReport();
+        report.stageDone(WarmUpStage.CONFIG, 2_000_000);
+        report.stageFailed(WarmUpStage.CONNECTIONS, 1_000_000, new IllegalStateException("unreachable"));
+
+        // then
+        assertFalse(report.isSuccess());
+        assertEquals(3, report.getTotalMillis(), 0.001);
+        assertEquals("IllegalStateException: unreachable", report.getFailure(WarmUpStage.CONNECTIONS));
+        assertNull(report.getFailure(WarmUpStage.CONFIG));
+        assertEquals("Warm-up done in 3.0 ms (config=2.0 ms, connections=1.0 ms [failed: IllegalStateException: unreachable]), 0 connection(s) opened", report.toString());
+    }
+}